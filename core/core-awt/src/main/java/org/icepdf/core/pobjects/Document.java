@@ -23,6 +23,7 @@ import org.icepdf.core.io.*;
 import org.icepdf.core.pobjects.acroform.FieldDictionary;
 import org.icepdf.core.pobjects.acroform.InteractiveForm;
 import org.icepdf.core.pobjects.annotations.AbstractWidgetAnnotation;
+import org.icepdf.core.pobjects.fonts.EmbeddedFontCache;
 import org.icepdf.core.pobjects.graphics.WatermarkCallback;
 import org.icepdf.core.pobjects.graphics.images.ImageUtility;
 import org.icepdf.core.pobjects.graphics.text.PageText;
@@ -31,6 +32,8 @@ import org.icepdf.core.util.Defs;
 import org.icepdf.core.util.LazyObjectLoader;
 import org.icepdf.core.util.Library;
 import org.icepdf.core.util.Parser;
+import org.icepdf.core.util.metrics.Metric;
+import org.icepdf.core.util.metrics.Metrics;
 import org.icepdf.core.util.updater.IncrementalUpdater;
 
 import java.awt.*;
@@ -499,6 +502,7 @@ public class Document {
     private void loadDocumentViaXRefs(SeekableInput in)
             throws PDFException, PDFSecurityException, IOException, InterruptedException {
         //if( true ) throw new RuntimeException("Fallback to linear traversal");
+        long start = Metrics.start();
         int offset = skipPastAnyPrefixJunk(in);
         long xrefPosition = getInitialCrossReferencePosition(in) + offset;
         PTrailer documentTrailer = null;
@@ -531,6 +535,7 @@ public class Document {
         LazyObjectLoader lol = new LazyObjectLoader(
                 library, in, documentTrailer.getPrimaryCrossReference());
         library.setLazyObjectLoader(lol);
+        if (Metrics.ENABLED) Metrics.time(Metric.XREF_LOAD, null, start);
 
         pTrailer = documentTrailer;
         catalog = documentTrailer.getRootCatalog();
@@ -1034,6 +1039,13 @@ public class Document {
      */
     public void dispose() {
 
+        if (library != null) {
+            library.getFormCache().clear();
+            library.getShadingCache().clear();
+            library.getImagePool().dispose();
+            EmbeddedFontCache.getInstance().release(library);
+        }
+
         if (documentSeekableInput != null) {
             try {
                 documentSeekableInput.close();
@@ -93,6 +93,8 @@ public class Form extends Stream {
     @SuppressWarnings("unchecked")
     public void setAppearance(Shapes shapes, AffineTransform matrix, Rectangle2D bbox) {
         inited = false;
+        // edited appearance, make sure other users of the form don't pick up the old content.
+        library.getFormCache().invalidate(getPObjectReference());
         this.shapes = shapes;
         this.matrix = matrix;
         this.bbox = bbox;
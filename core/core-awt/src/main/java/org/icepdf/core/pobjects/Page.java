@@ -23,6 +23,7 @@ import org.icepdf.core.pobjects.annotations.MarkupAnnotation;
 import org.icepdf.core.pobjects.annotations.PopupAnnotation;
 import org.icepdf.core.pobjects.graphics.Shapes;
 import org.icepdf.core.pobjects.graphics.WatermarkCallback;
+import org.icepdf.core.pobjects.graphics.images.references.ImageDecodeStage;
 import org.icepdf.core.pobjects.graphics.text.GlyphText;
 import org.icepdf.core.pobjects.graphics.text.LineText;
 import org.icepdf.core.pobjects.graphics.text.PageText;
@@ -74,6 +75,9 @@ public class Page extends Dictionary {
      */
     public static final float SELECTION_ALPHA = 0.3f;
 
+    // padding in user space applied to annotation bounds to cover borders painted on the rectangle edge.
+    private static final int ANNOTATION_DIRTY_PADDING = 4;
+
     // text selection colour
     public static Color selectionColor;
 
@@ -203,6 +207,8 @@ public class Page extends Dictionary {
 
     private int pageIndex;
     private int imageCount;
+    // image decodes queued while the content is parsed.
+    private volatile ImageDecodeStage imageDecodeStage;
     private boolean pageInitialized;
     private boolean pagePainted;
 
@@ -380,6 +386,17 @@ public class Page extends Dictionary {
         inited = false;
     }
 
+    /**
+     * Drops the page's parsed shapes, text and content streams so a page that has been rendered or extracted
+     * once doesn't hold them until the document is disposed.  The page is parsed again by the next call to
+     * init().
+     */
+    public synchronized void releasePageState() {
+        inited = false;
+        shapes = null;
+        contents = null;
+    }
+
     /**
      * Initialize the Page object.  This method triggers the parsing of a page's
      * child elements.  Once a page has been initialized, it can be painted.
@@ -420,14 +437,8 @@ public class Page extends Dictionary {
             if (contents != null) {
                 try {
                     ContentParser cp = new ContentParser(library, resources);
-                    byte[][] streams = new byte[contents.size()][];
-                    byte[] stream;
-                    for (int i = 0, max = contents.size(); i < max; i++) {
-                        stream = contents.get(i).getDecodedStreamBytes();
-                        if (stream != null) {
-                            streams[i] = stream;
-                        }
-                    }
+                    // decoded one at a time as the parser reaches them.
+                    Stream[] streams = contents.toArray(new Stream[0]);
                     // get any optional groups from the catalog, which control
                     // visibility
                     OptionalContent optionalContent =
@@ -436,9 +447,21 @@ public class Page extends Dictionary {
                         optionalContent.init();
                     }
 
-                    // pass in option group references into parse.
+                    // pass in option group references into parse, images are decoded together once parsed.
                     if (streams.length > 0) {
-                        shapes = cp.parse(streams, this).getShapes();
+                        boolean prepareImages = imageDecodeStage == null;
+                        if (prepareImages) {
+                            imageDecodeStage = new ImageDecodeStage();
+                        }
+                        try {
+                            shapes = cp.parse(streams, this).getShapes();
+                        } finally {
+                            if (prepareImages) {
+                                ImageDecodeStage stage = imageDecodeStage;
+                                imageDecodeStage = null;
+                                stage.start();
+                            }
+                        }
                     }
                     // set the initiated flag, first as there are couple corner
                     // cases where the content parsing can call page.init() again
@@ -648,11 +671,14 @@ public class Page extends Dictionary {
         // paint annotations if available and desired.
         if (annotations != null && paintAnnotations) {
             float totalRotation = getTotalRotation(userRotation);
-            int num = annotations.size();
-            Annotation annotation;
-            for (Annotation annotation1 : annotations) {
-                annotation = annotation1;
-                annotation.render(g2, renderHintType, totalRotation, userZoom, false);
+            // only annotations that intersect the clip need painting, this keeps repaints of a small
+            // dirty region cheap on pages with a lot of markup.
+            Shape clip = g2.getClip();
+            Rectangle2D clipBounds = clip != null ? clip.getBounds2D() : null;
+            for (Annotation annotation : annotations) {
+                if (clipBounds == null || isAnnotationVisible(annotation, clipBounds)) {
+                    annotation.render(g2, renderHintType, totalRotation, userZoom, false);
+                }
             }
         }
         // paint search highlight values
@@ -703,6 +729,19 @@ public class Page extends Dictionary {
         }
     }
 
+    private static boolean isAnnotationVisible(Annotation annotation, Rectangle2D clipBounds) {
+        // no zoom and no rotate annotations can paint outside of their rectangle.
+        if (annotation.getFlagNoZoom() || annotation.getFlagNoRotate()) {
+            return true;
+        }
+        Rectangle2D rect = annotation.getUserSpaceRectangle();
+        if (rect == null) {
+            return true;
+        }
+        return clipBounds.intersects(rect.getX() - ANNOTATION_DIRTY_PADDING, rect.getY() - ANNOTATION_DIRTY_PADDING,
+                rect.getWidth() + ANNOTATION_DIRTY_PADDING * 2, rect.getHeight() + ANNOTATION_DIRTY_PADDING * 2);
+    }
+
     /**
      * The Java Graphics coordinate system has the origin at the top-left
      * of the screen, with Y values increasing as one moves down the screen.
@@ -1037,6 +1076,36 @@ public class Page extends Dictionary {
         }
     }
 
+    /**
+     * Regenerates the appearance stream of a single annotation after an edit such as a move or resize.  Only the
+     * annotation's appearance shapes are rebuilt, the page content shapes are left as is so there is no need to
+     * call {@link #resetInitializedState()} and re-parse the page.  The union of the annotation's old and new
+     * bounds is returned so callers can limit the repaint to that area.
+     *
+     * @param annotation annotation that was edited.
+     * @param dx         x translation in page space to apply to the appearance.
+     * @param dy         y translation in page space to apply to the appearance.
+     * @param pageSpace  current page space transform.
+     * @param isNew      annotation change should be added to the state manager as a new change.
+     * @return user space area that needs to be repainted.
+     */
+    public Rectangle2D refreshAnnotationAppearance(Annotation annotation, double dx, double dy,
+                                                   AffineTransform pageSpace, boolean isNew) {
+        Rectangle2D oldBounds = annotation.getUserSpaceRectangle();
+        Rectangle2D dirty = oldBounds != null ? new Rectangle2D.Float() : null;
+        if (dirty != null) {
+            dirty.setRect(oldBounds);
+        }
+        annotation.resetAppearanceStream(dx, dy, pageSpace, isNew);
+        Rectangle2D newBounds = annotation.getUserSpaceRectangle();
+        if (dirty == null) {
+            dirty = newBounds;
+        } else if (newBounds != null) {
+            dirty.add(newBounds);
+        }
+        return dirty;
+    }
+
     /**
      * Gets a reference to the page's parent page tree.  A reference can be resolved
      * by the Library class.
@@ -1601,10 +1670,7 @@ public class Page extends Dictionary {
             try {
 
                 ContentParser cp = new ContentParser(library, resources);
-                byte[][] streams = new byte[contents.size()][];
-                for (int i = 0, max = contents.size(); i < max; i++) {
-                    streams[i] = contents.get(i).getDecodedStreamBytes();
-                }
+                Stream[] streams = contents.toArray(new Stream[0]);
                 textBlockShapes = cp.parseTextBlocks(streams);
                 // print off any fuzz left on the stack
                 if (logger.isLoggable(Level.FINER)) {
@@ -1647,6 +1713,16 @@ public class Page extends Dictionary {
         return imageCount;
     }
 
+    /**
+     * Gets the stage collecting the page's image decodes while its content is being parsed.  The decodes are
+     * started together on the image pool once parsing is done.
+     *
+     * @return image decode stage, null if the page isn't being parsed.
+     */
+    public ImageDecodeStage getImageDecodeStage() {
+        return imageDecodeStage;
+    }
+
     /**
      * Returns true if the page is initialized, this is different then init(),
      * as it tracks if the page has started initialization and we don't want to
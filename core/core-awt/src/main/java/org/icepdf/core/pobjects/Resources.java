@@ -22,6 +22,7 @@ import org.icepdf.core.util.Library;
 
 import java.awt.*;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -60,6 +61,9 @@ public class Resources extends Dictionary {
     HashMap extGStates;
     HashMap properties;
 
+    // colour spaces resolved by name, pattern spaces are left out as the content parser updates them.
+    private final ConcurrentHashMap<Name, PColorSpace> colorSpaceCache = new ConcurrentHashMap<>();
+
     public Resources(Library l, HashMap h) {
         super(l, h);
         colorspaces = library.getDictionary(entries, COLORSPACE_KEY);
@@ -80,7 +84,23 @@ public class Resources extends Dictionary {
         if (o == null) {
             return null;
         }
+        if (o instanceof Name) {
+            PColorSpace cs = colorSpaceCache.get(o);
+            if (cs == null) {
+                cs = resolveColorSpace(o);
+                if (cs != null && !(cs instanceof PatternColor)) {
+                    PColorSpace previous = colorSpaceCache.putIfAbsent((Name) o, cs);
+                    if (previous != null) {
+                        cs = previous;
+                    }
+                }
+            }
+            return cs;
+        }
+        return resolveColorSpace(o);
+    }
 
+    private PColorSpace resolveColorSpace(Object o) {
         try {
             Object tmp;
             // every resource has a color space entry and o can be tmp in it.
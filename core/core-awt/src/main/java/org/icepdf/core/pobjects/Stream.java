@@ -15,17 +15,18 @@
  */
 package org.icepdf.core.pobjects;
 
-import org.icepdf.core.io.BitStream;
-import org.icepdf.core.io.ConservativeSizingByteArrayOutputStream;
 import org.icepdf.core.io.SeekableInputConstrainedWrapper;
 import org.icepdf.core.pobjects.filters.*;
 import org.icepdf.core.pobjects.security.SecurityManager;
 import org.icepdf.core.util.Library;
+import org.icepdf.core.util.metrics.Metric;
+import org.icepdf.core.util.metrics.Metrics;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.logging.Level;
@@ -56,6 +57,10 @@ public class Stream extends Dictionary {
     public static final Name FILTER_CCITT_FAX_DECODE = new Name("CCITTFaxDecode");
     public static final Name FILTER_JBIG2_DECODE = new Name("JBIG2Decode");
     public static final Name FILTER_JPX_DECODE = new Name("JPXDecode");
+    public static final Name DECODED_LENGTH_KEY = new Name("DL");
+
+    // largest output array allocated up front from a length hint, bigger streams grow as they are read.
+    private static final int MAX_LENGTH_HINT = 64 * 1024 * 1024;
 
     // original byte stream that has not been decoded
     protected byte[] rawBytes;
@@ -128,46 +133,46 @@ public class Stream extends Dictionary {
     }
 
     public byte[] getDecodedStreamBytes() {
-        return getDecodedStreamBytes(8192);
+        return getDecodedStreamBytes(0);
     }
 
     /**
-     * This is similar to getDecodedStreamByteArray(), except that the returned byte[]
-     * is not necessarily exactly sized, and may be larger. Therefore the returned
-     * Integer gives the actual valid size
+     * Decodes the stream into an exactly sized byte array.  The decoded data is read straight into an array
+     * sized from the presize, the stream's /DL entry or an estimate based on the raw length, so well sized
+     * hints avoid any intermediate copies.
      *
-     * @param presize potential size to associate with byte array.
-     * @return Object[] { byte[] data, Integer sizeActualData }
+     * @param presize expected decoded size, zero or less to use the /DL entry or an estimate.
+     * @return decoded stream bytes, null if the stream has no data or can't be decoded.
      */
     public byte[] getDecodedStreamBytes(int presize) {
         // decompress the stream
         if (compressed) {
+            long start = Metrics.start();
             try {
-                // todo, could nio all a little speed up here.
-                ByteArrayInputStream streamInput = new ByteArrayInputStream(rawBytes);
-                long rawStreamLength = rawBytes.length;
-                InputStream input = getDecodedInputStream(streamInput, rawStreamLength);
+                InputStream input = getDecodedInputStream();
                 if (input == null) return null;
-                int outLength;
-                if (presize > 0) {
-                    outLength = presize;
-                } else {
-                    outLength = Math.max(4096, (int) rawStreamLength);
-                }
-                ConservativeSizingByteArrayOutputStream out = new
-                        ConservativeSizingByteArrayOutputStream(outLength);
-                byte[] buffer = new byte[(outLength > 4096) ? 4096 : 8192];
+                byte[] out = new byte[getDecodedLengthHint(presize)];
+                int count = 0;
                 while (true) {
-                    int read = input.read(buffer);
+                    if (count == out.length) {
+                        // full, make sure there is more before growing.
+                        int next = input.read();
+                        if (next < 0)
+                            break;
+                        out = Arrays.copyOf(out, Math.max(out.length + 4096, out.length + (out.length >> 1)));
+                        out[count++] = (byte) next;
+                    }
+                    int read = input.read(out, count, out.length - count);
                     if (read <= 0)
                         break;
-                    out.write(buffer, 0, read);
+                    count += read;
                 }
                 input.close();
-                out.flush();
-                out.close();
-                out.trim();
-                return out.relinquishByteArray();
+                if (count != out.length) {
+                    out = Arrays.copyOf(out, count);
+                }
+                if (Metrics.ENABLED) Metrics.time(Metric.FILTER_DECODE, getFilterTag(), start);
+                return out;
             } catch (IOException e) {
                 logger.log(Level.FINE, "Problem decoding stream bytes: ", e);
             }
@@ -180,6 +185,40 @@ public class Stream extends Dictionary {
         return null;
     }
 
+    private int getDecodedLengthHint(int presize) {
+        if (presize > 0) {
+            return presize;
+        }
+        int decodedLength = library.getInt(entries, DECODED_LENGTH_KEY);
+        if (decodedLength > 0) {
+            return Math.min(decodedLength, MAX_LENGTH_HINT);
+        }
+        List<String> filterNames = getNormalisedFilterNames();
+        if (filterNames != null && (filterNames.contains("FlateDecode") || filterNames.contains("LZWDecode") ||
+                filterNames.contains("RunLengthDecode"))) {
+            // typical content and font streams inflate to three or four times their size.
+            return (int) Math.max(4096, Math.min(rawBytes.length * 4L, MAX_LENGTH_HINT));
+        }
+        // image data passed through as is, or ascii encodings that only shrink.
+        return Math.max(rawBytes.length, 64);
+    }
+
+    /**
+     * Gets a stream that decodes the raw bytes on the fly as defined by the stream's filters, letting large
+     * streams be consumed without materialising all of the decoded data.  Streams that haven't been
+     * compressed yet, such as edited content, return their raw bytes.
+     *
+     * @return decoded input stream, null if the stream has no data.
+     */
+    public InputStream getDecodedInputStream() {
+        if (rawBytes == null || rawBytes.length < 1) {
+            return null;
+        } else if (!compressed) {
+            return new ByteArrayInputStream(rawBytes);
+        }
+        return getDecodedInputStream(rawBytes);
+    }
+
     /**
      * Utility method for decoding the byte stream using the decode algorithem
      * specified by the filter parameter
@@ -191,21 +230,23 @@ public class Stream extends Dictionary {
      *
      * @return inputstream that has been decoded as defined by the streams filters.
      */
-    private InputStream getDecodedInputStream(InputStream streamInput, long streamLength) {
-        // Make sure that the stream actually has data to decode, if it doesn't
-        // make it null and return.
-        if (streamInput == null || streamLength < 1) {
-            return null;
+    private InputStream getDecodedInputStream(byte[] streamBytes) {
+        List filterNames = getFilterNames();
+        SecurityManager securityManager = library.getSecurityManager();
+        int firstFilter = 0;
+        InputStream input;
+        if (securityManager == null && filterNames != null && !filterNames.isEmpty() &&
+                "FlateDecode".equals(normaliseFilterName(filterNames.get(0).toString()))) {
+            // most common case, inflate straight from the raw bytes.
+            input = new FlateDecode(library, entries, streamBytes, 0, streamBytes.length);
+            firstFilter = 1;
+        } else {
+            int bufferSize = Math.min(Math.max(streamBytes.length, 64), 16 * 1024);
+            input = new java.io.BufferedInputStream(new ByteArrayInputStream(streamBytes), bufferSize);
         }
 
-        InputStream input = streamInput;
-
-        int bufferSize = Math.min(Math.max((int) streamLength, 64), 16 * 1024);
-        input = new java.io.BufferedInputStream(input, bufferSize);
-
         // Search for crypt dictionary entry and decode params so that
         // named filters can be assigned correctly.
-        SecurityManager securityManager = library.getSecurityManager();
 //        System.out.println("Thread " + Thread.currentThread() + " " + pObjectReference);
         if (securityManager != null) {
             // check see of there is a decodeParams for a crypt filter.
@@ -216,28 +257,31 @@ public class Stream extends Dictionary {
 
         // Get the filter name for the encoding type, which can be either
         // a Name or Vector.
-        List filterNames = getFilterNames();
         if (filterNames == null)
             return input;
 
         // Decode the stream data based on the filter names.
         // Loop through the filterNames and apply the filters in the order
         // in which they where found.
-        for (Object filterName1 : filterNames) {
+        for (int i = firstFilter, max = filterNames.size(); i < max; i++) {
             // grab the name of the filter
-            String filterName = filterName1.toString();
+            String filterName = filterNames.get(i).toString();
             //System.out.println("  Decoding: " + filterName);
 
             switch (filterName) {
                 case "FlateDecode":
                 case "/Fl":
                 case "Fl":
+                    // applies any predictor itself as the rows are inflated.
                     input = new FlateDecode(library, entries, input);
                     break;
                 case "LZWDecode":
                 case "/LZW":
                 case "LZW":
-                    input = new LZWDecode(new BitStream(input), library, entries);
+                    input = new LZWDecode(input, library, entries);
+                    if (PredictorDecode.isPredictor(library, entries)) {
+                        input = new PredictorDecode(input, library, entries);
+                    }
                     break;
                 case "ASCII85Decode":
                 case "/A85":
@@ -281,14 +325,23 @@ public class Stream extends Dictionary {
                     break;
             }
         }
-        // Apply  Predictor Filter logic fo LZW or Flate streams.
-        if (PredictorDecode.isPredictor(library, entries)) {
-            input = new PredictorDecode(input, library, entries);
-        }
-
         return input;
     }
 
+    /**
+     * Builds a metrics tag from the normalised filter chain, for example "FlateDecode" or
+     * "ASCII85Decode+FlateDecode".
+     */
+    private String getFilterTag() {
+        List<String> filterNames = getNormalisedFilterNames();
+        if (filterNames == null || filterNames.isEmpty()) {
+            return "None";
+        } else if (filterNames.size() == 1) {
+            return filterNames.get(0);
+        }
+        return String.join("+", filterNames);
+    }
+
     @SuppressWarnings("unchecked")
     public List<String> getFilterNames() {
         List<String> filterNames = null;
@@ -303,55 +356,51 @@ public class Stream extends Dictionary {
     }
 
     protected List<String> getNormalisedFilterNames() {
-        List<String> filterNames = getFilterNames();
+        List<?> filterNames = getFilterNames();
         if (filterNames == null)
             return null;
+        // copy as the filter list may be backed by the stream dictionary and contain Name objects.
+        List<String> normalisedNames = new ArrayList<>(filterNames.size());
+        for (Object filterName : filterNames) {
+            normalisedNames.add(normaliseFilterName(filterName.toString()));
+        }
+        return normalisedNames;
+    }
 
-        String filterName;
-        for (int i = 0; i < filterNames.size(); i++) {
-            filterName = filterNames.get(i);
-
-            switch (filterName) {
-                case "FlateDecode":
-                case "/Fl":
-                case "Fl":
-                    filterName = "FlateDecode";
-                    break;
-                case "LZWDecode":
-                case "/LZW":
-                case "LZW":
-                    filterName = "LZWDecode";
-                    break;
-                case "ASCII85Decode":
-                case "/A85":
-                case "A85":
-                    filterName = "ASCII85Decode";
-                    break;
-                case "ASCIIHexDecode":
-                case "/AHx":
-                case "AHx":
-                    filterName = "ASCIIHexDecode";
-                    break;
-                case "RunLengthDecode":
-                case "/RL":
-                case "RL":
-                    filterName = "RunLengthDecode";
-                    break;
-                case "CCITTFaxDecode":
-                case "/CCF":
-                case "CCF":
-                    filterName = "CCITTFaxDecode";
-                    break;
-                case "DCTDecode":
-                case "/DCT":
-                case "DCT":
-                    filterName = "DCTDecode";
-                    break;
-            }
-            // There aren't short names for JBIG2Decode or JPXDecode
-            filterNames.set(i, filterName);
+    private static String normaliseFilterName(String filterName) {
+        switch (filterName) {
+            case "FlateDecode":
+            case "/Fl":
+            case "Fl":
+                return "FlateDecode";
+            case "LZWDecode":
+            case "/LZW":
+            case "LZW":
+                return "LZWDecode";
+            case "ASCII85Decode":
+            case "/A85":
+            case "A85":
+                return "ASCII85Decode";
+            case "ASCIIHexDecode":
+            case "/AHx":
+            case "AHx":
+                return "ASCIIHexDecode";
+            case "RunLengthDecode":
+            case "/RL":
+            case "RL":
+                return "RunLengthDecode";
+            case "CCITTFaxDecode":
+            case "/CCF":
+            case "CCF":
+                return "CCITTFaxDecode";
+            case "DCTDecode":
+            case "/DCT":
+            case "DCT":
+                return "DCTDecode";
+            default:
+                // There aren't short names for JBIG2Decode or JPXDecode
+                return filterName;
         }
-        return filterNames;
     }
 
     /**
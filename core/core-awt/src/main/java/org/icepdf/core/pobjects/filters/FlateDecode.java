@@ -16,16 +16,14 @@
 package org.icepdf.core.pobjects.filters;
 
 import org.icepdf.core.pobjects.Name;
-import org.icepdf.core.pobjects.graphics.images.ImageParams;
 import org.icepdf.core.util.Defs;
 import org.icepdf.core.util.Library;
-import org.icepdf.core.util.Utils;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
-import java.util.zip.InflaterInputStream;
 
 /**
  * @author Mark Collette
@@ -50,63 +48,20 @@ public class FlateDecode extends ChunkingInputStream {
     public static final Name BITS_PER_COMPONENT_VALUE = new Name("BitsPerComponent");
 
 
+    // size of the compressed chunks handed to the inflater when reading from a stream.
+    private static final int INPUT_BUFFER_SIZE = 8192;
+
     private InputStream originalInputKeptSolelyForDebugging;
-    // default values for non image streams.
-    private int width = 1;
-    private int numComponents = 1;
-    private int bitsPerComponent = 8;
-    private int predictor;
+    // applies the stream's predictor directly to the inflated rows, null if there isn't one.
+    private PredictorDecode.RowDecoder rowDecoder;
+    // pooled inflater, null once the data has been fully inflated.
+    private Inflater inflater;
+    private byte[] inputBuffer;
 
 
     public FlateDecode(Library library, HashMap props, InputStream input) {
-        super();
+        this(library, props);
         originalInputKeptSolelyForDebugging = input;
-
-        int intermediateBufferSize = DEFAULT_BUFFER_SIZE;
-
-        // get decode parameters from stream properties
-        HashMap decodeParmsDictionary = ImageParams.getDecodeParams(library, props);
-        predictor = library.getInt(decodeParmsDictionary, PREDICTOR_VALUE);
-        if (predictor != PredictorDecode.PREDICTOR_NONE &&
-                predictor != PredictorDecode.PREDICTOR_TIFF_2 &&
-                predictor != PredictorDecode.PREDICTOR_PNG_NONE &&
-                predictor != PredictorDecode.PREDICTOR_PNG_SUB &&
-                predictor != PredictorDecode.PREDICTOR_PNG_UP &&
-                predictor != PredictorDecode.PREDICTOR_PNG_AVG &&
-                predictor != PredictorDecode.PREDICTOR_PNG_PAETH &&
-                predictor != PredictorDecode.PREDICTOR_PNG_OPTIMUM) {
-            predictor = PredictorDecode.PREDICTOR_NONE;
-        }
-        if (predictor != PredictorDecode.PREDICTOR_NONE) {
-            Number widthNumber = library.getNumber(props, WIDTH_VALUE);
-            if (widthNumber != null) {
-                width = widthNumber.intValue();
-            }
-            int columns = library.getInt(decodeParmsDictionary, COLUMNS_VALUE);
-            if (columns > 0) width = columns;
-
-            // Since DecodeParms.BitsPerComponent has a default value, I don't think we'd
-            //   look at entries.ColorSpace to know the number of components. But, here's the info:
-            //   /ColorSpace /DeviceGray: 1 comp, /DeviceRBG: 3 comps, /DeviceCMYK: 4 comps, /DeviceN: N comps
-            // I'm going to extend that to mean I won't look at entries.BitsPerComponent either
-
-            numComponents = 1;    // DecodeParms.Colors: 1,2,3,4  Default=1
-            bitsPerComponent = 8; // DecodeParms.BitsPerComponent: 1,2,4,8,16  Default=8
-
-            Object numComponentsDecodeParmsObj = library.getObject(decodeParmsDictionary, COLORS_VALUE);
-            if (numComponentsDecodeParmsObj instanceof Number) {
-                numComponents = ((Number) numComponentsDecodeParmsObj).intValue();
-            }
-            Object bitsPerComponentDecodeParmsObj = library.getObject(decodeParmsDictionary, BITS_PER_COMPONENT_VALUE);
-            if (bitsPerComponentDecodeParmsObj instanceof Number) {
-                bitsPerComponent = ((Number) bitsPerComponentDecodeParmsObj).intValue();
-            }
-
-            // Make buffer exactly large enough for one row of data (without predictor)
-            intermediateBufferSize = Utils.numBytesToHoldBits(width * numComponents * bitsPerComponent);
-        }
-
-        // Create the inflater input stream which will do the encoding
         try {
             // skip zlib header
             input.read();
@@ -114,44 +69,111 @@ public class FlateDecode extends ChunkingInputStream {
         } catch (IOException e) {
             // e.printStackTrace();
         }
-        // force support GZIP compatible compression
-        setInputStream(new InflaterInputStream(input, new Inflater(true)));
+        setInputStream(input);
+        inputBuffer = new byte[INPUT_BUFFER_SIZE];
+    }
+
+    /**
+     * Creates a decoder that inflates straight from the given array, avoiding the stream and copy overhead
+     * when the compressed data is already in memory.
+     *
+     * @param library document library.
+     * @param props   stream dictionary.
+     * @param data    compressed data including the zlib header.
+     * @param offset  offset of the first byte of the zlib header.
+     * @param length  length of the compressed data.
+     */
+    public FlateDecode(Library library, HashMap props, byte[] data, int offset, int length) {
+        this(library, props);
+        // skip zlib header
+        if (length > 2) {
+            inflater.setInput(data, offset + 2, length - 2);
+        }
+    }
+
+    private FlateDecode(Library library, HashMap props) {
+        super();
+        int intermediateBufferSize = DEFAULT_BUFFER_SIZE;
+        rowDecoder = PredictorDecode.createRowDecoder(library, props);
+        if (rowDecoder != null) {
+            // whole rows so each chunk can be decoded in place
+            intermediateBufferSize = rowDecoder.getChunkSize(DEFAULT_BUFFER_SIZE);
+        }
+        // raw deflate, the public constructors skip the zlib header.
+        inflater = InflaterPool.acquire();
         setBufferSize(intermediateBufferSize);
     }
 
-    protected int fillInternalBuffer() throws IOException {
-
-        if (predictor == PredictorDecode.PREDICTOR_NONE) {
-            int numRead = fillBufferFromInputStream();
-            if (numRead <= 0)
-                return -1;
-            return numRead;
-        } else if (predictor == PredictorDecode.PREDICTOR_TIFF_2) {
-            int numRead = fillBufferFromInputStream();
-            if (numRead <= 0)
-                return -1;
-            if (bitsPerComponent == 8) {
-                for (int i = 0; i < numRead; i++) {
-                    int prevIndex = i - numComponents;
-                    if (prevIndex >= 0) {
-                        buffer[i] += buffer[prevIndex];
-                    }
+    protected int fillInternalBuffer() {
+        int numRead = inflate(buffer, 0, buffer.length);
+        if (numRead <= 0)
+            return -1;
+        if (rowDecoder != null) {
+            numRead = rowDecoder.decode(buffer, numRead);
+        }
+        return numRead;
+    }
+
+    public int read(byte[] b, int off, int length) throws IOException {
+        // large reads with nothing buffered inflate straight into the caller's array
+        if (rowDecoder == null && length >= buffer.length && available() == 0) {
+            return inflate(b, off, length);
+        }
+        return super.read(b, off, length);
+    }
+
+    /**
+     * Inflates until the given range is full or the data runs out.
+     *
+     * @return number of bytes inflated, -1 if there is no more data.
+     */
+    private int inflate(byte[] b, int off, int length) {
+        int read = 0;
+        while (read < length && inflater != null) {
+            try {
+                int count = inflater.inflate(b, off + read, length - read);
+                read += count;
+                if (count == 0 && (inflater.finished() || inflater.needsDictionary() ||
+                        (inflater.needsInput() && !fillInput()))) {
+                    releaseInflater();
                 }
+            } catch (DataFormatException e) {
+                // corrupt or truncated data, keep what was inflated and stop, same as the rare zlib EOF error
+                releaseInflater();
             }
-            return numRead;
         }
-        // Predictor decode is handle by the PredictorDecode class as it's also
-        // used by LZW Decode. So all we need to do is fill the buffer.
-        else if (predictor >= PredictorDecode.PREDICTOR_PNG_NONE &&
-                predictor <= PredictorDecode.PREDICTOR_PNG_OPTIMUM) {
-            int numRead = fillBufferFromInputStream();
-            if (numRead <= 0) return -1;
-            return numRead;
+        return read > 0 ? read : -1;
+    }
+
+    private boolean fillInput() {
+        if (in == null) {
+            return false;
+        }
+        int count;
+        try {
+            count = in.read(inputBuffer);
+        } catch (IOException e) {
+            // treat a failing source like a truncated one and keep what has been inflated.
+            return false;
         }
+        if (count <= 0) {
+            return false;
+        }
+        inflater.setInput(inputBuffer, 0, count);
+        return true;
+    }
 
-        return -1;
+    private void releaseInflater() {
+        if (inflater != null) {
+            InflaterPool.release(inflater);
+            inflater = null;
+        }
     }
 
+    public void close() throws IOException {
+        releaseInflater();
+        super.close();
+    }
 
     public String toString() {
         StringBuilder sb = new StringBuilder();
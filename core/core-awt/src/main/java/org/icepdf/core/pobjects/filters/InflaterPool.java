@@ -0,0 +1,71 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.filters;
+
+import org.icepdf.core.util.Defs;
+
+import java.util.zip.Inflater;
+
+/**
+ * Keeps one raw (nowrap) Inflater per thread so that decoding the thousands of small content and font streams
+ * found in some documents doesn't allocate and finalise a native zlib context for each one.
+ *
+ * @since 7.0
+ */
+public final class InflaterPool {
+
+    /**
+     * Gets the value of the system property "org.icepdf.core.flateDecode.pooledInflater", default true.
+     */
+    private static final boolean POOLING_ENABLED =
+            Defs.booleanProperty("org.icepdf.core.flateDecode.pooledInflater", true);
+
+    private static final ThreadLocal<Inflater> cachedInflater = new ThreadLocal<>();
+
+    private InflaterPool() {
+    }
+
+    /**
+     * Gets a reset inflater for the calling thread, a new one is created if the thread's inflater is already
+     * in use by a nested decode.
+     *
+     * @return inflater ready for new input.
+     */
+    public static Inflater acquire() {
+        if (POOLING_ENABLED) {
+            Inflater inflater = cachedInflater.get();
+            if (inflater != null) {
+                cachedInflater.set(null);
+                return inflater;
+            }
+        }
+        return new Inflater(true);
+    }
+
+    /**
+     * Returns an inflater to the calling thread's cache, or frees it if the cache is already full.
+     *
+     * @param inflater inflater obtained from {@link #acquire()}, should not be used after this call.
+     */
+    public static void release(Inflater inflater) {
+        if (POOLING_ENABLED && cachedInflater.get() == null) {
+            inflater.reset();
+            cachedInflater.set(inflater);
+        } else {
+            inflater.end();
+        }
+    }
+}
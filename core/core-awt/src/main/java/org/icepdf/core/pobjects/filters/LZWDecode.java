@@ -15,15 +15,17 @@
  */
 package org.icepdf.core.pobjects.filters;
 
-import org.icepdf.core.io.BitStream;
 import org.icepdf.core.pobjects.Name;
 import org.icepdf.core.util.Library;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
-import java.util.Stack;
 
 /**
+ * LZW decoder, the string table is kept as flat prefix, suffix and length arrays and each code is written
+ * straight into the output buffer back to front by walking its prefix chain.
+ *
  * @author Mark Collette
  * @since 2.0
  */
@@ -32,21 +34,31 @@ public class LZWDecode extends ChunkingInputStream {
     public static final Name DECODEPARMS_KEY = new Name("DecodeParms");
     public static final Name EARLYCHANGE_KEY = new Name("EarlyChange");
 
+    private static final int CLEAR_TABLE = 256;
+    private static final int END_OF_DATA = 257;
+    private static final int FIRST_CODE = 258;
+    private static final int MAX_CODES = 4096;
+    private static final int MAX_CODE_LENGTH = 12;
 
-    private BitStream inb;
     private int earlyChange;
-    private int code;
-    private int old_code;
-    private boolean firstTime;
-
-    private int code_len;
-    private int last_code;
-    private Code[] codes;
-
-
-    public LZWDecode(BitStream inb, Library library, HashMap entries) {
-        this.inb = inb;
 
+    // string table, a string is its prefix code's string followed by the suffix byte.
+    private final int[] prefix = new int[MAX_CODES];
+    private final byte[] suffix = new byte[MAX_CODES];
+    private final int[] length = new int[MAX_CODES];
+    private int nextCode;
+    private int codeLength;
+    private int previousCode;
+    private boolean endOfData;
+
+    // bit reader over the encoded input
+    private final byte[] input = new byte[4096];
+    private int inputPosition;
+    private int inputLimit;
+    private int bitBuffer;
+    private int bitCount;
+
+    public LZWDecode(InputStream in, Library library, HashMap entries) {
         this.earlyChange = 1; // Default value
         HashMap decodeParmsDictionary = library.getDictionary(entries, DECODEPARMS_KEY);
         if (decodeParmsDictionary != null) {
@@ -56,128 +68,97 @@ public class LZWDecode extends ChunkingInputStream {
             }
         }
 
-        code = 0;
-        old_code = 0;
-        firstTime = true;
+        for (int i = 0; i < 256; i++) {
+            suffix[i] = (byte) i;
+            length[i] = 1;
+        }
         initCodeTable();
-        setBufferSize(4096);
+        setInputStream(in);
+        // room for a few maximum length strings
+        setBufferSize(MAX_CODES * 4);
     }
 
     protected int fillInternalBuffer() throws IOException {
-        int numRead = 0;
-        // start decompression,  haven't tried to optimized this one yet for
-        // speed or for memory.
-
-        if (firstTime) {
-            firstTime = false;
-            old_code = code = inb.getBits(code_len);
-        } else if (inb.atEndOfFile())
+        if (endOfData) {
             return -1;
-
-        do {
-            if (code == 256) {
-                initCodeTable();
-            } else if (code == 257) {
+        }
+        byte[] out = buffer;
+        // stop while there's still room for the longest possible string.
+        int limit = out.length - MAX_CODES;
+        int numRead = 0;
+        while (numRead <= limit) {
+            int code = readCode();
+            if (code < 0 || code == END_OF_DATA) {
+                endOfData = true;
                 break;
-            } else {
-                if (codes[code] != null) {
-                    Stack stack = new Stack();
-                    codes[code].getString(stack);
-                    Code c = (Code) stack.pop();
-                    addToBuffer(c.c, numRead);
-                    numRead++;
-                    //System.err.println((char)c.c);
-                    byte first = c.c;
-                    while (!stack.empty()) {
-                        c = (Code) stack.pop();
-                        addToBuffer(c.c, numRead);
-                        numRead++;
-                        //System.err.println((char)c.c);
-                    }
-                    //							while (codes[last_code]!=null) last_code++;
-                    codes[last_code++] = new Code(codes[old_code], first);
-                } else {
-                    //System.err.println("MISS: "+last_code+" "+code);
-                    if (code != last_code)
-                        throw new RuntimeException("LZWDecode failure");
-                    Stack stack = new Stack();
-                    codes[old_code].getString(stack);
-                    Code c = (Code) stack.pop();
-                    addToBuffer(c.c, numRead);
-                    numRead++;
-                    //System.err.println((char)c.c);
-                    byte first = c.c;
-                    while (!stack.empty()) {
-                        c = (Code) stack.pop();
-                        addToBuffer(c.c, numRead);
-                        numRead++;
-                        //System.err.println((char)c.c);
-                    }
-                    addToBuffer(first, numRead);
-                    numRead++;
-                    codes[code] = new Code(codes[old_code], first);
-                    last_code++;
-                }
             }
-            if (code_len < 12 && last_code == (1 << code_len) - earlyChange) {
-                //System.err.println(last_code+" "+code_len);
-                code_len++;
+            if (code == CLEAR_TABLE) {
+                initCodeTable();
+                continue;
             }
-            old_code = code;
-            code = inb.getBits(code_len);
-
-            if (inb.atEndOfFile())
+            int count;
+            if (code < nextCode) {
+                count = length[code];
+                writeString(code, out, numRead, count);
+            } else if (code == nextCode && previousCode >= 0) {
+                // the string for the previous code followed by its own first byte.
+                int previousLength = length[previousCode];
+                writeString(previousCode, out, numRead, previousLength);
+                out[numRead + previousLength] = out[numRead];
+                count = previousLength + 1;
+            } else {
+                // corrupt data, keep what was decoded so far.
+                endOfData = true;
                 break;
-        } while (numRead < buffer.length);
-
-        return numRead;
-    }
-
-    private void initCodeTable() {
-        code_len = 9;
-        last_code = 257;
-        codes = new Code[4096];
-        for (int i = 0; i < 256; i++)
-            codes[i] = new Code(null, (byte) i);
+            }
+            if (previousCode >= 0) {
+                addCode(previousCode, out[numRead]);
+            }
+            previousCode = code;
+            numRead += count;
+        }
+        return numRead > 0 ? numRead : -1;
     }
 
-    private void addToBuffer(byte b, int offset) {
-        if (offset >= buffer.length) { // Should never happen
-            byte[] bufferNew = new byte[buffer.length * 2];
-            System.arraycopy(buffer, 0, bufferNew, 0, buffer.length);
-            buffer = bufferNew;
+    private void writeString(int code, byte[] out, int offset, int count) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            out[i] = suffix[code];
+            code = prefix[code];
         }
-        buffer[offset] = b;
     }
 
-
-    public void close() throws IOException {
-        super.close();
-
-        if (inb != null) {
-            inb.close();
-            inb = null;
+    private void addCode(int prefixCode, byte first) {
+        if (nextCode < MAX_CODES) {
+            prefix[nextCode] = prefixCode;
+            suffix[nextCode] = first;
+            length[nextCode] = length[prefixCode] + 1;
+            nextCode++;
+            if (codeLength < MAX_CODE_LENGTH && nextCode + earlyChange >= (1 << codeLength)) {
+                codeLength++;
+            }
         }
     }
 
-
-    /**
-     * Utility class for decode methods.
-     */
-    private static class Code {
-        Code prefix;
-        byte c;
-
-        Code(Code p, byte cc) {
-            prefix = p;
-            c = cc;
+    private int readCode() throws IOException {
+        while (bitCount < codeLength) {
+            if (inputPosition == inputLimit) {
+                int read = in.read(input, 0, input.length);
+                if (read <= 0) {
+                    return -1;
+                }
+                inputPosition = 0;
+                inputLimit = read;
+            }
+            bitBuffer = (bitBuffer << 8) | (input[inputPosition++] & 0xff);
+            bitCount += 8;
         }
+        bitCount -= codeLength;
+        return (bitBuffer >>> bitCount) & ((1 << codeLength) - 1);
+    }
 
-        @SuppressWarnings("unchecked")
-        void getString(Stack s) {
-            s.push(this);
-            if (prefix != null)
-                prefix.getString(s);
-        }
+    private void initCodeTable() {
+        codeLength = 9;
+        nextCode = FIRST_CODE;
+        previousCode = -1;
     }
 }
@@ -13,6 +13,9 @@ import java.util.HashMap;
  * Predictor decoder for LZW and Flate data streams.  Uses the same streaming
  * as our other Filters but simplifies how the bytes are read in as we treat
  * the parent (LZW or Flate) stream as a regular ChunkingInputStream.
+ * <p>
+ * Rows are decoded a chunk at a time and in place by a {@link RowDecoder}, FlateDecode applies the same
+ * RowDecoder directly to its inflated output so only LZW data is wrapped by this stream.
  *
  * @since 5.0.6
  */
@@ -64,22 +67,44 @@ public class PredictorDecode extends ChunkingInputStream {
     protected static final Name COLORS_VALUE = new Name("Colors");
     protected static final Name BITS_PER_COMPONENT_VALUE = new Name("BitsPerComponent");
     protected static final Name EARLY_CHANGE_VALUE = new Name("EarlyChange");
-    // default values for non image streams.
-    protected int predictor;
-    protected int numComponents = 1;
-    protected int bitsPerComponent = 8;
-    protected int width = 1;
-    protected int bytesPerPixel = 1;// From RFC 2083 (PNG), it's bytes per pixel, rounded up to 1
 
-    // reference to previous buffer
-    protected byte[] aboveBuffer;
+    // rows are decoded in chunks of about this many bytes.
+    private static final int CHUNK_SIZE = 16384;
+
+    private final RowDecoder rowDecoder;
 
     public PredictorDecode(InputStream input, Library library, HashMap entries) {
         super();
+        RowDecoder rowDecoder = createRowDecoder(library, entries);
+        // unknown predictors pass the data through untouched.
+        this.rowDecoder = rowDecoder != null ? rowDecoder : new RowDecoder(PREDICTOR_NONE, 1, 1, 8);
+        setBufferSize(this.rowDecoder.getChunkSize(CHUNK_SIZE));
+        setInputStream(input);
+    }
+
+    @Override
+    protected int fillInternalBuffer() throws IOException {
+        int numRead = fillBufferFromInputStream();
+        if (numRead <= 0) return -1;
+        return rowDecoder.decode(buffer, numRead);
+    }
+
+    /**
+     * Creates a row decoder for the predictor named in the stream's decode parameters.
+     *
+     * @param library document library.
+     * @param entries stream dictionary.
+     * @return row decoder or null if the stream doesn't use a supported predictor.
+     */
+    static RowDecoder createRowDecoder(Library library, HashMap entries) {
         // get decode parameters from stream properties
         HashMap decodeParmsDictionary = ImageParams.getDecodeParams(library, entries);
-        predictor = library.getInt(decodeParmsDictionary, PREDICTOR_VALUE);
-
+        int predictor = library.getInt(decodeParmsDictionary, PREDICTOR_VALUE);
+        if (predictor != PREDICTOR_TIFF_2 &&
+                (predictor < PREDICTOR_PNG_NONE || predictor > PREDICTOR_PNG_OPTIMUM)) {
+            return null;
+        }
+        int width = 1;
         Number widthNumber = library.getNumber(entries, WIDTH_VALUE);
         if (widthNumber != null) {
             width = widthNumber.intValue();
@@ -91,8 +116,8 @@ public class PredictorDecode extends ChunkingInputStream {
         //   /ColorSpace /DeviceGray: 1 comp, /DeviceRBG: 3 comps, /DeviceCMYK: 4 comps, /DeviceN: N comps
         // I'm going to extend that to mean I won't look at entries.BitsPerComponent either
 
-        numComponents = 1;    // DecodeParms.Colors: 1,2,3,4  Default=1
-        bitsPerComponent = 8; // DecodeParms.BitsPerComponent: 1,2,4,8,16  Default=8
+        int numComponents = 1;    // DecodeParms.Colors: 1,2,3,4  Default=1
+        int bitsPerComponent = 8; // DecodeParms.BitsPerComponent: 1,2,4,8,16  Default=8
 
         Object numComponentsDecodeParmsObj = library.getObject(decodeParmsDictionary, COLORS_VALUE);
         if (numComponentsDecodeParmsObj instanceof Number) {
@@ -102,146 +127,181 @@ public class PredictorDecode extends ChunkingInputStream {
         if (bitsPerComponentDecodeParmsObj instanceof Number) {
             bitsPerComponent = ((Number) bitsPerComponentDecodeParmsObj).intValue();
         }
-        bytesPerPixel = Math.max(1, Utils.numBytesToHoldBits(numComponents * bitsPerComponent));
-
-        // Make buffer exactly large enough for one row of data (without predictor)
-        int intermediateBufferSize = Utils.numBytesToHoldBits(
-                width * numComponents * bitsPerComponent);
-
-        // last row of data above our current buffer
-        aboveBuffer = new byte[intermediateBufferSize];
-        setBufferSize(intermediateBufferSize);
-
-        setInputStream(input);
+        if (width < 1 || numComponents < 1 || bitsPerComponent < 1) {
+            return null;
+        }
+        return new RowDecoder(predictor, width, numComponents, bitsPerComponent);
     }
 
-    @Override
-    protected int fillInternalBuffer() throws IOException {
-        byte[] temp = aboveBuffer;
-        aboveBuffer = buffer;
-        buffer = temp;
-
-        int currPredictor;
-        int cp = in.read();
-        if (cp < 0) return -1;
-        // I've seen code that conditionally updates currPredictor:
-        //   if predictor == PREDICTOR_PNG_OPTIMUM
-        //       currPredictor = cp + PREDICTOR_PNG_NONE
-        //if( predictor == PREDICTOR_PNG_OPTIMUM )
-        currPredictor = cp + PREDICTOR_PNG_NONE;
-
-        // fill the buffer
-        int numRead = fillBufferFromInputStream();
-        if (numRead <= 0) return -1;
-
-        // apply predictor logic
-        applyPredictor(numRead, currPredictor);
-
-        return numRead;
+    public static boolean isPredictor(Library library, HashMap entries) {
+        HashMap decodeParmsDictionary = ImageParams.getDecodeParams(library, entries);
+        if (decodeParmsDictionary == null) {
+            return false;
+        }
+        int predictor = library.getInt(decodeParmsDictionary, PREDICTOR_VALUE);
+        return predictor == PREDICTOR_TIFF_2 ||
+                predictor == PREDICTOR_PNG_NONE || predictor == PREDICTOR_PNG_SUB ||
+                predictor == PREDICTOR_PNG_UP || predictor == PREDICTOR_PNG_AVG ||
+                predictor == PREDICTOR_PNG_PAETH || predictor == PREDICTOR_PNG_OPTIMUM;
     }
 
     /**
-     * Apply predictor logic to buffer[] using  aboveBuffer[] from previous pass.
-     *
-     * @param numRead       number of bytes read in last pass.
-     * @param currPredictor predictor to apply to buffer data.
+     * Undoes a predictor for a chunk of whole rows.  Rows are decoded in place, PNG rows loose their leading
+     * predictor byte so the decoded data is packed at the start of the buffer.  The last row of each chunk is kept
+     * as the row above the first row of the next chunk.
      */
-    protected void applyPredictor(int numRead, int currPredictor) {
-        // loop back over the buffer and update with predicted values.
-        for (int i = 0; i < numRead; i++) {
-            // For current row, PNG predictor to do nothing
-            if (currPredictor == PREDICTOR_PNG_NONE) {
-                break; // We could continue, but we'd do that numRead times
-            }
-            // For current row, derive each byte from byte left-by-bpp
-            else if (currPredictor == PREDICTOR_PNG_SUB) {
-                if ((i - bytesPerPixel) >= 0) {
-                    buffer[i] += applyLeftPredictor(buffer, bytesPerPixel, i);
-                }
-            }
-            // For current row, derive each byte from byte above
-            else if (currPredictor == PREDICTOR_PNG_UP) {
-                if (aboveBuffer != null) {
-                    buffer[i] += applyAbovePredictor(aboveBuffer, i);
+    static final class RowDecoder {
+
+        private final int predictor;
+        private final boolean png;
+        private final int numComponents;
+        private final int samplesPerRow;
+        private final int bitsPerComponent;
+        // From RFC 2083 (PNG), it's bytes per pixel, rounded up to 1
+        private final int bytesPerPixel;
+        private final int rowBytes;
+        private final int encodedRowBytes;
+        // last decoded row of the previous chunk, all zero before the first row.
+        private final byte[] aboveRow;
+
+        RowDecoder(int predictor, int width, int numComponents, int bitsPerComponent) {
+            this.predictor = predictor;
+            png = predictor >= PREDICTOR_PNG_NONE;
+            this.numComponents = numComponents;
+            samplesPerRow = width * numComponents;
+            this.bitsPerComponent = bitsPerComponent;
+            bytesPerPixel = Math.max(1, Utils.numBytesToHoldBits(numComponents * bitsPerComponent));
+            rowBytes = Utils.numBytesToHoldBits(width * numComponents * bitsPerComponent);
+            encodedRowBytes = png ? rowBytes + 1 : rowBytes;
+            aboveRow = png ? new byte[rowBytes] : null;
+        }
+
+        /**
+         * Gets a buffer size holding a whole number of encoded rows.
+         *
+         * @param targetSize approximate size wanted.
+         * @return buffer size.
+         */
+        int getChunkSize(int targetSize) {
+            return Math.max(1, targetSize / encodedRowBytes) * encodedRowBytes;
+        }
+
+        /**
+         * Decodes the encoded rows at the start of the buffer.
+         *
+         * @param buffer encoded rows, overwritten with the decoded rows.
+         * @param length number of encoded bytes, only the last row may be partial.
+         * @return number of decoded bytes.
+         */
+        int decode(byte[] buffer, int length) {
+            if (predictor == PREDICTOR_NONE) {
+                return length;
+            } else if (!png) {
+                for (int start = 0; start < length; start += rowBytes) {
+                    decodeTiffRow(buffer, start, Math.min(rowBytes, length - start));
                 }
+                return length;
             }
-            // For current row, derive each byte from average of byte left-by-bpp and byte above
-            else if (currPredictor == PREDICTOR_PNG_AVG) {
-                // PNG AVG: output(x) = curr_line(x) + floor((curr_line(x-bpp)+above(x))/2)
-                // From RFC 2083 (PNG), sum with no overflow, using >= 9 bit arithmatic
-                int left = 0;
-                if ((i - bytesPerPixel) >= 0) {
-                    left = applyLeftPredictor(buffer, bytesPerPixel, i);
+            int decoded = 0;
+            for (int start = 0; start < length; start += encodedRowBytes) {
+                int count = Math.min(rowBytes, length - start - 1);
+                if (count <= 0) {
+                    break;
                 }
-                int above = 0;
-                if (aboveBuffer != null) {
-                    above = applyAbovePredictor(aboveBuffer, i);
+                if (decoded == 0) {
+                    decodePngRow(buffer[start], buffer, start + 1, decoded, aboveRow, 0, count);
+                } else {
+                    decodePngRow(buffer[start], buffer, start + 1, decoded, buffer, decoded - rowBytes, count);
                 }
-                int sum = left + above;
-                byte avg = (byte) ((sum >>> 1) & 0xFF);
-                buffer[i] += avg;
+                decoded += count;
             }
-            // For current row, derive each byte from non-linear function of
-            // byte left-by-bpp and byte above and byte left-by-bpp of above
-            else if (currPredictor == PREDICTOR_PNG_PAETH) {
-                // From RFC 2083 (PNG)
-                // PNG PAETH:  output(x) = curr_line(x) + PaethPredictor(curr_line(x-bpp), above(x), above(x-bpp))
-                //   PaethPredictor(left, above, aboveLeft)
-                //     p          = left + above - aboveLeft
-                //     pLeft      = abs(p - left)
-                //     pAbove     = abs(p - above)
-                //     pAboveLeft = abs(p - aboveLeft)
-                //     if( pLeft <= pAbove && pLeft <= pAboveLeft ) return left
-                //     if( pAbove <= pAboveLeft ) return above
-                //     return aboveLeft
-                int left = 0;
-                if ((i - bytesPerPixel) >= 0) {
-                    left = applyLeftPredictor(buffer, bytesPerPixel, i);
-                }
-                int above = 0;
-                if (aboveBuffer != null) {
-                    above = applyAbovePredictor(aboveBuffer, i);
-                }
-                int aboveLeft = 0;
-                if ((i - bytesPerPixel) >= 0 && aboveBuffer != null) {
-                    aboveLeft = applyAboveLeftPredictor(aboveBuffer, bytesPerPixel, i);
-                }
-                int p = left + above - aboveLeft;
-                int pLeft = Math.abs(p - left);
-                int pAbove = Math.abs(p - above);
-                int pAboveLeft = Math.abs(p - aboveLeft);
-                int paeth = ((pLeft <= pAbove && pLeft <= pAboveLeft)
-                        ? left
-                        : ((pAbove <= pAboveLeft)
-                        ? above
-                        : aboveLeft));
-                buffer[i] += ((byte) (paeth & 0xFF));
+            if (decoded >= rowBytes && decoded % rowBytes == 0) {
+                System.arraycopy(buffer, decoded - rowBytes, aboveRow, 0, rowBytes);
             }
+            return decoded;
         }
-    }
-
-    private static int applyLeftPredictor(byte[] buffer, int bytesPerPixel, int i) {
-        return (((int) buffer[(i - bytesPerPixel)]) & 0xFF);
-    }
 
-    private static int applyAbovePredictor(byte[] aboveBuffer, int i) {
-        return (((int) aboveBuffer[i]) & 0xFF);
-    }
-
-    private static int applyAboveLeftPredictor(byte[] aboveBuffer, int bytesPerPixel, int i) {
-        return (((int) aboveBuffer[i - bytesPerPixel]) & 0xFF);
-    }
+        // src is always at or after dst so the row can be decoded in place, above never overlaps dst.
+        private void decodePngRow(int type, byte[] buffer, int src, int dst, byte[] above, int a, int count) {
+            int bpp = bytesPerPixel;
+            int lead = Math.min(bpp, count);
+            switch (type) {
+                case PREDICTOR_PNG_SUB - PREDICTOR_PNG_NONE:
+                    for (int i = 0; i < lead; i++) {
+                        buffer[dst + i] = buffer[src + i];
+                    }
+                    for (int i = bpp; i < count; i++) {
+                        buffer[dst + i] = (byte) (buffer[src + i] + buffer[dst + i - bpp]);
+                    }
+                    break;
+                case PREDICTOR_PNG_UP - PREDICTOR_PNG_NONE:
+                    for (int i = 0; i < count; i++) {
+                        buffer[dst + i] = (byte) (buffer[src + i] + above[a + i]);
+                    }
+                    break;
+                case PREDICTOR_PNG_AVG - PREDICTOR_PNG_NONE:
+                    // PNG AVG: output(x) = curr_line(x) + floor((curr_line(x-bpp)+above(x))/2)
+                    for (int i = 0; i < lead; i++) {
+                        buffer[dst + i] = (byte) (buffer[src + i] + ((above[a + i] & 0xff) >>> 1));
+                    }
+                    for (int i = bpp; i < count; i++) {
+                        int sum = (buffer[dst + i - bpp] & 0xff) + (above[a + i] & 0xff);
+                        buffer[dst + i] = (byte) (buffer[src + i] + (sum >>> 1));
+                    }
+                    break;
+                case PREDICTOR_PNG_PAETH - PREDICTOR_PNG_NONE:
+                    // From RFC 2083 (PNG), left and above left are zero for the first pixel
+                    for (int i = 0; i < lead; i++) {
+                        buffer[dst + i] = (byte) (buffer[src + i] + above[a + i]);
+                    }
+                    for (int i = bpp; i < count; i++) {
+                        int left = buffer[dst + i - bpp] & 0xff;
+                        int up = above[a + i] & 0xff;
+                        int upLeft = above[a + i - bpp] & 0xff;
+                        int pLeft = Math.abs(up - upLeft);
+                        int pAbove = Math.abs(left - upLeft);
+                        int pAboveLeft = Math.abs(left + up - upLeft - upLeft);
+                        int paeth = (pLeft <= pAbove && pLeft <= pAboveLeft) ? left :
+                                (pAbove <= pAboveLeft) ? up : upLeft;
+                        buffer[dst + i] = (byte) (buffer[src + i] + paeth);
+                    }
+                    break;
+                default:
+                    // PNG none, unknown types are treated the same way
+                    System.arraycopy(buffer, src, buffer, dst, count);
+                    break;
+            }
+        }
 
-    public static boolean isPredictor(Library library, HashMap entries) {
-        HashMap decodeParmsDictionary = ImageParams.getDecodeParams(library, entries);
-        ;
-        if (decodeParmsDictionary == null) {
-            return false;
+        // each component is derived from the same component of the pixel to the left.
+        private void decodeTiffRow(byte[] buffer, int start, int count) {
+            int comps = numComponents;
+            if (bitsPerComponent == 8) {
+                for (int i = start + comps, end = start + count; i < end; i++) {
+                    buffer[i] += buffer[i - comps];
+                }
+            } else if (bitsPerComponent == 16) {
+                int step = comps * 2;
+                for (int i = start + step, end = start + count - 1; i < end; i += 2) {
+                    int value = ((buffer[i] & 0xff) << 8 | (buffer[i + 1] & 0xff)) +
+                            ((buffer[i - step] & 0xff) << 8 | (buffer[i - step + 1] & 0xff));
+                    buffer[i] = (byte) (value >> 8);
+                    buffer[i + 1] = (byte) value;
+                }
+            } else if (bitsPerComponent < 8) {
+                int bits = bitsPerComponent;
+                int mask = (1 << bits) - 1;
+                int samples = Math.min(samplesPerRow, count * 8 / bits);
+                for (int s = comps; s < samples; s++) {
+                    int bit = s * bits;
+                    int leftBit = bit - comps * bits;
+                    int left = (buffer[start + (leftBit >> 3)] >> (8 - bits - (leftBit & 7))) & mask;
+                    int index = start + (bit >> 3);
+                    int shift = 8 - bits - (bit & 7);
+                    int value = ((buffer[index] >> shift) + left) & mask;
+                    buffer[index] = (byte) ((buffer[index] & ~(mask << shift)) | (value << shift));
+                }
+            }
         }
-        int predictor = library.getInt(decodeParmsDictionary, PREDICTOR_VALUE);
-        return predictor == PREDICTOR_PNG_NONE || predictor == PREDICTOR_PNG_SUB ||
-                predictor == PREDICTOR_PNG_UP || predictor == PREDICTOR_PNG_AVG ||
-                predictor == PREDICTOR_PNG_PAETH || predictor == PREDICTOR_PNG_OPTIMUM;
     }
-
 }
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.fonts;
+
+import org.icepdf.core.util.Defs;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * JVM wide cache of parsed embedded font programs.  Documents from the same producer tend to embed byte for byte
+ * identical font subsets, the cache is keyed by a digest of the decoded font stream and the font type so the
+ * program is only parsed once and shared read only by every document that embeds it.  Font programs are never
+ * changed once created, each font derives its own copy for encoding, widths and size.
+ * <p>
+ * Each entry keeps track of the documents using it, an entry is only evicted once every document has released it,
+ * see {@link #release(Object)}, or been garbage collected.  Unused entries are evicted least recently used first
+ * once the size of the cached font programs passes org.icepdf.core.font.embeddedCache.size, in megabytes and
+ * 32 by default, a size of zero turns the cache off.
+ *
+ * @since 7.0
+ */
+public class EmbeddedFontCache {
+
+    private static final Logger logger =
+            Logger.getLogger(EmbeddedFontCache.class.toString());
+
+    private static final long MAX_SIZE;
+    private static final EmbeddedFontCache embeddedFontCache = new EmbeddedFontCache();
+
+    static {
+        MAX_SIZE = Math.max(0, Defs.intProperty("org.icepdf.core.font.embeddedCache.size", 32)) * 1024L * 1024L;
+    }
+
+    static final class Key {
+        private final int fontType;
+        private final byte[] digest;
+        private final int hash;
+
+        Key(int fontType, byte[] digest) {
+            this.fontType = fontType;
+            this.digest = digest;
+            this.hash = 31 * fontType + Arrays.hashCode(digest);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return fontType == key.fontType && Arrays.equals(digest, key.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        final FontFile fontFile;
+        final int size;
+        // documents using the font, weak so documents that are never released don't pin it for good.
+        final Set<Object> owners = Collections.newSetFromMap(new WeakHashMap<>());
+
+        Entry(FontFile fontFile, int size) {
+            this.fontFile = fontFile;
+            this.size = size;
+        }
+    }
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    // owner to the keys of the fonts it uses, so release doesn't have to visit every entry.
+    private final WeakHashMap<Object, Set<Key>> ownerKeys = new WeakHashMap<>();
+    private long size;
+
+    private EmbeddedFontCache() {
+    }
+
+    public static EmbeddedFontCache getInstance() {
+        return embeddedFontCache;
+    }
+
+    /**
+     * Creates the key of a font program.
+     *
+     * @param fontType  font type, one of the FontFactory constants.
+     * @param fontBytes decoded font program.
+     * @param extra     any other values the font program depends on, Length1 and Length2 for a Type 1 font.
+     * @return key, null if the cache is off.
+     */
+    Key createKey(int fontType, byte[] fontBytes, int... extra) {
+        if (MAX_SIZE == 0 || fontBytes == null) {
+            return null;
+        }
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            for (int value : extra) {
+                messageDigest.update((byte) (value >>> 24));
+                messageDigest.update((byte) (value >>> 16));
+                messageDigest.update((byte) (value >>> 8));
+                messageDigest.update((byte) value);
+            }
+            messageDigest.update(fontBytes);
+            return new Key(fontType, messageDigest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            logger.log(Level.FINE, "Embedded font cache unavailable.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Gets a cached font program and records the owner as one of its users.
+     *
+     * @param key   key from {@link #createKey(int, byte[], int...)}.
+     * @param owner document using the font, generally its Library.
+     * @return font program, null if it isn't cached.
+     */
+    synchronized FontFile get(Key key, Object owner) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        addOwner(key, entry, owner);
+        return entry.fontFile;
+    }
+
+    /**
+     * Adds a newly parsed font program.  If another thread has cached the same program in the meantime its
+     * instance is returned instead, so all documents share one copy.
+     *
+     * @param key      key from {@link #createKey(int, byte[], int...)}.
+     * @param fontFile parsed font program.
+     * @param size     size of the font program in bytes.
+     * @param owner    document using the font, generally its Library.
+     * @return cached font program.
+     */
+    synchronized FontFile put(Key key, FontFile fontFile, int size, Object owner) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(fontFile, size);
+            entries.put(key, entry);
+            this.size += size;
+        }
+        addOwner(key, entry, owner);
+        evict();
+        return entry.fontFile;
+    }
+
+    /**
+     * Releases the fonts used by a document, fonts no other document uses can then be evicted.
+     *
+     * @param owner document, generally its Library.
+     */
+    public synchronized void release(Object owner) {
+        Set<Key> keys = ownerKeys.remove(owner);
+        if (keys != null) {
+            for (Key key : keys) {
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    entry.owners.remove(owner);
+                }
+            }
+            evict();
+        }
+    }
+
+    /**
+     * Removes every font program that isn't in use.
+     */
+    public synchronized void clear() {
+        evict(0);
+    }
+
+    private void addOwner(Key key, Entry entry, Object owner) {
+        if (owner != null && entry.owners.add(owner)) {
+            ownerKeys.computeIfAbsent(owner, k -> new HashSet<>()).add(key);
+        }
+    }
+
+    private void evict() {
+        evict(MAX_SIZE);
+    }
+
+    private void evict(long maxSize) {
+        if (size <= maxSize) {
+            return;
+        }
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.owners.isEmpty()) {
+                iterator.remove();
+                size -= entry.size;
+            }
+        }
+    }
+}
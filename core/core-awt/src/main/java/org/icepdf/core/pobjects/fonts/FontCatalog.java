@@ -0,0 +1,264 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.fonts;
+
+import org.icepdf.core.util.Defs;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.AccessControlException;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * Catalogue of the font programs found under a set of font directories.  Font files are parsed in parallel and,
+ * when a catalogue file is given, the size and last modified time of every file is stored along with its font
+ * data so the next scan only parses the files that were added or changed since.  The directory walk itself only
+ * lists directories, so a warm scan costs little more than a stat of each file.
+ * <p>
+ * Parallel parsing can be turned off with the system property org.icepdf.core.font.catalog.parallel.
+ *
+ * @since 7.0
+ */
+final class FontCatalog {
+
+    private static final Logger logger =
+            Logger.getLogger(FontCatalog.class.toString());
+
+    private static final int MAGIC = 0x49434643;
+    private static final int VERSION = 1;
+
+    private static final boolean PARALLEL;
+
+    static {
+        PARALLEL = Defs.booleanProperty("org.icepdf.core.font.catalog.parallel", true);
+    }
+
+    /**
+     * Reads the font data of a font program.
+     */
+    interface FontReader {
+        /**
+         * @param fontPath path of the font program.
+         * @return name, family and decorations of the font, null if the file isn't a readable font.
+         */
+        Object[] read(String fontPath);
+    }
+
+    private static final class Entry {
+        final long size;
+        final long lastModified;
+        // null for files that aren't readable fonts, so they aren't parsed again either.
+        final Object[] fontData;
+
+        Entry(long size, long lastModified, Object[] fontData) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.fontData = fontData;
+        }
+    }
+
+    private final File catalogFile;
+
+    /**
+     * Creates a catalogue.
+     *
+     * @param catalogFile file the catalogue is read from and written to, null to always parse every font.
+     */
+    FontCatalog(File catalogFile) {
+        this.catalogFile = catalogFile;
+    }
+
+    /**
+     * Scans the font directories recursively.
+     *
+     * @param fontDirectories directories or font files to scan.
+     * @param reader          reader for the fonts that aren't in the catalogue or have changed.
+     * @return font data of every readable font in directory order, each entry is the name, family and
+     * decorations returned by the reader followed by the font path.
+     */
+    List<Object[]> scan(List<String> fontDirectories, FontReader reader) {
+        // overlapping directories only need to be read once.
+        Set<String> foundPaths = new LinkedHashSet<>();
+        findFontFiles(fontDirectories, foundPaths);
+        List<String> fontPaths = new ArrayList<>(foundPaths);
+
+        Map<String, Entry> cached = catalogFile != null ? readCatalog() : new HashMap<>();
+        int count = fontPaths.size();
+        Entry[] entries = new Entry[count];
+        List<Integer> changed = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            File file = new File(fontPaths.get(i));
+            long size = file.length();
+            long lastModified = file.lastModified();
+            Entry entry = cached.get(fontPaths.get(i));
+            if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+                entries[i] = entry;
+            } else {
+                entries[i] = new Entry(size, lastModified, null);
+                changed.add(i);
+            }
+        }
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Font catalogue found " + count + " font files, " + changed.size() + " new or changed.");
+        }
+
+        IntStream parse = IntStream.range(0, changed.size());
+        if (PARALLEL) {
+            parse = parse.parallel();
+        }
+        parse.forEach(i -> {
+            int index = changed.get(i);
+            Entry entry = entries[index];
+            Object[] fontData = null;
+            try {
+                fontData = reader.read(fontPaths.get(index));
+            } catch (Throwable e) {
+                logger.log(Level.FINE, "Failed to read font " + fontPaths.get(index), e);
+            }
+            entries[index] = new Entry(entry.size, entry.lastModified, fontData);
+        });
+
+        if (catalogFile != null && (!changed.isEmpty() || cached.size() != count)) {
+            writeCatalog(fontPaths, entries);
+        }
+
+        List<Object[]> fonts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Object[] fontData = entries[i].fontData;
+            if (fontData != null) {
+                fonts.add(new Object[]{fontData[0], fontData[1], fontData[2], fontPaths.get(i)});
+            }
+        }
+        return fonts;
+    }
+
+    private static void findFontFiles(List<String> fontDirectories, Set<String> fontPaths) {
+        try {
+            for (String fontDirectory : fontDirectories) {
+                File directory = new File(fontDirectory);
+                if (directory.canRead() && directory.isDirectory()) {
+                    logger.finer("looking into directory " + directory.getAbsolutePath());
+                    File[] files = directory.listFiles();
+                    if (files != null) {
+                        List<String> dirPaths = new ArrayList<>();
+                        for (File file : files) {
+                            if (file.isFile()) {
+                                if (isFontFile(file.getName())) {
+                                    fontPaths.add(file.getAbsolutePath());
+                                }
+                            } else if (file.isDirectory()) {
+                                dirPaths.add(file.getAbsolutePath());
+                            }
+                        }
+                        // If we have some directories, then we want ot recursively descend.
+                        findFontFiles(dirPaths, fontPaths);
+                    }
+                } else if (directory.canRead() && directory.isFile() && isFontFile(directory.getName())) {
+                    fontPaths.add(directory.getAbsolutePath());
+                }
+            }
+        } catch (AccessControlException e) {
+            logger.log(Level.WARNING, "SecurityException: failed to load fonts from directory: ", e);
+        } catch (Throwable e) {
+            logger.log(Level.FINE, "Failed to load fonts from directory: ", e);
+        }
+    }
+
+    private static boolean isFontFile(String fileName) {
+        String name = fileName.toLowerCase();
+        return name.endsWith(".ttf") || name.endsWith(".dfont") || name.endsWith(".ttc") ||
+                name.endsWith(".pfa") || name.endsWith(".pfb") ||
+                name.endsWith(".otf") || name.endsWith(".otc");
+    }
+
+    private Map<String, Entry> readCatalog() {
+        Map<String, Entry> cached = new HashMap<>();
+        if (!catalogFile.isFile()) {
+            return cached;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(catalogFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return cached;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                Object[] fontData = null;
+                if (in.readBoolean()) {
+                    String name = in.readUTF();
+                    String family = in.readBoolean() ? in.readUTF() : null;
+                    fontData = new Object[]{name, family, in.readInt()};
+                }
+                cached.put(path, new Entry(size, lastModified, fontData));
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error reading font catalogue " + catalogFile + ", fonts will be read again.", e);
+            cached.clear();
+        }
+        return cached;
+    }
+
+    private void writeCatalog(List<String> fontPaths, Entry[] entries) {
+        File directory = catalogFile.getAbsoluteFile().getParentFile();
+        File tempFile = null;
+        try {
+            if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create directory " + directory);
+            }
+            tempFile = File.createTempFile("fonts", ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.length);
+                for (int i = 0; i < entries.length; i++) {
+                    Entry entry = entries[i];
+                    out.writeUTF(fontPaths.get(i));
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.lastModified);
+                    out.writeBoolean(entry.fontData != null);
+                    if (entry.fontData != null) {
+                        out.writeUTF((String) entry.fontData[0]);
+                        String family = (String) entry.fontData[1];
+                        out.writeBoolean(family != null);
+                        if (family != null) {
+                            out.writeUTF(family);
+                        }
+                        out.writeInt((Integer) entry.fontData[2]);
+                    }
+                }
+            }
+            // readers never see a half written catalogue.
+            try {
+                Files.move(tempFile.toPath(), catalogFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), catalogFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | SecurityException e) {
+            logger.log(Level.WARNING, "Error writing font catalogue " + catalogFile, e);
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+}
@@ -20,6 +20,8 @@ import org.icepdf.core.pobjects.Stream;
 import org.icepdf.core.pobjects.fonts.zfont.*;
 import org.icepdf.core.pobjects.fonts.zfont.fontFiles.*;
 import org.icepdf.core.util.Library;
+import org.icepdf.core.util.metrics.Metric;
+import org.icepdf.core.util.metrics.Metrics;
 
 import java.io.File;
 import java.net.URL;
@@ -109,27 +111,58 @@ public class FontFactory {
         return font;
     }
 
+    /**
+     * Creates the font program of an embedded font stream.  Identical font programs, whichever document they
+     * come from, are parsed once and shared through the {@link EmbeddedFontCache}.
+     *
+     * @param fontStream  FontFile, FontFile2 or FontFile3 stream.
+     * @param fontType    font type, one of the FONT_ constants.
+     * @param fontSubType FontFile3 sub type, may be null.
+     * @return shared font program, null if the font type isn't supported or the program can't be read.
+     */
     public FontFile createFontFile(Stream fontStream, int fontType, Name fontSubType) {
         FontFile fontFile = null;
+        long start = Metrics.start();
         try {
+            byte[] fontBytes = fontStream.getDecodedStreamBytes();
+            int length1 = 0, length2 = 0;
+            if (FONT_TYPE_1 == fontType) {
+                length1 = fontStream.getInt(ZFontType1.LENGTH1_KEY);
+                length2 = fontStream.getInt(ZFontType1.LENGTH2_KEY);
+            }
+            EmbeddedFontCache embeddedFontCache = EmbeddedFontCache.getInstance();
+            Library library = fontStream.getLibrary();
+            EmbeddedFontCache.Key key = embeddedFontCache.createKey(fontType, fontBytes, length1, length2);
+            if (key != null) {
+                fontFile = embeddedFontCache.get(key, library);
+                if (fontFile != null) {
+                    return fontFile;
+                }
+            }
             if (FONT_OPEN_TYPE == fontType) {
-                fontFile = new ZFontOpenType(fontStream);
+                fontFile = new ZFontOpenType(fontBytes);
             } else if (FONT_TRUE_TYPE == fontType) {
-                fontFile = new ZFontTrueType(fontStream);
+                fontFile = new ZFontTrueType(fontBytes);
             } else if (FONT_TYPE_1 == fontType) {
-                fontFile = new ZFontType1(fontStream);
+                fontFile = new ZFontType1(fontBytes, length1, length2);
             } else if (FONT_TYPE_1C == fontType) {
-                fontFile = new ZFontType1C(fontStream);
+                fontFile = new ZFontType1C(fontBytes);
             } else if (FONT_CID_TYPE_0 == fontType) {
-                fontFile = new ZFontType0(fontStream);
+                fontFile = new ZFontType0(fontBytes);
             } else if (FONT_CID_TYPE_0C == fontType || FONT_CID_TYPE_1C == fontType) {
-                fontFile = new ZFontType0(fontStream);
+                fontFile = new ZFontType0(fontBytes);
             } else if (FONT_CID_TYPE_2 == fontType) {
-                fontFile = new ZFontType2(fontStream);
+                fontFile = new ZFontType2(fontBytes);
+            }
+            if (key != null && fontFile != null) {
+                fontFile = embeddedFontCache.put(key, fontFile, fontBytes.length, library);
             }
         } catch (Throwable e) {
             logger.log(Level.WARNING, "Error reading font file type " + FONT_OPEN_TYPE, e);
         }
+        if (Metrics.ENABLED && fontFile != null) {
+            Metrics.time(Metric.FONT_LOAD, fontFile.getClass().getSimpleName(), start);
+        }
         return fontFile;
     }
 
@@ -144,6 +177,7 @@ public class FontFactory {
 
     public FontFile createFontFile(URL url, int fontType, String fontSubType) {
         FontFile fontFile = null;
+        long start = Metrics.start();
         try {
             if (FONT_TRUE_TYPE == fontType || FONT_OPEN_TYPE == fontType) {
                 fontFile = new ZFontTrueType(url);
@@ -154,6 +188,9 @@ public class FontFactory {
             // logging and error handling needs to be addressed
             e.printStackTrace();
         }
+        if (Metrics.ENABLED && fontFile != null) {
+            Metrics.time(Metric.FONT_LOAD, fontFile.getClass().getSimpleName(), start);
+        }
         return fontFile;
     }
 
@@ -150,6 +150,15 @@ public interface FontFile {
      */
     Shape getOutline(String estr, float x, float y);
 
+    /**
+     * Get the glyph outline shape for the given estr as painted at the origin, so a text sprite can
+     * combine the glyphs of a run into one shape.
+     *
+     * @param estr text to calculate glyph outline shape
+     * @return glyph outline of the estr, null if the glyph can't be painted as a plain outline.
+     */
+    Shape getGlyphOutline(String estr);
+
     ByteEncoding getByteEncoding();
 
     /**
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.fonts;
+
+import java.util.*;
+
+/**
+ * Hash index over one of the FontManager font lists.  A substitution search matches a font when the requested
+ * name contains the font's base name or the normalised name equals the font's family, rather than testing every
+ * font in the list the index hashes the substrings of the requested name, so the cost of a lookup depends on
+ * the length of the name and not on the number of fonts installed.
+ *
+ * @since 7.0
+ */
+final class FontIndex {
+
+    private static final int[] NO_FONTS = new int[0];
+
+    private final int version;
+    private final Map<String, int[]> baseNames;
+    private final Map<String, int[]> families;
+    private final int longestBaseName;
+
+    /**
+     * Indexes the font list.
+     *
+     * @param fontList    font list, entries hold the lower case base name and normalised family.
+     * @param nameIndex   index of the base name in an entry.
+     * @param familyIndex index of the family in an entry.
+     * @param version     version of the font list the index is built from.
+     */
+    FontIndex(List<Object[]> fontList, int nameIndex, int familyIndex, int version) {
+        this.version = version;
+        Map<String, List<Integer>> names = new HashMap<>();
+        Map<String, List<Integer>> familyNames = new HashMap<>();
+        int longest = 0;
+        for (int i = 0, max = fontList.size(); i < max; i++) {
+            Object[] fontData = fontList.get(i);
+            String baseName = (String) fontData[nameIndex];
+            String family = (String) fontData[familyIndex];
+            if (baseName != null) {
+                names.computeIfAbsent(baseName, k -> new ArrayList<>(1)).add(i);
+                longest = Math.max(longest, baseName.length());
+            }
+            if (family != null) {
+                familyNames.computeIfAbsent(family, k -> new ArrayList<>(1)).add(i);
+            }
+        }
+        baseNames = toArrays(names);
+        families = toArrays(familyNames);
+        longestBaseName = longest;
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    /**
+     * Finds the fonts whose base name is contained in the lower case name or whose family equals the
+     * normalised name.
+     *
+     * @param lowerCaseName  requested font name in lower case.
+     * @param normalizedName requested font name normalised with FontUtil.normalizeString.
+     * @return list positions of the matching fonts, highest first to match a reverse scan of the list.
+     */
+    int[] find(String lowerCaseName, String normalizedName) {
+        int[] found = families.get(normalizedName);
+        int count = found != null ? found.length : 0;
+        int[] matches = found != null ? Arrays.copyOf(found, found.length + 8) : new int[8];
+        int length = lowerCaseName.length();
+        // an empty base name is contained in every name.
+        for (int start = 0; start <= length; start++) {
+            for (int end = start, last = Math.min(length, start + longestBaseName); end <= last; end++) {
+                if (end == start && start > 0) {
+                    continue;
+                }
+                found = baseNames.get(lowerCaseName.substring(start, end));
+                if (found != null) {
+                    if (count + found.length > matches.length) {
+                        matches = Arrays.copyOf(matches, Math.max(matches.length * 2, count + found.length));
+                    }
+                    System.arraycopy(found, 0, matches, count, found.length);
+                    count += found.length;
+                }
+            }
+        }
+        if (count == 0) {
+            return NO_FONTS;
+        }
+        Arrays.sort(matches, 0, count);
+        // reverse and drop duplicates, a font can match on both its name and family.
+        int[] positions = new int[count];
+        int unique = 0;
+        for (int i = count - 1; i >= 0; i--) {
+            if (unique == 0 || positions[unique - 1] != matches[i]) {
+                positions[unique++] = matches[i];
+            }
+        }
+        return unique == count ? positions : Arrays.copyOf(positions, unique);
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> lists) {
+        Map<String, int[]> arrays = new HashMap<>(lists.size() * 2);
+        for (Map.Entry<String, List<Integer>> entry : lists.entrySet()) {
+            List<Integer> list = entry.getValue();
+            int[] positions = new int[list.size()];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = list.get(i);
+            }
+            arrays.put(entry.getKey(), positions);
+        }
+        return arrays;
+    }
+}
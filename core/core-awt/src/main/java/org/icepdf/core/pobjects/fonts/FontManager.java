@@ -23,7 +23,6 @@ import java.awt.*;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
-import java.security.AccessControlException;
 import java.util.List;
 import java.util.*;
 import java.util.logging.Level;
@@ -56,6 +55,16 @@ public class FontManager {
     // stores fonts loaded from jar, these won't be cached
     private static List<Object[]> fontJarList;
 
+    // bumped whenever either font list changes so stale lookup indexes are rebuilt.
+    private static volatile int fontListVersion;
+    private static volatile FontIndex fontIndex;
+    private static volatile FontIndex fontJarIndex;
+    private static final Object fontIndexLock = new Object();
+
+    // substitute font programs shared by all documents, keyed by font path.
+    private static final int FONT_FILE_CACHE_SIZE;
+    private static final Map<String, FontFile> fontFileCache;
+
     // flags for detecting font decorations
     private static int PLAIN = 0xF0000001;
     private static int BOLD = 0xF0000010;
@@ -209,6 +218,13 @@ public class FontManager {
 
     static {
         baseFontName = Defs.property("org.icepdf.core.font.basefont", "lucidasans");
+        FONT_FILE_CACHE_SIZE = Defs.intProperty("org.icepdf.core.font.substitution.cacheSize", 32);
+        fontFileCache = new LinkedHashMap<String, FontFile>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FontFile> eldest) {
+                return size() > FONT_FILE_CACHE_SIZE;
+            }
+        };
     }
 
     // Singleton instance of class
@@ -255,6 +271,7 @@ public class FontManager {
         // make sure we are initialized
         if (fontList == null) {
             fontList = new ArrayList<>();
+            fontListChanged();
         }
         // copy all data from fontList into the properties file
         fontProperites = new Properties();
@@ -293,6 +310,7 @@ public class FontManager {
         String errorString = "Error parsing font properties ";
         try {
             fontList = new ArrayList<>(500);
+            fontListChanged();
             String[] fontKeys = fontPreferences.keys();
             String name;
             String family;
@@ -319,7 +337,10 @@ public class FontManager {
                 }
             }
             sortFontListByName();
+            fontListChanged();
         } catch (Throwable e) {
+            // the list was replaced before the error, cached lookups may refer to the old one.
+            fontListChanged();
             logger.log(Level.FINE, "Error setting font properties ", e);
             throw new IllegalArgumentException(errorString);
         }
@@ -332,6 +353,7 @@ public class FontManager {
     public void clearFontList() {
         if (fontList != null) {
             fontList.clear();
+            fontListChanged();
         }
     }
 
@@ -343,7 +365,7 @@ public class FontManager {
      *                       a system directory path containing font programs.
      */
     public synchronized void readFonts(String[] extraFontPaths) {
-        readSystemFonts(extraFontPaths, true);
+        readSystemFonts(extraFontPaths, true, null);
     }
 
     /**
@@ -352,11 +374,13 @@ public class FontManager {
      *
      * @param extraFontPaths  optional, extra fonts path to read.
      * @param skipSystemFonts true to skip system fonts, extraFontsPaths should not be null if skipSystemFonts=true.
+     * @param catalogFile     optional, catalogue of previously read fonts, see {@link #readSystemFonts(String[], File)}.
      */
-    private synchronized void readSystemFonts(String[] extraFontPaths, boolean skipSystemFonts) {
+    private synchronized void readSystemFonts(String[] extraFontPaths, boolean skipSystemFonts, File catalogFile) {
         // create a new font list if needed.
         if (fontList == null) {
             fontList = new ArrayList<>(150);
+            fontListChanged();
         }
 
 
@@ -396,7 +420,7 @@ public class FontManager {
         if (logger.isLoggable(Level.FINER)) {
             logger.finer("Starting recursive scan of specified font directories for system fonts.");
         }
-        loadSystemFont(fontDirectories);
+        loadSystemFont(fontDirectories, catalogFile);
     }
 
     /**
@@ -409,43 +433,42 @@ public class FontManager {
      *                       a system directory path containing font programs.
      */
     public synchronized void readSystemFonts(String[] extraFontPaths) {
-        readSystemFonts(extraFontPaths, false);
+        readSystemFonts(extraFontPaths, false, null);
     }
 
-    private void loadSystemFont(List<String> fontDirectories) {
-        try {
-            for (String fontDirectory : fontDirectories) {
-                File directory = new File(fontDirectory);
-                if (directory.canRead() && directory.isDirectory()) {
-                    logger.finer("looking into directory " + directory.getAbsolutePath());
-                    // load files
-                    File[] files = directory.listFiles();
-                    if (files != null) {
-                        List<String> dirPaths = new ArrayList<>();
-                        for (File file : files) {
-                            if (file.isFile()) {
-                                // load the font.
-                                evaluateFontForInsertion(file.getAbsolutePath());
-                            } else if (file.isDirectory()) {
-                                dirPaths.add(file.getAbsolutePath());
-                            }
-                        }
-                        // If we have some directories, then we want ot recursively descend.
-                        loadSystemFont(dirPaths);
-                    }
-                } else if (directory.canRead() && directory.isFile()) {
-                    // load the font.
-                    evaluateFontForInsertion(directory.getAbsolutePath());
-                }
+    /**
+     * <p>Reads the system fonts and any extra font paths like {@link #readSystemFonts(String[])}, keeping a
+     * catalogue of the fonts found in catalogFile.  Only font files that are new or have changed size or
+     * modification time since the catalogue was written are parsed, so once the catalogue exists reading the
+     * fonts of even a large system is quick.  The catalogue is created if it doesn't exist and rewritten when
+     * fonts have been added, changed or removed.</p>
+     *
+     * @param extraFontPaths array String object where each entry represents
+     *                       a system directory path containing font programs.
+     * @param catalogFile    file to keep the font catalogue in.
+     * @since 7.0
+     */
+    public synchronized void readSystemFonts(String[] extraFontPaths, File catalogFile) {
+        readSystemFonts(extraFontPaths, false, catalogFile);
+    }
+
+    private void loadSystemFont(List<String> fontDirectories, File catalogFile) {
+        List<Object[]> fonts = new FontCatalog(catalogFile).scan(fontDirectories, this::readFontData);
+        for (Object[] fontProperty : fonts) {
+            if (!checkExclusionLists(fontProperty)) {
+                fontList.add(fontProperty);  // path to font on OS
+            }
+            if (logger.isLoggable(Level.FINER)) {
+                logger.finer("Adding system font: " + fontProperty[FONT_NAME] + " " + fontProperty[FONT_PATH]);
             }
-        } catch (AccessControlException e) {
-            logger.log(Level.WARNING, "SecurityException: failed to load fonts from directory: ", e);
-        } catch (Throwable e) {
-            logger.log(Level.FINE, "Failed to load fonts from directory: ", e);
         }
+        fontListChanged();
     }
 
-    private void evaluateFontForInsertion(String fontPath) {
+    /**
+     * Reads the font data stored in the font list for a font program, may be called from several threads at once.
+     */
+    private Object[] readFontData(String fontPath) {
         // try loading the font
         FontFile font = buildFont(fontPath);
         // if a readable font was found
@@ -453,18 +476,11 @@ public class FontManager {
             logger.finer("Found font file" + fontPath);
             // normalize name
             String fontName = font.getName().toLowerCase();
-            // Add new font data to the font list
-            Object[] fontProperty = new Object[]{font.getName().toLowerCase(), // original PS name
+            return new Object[]{fontName, // original PS name
                     FontUtil.normalizeString(font.getFamily()), // family name
-                    guessFontStyle(fontName), // weight and decorations, mainly bold,italic
-                    fontPath};
-            if (!checkExclusionLists(fontProperty)) {
-                fontList.add(fontProperty);  // path to font on OS
-            }
-            if (logger.isLoggable(Level.FINER)) {
-                logger.finer("Adding system font: " + font.getName() + " " + fontPath);
-            }
+                    guessFontStyle(fontName)}; // weight and decorations, mainly bold,italic
         }
+        return null;
     }
 
     /**
@@ -575,20 +591,18 @@ public class FontManager {
 
         if (fontList == null) {
             fontList = new ArrayList<>(150);
+            fontListChanged();
         }
 
         FontFile font = null;
         if (list != null) {
-            // search for know list of fonts
-            for (int i = list.length - 1; i >= 0; i--) {
-                // try and find an instance of the name and family from the font list
-                font = findFont(fontList, name, flags);
-                if (font != null) {
-                    if (logger.isLoggable(Level.FINER)) {
-                        logger.finer("Font Substitution: Found Asian font: " + font.getName() + " for named font " + name);
-                    }
-                    return font;
+            // try and find an instance of the name and family from the font list
+            font = findFont(fontList, name, flags);
+            if (font != null) {
+                if (logger.isLoggable(Level.FINER)) {
+                    logger.finer("Font Substitution: Found Asian font: " + font.getName() + " for named font " + name);
                 }
+                return font;
             }
 
             // lastly see if we can't a system font that matches the list names.
@@ -644,6 +658,7 @@ public class FontManager {
                         FontUtil.normalizeString(font.getFamily()), // family name
                         guessFontStyle(fontName), // weight and decorations, mainly bold,italic
                         resourcePath.toString()});  // path to font on OS
+                fontListChanged();
                 if (logger.isLoggable(Level.FINER)) {
                     logger.finer("Adding system font: " + font.getName() + " " + resourcePath.toString());
                 }
@@ -664,6 +679,7 @@ public class FontManager {
 
         if (fontList == null) {
             fontList = new ArrayList<>();
+            fontListChanged();
         }
 
         FontFile font;
@@ -742,13 +758,13 @@ public class FontManager {
                     found = true;
                 }
                 if (found) {
-                    font = buildFont((String) fontData[3]);
+                    font = loadFont((String) fontData[3]);
                     break;
                 }
             }
             if (!found) {
                 fontData = fontList.get(0);
-                font = buildFont((String) fontData[3]);
+                font = loadFont((String) fontData[3]);
             }
             if (logger.isLoggable(Level.FINE)) {
                 logger.fine("Font Substitution: Found failed " + name + " " + font.getName());
@@ -785,7 +801,8 @@ public class FontManager {
         int style;
 
         if (fontList != null) {
-            for (int i = fontList.size() - 1; i >= 0; i--) {
+            // only visit the fonts whose base name or family match, in the same order as a reverse scan.
+            for (int i : getFontIndex(fontList).find(fontName.toLowerCase(), name)) {
                 fontData = fontList.get(i);
                 baseName = (String) fontData[FONT_NAME];
                 familyName = (String) fontData[FONT_FAMILY];
@@ -793,47 +810,100 @@ public class FontManager {
                 if (logger.isLoggable(Level.FINEST)) {
                     logger.finest(baseName + " : " + familyName + "  : " + name);
                 }
-                if (fontName.toLowerCase().contains(baseName) || name.equals(familyName)) {
-                    style = (Integer) fontData[2];
-                    boolean found = false;
-                    // ignore this font, as the cid mapping are not correct, or ther is
-                    // just look and feel issues with them.
-                    if (((decorations & BOLD_ITALIC) == BOLD_ITALIC) &&
-                            ((style & BOLD_ITALIC) == BOLD_ITALIC)) {
-                        found = true;
-                    } else if (((decorations & BOLD) == BOLD) &&
-                            ((style & BOLD) == BOLD)) {
-                        found = true;
-                    } else if (((decorations & ITALIC) == ITALIC) &&
-                            ((style & ITALIC) == ITALIC)) {
-                        found = true;
-                    } else if (((decorations & PLAIN) == PLAIN) &&
-                            ((style & PLAIN) == PLAIN)) {
-                        found = true;
+                style = (Integer) fontData[2];
+                boolean found = false;
+                // ignore this font, as the cid mapping are not correct, or ther is
+                // just look and feel issues with them.
+                if (((decorations & BOLD_ITALIC) == BOLD_ITALIC) &&
+                        ((style & BOLD_ITALIC) == BOLD_ITALIC)) {
+                    found = true;
+                } else if (((decorations & BOLD) == BOLD) &&
+                        ((style & BOLD) == BOLD)) {
+                    found = true;
+                } else if (((decorations & ITALIC) == ITALIC) &&
+                        ((style & ITALIC) == ITALIC)) {
+                    found = true;
+                } else if (((decorations & PLAIN) == PLAIN) &&
+                        ((style & PLAIN) == PLAIN)) {
+                    found = true;
+                }
+                // symbol type fonts don't have an associated style, so
+                // no point trying to match  them based on style.
+                else if (baseName.contains("wingdings") ||
+                        baseName.contains("zapfdingbats") ||
+                        baseName.contains("dingbats") ||
+                        baseName.contains("symbol")) {
+                    found = true;
+                }
+
+                if (found) {
+                    if (logger.isLoggable(Level.FINER)) {
+                        logger.finer("Match Found for: " + fontName + ":" + getFontStyle(style, 0).trim() +
+                                " Substituting " + baseName + ":" + path);
                     }
-                    // symbol type fonts don't have an associated style, so
-                    // no point trying to match  them based on style.
-                    else if (baseName.contains("wingdings") ||
-                            baseName.contains("zapfdingbats") ||
-                            baseName.contains("dingbats") ||
-                            baseName.contains("symbol")) {
-                        found = true;
+                    font = loadFont((String) fontData[3]);
+                    // make sure the font does indeed exist
+                    if (font != null) {
+                        break;
                     }
+                }
+            }
+        }
+        return font;
+    }
 
-                    if (found) {
-                        if (logger.isLoggable(Level.FINER)) {
-                            logger.finer("Match Found for: " + fontName + ":" + getFontStyle(style, 0).trim() +
-                                    " Substituting " + baseName + ":" + path);
-                        }
-                        font = buildFont((String) fontData[3]);
-                        // make sure the font does indeed exist
-                        if (font != null) {
-                            break;
-                        }
+    /**
+     * Gets the lookup index for the font list, rebuilding it if the list has changed since it was last built.
+     */
+    private static FontIndex getFontIndex(List<Object[]> fontList) {
+        boolean isJarList = fontList == fontJarList;
+        FontIndex index = isJarList ? fontJarIndex : fontIndex;
+        if (index == null || index.getVersion() != fontListVersion) {
+            synchronized (fontIndexLock) {
+                index = isJarList ? fontJarIndex : fontIndex;
+                int version = fontListVersion;
+                if (index == null || index.getVersion() != version) {
+                    index = new FontIndex(fontList, FONT_NAME, FONT_FAMILY, version);
+                    if (isJarList) {
+                        fontJarIndex = index;
+                    } else {
+                        fontIndex = index;
                     }
                 }
             }
         }
+        return index;
+    }
+
+    private static void fontListChanged() {
+        fontListVersion++;
+    }
+
+    /**
+     * Gets the substitute font program at the font path, reading it only if it isn't already in the
+     * cache.  The same instance is handed to every document, callers derive their own copy for sizing and
+     * encoding, so the program is never changed once loaded.
+     *
+     * @param fontPath font path of font program to load
+     * @return a valid font if loadable, null otherwise
+     */
+    private FontFile loadFont(String fontPath) {
+        if (FONT_FILE_CACHE_SIZE <= 0) {
+            return buildFont(fontPath);
+        }
+        FontFile font;
+        synchronized (fontFileCache) {
+            font = fontFileCache.get(fontPath);
+        }
+        if (font == null) {
+            // parsed outside the lock, two threads missing at once both read the file and the last one wins.
+            font = buildFont(fontPath);
+            if (font != null) {
+                synchronized (fontFileCache) {
+                    fontFileCache.put(fontPath, font);
+                }
+            }
+        }
         return font;
     }
 
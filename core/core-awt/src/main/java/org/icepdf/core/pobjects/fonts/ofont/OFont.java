@@ -427,6 +427,10 @@ public class OFont implements FontFile {
         return glyphVector.getOutline();
     }
 
+    public Shape getGlyphOutline(String displayText) {
+        return getOutline(displayText, 0, 0);
+    }
+
     public URL getSource() {
         return null;
     }
@@ -134,6 +134,10 @@ public class CMap implements org.icepdf.core.pobjects.fonts.CMap {
      */
     private List<CMapCidRange> cIdRange;
 
+    // bfRange and cIdRange sorted for lookup, built once parsing is done.
+    private CMapRangeIndex<CMapBfRange> bfRangeIndex;
+    private CMapRangeIndex<CMapCidRange> cIdRangeIndex;
+
     /**
      * Define mappings if the normal mapping produces a CID for which no glyph
      * in the associated CIDFont
@@ -513,6 +517,12 @@ public class CMap implements org.icepdf.core.pobjects.fonts.CMap {
             // eat it, end of file stream
             logger.log(Level.SEVERE, "CMap parsing error", e);
         } finally {
+            if (bfRange != null) {
+                bfRangeIndex = new CMapRangeIndex<>(bfRange);
+            }
+            if (cIdRange != null) {
+                cIdRangeIndex = new CMapRangeIndex<>(cIdRange);
+            }
             if (cMapInputStream != null) {
                 try {
                     cMapInputStream.close();
@@ -532,11 +542,10 @@ public class CMap implements org.icepdf.core.pobjects.fonts.CMap {
             }
         }
         // check bfRange for matches, there may be many ranges to check
-        if (bfRange != null) {
-            for (CMapBfRange aBfRange : bfRange) {
-                if (aBfRange.inRange(ch)) {
-                    return String.valueOf(aBfRange.getCMapValue(ch));
-                }
+        if (bfRangeIndex != null) {
+            CMapBfRange aBfRange = bfRangeIndex.find(ch);
+            if (aBfRange != null) {
+                return String.valueOf(aBfRange.getCMapValue(ch));
             }
         }
         if (codeSpaceRange != null && codeSpaceRange[0] != null && ch < codeSpaceRange[0].length - 1) {
@@ -573,18 +582,16 @@ public class CMap implements org.icepdf.core.pobjects.fonts.CMap {
             }
         }
         // check bfRange for matches, there may be many ranges to check
-        if (bfRange != null) {
-            for (CMapBfRange aBfRange : bfRange) {
-                if (aBfRange.inRange(charMap)) {
-                    return aBfRange.getCMapValue(charMap)[0];
-                }
+        if (bfRangeIndex != null) {
+            CMapBfRange aBfRange = bfRangeIndex.find(charMap);
+            if (aBfRange != null) {
+                return aBfRange.getCMapValue(charMap)[0];
             }
         }
-        if (cIdRange != null) {
-            for (CMapCidRange range : cIdRange) {
-                if (range.inRange(charMap)) {
-                    return range.getCMapValue(charMap);
-                }
+        if (cIdRangeIndex != null) {
+            CMapCidRange range = cIdRangeIndex.find(charMap);
+            if (range != null) {
+                return range.getCMapValue(charMap);
             }
         }
 
@@ -669,6 +676,14 @@ public class CMap implements org.icepdf.core.pobjects.fonts.CMap {
             return (value >= startRange && value <= endRange);
         }
 
+        public int getStartRange() {
+            return startRange;
+        }
+
+        public int getEndRange() {
+            return endRange;
+        }
+
         /**
          * Get the mapped value of <code>value</code>.  It is assumed that
          * inRange is called before this method is called.  If the
@@ -727,6 +742,14 @@ public class CMap implements org.icepdf.core.pobjects.fonts.CMap {
             return (value >= startRange && value <= endRange);
         }
 
+        public int getStartRange() {
+            return startRange;
+        }
+
+        public int getEndRange() {
+            return endRange;
+        }
+
         /**
          * Get the mapped value of <code>value</code>.  It is assumed that
          * inRange is called before this method is called.  If the
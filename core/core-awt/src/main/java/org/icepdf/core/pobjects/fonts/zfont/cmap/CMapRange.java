@@ -3,4 +3,8 @@ package org.icepdf.core.pobjects.fonts.zfont.cmap;
 public interface CMapRange {
 
         boolean inRange(int value);
+
+        int getStartRange();
+
+        int getEndRange();
 }
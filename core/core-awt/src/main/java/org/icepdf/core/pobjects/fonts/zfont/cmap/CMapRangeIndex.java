@@ -0,0 +1,91 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.fonts.zfont.cmap;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sorted view of a CMap's bfrange or cidrange list so a character code can be mapped with a binary search
+ * rather than a scan of every range.  Ranges may overlap, in which case the range that came first in the
+ * CMap wins, the same as a linear scan of the list.
+ *
+ * @since 7.0
+ */
+class CMapRangeIndex<T extends CMapRange> {
+
+    // ranges sorted by start value.
+    private final Object[] ranges;
+    private final int[] starts;
+    // largest end value of the ranges up to and including each index.
+    private final int[] maxEnds;
+    // position of each range in the CMap.
+    private final int[] order;
+
+    CMapRangeIndex(List<T> rangeList) {
+        int size = rangeList.size();
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) rangeList.get(i).getStartRange() << 32) | i;
+        }
+        Arrays.sort(keys);
+        ranges = new Object[size];
+        starts = new int[size];
+        maxEnds = new int[size];
+        order = new int[size];
+        int maxEnd = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            int index = (int) keys[i];
+            T range = rangeList.get(index);
+            ranges[i] = range;
+            starts[i] = range.getStartRange();
+            maxEnd = Math.max(maxEnd, range.getEndRange());
+            maxEnds[i] = maxEnd;
+            order[i] = index;
+        }
+    }
+
+    /**
+     * Finds the range containing the given value.
+     *
+     * @param value character code to look up.
+     * @return first range in CMap order containing the value, null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    T find(int value) {
+        // last range starting at or before value.
+        int low = 0;
+        int high = starts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        Object match = null;
+        int matchOrder = Integer.MAX_VALUE;
+        // walk back over any earlier ranges that still reach value, only overlapping ranges get past the first.
+        for (int i = high; i >= 0 && maxEnds[i] >= value; i--) {
+            if (order[i] < matchOrder && ((T) ranges[i]).inRange(value)) {
+                match = ranges[i];
+                matchOrder = order[i];
+            }
+        }
+        return (T) match;
+    }
+}
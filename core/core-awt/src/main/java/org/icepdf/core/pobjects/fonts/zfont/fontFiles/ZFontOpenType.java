@@ -4,10 +4,8 @@ import org.apache.fontbox.ttf.GlyphData;
 import org.apache.fontbox.ttf.OTFParser;
 import org.apache.fontbox.ttf.OpenTypeFont;
 import org.icepdf.core.pobjects.Stream;
-import org.icepdf.core.pobjects.graphics.TextState;
 
 import java.awt.*;
-import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -44,33 +42,16 @@ public class ZFontOpenType extends ZFontTrueType {
     }
 
     @Override
-    public void paint(Graphics2D g, String estr, float x, float y, long layout, int mode, Color strokeColor) {
-        try {
-            AffineTransform af = g.getTransform();
-            char echar = estr.charAt(0);
-            int gid = getCharToGid(echar);
-            GlyphData glyphData = trueTypeFont.getGlyph().getGlyph(gid);
-            Shape outline;
-            if (glyphData == null) {
-                outline = new GeneralPath();
-            } else {
-                outline = glyphData.getPath();
-            }
-
-            g.translate(x, y);
-            g.transform(this.fontTransform);
-
-            if (TextState.MODE_FILL == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_FILL_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.fill(outline);
-            }
-            if (TextState.MODE_STROKE == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_STROKE_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.draw(outline);
-            }
-            g.setTransform(af);
-        } catch (IOException e) {
-            e.printStackTrace();
+    protected Shape getGlyphPath(String estr) throws IOException {
+        char echar = estr.charAt(0);
+        int gid = getCharToGid(echar);
+        GlyphData glyphData = trueTypeFont.getGlyph().getGlyph(gid);
+        Shape outline;
+        if (glyphData == null) {
+            outline = new GeneralPath();
+        } else {
+            outline = glyphData.getPath();
         }
+        return outline;
     }
 }
@@ -7,7 +7,6 @@ import org.icepdf.core.pobjects.fonts.CMap;
 import org.icepdf.core.pobjects.fonts.Encoding;
 import org.icepdf.core.pobjects.fonts.FontFile;
 import org.icepdf.core.pobjects.fonts.zfont.GlyphList;
-import org.icepdf.core.pobjects.graphics.TextState;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
@@ -104,41 +103,25 @@ public class ZFontTrueType extends ZSimpleFont implements Cloneable {
     }
 
     @Override
-    public void paint(Graphics2D g, String estr, float x, float y, long layout, int mode, Color strokeColor) {
-        try {
-            AffineTransform af = g.getTransform();
-            char echar = estr.charAt(0);
-
-            Shape outline;
-            int gid;
-            if (trueTypeFont instanceof OpenTypeFont) {
-                int cid = codeToGID(echar);
-                Type2CharString charstring = ((OpenTypeFont) trueTypeFont).getCFF().getFont().getType2CharString(cid);
-                outline = charstring.getPath();
+    protected Shape getGlyphPath(String estr) throws IOException {
+        char echar = estr.charAt(0);
+
+        Shape outline;
+        int gid;
+        if (trueTypeFont instanceof OpenTypeFont) {
+            int cid = codeToGID(echar);
+            Type2CharString charstring = ((OpenTypeFont) trueTypeFont).getCFF().getFont().getType2CharString(cid);
+            outline = charstring.getPath();
+        } else {
+            gid = getCharToGid(echar);
+            GlyphData glyphData = trueTypeFont.getGlyph().getGlyph(gid);
+            if (glyphData == null) {
+                outline = new GeneralPath();
             } else {
-                gid = getCharToGid(echar);
-                GlyphData glyphData = trueTypeFont.getGlyph().getGlyph(gid);
-                if (glyphData == null) {
-                    outline = new GeneralPath();
-                } else {
-                    outline = glyphData.getPath();
-                }
-            }
-            g.translate(x, y);
-            g.transform(this.fontTransform);
-
-            if (TextState.MODE_FILL == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_FILL_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.fill(outline);
+                outline = glyphData.getPath();
             }
-            if (TextState.MODE_STROKE == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_STROKE_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.draw(outline);
-            }
-            g.setTransform(af);
-        } catch (IOException e) {
-            e.printStackTrace();
         }
+        return outline;
     }
 
     @Override
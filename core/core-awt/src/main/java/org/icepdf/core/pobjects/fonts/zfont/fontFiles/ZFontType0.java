@@ -6,7 +6,6 @@ import org.icepdf.core.pobjects.Stream;
 import org.icepdf.core.pobjects.fonts.CMap;
 import org.icepdf.core.pobjects.fonts.Encoding;
 import org.icepdf.core.pobjects.fonts.FontFile;
-import org.icepdf.core.pobjects.graphics.TextState;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
@@ -26,8 +25,10 @@ public class ZFontType0 extends ZSimpleFont {
     private FontBoxFont t1Font; // Top DICT that does not use CIDFont operators
 
     public ZFontType0(Stream fontStream) throws Exception {
+        this(fontStream.getDecodedStreamBytes());
+    }
 
-        byte[] fontBytes = fontStream.getDecodedStreamBytes();
+    public ZFontType0(byte[] fontBytes) throws Exception {
         CFFFont cffFont = null;
         if (fontBytes != null && fontBytes.length > 0 && (fontBytes[0] & 0xff) == '%') {
             logger.warning("Found PFB but expected embedded CFF font");
@@ -35,7 +36,7 @@ public class ZFontType0 extends ZSimpleFont {
         } else if (fontBytes != null) {
             CFFParser cffParser = new CFFParser();
             try {
-                cffFont = cffParser.parse(fontBytes, new FF3ByteSource(fontStream)).get(0);
+                cffFont = cffParser.parse(fontBytes, new FF3ByteSource(fontBytes)).get(0);
             } catch (IOException e) {
                 logger.log(Level.WARNING, "Can't read the embedded CFF font ", e);
                 throw new Exception(e);
@@ -83,35 +84,17 @@ public class ZFontType0 extends ZSimpleFont {
     }
 
     @Override
-    public void paint(Graphics2D g, String estr, float x, float y, long layout, int mode, Color strokeColor) {
-        try {
-            AffineTransform af = g.getTransform();
-            Shape outline = null;
-
-            int cid = estr.charAt(0);
-            Type2CharString charstring = getType2CharString(cid);
-            if (charstring != null) {
-                outline = charstring.getPath();
-            } else if (t1Font instanceof CFFType1Font) {
-                outline = ((CFFType1Font) t1Font).getType2CharString(cid).getPath();
-            }
-
-            // clean up,  not very efficient
-            g.translate(x, y);
-            g.transform(this.fontTransform);
+    protected Shape getGlyphPath(String estr) throws IOException {
+        Shape outline = null;
 
-            if (TextState.MODE_FILL == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_FILL_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.fill(outline);
-            }
-            if (TextState.MODE_STROKE == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_STROKE_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.draw(outline);
-            }
-            g.setTransform(af);
-        } catch (IOException e) {
-            e.printStackTrace();
+        int cid = estr.charAt(0);
+        Type2CharString charstring = getType2CharString(cid);
+        if (charstring != null) {
+            outline = charstring.getPath();
+        } else if (t1Font instanceof CFFType1Font) {
+            outline = ((CFFType1Font) t1Font).getType2CharString(cid).getPath();
         }
+        return outline;
     }
 
     public FontFile deriveFont(float defaultWidth, float[] widths) {
@@ -245,16 +228,17 @@ public class ZFontType0 extends ZSimpleFont {
         return length2;
     }
 
-    private class FF3ByteSource implements CFFParser.ByteSource {
-        private final Stream fontStream;
+    private static class FF3ByteSource implements CFFParser.ByteSource {
+        // the font bytes rather than the stream, a shared font program mustn't hold on to its document.
+        private final byte[] fontBytes;
 
-        public FF3ByteSource(Stream fontStream) {
-            this.fontStream = fontStream;
+        public FF3ByteSource(byte[] fontBytes) {
+            this.fontBytes = fontBytes;
         }
 
         @Override
         public byte[] getBytes() throws IOException {
-            return fontStream.getDecodedStreamBytes();
+            return fontBytes;
         }
     }
 }
@@ -25,16 +25,27 @@ public class ZFontType1 extends ZSimpleFont {
 
     private static final int PFB_START_MARKER = 0x80;
 
+    public static final Name LENGTH1_KEY = new Name("Length1");
+    public static final Name LENGTH2_KEY = new Name("Length2");
+
     private Type1Font type1Font;
 
     public ZFontType1(Stream fontStream) throws Exception {
+        this(fontStream.getDecodedStreamBytes(),
+                fontStream.getInt(LENGTH1_KEY), fontStream.getInt(LENGTH2_KEY));
+    }
+
+    /**
+     * Creates a Type 1 font from the decoded FontFile stream.
+     *
+     * @param fontBytes decoded font program.
+     * @param length1   length of the clear text portion, the stream's Length1 entry.
+     * @param length2   length of the encrypted portion, the stream's Length2 entry.
+     * @throws Exception font program can't be read.
+     */
+    public ZFontType1(byte[] fontBytes, int length1, int length2) throws Exception {
         try {
             // add length correction code
-            int length1 = fontStream.getInt(new Name("Length1"));
-            int length2 = fontStream.getInt(new Name("Length2"));
-
-            byte[] fontBytes = fontStream.getDecodedStreamBytes();
-
             length1 = repairLength1(fontBytes, length1);
             length2 = repairLength2(fontBytes, length1, length2);
 
@@ -24,12 +24,15 @@ public class ZFontType1C extends ZSimpleFont {
     private CFFType1Font cffType1Font;
 
     public ZFontType1C(Stream fontStream) throws Exception {
-        byte[] fontBytes = fontStream.getDecodedStreamBytes();
+        this(fontStream.getDecodedStreamBytes());
+    }
+
+    public ZFontType1C(byte[] fontBytes) throws Exception {
         try {
             if (fontBytes != null) {
                 // note: this could be an OpenType file, fortunately CFFParser can handle that
                 CFFParser cffParser = new CFFParser();
-                cffType1Font = (CFFType1Font) cffParser.parse(fontBytes, new FontFileByteSource(fontStream)).get(0);
+                cffType1Font = (CFFType1Font) cffParser.parse(fontBytes, new FontFileByteSource(fontBytes)).get(0);
             }
             fontBoxFont = cffType1Font;
         } catch (IOException e) {
@@ -138,15 +141,16 @@ public class ZFontType1C extends ZSimpleFont {
     }
 
     private static class FontFileByteSource implements CFFParser.ByteSource {
-        private final Stream fontStream;
+        // the font bytes rather than the stream, a shared font program mustn't hold on to its document.
+        private final byte[] fontBytes;
 
-        public FontFileByteSource(Stream fontStream) {
-            this.fontStream = fontStream;
+        public FontFileByteSource(byte[] fontBytes) {
+            this.fontBytes = fontBytes;
         }
 
         @Override
         public byte[] getBytes() throws IOException {
-            return fontStream.getDecodedStreamBytes();
+            return fontBytes;
         }
     }
 }
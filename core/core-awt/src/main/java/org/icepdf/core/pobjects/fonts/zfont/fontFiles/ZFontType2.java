@@ -8,7 +8,6 @@ import org.icepdf.core.pobjects.Stream;
 import org.icepdf.core.pobjects.fonts.CMap;
 import org.icepdf.core.pobjects.fonts.Encoding;
 import org.icepdf.core.pobjects.fonts.FontFile;
-import org.icepdf.core.pobjects.graphics.TextState;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
@@ -31,8 +30,11 @@ public class ZFontType2 extends ZSimpleFont { //extends ZFontTrueType {
     private CMap cid2gid;
 
     public ZFontType2(Stream fontStream) throws Exception {
+        this(fontStream.getDecodedStreamBytes());
+    }
+
+    public ZFontType2(byte[] fontBytes) throws Exception {
         try {
-            byte[] fontBytes = fontStream.getDecodedStreamBytes();
             // embedded OTF or TTF
             OTFParser otfParser = new OTFParser(true);
             OpenTypeFont openTypeFont = otfParser.parse(new ByteArrayInputStream(fontBytes));
@@ -77,36 +79,18 @@ public class ZFontType2 extends ZSimpleFont { //extends ZFontTrueType {
     }
 
     @Override
-    public void paint(Graphics2D g, String estr, float x, float y, long layout, int mode, Color strokeColor) {
-        try {
-            AffineTransform af = g.getTransform();
-            char echar = estr.charAt(0);
-            int gid = getCharToGid(echar);
-            GlyphData glyphData = trueTypeFont.getGlyph().getGlyph(gid);
-            Shape outline;
-            if (glyphData == null) {
-                outline = new GeneralPath();
-            } else {
-                // must scaled by caller using FontMatrix
-                outline = glyphData.getPath();
-            }
-
-            // clean up,  not very efficient
-            g.translate(x, y);
-            g.transform(this.fontTransform);
-
-            if (TextState.MODE_FILL == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_FILL_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.fill(outline);
-            }
-            if (TextState.MODE_STROKE == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_STROKE_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.draw(outline);
-            }
-            g.setTransform(af);
-        } catch (IOException e) {
-            e.printStackTrace();
+    protected Shape getGlyphPath(String estr) throws IOException {
+        char echar = estr.charAt(0);
+        int gid = getCharToGid(echar);
+        GlyphData glyphData = trueTypeFont.getGlyph().getGlyph(gid);
+        Shape outline;
+        if (glyphData == null) {
+            outline = new GeneralPath();
+        } else {
+            // must scaled by caller using FontMatrix
+            outline = glyphData.getPath();
         }
+        return outline;
     }
 
     @Override
@@ -11,6 +11,8 @@ import org.icepdf.core.pobjects.graphics.GraphicsState;
 import org.icepdf.core.pobjects.graphics.Shapes;
 import org.icepdf.core.pobjects.graphics.TextState;
 import org.icepdf.core.util.Library;
+import org.icepdf.core.util.metrics.Metric;
+import org.icepdf.core.util.metrics.Metrics;
 import org.icepdf.core.util.parser.content.ContentParser;
 
 import java.awt.*;
@@ -325,7 +327,11 @@ public class ZFontType3 extends ZSimpleFont implements Cloneable {
         // the same glyph name can have a different fills so we need to store the color in the key
         Name charKey = new Name(encoding.getName((char) characterIndex) + fillColor.getRGB());
         SoftReference<Shapes> softShapes = charShapesCache.get(charKey);
-        if (softShapes == null || softShapes.get() == null) {
+        Shapes cachedShapes = softShapes != null ? softShapes.get() : null;
+        if (Metrics.ENABLED) {
+            Metrics.count(cachedShapes != null ? Metric.GLYPH_CACHE_HIT : Metric.GLYPH_CACHE_MISS, "ZFontType3");
+        }
+        if (cachedShapes == null) {
             Object o = library.getObject(charProcedures.get(charName));
             if (o instanceof Stream) {
                 Stream stream = (Stream) o;
@@ -359,7 +365,7 @@ public class ZFontType3 extends ZSimpleFont implements Cloneable {
                 }
             }
         } else {
-            return softShapes.get();
+            return cachedShapes;
         }
         return null;
     }
@@ -377,6 +383,17 @@ public class ZFontType3 extends ZSimpleFont implements Cloneable {
         return new Area();
     }
 
+    /**
+     * Type3 glyphs are content streams and are always painted one at a time.
+     *
+     * @param estr text to calculate glyph outline shape
+     * @return null.
+     */
+    @Override
+    public Shape getGlyphOutline(String estr) {
+        return null;
+    }
+
     public Resources getParentResource() {
         return parentResource;
     }
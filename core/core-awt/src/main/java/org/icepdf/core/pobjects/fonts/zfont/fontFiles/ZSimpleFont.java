@@ -134,14 +134,7 @@ public abstract class ZSimpleFont implements FontFile {
     public void paint(Graphics2D g, String estr, float x, float y, long layout, int mode, Color strokeColor) {
         try {
             AffineTransform af = g.getTransform();
-            String name = codeToName(estr);
-            Shape outline = fontBoxFont.getPath(name);
-            if (encoding != null && !fontBoxFont.hasGlyph(name)) {
-                name = encoding.getName(estr.charAt(0));
-                if (name != null) {
-                    outline = fontBoxFont.getPath(name);
-                }
-            }
+            Shape outline = getGlyphPath(estr);
 
             // clean up,  not very efficient
             g.translate(x, y);
@@ -161,6 +154,38 @@ public abstract class ZSimpleFont implements FontFile {
         }
     }
 
+    /**
+     * Gets the outline painted for the given estr in glyph space, before the font transform is applied.
+     *
+     * @param estr character to get the outline of.
+     * @return glyph outline.
+     * @throws IOException error reading the glyph from the font program.
+     */
+    protected Shape getGlyphPath(String estr) throws IOException {
+        String name = codeToName(estr);
+        Shape outline = fontBoxFont.getPath(name);
+        if (encoding != null && !fontBoxFont.hasGlyph(name)) {
+            name = encoding.getName(estr.charAt(0));
+            if (name != null) {
+                outline = fontBoxFont.getPath(name);
+            }
+        }
+        return outline;
+    }
+
+    @Override
+    public Shape getGlyphOutline(String estr) {
+        try {
+            Shape outline = getGlyphPath(estr);
+            if (outline != null) {
+                return fontTransform.createTransformedShape(outline);
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error reading glyph outline.", e);
+        }
+        return null;
+    }
+
     @Override
     public Shape getOutline(String estr, float x, float y) {
         try {
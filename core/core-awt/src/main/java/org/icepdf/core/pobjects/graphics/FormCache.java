@@ -0,0 +1,244 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.graphics;
+
+import org.icepdf.core.pobjects.Form;
+import org.icepdf.core.pobjects.Name;
+import org.icepdf.core.pobjects.Reference;
+import org.icepdf.core.util.Defs;
+import org.icepdf.core.util.metrics.Metric;
+import org.icepdf.core.util.metrics.Metrics;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Document level cache of the rasterized transparency group buffers created by
+ * {@link org.icepdf.core.pobjects.graphics.commands.FormDrawCmd}, that would otherwise be rebuilt for every page that
+ * uses the form.  Letterheads, stamps and watermarks are typically drawn by the same form on every page of a document.
+ * <br>
+ * Buffers are keyed by the form reference and the graphics state inputs that affect the buffer's pixels: the
+ * inherited fill and stroke colour and alpha, the blending mode, soft masks and rendering hints.  Buffers are evicted
+ * least recently used first once the total buffer size exceeds the pool size.  A form's parsed shapes aren't shared,
+ * they depend on the inherited graphics state and resources and are changed by each page that draws them.
+ * <br>
+ * The buffer pool size can be set with the system property org.icepdf.core.views.formCacheSize, the value is in MB
+ * and the default is 1/16 of the max heap, up to 64MB.  The cache can be disabled with
+ * org.icepdf.core.views.formCacheEnabled=false.
+ *
+ * @since 7.0
+ */
+public class FormCache {
+
+    private static final boolean enabled;
+    private static final long maxBufferBytes;
+
+    static {
+        enabled = Defs.booleanProperty("org.icepdf.core.views.formCacheEnabled", true);
+        long defaultSize = Math.min(64, Runtime.getRuntime().maxMemory() / 1024 / 1024 / 16);
+        maxBufferBytes = Defs.intProperty("org.icepdf.core.views.formCacheSize", (int) defaultSize) * 1024L * 1024L;
+    }
+
+    private final LinkedHashMap<Key, FormBuffer> buffers = new LinkedHashMap<>(16, 0.75f, true);
+    private long bufferBytes;
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized FormBuffer getBuffer(Key key) {
+        if (!enabled || key == null) return null;
+        FormBuffer buffer = buffers.get(key);
+        if (Metrics.ENABLED) Metrics.count(buffer != null ? Metric.FORM_CACHE_HIT : Metric.FORM_CACHE_MISS, null);
+        return buffer;
+    }
+
+    public synchronized void putBuffer(Key key, FormBuffer buffer) {
+        if (!enabled || key == null || buffer == null) return;
+        long bytes = buffer.getSize();
+        // a single buffer bigger than the pool is never cached.
+        if (bytes > maxBufferBytes) return;
+        FormBuffer old = buffers.put(key, buffer);
+        if (old != null) {
+            bufferBytes -= old.getSize();
+        }
+        bufferBytes += bytes;
+        Iterator<FormBuffer> eldest = buffers.values().iterator();
+        while (bufferBytes > maxBufferBytes && eldest.hasNext()) {
+            FormBuffer evicted = eldest.next();
+            // shared with the draw command that created it, so we only drop our reference.
+            bufferBytes -= evicted.getSize();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Removes all cached data for the given form, called when a form's content is edited.
+     *
+     * @param reference form object reference.
+     */
+    public synchronized void invalidate(Reference reference) {
+        if (reference == null) return;
+        Iterator<Map.Entry<Key, FormBuffer>> iterator = buffers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, FormBuffer> entry = iterator.next();
+            if (reference.equals(entry.getKey().form)) {
+                bufferBytes -= entry.getValue().getSize();
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        buffers.clear();
+        bufferBytes = 0;
+    }
+
+    /**
+     * Builds a buffer key for the given form using its current graphics state.  Null is returned if the form or
+     * one of its soft mask groups can't be identified by reference, such forms are never shared.
+     *
+     * @param xForm          form to build key for.
+     * @param renderingHints rendering hints the buffer is painted with.
+     * @return buffer key or null if the form can't be cached.
+     */
+    public static Key createKey(Form xForm, RenderingHints renderingHints) {
+        Reference form = xForm.getPObjectReference();
+        if (!enabled || form == null) return null;
+        GraphicsState graphicsState = xForm.getGraphicsState();
+        ExtGState graphicsStateExt = graphicsState != null ? graphicsState.getExtGState() : null;
+        ExtGState formExt = xForm.getExtGState();
+        Key key = new Key(form, renderingHints);
+        key.addPaint(graphicsState);
+        if (!key.addState(graphicsStateExt) || !key.addState(formExt)) {
+            return null;
+        }
+        return key;
+    }
+
+    /**
+     * A rasterized form along with the form space location it is painted at.
+     */
+    public static class FormBuffer {
+        private final BufferedImage image;
+        private final int x, y;
+
+        public FormBuffer(BufferedImage image, int x, int y) {
+            this.image = image;
+            this.x = x;
+            this.y = y;
+        }
+
+        public BufferedImage getImage() {
+            return image;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        long getSize() {
+            return (long) image.getWidth() * image.getHeight() * 4;
+        }
+    }
+
+    /**
+     * Form buffer key, the form reference plus the inherited paint and the blending and soft mask state of the
+     * graphics state and the form.
+     */
+    public static final class Key {
+        private final Reference form;
+        private final RenderingHints renderingHints;
+        private final Object[] state = new Object[16];
+        private int stateCount;
+        private int hash;
+
+        private Key(Reference form, RenderingHints renderingHints) {
+            this.form = form;
+            this.renderingHints = renderingHints;
+        }
+
+        private void addPaint(GraphicsState graphicsState) {
+            // uncoloured forms paint with the inherited colours.
+            if (graphicsState != null) {
+                state[stateCount++] = graphicsState.getFillColor();
+                state[stateCount++] = graphicsState.getStrokeColor();
+                state[stateCount++] = graphicsState.getFillAlpha();
+                state[stateCount++] = graphicsState.getStrokeAlpha();
+            } else {
+                stateCount += 4;
+            }
+        }
+
+        private boolean addState(ExtGState extGState) {
+            if (extGState == null) {
+                stateCount += 6;
+                return true;
+            }
+            Name blendingMode = extGState.getBlendingMode();
+            state[stateCount++] = blendingMode;
+            state[stateCount++] = extGState.isAlphaAShape();
+            state[stateCount++] = extGState.getOverprintMode();
+            state[stateCount++] = extGState.getNonStrokingAlphConstant();
+            SoftMask softMask = extGState.getSMask();
+            if (softMask != null) {
+                Form group = softMask.getG();
+                Reference groupReference = group != null ? group.getPObjectReference() : null;
+                if (groupReference == null) {
+                    return false;
+                }
+                state[stateCount++] = softMask.getS();
+                state[stateCount++] = groupReference;
+            } else {
+                stateCount += 2;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            if (!form.equals(key.form) || !Objects.equals(renderingHints, key.renderingHints)) return false;
+            for (int i = 0; i < state.length; i++) {
+                if (!Objects.equals(state[i], key.state[i])) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = hash;
+            if (h == 0) {
+                h = form.hashCode();
+                for (Object value : state) {
+                    h = 31 * h + Objects.hashCode(value);
+                }
+                hash = h;
+            }
+            return h;
+        }
+    }
+}
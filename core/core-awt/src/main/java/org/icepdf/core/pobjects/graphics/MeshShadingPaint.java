@@ -0,0 +1,457 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.graphics;
+
+import org.icepdf.core.pobjects.Reference;
+import org.icepdf.core.util.Defs;
+import org.icepdf.core.util.Library;
+import org.icepdf.core.util.metrics.Metric;
+import org.icepdf.core.util.metrics.Metrics;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * Paint for mesh based shadings, types 4-7.  The shading is decoded once into Gouraud shaded triangles and
+ * tensor-product patches (Coons patches are converted to tensor form) whose vertex colours have already been run
+ * through the shading function and colour space.  When painted the mesh is rasterized into a device resolution
+ * tile, patches are subdivided so no sub-triangle edge is much longer than a few device pixels, and the tile is
+ * kept in the document's {@link ShadingCache}.
+ * <br>
+ * Tiles covering more than org.icepdf.core.views.shadingTileMaxPixels pixels, default 2048*2048, are limited to
+ * the area being painted.
+ *
+ * @since 7.0
+ */
+public class MeshShadingPaint implements Paint {
+
+    private static final int maxTilePixels;
+
+    static {
+        maxTilePixels = Defs.intProperty("org.icepdf.core.views.shadingTileMaxPixels", 2048 * 2048);
+    }
+
+    // target device space length of a patch sub-triangle edge.
+    private static final float PATCH_STEP = 3f;
+    private static final int MAX_PATCH_DIVISIONS = 64;
+
+    private final Library library;
+    private final Reference reference;
+    private final int shadingType;
+    private final AffineTransform matrix;
+
+    // x0, y0, x1, y1, x2, y2 per triangle and an rgb colour per vertex.
+    private float[] triangles = new float[6 * 16];
+    private int[] triangleColors = new int[3 * 16];
+    private int triangleCount;
+
+    // 16 control points in row major p[u][v] order per patch and the corner colours c00, c03, c33, c30.
+    private float[] patches = new float[32];
+    private int[] patchColors = new int[4];
+    private int patchCount;
+
+    private double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+    private double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+
+    // used when the shading can't be shared via the document cache.
+    private double[] lastMatrix;
+    private Rectangle lastBounds;
+    private Tile lastTile;
+
+    public MeshShadingPaint(Library library, Reference reference, int shadingType, AffineTransform matrix) {
+        this.library = library;
+        this.reference = reference;
+        this.shadingType = shadingType;
+        this.matrix = matrix != null ? matrix : new AffineTransform();
+    }
+
+    /**
+     * Adds a Gouraud shaded triangle.
+     *
+     * @param xy     x0, y0, x1, y1, x2, y2 shading space vertices.
+     * @param colors rgb colour of each vertex.
+     */
+    public void addTriangle(float[] xy, int[] colors) {
+        if (triangles.length < (triangleCount + 1) * 6) {
+            triangles = Arrays.copyOf(triangles, triangles.length * 2);
+            triangleColors = Arrays.copyOf(triangleColors, triangleColors.length * 2);
+        }
+        System.arraycopy(xy, 0, triangles, triangleCount * 6, 6);
+        System.arraycopy(colors, 0, triangleColors, triangleCount * 3, 3);
+        triangleCount++;
+        for (int i = 0; i < 6; i += 2) {
+            include(xy[i], xy[i + 1]);
+        }
+    }
+
+    /**
+     * Adds a tensor-product patch.
+     *
+     * @param points 16 shading space control points, x and y of p[u][v] stored at (u * 4 + v) * 2.
+     * @param colors rgb colours of the corners c00, c03, c33 and c30.
+     */
+    public void addPatch(float[] points, int[] colors) {
+        if (patches.length < (patchCount + 1) * 32) {
+            patches = Arrays.copyOf(patches, patches.length * 2);
+            patchColors = Arrays.copyOf(patchColors, patchColors.length * 2);
+        }
+        System.arraycopy(points, 0, patches, patchCount * 32, 32);
+        System.arraycopy(colors, 0, patchColors, patchCount * 4, 4);
+        patchCount++;
+        // a bezier surface is contained by the hull of its control points.
+        for (int i = 0; i < 32; i += 2) {
+            include(points[i], points[i + 1]);
+        }
+    }
+
+    public boolean isEmpty() {
+        return triangleCount == 0 && patchCount == 0;
+    }
+
+    private void include(float x, float y) {
+        if (x < minX) minX = x;
+        if (x > maxX) maxX = x;
+        if (y < minY) minY = y;
+        if (y > maxY) maxY = y;
+    }
+
+    public int getTransparency() {
+        return TRANSLUCENT;
+    }
+
+    public PaintContext createContext(ColorModel cm, Rectangle deviceBounds, Rectangle2D userBounds,
+                                      AffineTransform xform, RenderingHints hints) {
+        if (isEmpty()) {
+            return new TileContext(null, 0, 0);
+        }
+        AffineTransform device = new AffineTransform(xform);
+        device.concatenate(matrix);
+        // tiles are rendered relative to the whole pixel translation so panning doesn't invalidate them.
+        double tx = Math.floor(device.getTranslateX());
+        double ty = Math.floor(device.getTranslateY());
+        AffineTransform local = new AffineTransform(device.getScaleX(), device.getShearY(),
+                device.getShearX(), device.getScaleY(),
+                device.getTranslateX() - tx, device.getTranslateY() - ty);
+
+        Rectangle meshBounds = local.createTransformedShape(
+                new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY)).getBounds();
+        meshBounds.grow(1, 1);
+        Rectangle tileBounds = meshBounds;
+        boolean clipped = false;
+        if ((long) meshBounds.width * meshBounds.height > maxTilePixels) {
+            Rectangle area = new Rectangle(deviceBounds);
+            area.translate((int) -tx, (int) -ty);
+            tileBounds = meshBounds.intersection(area);
+            clipped = true;
+        }
+        if (tileBounds.isEmpty()) {
+            return new TileContext(null, 0, 0);
+        }
+
+        Rectangle keyBounds = clipped ? tileBounds : null;
+        ShadingCache.Key key = ShadingCache.createKey(reference, local, keyBounds);
+        double[] localMatrix = new double[6];
+        local.getMatrix(localMatrix);
+        Tile tile = null;
+        if (key != null) {
+            tile = library.getShadingCache().get(key);
+        } else {
+            synchronized (this) {
+                if (lastTile != null && Arrays.equals(lastMatrix, localMatrix) &&
+                        (keyBounds == null ? lastBounds == null : keyBounds.equals(lastBounds))) {
+                    tile = lastTile;
+                }
+            }
+        }
+        if (tile == null) {
+            long start = Metrics.start();
+            tile = rasterize(local, tileBounds);
+            if (Metrics.ENABLED) Metrics.time(Metric.SHADING_RASTERIZE, String.valueOf(shadingType), start);
+            if (key != null) {
+                library.getShadingCache().put(key, tile);
+            } else {
+                synchronized (this) {
+                    lastMatrix = localMatrix;
+                    lastBounds = keyBounds;
+                    lastTile = tile;
+                }
+            }
+        }
+        return new TileContext(tile, (int) tx, (int) ty);
+    }
+
+    private Tile rasterize(AffineTransform transform, Rectangle bounds) {
+        Tile tile = new Tile(bounds);
+        AffineTransform toTile = new AffineTransform();
+        toTile.translate(-bounds.x, -bounds.y);
+        toTile.concatenate(transform);
+
+        float[] xy = new float[6];
+        for (int i = 0; i < triangleCount; i++) {
+            toTile.transform(triangles, i * 6, xy, 0, 3);
+            int c = i * 3;
+            tile.fillTriangle(xy[0], xy[1], triangleColors[c],
+                    xy[2], xy[3], triangleColors[c + 1],
+                    xy[4], xy[5], triangleColors[c + 2]);
+        }
+
+        float[] points = new float[32];
+        for (int i = 0; i < patchCount; i++) {
+            toTile.transform(patches, i * 32, points, 0, 16);
+            fillPatch(tile, points, patchColors, i * 4);
+        }
+        return tile;
+    }
+
+    /**
+     * Subdivides a device space tensor-product patch into a grid sized to the device resolution and fills the
+     * grid cells as Gouraud shaded triangle pairs.  The corner colours are interpolated bilinearly in u and v.
+     */
+    private static void fillPatch(Tile tile, float[] p, int[] colors, int colorOffset) {
+        // control polygon length is an upper bound on the curve length in each direction.
+        float uLength = 0, vLength = 0;
+        for (int k = 0; k < 4; k++) {
+            float u = 0, v = 0;
+            for (int m = 0; m < 3; m++) {
+                u += distance(p, m * 4 + k, (m + 1) * 4 + k);
+                v += distance(p, k * 4 + m, k * 4 + m + 1);
+            }
+            uLength = Math.max(uLength, u);
+            vLength = Math.max(vLength, v);
+        }
+        int uSteps = divisions(uLength);
+        int vSteps = divisions(vLength);
+
+        int c00 = colors[colorOffset], c03 = colors[colorOffset + 1];
+        int c33 = colors[colorOffset + 2], c30 = colors[colorOffset + 3];
+
+        int columns = vSteps + 1;
+        float[] gridX = new float[(uSteps + 1) * columns];
+        float[] gridY = new float[gridX.length];
+        int[] gridColor = new int[gridX.length];
+        float[] bu = new float[4];
+        float[] bv = new float[4];
+        for (int i = 0; i <= uSteps; i++) {
+            float u = i / (float) uSteps;
+            bernstein(u, bu);
+            for (int j = 0; j <= vSteps; j++) {
+                float v = j / (float) vSteps;
+                bernstein(v, bv);
+                float x = 0, y = 0;
+                for (int m = 0; m < 4; m++) {
+                    for (int n = 0; n < 4; n++) {
+                        float b = bu[m] * bv[n];
+                        int index = (m * 4 + n) * 2;
+                        x += p[index] * b;
+                        y += p[index + 1] * b;
+                    }
+                }
+                int g = i * columns + j;
+                gridX[g] = x;
+                gridY[g] = y;
+                gridColor[g] = bilinear(c00, c03, c33, c30, u, v);
+            }
+        }
+        for (int i = 0; i < uSteps; i++) {
+            for (int j = 0; j < vSteps; j++) {
+                int a = i * columns + j, b = a + 1, c = a + columns, d = c + 1;
+                tile.fillTriangle(gridX[a], gridY[a], gridColor[a], gridX[b], gridY[b], gridColor[b],
+                        gridX[c], gridY[c], gridColor[c]);
+                tile.fillTriangle(gridX[b], gridY[b], gridColor[b], gridX[d], gridY[d], gridColor[d],
+                        gridX[c], gridY[c], gridColor[c]);
+            }
+        }
+    }
+
+    private static float distance(float[] p, int a, int b) {
+        float dx = p[b * 2] - p[a * 2];
+        float dy = p[b * 2 + 1] - p[a * 2 + 1];
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private static int divisions(float length) {
+        return Math.max(1, Math.min(MAX_PATCH_DIVISIONS, (int) Math.ceil(length / PATCH_STEP)));
+    }
+
+    private static void bernstein(float t, float[] b) {
+        float s = 1 - t;
+        b[0] = s * s * s;
+        b[1] = 3 * t * s * s;
+        b[2] = 3 * t * t * s;
+        b[3] = t * t * t;
+    }
+
+    private static int bilinear(int c00, int c03, int c33, int c30, float u, float v) {
+        int rgb = 0;
+        for (int shift = 16; shift >= 0; shift -= 8) {
+            float top = ((c00 >> shift) & 0xFF) * (1 - v) + ((c03 >> shift) & 0xFF) * v;
+            float bottom = ((c30 >> shift) & 0xFF) * (1 - v) + ((c33 >> shift) & 0xFF) * v;
+            rgb |= ((int) (top * (1 - u) + bottom * u + 0.5f) & 0xFF) << shift;
+        }
+        return rgb;
+    }
+
+    /**
+     * Rasterized ARGB tile in device space, pixels not covered by the mesh are left transparent.
+     */
+    public static class Tile {
+        private final int x, y, width, height;
+        private final int[] data;
+
+        private Tile(Rectangle bounds) {
+            x = bounds.x;
+            y = bounds.y;
+            width = bounds.width;
+            height = bounds.height;
+            data = new int[width * height];
+        }
+
+        long getSize() {
+            return (long) data.length * 4;
+        }
+
+        /**
+         * Fills pixels whose centres fall inside the triangle, colour channels are interpolated using the plane
+         * through the three vertex colours.  Pixels on shared edges are filled by both triangles so adjacent
+         * triangles never leave gaps.
+         */
+        private void fillTriangle(float x0, float y0, int c0, float x1, float y1, int c1,
+                                  float x2, float y2, int c2) {
+            float area = (x1 - x0) * (y2 - y0) - (x2 - x0) * (y1 - y0);
+            if (area == 0 || Float.isNaN(area)) {
+                return;
+            }
+            int top = Math.max(0, (int) Math.ceil(Math.min(y0, Math.min(y1, y2)) - 0.5f));
+            int bottom = Math.min(height - 1, (int) Math.floor(Math.max(y0, Math.max(y1, y2)) - 0.5f));
+            if (top > bottom) {
+                return;
+            }
+            float r0 = (c0 >> 16) & 0xFF, g0 = (c0 >> 8) & 0xFF, b0 = c0 & 0xFF;
+            float dr1 = ((c1 >> 16) & 0xFF) - r0, dg1 = ((c1 >> 8) & 0xFF) - g0, db1 = (c1 & 0xFF) - b0;
+            float dr2 = ((c2 >> 16) & 0xFF) - r0, dg2 = ((c2 >> 8) & 0xFF) - g0, db2 = (c2 & 0xFF) - b0;
+            float dx1 = x1 - x0, dy1 = y1 - y0, dx2 = x2 - x0, dy2 = y2 - y0;
+            float drdx = (dr1 * dy2 - dr2 * dy1) / area, drdy = (dr2 * dx1 - dr1 * dx2) / area;
+            float dgdx = (dg1 * dy2 - dg2 * dy1) / area, dgdy = (dg2 * dx1 - dg1 * dx2) / area;
+            float dbdx = (db1 * dy2 - db2 * dy1) / area, dbdy = (db2 * dx1 - db1 * dx2) / area;
+
+            for (int py = top; py <= bottom; py++) {
+                float yc = py + 0.5f;
+                float left = Float.MAX_VALUE, right = -Float.MAX_VALUE;
+                float xc;
+                if ((y0 <= yc && yc <= y1) || (y1 <= yc && yc <= y0)) {
+                    if (y0 != y1) {
+                        xc = x0 + (yc - y0) * (x1 - x0) / (y1 - y0);
+                        left = Math.min(left, xc);
+                        right = Math.max(right, xc);
+                    }
+                }
+                if ((y1 <= yc && yc <= y2) || (y2 <= yc && yc <= y1)) {
+                    if (y1 != y2) {
+                        xc = x1 + (yc - y1) * (x2 - x1) / (y2 - y1);
+                        left = Math.min(left, xc);
+                        right = Math.max(right, xc);
+                    }
+                }
+                if ((y2 <= yc && yc <= y0) || (y0 <= yc && yc <= y2)) {
+                    if (y2 != y0) {
+                        xc = x2 + (yc - y2) * (x0 - x2) / (y0 - y2);
+                        left = Math.min(left, xc);
+                        right = Math.max(right, xc);
+                    }
+                }
+                int start = Math.max(0, (int) Math.ceil(left - 0.5f));
+                int end = Math.min(width - 1, (int) Math.floor(right - 0.5f));
+                if (start > end) {
+                    continue;
+                }
+                float ox = start + 0.5f - x0, oy = yc - y0;
+                float r = r0 + drdx * ox + drdy * oy;
+                float g = g0 + dgdx * ox + dgdy * oy;
+                float b = b0 + dbdx * ox + dbdy * oy;
+                int offset = py * width;
+                for (int px = start; px <= end; px++) {
+                    data[offset + px] = 0xFF000000 | clamp(r) << 16 | clamp(g) << 8 | clamp(b);
+                    r += drdx;
+                    g += dgdx;
+                    b += dbdx;
+                }
+            }
+        }
+
+        private static int clamp(float value) {
+            int v = (int) (value + 0.5f);
+            return v < 0 ? 0 : v > 255 ? 255 : v;
+        }
+    }
+
+    /**
+     * Copies tile pixels into the rasters requested by the paint pipeline, areas outside the tile are transparent.
+     */
+    private static class TileContext implements PaintContext {
+        private final Tile tile;
+        private final int offsetX, offsetY;
+        private WritableRaster saved;
+
+        private TileContext(Tile tile, int translateX, int translateY) {
+            this.tile = tile;
+            if (tile != null) {
+                offsetX = tile.x + translateX;
+                offsetY = tile.y + translateY;
+            } else {
+                offsetX = offsetY = 0;
+            }
+        }
+
+        public void dispose() {
+            saved = null;
+        }
+
+        public ColorModel getColorModel() {
+            return ColorModel.getRGBdefault();
+        }
+
+        public Raster getRaster(int x, int y, int w, int h) {
+            WritableRaster raster = saved;
+            if (raster == null || raster.getWidth() < w || raster.getHeight() < h) {
+                raster = getColorModel().createCompatibleWritableRaster(w, h);
+                saved = raster;
+            }
+            int[] out = ((DataBufferInt) raster.getDataBuffer()).getData();
+            int stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+            for (int row = 0; row < h; row++) {
+                int offset = row * stride;
+                Arrays.fill(out, offset, offset + w, 0);
+                if (tile == null) continue;
+                int ty = y + row - offsetY;
+                if (ty < 0 || ty >= tile.height) continue;
+                int start = Math.max(x, offsetX);
+                int end = Math.min(x + w, offsetX + tile.width);
+                if (start < end) {
+                    System.arraycopy(tile.data, ty * tile.width + start - offsetX, out,
+                            offset + start - x, end - start);
+                }
+            }
+            return raster;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.icepdf.core.pobjects.graphics;
 import org.icepdf.core.pobjects.Dictionary;
 import org.icepdf.core.pobjects.Name;
 import org.icepdf.core.pobjects.Reference;
+import org.icepdf.core.pobjects.graphics.RasterOps.ColorLookupTable;
 import org.icepdf.core.util.Library;
 
 import java.awt.*;
@@ -34,6 +35,20 @@ public abstract class PColorSpace extends Dictionary {
     private static final Logger logger =
             Logger.getLogger(PColorSpace.class.toString());
 
+    /**
+     * Device colour spaces hold no document state, so one instance of each is shared by every document.
+     * Kept out of PColorSpace itself so the subclasses aren't created while PColorSpace is being initialized.
+     */
+    private static final class DeviceColorSpaces {
+        static final DeviceGray DEVICE_GRAY = new DeviceGray(null, null);
+        static final DeviceRGB DEVICE_RGB = new DeviceRGB(null, null);
+        static final DeviceCMYK DEVICE_CMYK = new DeviceCMYK(null, null);
+    }
+
+    // image conversion tables by number of components, built on first use.
+    private final Object colorLookupLock = new Object();
+    private ColorLookupTable[] colorLookupTables;
+
     public abstract int getNumComponents();
 
 
@@ -48,14 +63,15 @@ public abstract class PColorSpace extends Dictionary {
     }
 
     /**
-     * Gets the colour space object represent by o.  This method is synchronized to insure we don't
-     * accidently end up with two copies of the same object.
+     * Gets the colour space object represent by o.  Device colour spaces are shared instances and colour
+     * spaces behind a reference are cached by the document library, so there is no global lock.  Two
+     * threads resolving the same reference at once may both build it, the last one built is kept.
      *
      * @param library document library
      * @param o       object to try and make into a valid color space.
      * @return a valid color space or null if an error occurred.
      */
-    public static synchronized PColorSpace getColorSpace(Library library, Object o) {
+    public static PColorSpace getColorSpace(Library library, Object o) {
         if (o != null) {
             PColorSpace colorSpace = null;
             Reference ref = null;
@@ -69,13 +85,13 @@ public abstract class PColorSpace extends Dictionary {
             } else if (o instanceof Name) {
                 if (o.equals(DeviceGray.DEVICEGRAY_KEY) ||
                         o.equals(DeviceGray.G_KEY)) {
-                    colorSpace = new DeviceGray(library, null);
+                    colorSpace = DeviceColorSpaces.DEVICE_GRAY;
                 } else if (o.equals(DeviceRGB.DEVICERGB_KEY) ||
                         o.equals(DeviceRGB.RGB_KEY)) {
-                    colorSpace = new DeviceRGB(library, null);
+                    colorSpace = DeviceColorSpaces.DEVICE_RGB;
                 } else if (o.equals(DeviceCMYK.DEVICECMYK_KEY) ||
                         o.equals(DeviceCMYK.CMYK_KEY)) {
-                    colorSpace = new DeviceCMYK(library, null);
+                    colorSpace = DeviceColorSpaces.DEVICE_CMYK;
                 } else if (o.equals(PatternColor.PATTERN_KEY)) {
                     colorSpace = new PatternColor(library, null);
                 }
@@ -112,11 +128,11 @@ public abstract class PColorSpace extends Dictionary {
                      "Alternate"));*/
                     colorSpace = library.getICCBased((Reference) v.get(1));
                 } else if (colorant.equals(DeviceRGB.DEVICERGB_KEY)) {
-                    colorSpace = new DeviceRGB(library, null);
+                    colorSpace = DeviceColorSpaces.DEVICE_RGB;
                 } else if (colorant.equals(DeviceCMYK.DEVICECMYK_KEY)) {
-                    colorSpace = new DeviceCMYK(library, null);
+                    colorSpace = DeviceColorSpaces.DEVICE_CMYK;
                 } else if (colorant.equals(DeviceGray.DEVICEGRAY_KEY)) {
-                    colorSpace = new DeviceGray(library, null);
+                    colorSpace = DeviceColorSpaces.DEVICE_GRAY;
                 } else if (colorant.equals(PatternColor.PATTERN_KEY)) {
                     PatternColor patternColour = new PatternColor(library, null);
                     if (v.size() > 1) {
@@ -144,15 +160,20 @@ public abstract class PColorSpace extends Dictionary {
             if (colorSpace == null && logger.isLoggable(Level.FINE)) {
                 logger.fine("Unsupported ColorSpace: " + o);
             }
-            // cache the space proper.
-            if (ref != null && colorSpace != null) {
+            // cache the space proper, shared device spaces are left out as they aren't the referenced object.
+            if (ref != null && colorSpace != null && !isDeviceColorSpace(colorSpace)) {
                 library.addObject(colorSpace, ref);
             }
             if (colorSpace != null) {
                 return colorSpace;
             }
         }
-        return new DeviceGray(library, null);
+        return DeviceColorSpaces.DEVICE_GRAY;
+    }
+
+    private static boolean isDeviceColorSpace(PColorSpace colorSpace) {
+        return colorSpace == DeviceColorSpaces.DEVICE_GRAY || colorSpace == DeviceColorSpaces.DEVICE_RGB ||
+                colorSpace == DeviceColorSpaces.DEVICE_CMYK;
     }
 
     /**
@@ -182,15 +203,15 @@ public abstract class PColorSpace extends Dictionary {
      *
      * @param library hash of all library objects
      * @param n       number of colours in colour space
-     * @return a new PColorSpace given the value of n
+     * @return the shared device PColorSpace given the value of n
      */
-    public synchronized static PColorSpace getColorSpace(Library library, float n) {
+    public static PColorSpace getColorSpace(Library library, float n) {
         if (n == 3) {
-            return new DeviceRGB(library, null);
+            return DeviceColorSpaces.DEVICE_RGB;
         } else if (n == 4) {
-            return new DeviceCMYK(library, null);
+            return DeviceColorSpaces.DEVICE_CMYK;
         } else {
-            return new DeviceGray(library, null);
+            return DeviceColorSpaces.DEVICE_GRAY;
         }
     }
 
@@ -206,6 +227,45 @@ public abstract class PColorSpace extends Dictionary {
 
     public abstract Color getColor(float[] components, boolean fillAndStroke);
 
+    /**
+     * Gets the table used to convert 8 bit image samples in this colour space to RGB.  The table is built on
+     * first use and kept for the life of the colour space.
+     *
+     * @param components number of components per sample, at most {@link ColorLookupTable#MAX_COMPONENTS}.
+     * @return colour lookup table.
+     */
+    public ColorLookupTable getColorLookupTable(int components) {
+        synchronized (colorLookupLock) {
+            if (colorLookupTables == null) {
+                colorLookupTables = new ColorLookupTable[ColorLookupTable.MAX_COMPONENTS + 1];
+            }
+            ColorLookupTable table = colorLookupTables[components];
+            if (table == null) {
+                // image samples have always been passed with room for at least three components.
+                float[] values = new float[Math.max(3, components)];
+                table = new ColorLookupTable(components, sample -> {
+                    System.arraycopy(sample, 0, values, 0, components);
+                    return getColor(values).getRGB();
+                });
+                colorLookupTables[components] = table;
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Checks if a lookup table has already been built for the given number of components.
+     *
+     * @param components number of components per sample.
+     * @return true if the table exists.
+     */
+    public boolean hasColorLookupTable(int components) {
+        synchronized (colorLookupLock) {
+            return colorLookupTables != null && components < colorLookupTables.length &&
+                    colorLookupTables[components] != null;
+        }
+    }
+
     public void normaliseComponentsToFloats(int[] in, float[] out, float maxval) {
         int count = getNumComponents();
         for (int i = 0; i < count; i++)
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.graphics.RasterOps;
+
+import org.icepdf.core.util.Defs;
+
+import java.util.stream.IntStream;
+
+/**
+ * Colour conversion table for 8 bit image samples.  The source colour space is sampled once on a regular grid
+ * and pixels are converted by interpolating between the nearest grid nodes, tetrahedral interpolation for up
+ * to three components and linear interpolation between two tetrahedral lookups for the fourth.  Single
+ * component spaces are sampled at every value so no interpolation is needed.
+ * <br>
+ * Building a table costs one colour space conversion per node, {@link #isWorthBuilding(int, int)} should be
+ * used to avoid building a table for a small image.  The grid size can be set with the system property
+ * org.icepdf.core.image.colorLookupGridPoints, 17 by default, and tables can be disabled altogether with
+ * org.icepdf.core.image.colorLookup=false.
+ *
+ * @since 7.0
+ */
+public class ColorLookupTable {
+
+    /**
+     * Converts the colour components of one grid node to RGB.
+     */
+    public interface ColorSampler {
+        /**
+         * @param components colour components in the range 0 to 1.
+         * @return colour as packed RGB.
+         */
+        int getRGB(float[] components);
+    }
+
+    public static final int MAX_COMPONENTS = 4;
+
+    private static final boolean enabled;
+    private static final int gridPoints;
+    // rasters with at least this many pixels are converted in parallel bands, zero or less disables the split.
+    private static int parallelThreshold;
+
+    private static final int BAND_PIXELS = 64 * 1024;
+    // interpolation weights are fractions of 256.
+    private static final int ONE = 256;
+
+    static {
+        enabled = Defs.booleanProperty("org.icepdf.core.image.colorLookup", true);
+        gridPoints = Math.max(2, Math.min(255, Defs.intProperty("org.icepdf.core.image.colorLookupGridPoints", 17)));
+        parallelThreshold = Defs.intProperty("org.icepdf.core.image.colorLookupParallelThreshold", 512 * 512);
+        if (parallelThreshold <= 0) {
+            parallelThreshold = Integer.MAX_VALUE;
+        }
+    }
+
+    private final int components;
+    // packed RGB of every grid node, the first component varies slowest.
+    private final int[] nodes;
+    private final int[] strides;
+    // grid cell and fraction of a cell for each sample value.
+    private final int[] cells;
+    private final int[] fractions;
+
+    /**
+     * Samples the colour space on to a new table.
+     *
+     * @param components number of colour components, 1 to {@link #MAX_COMPONENTS}.
+     * @param sampler    colour space conversion.
+     */
+    public ColorLookupTable(int components, ColorSampler sampler) {
+        if (components < 1 || components > MAX_COMPONENTS) {
+            throw new IllegalArgumentException("Unsupported component count " + components);
+        }
+        this.components = components;
+        int points = getGridPoints(components);
+        strides = new int[components];
+        int nodeCount = 1;
+        for (int i = components - 1; i >= 0; i--) {
+            strides[i] = nodeCount;
+            nodeCount *= points;
+        }
+        cells = new int[256];
+        fractions = new int[256];
+        for (int value = 0; value < 256; value++) {
+            int position = value * (points - 1) * ONE / 255;
+            int cell = Math.min(position / ONE, points - 2);
+            cells[value] = cell;
+            fractions[value] = position - cell * ONE;
+        }
+
+        nodes = new int[nodeCount];
+        float[] values = new float[components];
+        int[] counters = new int[components];
+        for (int node = 0; node < nodeCount; node++) {
+            for (int i = 0; i < components; i++) {
+                values[i] = counters[i] / (float) (points - 1);
+            }
+            nodes[node] = sampler.getRGB(values) & 0xffffff;
+            for (int i = components - 1; i >= 0 && ++counters[i] == points; i--) {
+                counters[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Checks if lookup tables are enabled.
+     *
+     * @return true if tables are enabled.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Checks if a table is worth building to convert the given number of pixels, that is there are at least
+     * twice as many pixels as grid nodes.
+     *
+     * @param components number of colour components.
+     * @param pixelCount number of pixels to convert.
+     * @return true if a table should be built.
+     */
+    public static boolean isWorthBuilding(int components, int pixelCount) {
+        if (!enabled || components < 1 || components > MAX_COMPONENTS) {
+            return false;
+        }
+        long nodeCount = 1;
+        for (int i = 0; i < components; i++) {
+            nodeCount *= getGridPoints(components);
+        }
+        return pixelCount >= nodeCount * 2;
+    }
+
+    private static int getGridPoints(int components) {
+        return components == 1 ? 256 : gridPoints;
+    }
+
+    /**
+     * Converts interleaved 8 bit samples to opaque RGB pixels.  Large rasters are split into bands of rows that
+     * are converted in parallel.
+     *
+     * @param src        source samples, the first components of each pixel are used.
+     * @param bands      number of samples per pixel in src, at least the table's component count.
+     * @param dest       destination pixels.
+     * @param width      raster width.
+     * @param pixelCount number of pixels to convert.
+     */
+    public void convert(byte[] src, int bands, int[] dest, int width, int pixelCount) {
+        if (pixelCount <= 0) {
+            return;
+        }
+        int bandPixels = Math.max(1, BAND_PIXELS / Math.max(1, width)) * Math.max(1, width);
+        int bandCount = (pixelCount + bandPixels - 1) / bandPixels;
+        if (bandCount > 1 && pixelCount >= parallelThreshold) {
+            // bands write disjoint rows of dest.
+            IntStream.range(0, bandCount).parallel().forEach(band ->
+                    convertRange(src, bands, dest, band * bandPixels, Math.min(pixelCount, (band + 1) * bandPixels)));
+        } else {
+            convertRange(src, bands, dest, 0, pixelCount);
+        }
+    }
+
+    private void convertRange(byte[] src, int bands, int[] dest, int start, int end) {
+        long lastKey = -1;
+        int lastRGB = 0;
+        for (int pixel = start, offset = start * bands; pixel < end; pixel++, offset += bands) {
+            long key = src[offset] & 0xff;
+            for (int i = 1; i < components; i++) {
+                key = (key << 8) | (src[offset + i] & 0xff);
+            }
+            if (key != lastKey) {
+                lastKey = key;
+                lastRGB = lookup(src, offset);
+            }
+            dest[pixel] = 0xff000000 | lastRGB;
+        }
+    }
+
+    private int lookup(byte[] src, int offset) {
+        if (components == 1) {
+            return nodes[src[offset] & 0xff];
+        }
+        int base = 0;
+        for (int i = 0; i < components; i++) {
+            base += cells[src[offset + i] & 0xff] * strides[i];
+        }
+        int f0 = fractions[src[offset] & 0xff];
+        int f1 = fractions[src[offset + 1] & 0xff];
+        int s0 = strides[0];
+        int s1 = strides[1];
+        // two component tables use a zero length third axis.
+        int f2 = 0, s2 = 0;
+        if (components > 2) {
+            f2 = fractions[src[offset + 2] & 0xff];
+            s2 = strides[2];
+        }
+        if (components < 4) {
+            return round(tetrahedral(base, f0, f1, f2, s0, s1, s2), ONE);
+        }
+        // the fourth component, black for CMYK, is interpolated linearly between two tetrahedral lookups.
+        int f3 = fractions[src[offset + 3] & 0xff];
+        long low = tetrahedral(base, f0, f1, f2, s0, s1, s2);
+        if (f3 == 0) {
+            return round(low, ONE);
+        }
+        long high = tetrahedral(base + strides[3], f0, f1, f2, s0, s1, s2);
+        int r = channel(low, 32) * (ONE - f3) + channel(high, 32) * f3;
+        int g = channel(low, 16) * (ONE - f3) + channel(high, 16) * f3;
+        int b = channel(low, 0) * (ONE - f3) + channel(high, 0) * f3;
+        int scale = ONE * ONE;
+        return (clamp((r + scale / 2) / scale) << 16) | (clamp((g + scale / 2) / scale) << 8) |
+                clamp((b + scale / 2) / scale);
+    }
+
+    /**
+     * Interpolates within the tetrahedron of the grid cell that contains the point, the corners are found by
+     * stepping along the axes in order of decreasing fraction.
+     *
+     * @return channels scaled by 256, packed 16 bits apart.
+     */
+    private long tetrahedral(int base, int f0, int f1, int f2, int s0, int s1, int s2) {
+        // sort the axes by fraction, largest first.
+        int fa = f0, fb = f1, fc = f2;
+        int sa = s0, sb = s1, sc = s2;
+        int tmp;
+        if (fb > fa) {
+            tmp = fa; fa = fb; fb = tmp;
+            tmp = sa; sa = sb; sb = tmp;
+        }
+        if (fc > fb) {
+            tmp = fb; fb = fc; fc = tmp;
+            tmp = sb; sb = sc; sc = tmp;
+            if (fb > fa) {
+                tmp = fa; fa = fb; fb = tmp;
+                tmp = sa; sa = sb; sb = tmp;
+            }
+        }
+        int w0 = ONE - fa, w1 = fa - fb, w2 = fb - fc, w3 = fc;
+        int n0 = nodes[base];
+        int n1 = nodes[base + sa];
+        int n2 = nodes[base + sa + sb];
+        int n3 = nodes[base + sa + sb + sc];
+        long r = w0 * (n0 >> 16 & 0xff) + w1 * (n1 >> 16 & 0xff) + w2 * (n2 >> 16 & 0xff) + w3 * (n3 >> 16 & 0xff);
+        long g = w0 * (n0 >> 8 & 0xff) + w1 * (n1 >> 8 & 0xff) + w2 * (n2 >> 8 & 0xff) + w3 * (n3 >> 8 & 0xff);
+        long b = w0 * (n0 & 0xff) + w1 * (n1 & 0xff) + w2 * (n2 & 0xff) + w3 * (n3 & 0xff);
+        return (r << 32) | (g << 16) | b;
+    }
+
+    private static int channel(long channels, int shift) {
+        return (int) (channels >> shift) & 0xffff;
+    }
+
+    private static int round(long channels, int scale) {
+        return (clamp((channel(channels, 32) + scale / 2) / scale) << 16) |
+                (clamp((channel(channels, 16) + scale / 2) / scale) << 8) |
+                clamp((channel(channels, 0) + scale / 2) / scale);
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : value > 255 ? 255 : value;
+    }
+}
@@ -12,12 +12,16 @@ import java.awt.image.*;
  * Raster operation for converting a CMYK colour to RGB using an ICC colour profile.
  * <br>
  * CC Color Profile for colour conversion is very accurate but it's also very slow.  Calls
- * to ColorConvertOp can be very slow.  This class attempts to use a colour cache to speed
- * up decoding on larger images.
+ * to ColorConvertOp can be very slow.  Larger images are converted with a colour lookup table
+ * sampled from the profile, the table is built once and shared as the profile doesn't change.
  *
  * @since 6.2.3
  */
 public class IccCmykRasterOp implements RasterOp {
+
+    private static final Object lookupTableLock = new Object();
+    private static volatile ColorLookupTable lookupTable;
+
     private RenderingHints hints = null;
     private ColorSpace colorSpace;
 
@@ -35,6 +39,13 @@ public class IccCmykRasterOp implements RasterOp {
         int[] destPixels = ((DataBufferInt) dest.getDataBuffer()).getData();
 
         int bands = src.getNumBands();
+        int pixelCount = Math.min(srcPixels.length / bands, destPixels.length);
+        ColorLookupTable lookupTable = bands >= 4 ? getLookupTable(pixelCount) : null;
+        if (lookupTable != null) {
+            lookupTable.convert(srcPixels, bands, destPixels, src.getWidth(), pixelCount);
+            return dest;
+        }
+
         float[] colorValue = new float[bands];
 
         float[] rgbColorValue;
@@ -59,6 +70,25 @@ public class IccCmykRasterOp implements RasterOp {
         return dest;
     }
 
+    private ColorLookupTable getLookupTable(int pixelCount) {
+        ColorLookupTable table = lookupTable;
+        if (table == null && ColorLookupTable.isWorthBuilding(4, pixelCount)) {
+            synchronized (lookupTableLock) {
+                table = lookupTable;
+                if (table == null) {
+                    table = new ColorLookupTable(4, cmyk -> {
+                        float[] rgb = colorSpace.toRGB(cmyk);
+                        return (((int) (rgb[0] * 255) & 0xff) << 16) |
+                                (((int) (rgb[1] * 255) & 0xff) << 8) |
+                                ((int) (rgb[2] * 255) & 0xff);
+                    });
+                    lookupTable = table;
+                }
+            }
+        }
+        return table;
+    }
+
     public Rectangle2D getBounds2D(Raster src) {
         return null;
     }
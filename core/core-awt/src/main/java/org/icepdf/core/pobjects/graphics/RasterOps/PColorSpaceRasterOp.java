@@ -49,7 +49,14 @@ public class PColorSpaceRasterOp implements RasterOp {
             }
         } else {
             int bands = src.getNumBands();
-            float[] values = new float[3];
+            int pixelCount = Math.min(srcPixels.length / bands, destPixels.length);
+            // sample the colour space once rather than converting every pixel.
+            if (bands <= ColorLookupTable.MAX_COMPONENTS &&
+                    (colorSpace.hasColorLookupTable(bands) || ColorLookupTable.isWorthBuilding(bands, pixelCount))) {
+                colorSpace.getColorLookupTable(bands).convert(srcPixels, bands, destPixels, src.getWidth(), pixelCount);
+                return dest;
+            }
+            float[] values = new float[Math.max(3, bands)];
             for (int pixel = 0, intPixels = 0; pixel < srcPixels.length; pixel += bands, intPixels++) {
 
                 for (int i = 0; i < bands; i++) {
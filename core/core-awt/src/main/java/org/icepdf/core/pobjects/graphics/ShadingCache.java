@@ -0,0 +1,123 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.graphics;
+
+import org.icepdf.core.pobjects.Reference;
+import org.icepdf.core.util.Defs;
+import org.icepdf.core.util.metrics.Metric;
+import org.icepdf.core.util.metrics.Metrics;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Document level cache of rasterized mesh shadings (types 4-7).  Tiles are rendered at device resolution by
+ * {@link MeshShadingPaint} and keyed by the shading's object reference and the shading space to device transform,
+ * so repaints at the same zoom, and other pages using the same shading, don't repeat the rasterization.
+ * <br>
+ * The cache size can be set with the system property org.icepdf.core.views.shadingCacheSize, the value is in MB
+ * and the default is 1/32 of the max heap, up to 32MB.  The cache can be disabled with
+ * org.icepdf.core.views.shadingCacheEnabled=false.
+ *
+ * @since 7.0
+ */
+public class ShadingCache {
+
+    private static final boolean enabled;
+    private static final long maxBytes;
+
+    static {
+        enabled = Defs.booleanProperty("org.icepdf.core.views.shadingCacheEnabled", true);
+        long defaultSize = Math.min(32, Runtime.getRuntime().maxMemory() / 1024 / 1024 / 32);
+        maxBytes = Defs.intProperty("org.icepdf.core.views.shadingCacheSize", (int) defaultSize) * 1024L * 1024L;
+    }
+
+    private final LinkedHashMap<Key, MeshShadingPaint.Tile> tiles = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    public synchronized MeshShadingPaint.Tile get(Key key) {
+        if (!enabled || key == null) return null;
+        MeshShadingPaint.Tile tile = tiles.get(key);
+        if (Metrics.ENABLED) Metrics.count(tile != null ? Metric.SHADING_CACHE_HIT : Metric.SHADING_CACHE_MISS, null);
+        return tile;
+    }
+
+    public synchronized void put(Key key, MeshShadingPaint.Tile tile) {
+        if (!enabled || key == null || tile == null) return;
+        long size = tile.getSize();
+        if (size > maxBytes) return;
+        MeshShadingPaint.Tile old = tiles.put(key, tile);
+        if (old != null) {
+            bytes -= old.getSize();
+        }
+        bytes += size;
+        Iterator<MeshShadingPaint.Tile> eldest = tiles.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getSize();
+            eldest.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        tiles.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Builds a tile key, null is returned if the shading has no object reference and can't be shared.
+     *
+     * @param shading   shading object reference.
+     * @param transform shading space to tile space transform.
+     * @param bounds    tile bounds when only part of the shading is rasterized, otherwise null.
+     * @return tile key or null.
+     */
+    public static Key createKey(Reference shading, AffineTransform transform, Rectangle bounds) {
+        if (!enabled || shading == null) return null;
+        double[] matrix = new double[6];
+        transform.getMatrix(matrix);
+        return new Key(shading, matrix, bounds);
+    }
+
+    public static final class Key {
+        private final Reference shading;
+        private final double[] matrix;
+        private final Rectangle bounds;
+
+        private Key(Reference shading, double[] matrix, Rectangle bounds) {
+            this.shading = shading;
+            this.matrix = matrix;
+            this.bounds = bounds;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return shading.equals(key.shading) && Arrays.equals(matrix, key.matrix) &&
+                    (bounds == null ? key.bounds == null : bounds.equals(key.bounds));
+        }
+
+        @Override
+        public int hashCode() {
+            int h = shading.hashCode() * 31 + Arrays.hashCode(matrix);
+            return bounds != null ? h * 31 + bounds.hashCode() : h;
+        }
+    }
+}
@@ -15,7 +15,8 @@ import java.util.logging.Logger;
 
 /**
  * Base class for Mesh shading types 4-7. Each subtype parses the shading vertex information slighly differently
- * but the decode and base parse for flag, coordinate and colour is the same.
+ * but the decode and base parse for flag, coordinate and colour is the same.  The decoded mesh is painted by
+ * a {@link MeshShadingPaint}.
  *
  * @since 6.2
  */
@@ -27,6 +28,17 @@ public abstract class ShadingMeshPattern extends ShadingPattern implements Patte
     public static final Name BITS_PER_FLAG_KEY = new Name("BitsPerFlag");
     public static final Name BITS_PER_COORDINATE_KEY = new Name("BitsPerCoordinate");
 
+    // stream order of a patch's boundary control points as p[u][v] grid indexes, p00, p01 ... p20, p10.
+    private static final int[] PATCH_BOUNDARY = {0, 1, 2, 3, 7, 11, 15, 14, 13, 12, 8, 4};
+    // stream order of the internal tensor-product control points, p11, p12, p22, p21.
+    private static final int[] PATCH_INTERIOR = {5, 6, 10, 9};
+    // previous patch edge shared when the patch flag is 1, 2 or 3.
+    private static final int[][] PATCH_SHARED_EDGE = {
+            null,
+            {3, 7, 11, 15},
+            {15, 14, 13, 12},
+            {12, 8, 4, 0}};
+
     protected static final int DECODE_X_MIN = 0;
     protected static final int DECODE_X_MAX = 1;
     protected static final int DECODE_Y_MIN = 2;
@@ -52,6 +64,8 @@ public abstract class ShadingMeshPattern extends ShadingPattern implements Patte
     // converted decode data to simply process later on, taken from our DecodeRasterOp class.
     protected float[] decode;
 
+    protected MeshShadingPaint meshShadingPaint;
+
     public ShadingMeshPattern(Library l, HashMap h, Stream meshDataStream) {
         super(l, h);
         this.meshDataStream = meshDataStream;
@@ -59,6 +73,7 @@ public abstract class ShadingMeshPattern extends ShadingPattern implements Patte
         bitsPerFlag = library.getInt(shadingDictionary, BITS_PER_FLAG_KEY);
         bitsPerCoordinate = library.getInt(shadingDictionary, BITS_PER_COORDINATE_KEY);
         bitsPerComponent = library.getInt(shadingDictionary, ImageParams.BITS_PER_COMPONENT_KEY);
+        shadingType = library.getInt(shadingDictionary, SHADING_TYPE_KEY);
         colorSpace = PColorSpace.getColorSpace(library, library.getObject(shadingDictionary, COLORSPACE_KEY));
         colorSpaceCompCount = colorSpace.getNumComponents();
 
@@ -80,7 +95,116 @@ public abstract class ShadingMeshPattern extends ShadingPattern implements Patte
         vertexBitStream = new BitStream(meshDataStream.getDecodedByteArrayInputStream());
     }
 
-    public abstract Paint getPaint() throws InterruptedException;
+    /**
+     * Decodes the mesh data stream, the stream can only be read once so the mesh is kept for later paints.
+     *
+     * @param graphicsState current graphics state, not used.
+     */
+    public synchronized void init(GraphicsState graphicsState) {
+        if (inited) {
+            return;
+        }
+        meshShadingPaint = new MeshShadingPaint(library, meshDataStream.getPObjectReference(), shadingType, matrix);
+        try {
+            decodeMesh(meshShadingPaint);
+        } catch (IOException e) {
+            logger.warning("Error parsing Shading type " + shadingType + " pattern vertices.");
+        }
+        inited = true;
+    }
+
+    /**
+     * Reads the vertex data and adds the triangles or patches it describes to the paint.
+     *
+     * @param mesh paint to add the decoded mesh to.
+     * @throws IOException bit stream issue.
+     */
+    protected abstract void decodeMesh(MeshShadingPaint mesh) throws IOException;
+
+    public Paint getPaint() throws InterruptedException {
+        if (meshShadingPaint == null || meshShadingPaint.isEmpty()) {
+            return null;
+        }
+        return meshShadingPaint;
+    }
+
+    /**
+     * Decodes type 6 and 7 patch data.  Patches with a non zero flag share the edge and two corner colours of the
+     * previous patch.  Coons patches only define the twelve boundary points, the four internal points are derived
+     * so both types can be painted as tensor-product patches.
+     *
+     * @param mesh   paint to add the patches to.
+     * @param tensor true for type 7 tensor-product patches that include internal control points.
+     * @throws IOException bit stream issue.
+     */
+    protected void decodePatches(MeshShadingPaint mesh, boolean tensor) throws IOException {
+        float[] points = new float[32];
+        float[] previous = new float[32];
+        int[] colors = new int[4];
+        int[] previousColors = new int[4];
+        boolean first = true;
+        while (vertexBitStream.available() > 0) {
+            int flag = readFlag() & 3;
+            if (first) {
+                // the first patch can't share an edge.
+                flag = 0;
+            }
+            int boundaryStart = 0;
+            if (flag != 0) {
+                int[] edge = PATCH_SHARED_EDGE[flag];
+                for (int i = 0; i < 4; i++) {
+                    points[i * 2] = previous[edge[i] * 2];
+                    points[i * 2 + 1] = previous[edge[i] * 2 + 1];
+                }
+                // shared corner colours, c00 and c03 taken from the previous patch's edge.
+                colors[0] = previousColors[flag];
+                colors[1] = previousColors[(flag + 1) & 3];
+                boundaryStart = 4;
+            }
+            for (int i = boundaryStart; i < PATCH_BOUNDARY.length; i++) {
+                readPoint(points, PATCH_BOUNDARY[i]);
+            }
+            if (tensor) {
+                for (int index : PATCH_INTERIOR) {
+                    readPoint(points, index);
+                }
+            }
+            for (int i = flag != 0 ? 2 : 0; i < 4; i++) {
+                colors[i] = readRGB();
+            }
+            vertexBitStream.skipByte();
+            if (!tensor) {
+                coonsInterior(points);
+            }
+            mesh.addPatch(points, colors);
+            System.arraycopy(points, 0, previous, 0, 32);
+            System.arraycopy(colors, 0, previousColors, 0, 4);
+            first = false;
+        }
+    }
+
+    private void readPoint(float[] points, int index) throws IOException {
+        Point2D.Float point = readCoord();
+        points[index * 2] = point.x;
+        points[index * 2 + 1] = point.y;
+    }
+
+    /**
+     * Calculates the internal control points p11, p12, p21 and p22 of a Coons patch as defined in 8.7.4.5.8
+     * of the specification, each coordinate is treated separately.
+     */
+    private static void coonsInterior(float[] p) {
+        for (int c = 0; c < 2; c++) {
+            float p00 = p[c], p01 = p[2 + c], p02 = p[4 + c], p03 = p[6 + c];
+            float p10 = p[8 + c], p13 = p[14 + c];
+            float p20 = p[16 + c], p23 = p[22 + c];
+            float p30 = p[24 + c], p31 = p[26 + c], p32 = p[28 + c], p33 = p[30 + c];
+            p[10 + c] = (-4 * p00 + 6 * (p01 + p10) - 2 * (p03 + p30) + 3 * (p31 + p13) - p33) / 9;
+            p[12 + c] = (-4 * p03 + 6 * (p02 + p13) - 2 * (p00 + p33) + 3 * (p32 + p10) - p30) / 9;
+            p[18 + c] = (-4 * p30 + 6 * (p31 + p20) - 2 * (p33 + p00) + 3 * (p01 + p23) - p03) / 9;
+            p[20 + c] = (-4 * p33 + 6 * (p32 + p23) - 2 * (p30 + p03) + 3 * (p02 + p20) - p00) / 9;
+        }
+    }
 
     /**
      * An array of numbers specifying how to map vertex coordinates and colour components into the
@@ -98,7 +222,7 @@ public abstract class ShadingMeshPattern extends ShadingPattern implements Patte
 
         java.util.List<Number> decodeVec = (java.util.List<Number>) library.getObject(shadingDictionary, ImageParams.DECODE_KEY);
 
-        float maxValue = bitsPerCoordinate < 32 ? (float) ((1 << bitsPerCoordinate) - 1) : (float) 2.3283064365386963e-10; // 2^-32;
+        float maxValue = bitsPerCoordinate < 32 ? (float) ((1 << bitsPerCoordinate) - 1) : 4294967295f; // 2^32 - 1
         for (int i = 0; i <= DECODE_Y_MAX; ) {
             float Dmin = decodeVec.get(i).floatValue();
             float Dmax = decodeVec.get(i + 1).floatValue();
@@ -132,11 +256,11 @@ public abstract class ShadingMeshPattern extends ShadingPattern implements Patte
      * @throws IOException bit stream issue.
      */
     protected Point2D.Float readCoord() throws IOException {
-        float x = vertexBitStream.getBits(bitsPerCoordinate);
-        float y = vertexBitStream.getBits(bitsPerCoordinate);
-        // normalize components to decode array
-        x *= decode[DECODE_X_MAX] - decode[DECODE_X_MIN] + decode[DECODE_X_MIN];
-        y *= decode[DECODE_Y_MAX] - decode[DECODE_Y_MIN] + decode[DECODE_Y_MIN];
+        float x = readUnsigned(bitsPerCoordinate);
+        float y = readUnsigned(bitsPerCoordinate);
+        // normalize components to decode array, min plus the value scaled to the decode range.
+        x = decode[DECODE_X_MIN] + x * decode[DECODE_X_MAX];
+        y = decode[DECODE_Y_MIN] + y * decode[DECODE_Y_MAX];
         return new Point2D.Float(x, y);
     }
 
@@ -154,13 +278,13 @@ public abstract class ShadingMeshPattern extends ShadingPattern implements Patte
             for (int i = 0, j = 4; i < colorSpaceCompCount; i++, j += 2) {
                 primitives[i] = vertexBitStream.getBits(bitsPerComponent);
                 // normalize
-                primitives[i] *= decode[j + 1] - decode[j] + decode[j];
+                primitives[i] = decode[j] + primitives[i] * decode[j + 1];
             }
             return colorSpace.getColor(primitives, true);
         } else {
             float value = vertexBitStream.getBits(bitsPerComponent);
             // normalize
-            value *= (decode[5] - decode[4]) + decode[4];
+            value = decode[4] + value * decode[5];
             primitives = new float[]{value};
             float[] output = calculateValues(primitives);
             if (output != null) {
@@ -169,4 +293,20 @@ public abstract class ShadingMeshPattern extends ShadingPattern implements Patte
         }
         return null;
     }
+
+    /**
+     * Reads the vertex colour as a packed rgb value, black is used if the colour can't be calculated.
+     *
+     * @return rgb value of the vertex colour.
+     * @throws IOException bit stream issue.
+     */
+    protected int readRGB() throws IOException {
+        Color color = readColor();
+        return color != null ? color.getRGB() & 0xFFFFFF : 0;
+    }
+
+    private float readUnsigned(int bits) throws IOException {
+        int value = vertexBitStream.getBits(bits);
+        return bits == 32 ? value & 0xFFFFFFFFL : value;
+    }
 }
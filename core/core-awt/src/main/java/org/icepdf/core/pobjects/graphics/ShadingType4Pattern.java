@@ -3,51 +3,62 @@ package org.icepdf.core.pobjects.graphics;
 import org.icepdf.core.pobjects.Stream;
 import org.icepdf.core.util.Library;
 
-import java.awt.*;
 import java.awt.geom.Point2D;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.logging.Logger;
 
 /**
  * Free-form Gouraud-shaded Triangle Meshes support.
  *
- * Note: currently only parsing data and returning the first colour of the first vertex.
- *
  * @since 6.2
  */
 public class ShadingType4Pattern extends ShadingMeshPattern {
 
-    private static final Logger logger =
-            Logger.getLogger(ShadingType4Pattern.class.toString());
-
-    private ArrayList<Integer> vertexEdgeFlag = new ArrayList<>();
-    private ArrayList<Point2D.Float> coordinates = new ArrayList<>();
-    private ArrayList<Color> colorComponents = new ArrayList<>();
-
     public ShadingType4Pattern(Library l, HashMap h, Stream meshDataStream) {
         super(l, h, meshDataStream);
     }
 
-    public synchronized void init(GraphicsState graphicsState) {
-
-        vertexEdgeFlag = new ArrayList<>();
-        coordinates = new ArrayList<>();
-        colorComponents = new ArrayList<>();
-        try {
-            while (vertexBitStream.available() > 0) {
-                vertexEdgeFlag.add(readFlag());
-                coordinates.add(readCoord());
-                colorComponents.add(readColor());
+    /**
+     * The first three vertices form a triangle, after that each vertex flag selects whether the vertex starts a
+     * new triangle (0) or forms a triangle with the last two vertices (1) or the first and last vertices (2) of the
+     * previous triangle.
+     */
+    protected void decodeMesh(MeshShadingPaint mesh) throws IOException {
+        float[] xy = new float[6];
+        int[] colors = new int[3];
+        int count = 0;
+        while (vertexBitStream.available() > 0) {
+            int flag = readFlag() & 3;
+            Point2D.Float coord = readCoord();
+            int rgb = readRGB();
+            // each vertex starts on a byte boundary.
+            vertexBitStream.skipByte();
+            if (count == 3 && flag == 0) {
+                count = 0;
+            }
+            if (count < 3) {
+                xy[count * 2] = coord.x;
+                xy[count * 2 + 1] = coord.y;
+                colors[count] = rgb;
+                if (++count == 3) {
+                    mesh.addTriangle(xy, colors);
+                }
+                continue;
             }
-        } catch (IOException e) {
-            logger.warning("Error parsing Shading type 4 pattern vertices.");
+            if (flag == 1) {
+                // vertices b, c, d, the first vertex is dropped.
+                xy[0] = xy[2];
+                xy[1] = xy[3];
+                colors[0] = colors[1];
+            }
+            // vertices a, c, d for flag 2.
+            xy[2] = xy[4];
+            xy[3] = xy[5];
+            colors[1] = colors[2];
+            xy[4] = coord.x;
+            xy[5] = coord.y;
+            colors[2] = rgb;
+            mesh.addTriangle(xy, colors);
         }
     }
-
-    public Paint getPaint() throws InterruptedException {
-        return colorComponents.get(0);
-    }
-
 }
@@ -1,48 +1,76 @@
 package org.icepdf.core.pobjects.graphics;
 
+import org.icepdf.core.pobjects.Name;
 import org.icepdf.core.pobjects.Stream;
 import org.icepdf.core.util.Library;
 
-import java.awt.*;
 import java.awt.geom.Point2D;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.logging.Logger;
 
 /**
  * Lattice-Form Gouraud-shaded Triangle Meshes support.
  *
- * Note: currently only parsing data and returning the first colour of the first vertex.
- *
  * @since 6.2
  */
 public class ShadingType5Pattern extends ShadingMeshPattern {
 
-    private static final Logger logger =
-            Logger.getLogger(ShadingType5Pattern.class.toString());
-
-    private ArrayList<Point2D.Float> coordinates = new ArrayList<>();
-    private ArrayList<Color> colorComponents = new ArrayList<>();
+    public static final Name VERTICES_PER_ROW_KEY = new Name("VerticesPerRow");
 
     public ShadingType5Pattern(Library l, HashMap h, Stream meshDataStream) {
         super(l, h, meshDataStream);
     }
 
-    public synchronized void init(GraphicsState graphicsState) {
-        coordinates = new ArrayList<>();
-        colorComponents = new ArrayList<>();
-        try {
-            while (vertexBitStream.available() > 0) {
-                coordinates.add(readCoord());
-                colorComponents.add(readColor());
+    /**
+     * Vertices are read a row at a time, each pair of rows is split into two triangles per lattice cell.
+     */
+    protected void decodeMesh(MeshShadingPaint mesh) throws IOException {
+        int verticesPerRow = Math.max(2, library.getInt(shadingDictionary, VERTICES_PER_ROW_KEY));
+        float[] previous = new float[verticesPerRow * 2];
+        int[] previousColors = new int[verticesPerRow];
+        float[] row = new float[verticesPerRow * 2];
+        int[] rowColors = new int[verticesPerRow];
+        float[] xy = new float[6];
+        int[] colors = new int[3];
+        int column = 0;
+        boolean firstRow = true;
+        while (vertexBitStream.available() > 0) {
+            Point2D.Float coord = readCoord();
+            row[column * 2] = coord.x;
+            row[column * 2 + 1] = coord.y;
+            rowColors[column] = readRGB();
+            if (++column < verticesPerRow) {
+                continue;
+            }
+            if (!firstRow) {
+                for (int i = 0; i < verticesPerRow - 1; i++) {
+                    addTriangle(mesh, xy, colors, previous, previousColors, i, i + 1, row, rowColors, i);
+                    addTriangle(mesh, xy, colors, row, rowColors, i + 1, i, previous, previousColors, i + 1);
+                }
             }
-        } catch (IOException e) {
-            logger.warning("Error parsing Shading type 5 pattern vertices.");
+            float[] tmp = previous;
+            previous = row;
+            row = tmp;
+            int[] tmpColors = previousColors;
+            previousColors = rowColors;
+            rowColors = tmpColors;
+            column = 0;
+            firstRow = false;
         }
     }
 
-    public Paint getPaint() throws InterruptedException {
-        return colorComponents.get(0);
+    private static void addTriangle(MeshShadingPaint mesh, float[] xy, int[] colors,
+                                    float[] edge, int[] edgeColors, int a, int b,
+                                    float[] other, int[] otherColors, int c) {
+        xy[0] = edge[a * 2];
+        xy[1] = edge[a * 2 + 1];
+        xy[2] = edge[b * 2];
+        xy[3] = edge[b * 2 + 1];
+        xy[4] = other[c * 2];
+        xy[5] = other[c * 2 + 1];
+        colors[0] = edgeColors[a];
+        colors[1] = edgeColors[b];
+        colors[2] = otherColors[c];
+        mesh.addTriangle(xy, colors);
     }
 }
@@ -22,6 +22,8 @@ import org.icepdf.core.pobjects.graphics.commands.ImageDrawCmd;
 import org.icepdf.core.pobjects.graphics.commands.ShapesDrawCmd;
 import org.icepdf.core.pobjects.graphics.text.PageText;
 import org.icepdf.core.util.Defs;
+import org.icepdf.core.util.metrics.Metric;
+import org.icepdf.core.util.metrics.Metrics;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
@@ -145,8 +147,15 @@ public class Shapes {
                 }
 
                 nextShape = shapes.get(i);
-                previousShape = nextShape.paintOperand(g, parentPage,
-                        previousShape, clip, base, optionalContentState, paintAlpha, paintTimer);
+                if (Metrics.ENABLED) {
+                    long start = Metrics.start();
+                    previousShape = nextShape.paintOperand(g, parentPage,
+                            previousShape, clip, base, optionalContentState, paintAlpha, paintTimer);
+                    Metrics.time(Metric.PAINT_COMMAND, nextShape.getClass().getSimpleName(), start);
+                } else {
+                    previousShape = nextShape.paintOperand(g, parentPage,
+                            previousShape, clip, base, optionalContentState, paintAlpha, paintTimer);
+                }
             }
         }
         catch (InterruptedException e){
@@ -23,6 +23,8 @@ import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
 import java.awt.geom.GeneralPath;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 
@@ -47,6 +49,10 @@ public class TextSprite {
     private final static boolean OPTIMIZED_DRAWING_TYPE_3_ENABLED =
             Defs.booleanProperty("org.icepdf.core.text.optimized.type3", true);
 
+    // ability to turn off painting filled text as one shape per sprite.
+    private static final boolean BATCHED_DRAWING_ENABLED =
+            Defs.booleanProperty("org.icepdf.core.text.batched", true);
+
     // child GlyphText objects
     private final ArrayList<GlyphText> glyphTexts;
 
@@ -68,6 +74,11 @@ public class TextSprite {
     private String fontName;
     private int fontSize;
 
+    // outlines of all glyphs in glyph space, built on first paint and filled in one call.
+    private volatile Path2D.Float glyphRun;
+    // set when a glyph has no plain outline and the sprite must be painted glyph by glyph.
+    private volatile boolean glyphRunUnavailable;
+
     private static final String TYPE_3 = "Type3";
 
     /**
@@ -146,6 +157,7 @@ public class TextSprite {
                 new GlyphText(x, y, glyphBounds, cid, unicode);
         glyphText.normalizeToUserSpace(graphicStateTransform, tmTransform);
         glyphTexts.add(glyphText);
+        glyphRun = null;
         return glyphText;
     }
 
@@ -232,6 +244,15 @@ public class TextSprite {
         // draw bounding box.
 //        drawBoundBox(g2d);
 
+        if (BATCHED_DRAWING_ENABLED && !glyphRunUnavailable &&
+                (rmode == TextState.MODE_FILL || rmode == TextState.MODE_FILL_ADD)) {
+            Path2D.Float run = getGlyphRun();
+            if (run != null) {
+                g2d.fill(run);
+                return;
+            }
+        }
+
         for (GlyphText glyphText : glyphTexts) {
 
             // paint glyph
@@ -246,6 +267,41 @@ public class TextSprite {
         }
     }
 
+    /**
+     * Builds the outline of every glyph in the sprite as one path.  Stroked modes aren't batched as the
+     * stroke width is applied in glyph space.
+     *
+     * @return glyph run, null if one of the glyphs can't be painted as a plain outline.
+     */
+    private Path2D.Float getGlyphRun() {
+        Path2D.Float run = glyphRun;
+        if (run != null) {
+            return run;
+        }
+        int windingRule = -1;
+        for (GlyphText glyphText : glyphTexts) {
+            Shape outline = font.getGlyphOutline(glyphText.getCid());
+            if (outline == null) {
+                glyphRunUnavailable = true;
+                return null;
+            }
+            PathIterator pathIterator = outline.getPathIterator(
+                    AffineTransform.getTranslateInstance(glyphText.getX(), glyphText.getY()));
+            if (run == null) {
+                windingRule = pathIterator.getWindingRule();
+                run = new Path2D.Float(windingRule);
+            } else if (pathIterator.getWindingRule() != windingRule) {
+                glyphRunUnavailable = true;
+                return null;
+            }
+            run.append(pathIterator, false);
+        }
+        if (run != null) {
+            glyphRun = run;
+        }
+        return run;
+    }
+
     /**
      * Gets the glyph outline as an Area.  This method is primarily used
      * for processing text rendering modes 4 - 7.
@@ -317,6 +373,8 @@ public class TextSprite {
 
     public void setFont(FontFile font) {
         this.font = font;
+        glyphRun = null;
+        glyphRunUnavailable = false;
     }
 
     private void drawGyphBox(Graphics2D gg, GlyphText glyphSprite) {
@@ -40,7 +40,8 @@ public class FormDrawCmd extends AbstractDrawCmd {
 
     private Form xForm;
 
-    private BufferedImage xFormBuffer;
+    // only held when the form can't be shared through the document's form cache.
+    private FormCache.FormBuffer xFormBuffer;
     private int x, y;
 
     private static boolean disableXObjectSMask;
@@ -49,6 +50,8 @@ public class FormDrawCmd extends AbstractDrawCmd {
     // realistically we seldom have enough memory to load anything bigger then 8000px.  4k+ image are big!
     public static int MAX_IMAGE_SIZE = 2000; // Short.MAX_VALUE
 
+    private static final Name CS_KEY = new Name("CS");
+
     static {
         // decide if large images will be scaled
         disableXObjectSMask =
@@ -67,118 +70,138 @@ public class FormDrawCmd extends AbstractDrawCmd {
                               Shape clip, AffineTransform base,
                               OptionalContentState optionalContentState,
                               boolean paintAlpha, PaintTimer paintTimer) {
-        if (optionalContentState.isVisible() && xFormBuffer == null) {
+        FormCache.FormBuffer formBuffer = xFormBuffer;
+        if (optionalContentState.isVisible() && formBuffer == null) {
             RenderingHints renderingHints = g.getRenderingHints();
-            Rectangle2D bBox = xForm.getBBox();
-            x = (int) bBox.getX();
-            y = (int) bBox.getY();
-            boolean hasMask = ((xForm.getGraphicsState().getExtGState() != null &&
-                    xForm.getGraphicsState().getExtGState().getSMask() != null) ||
-                    (xForm.getExtGState() != null && xForm.getExtGState().getSMask() != null));
-            boolean isExtendGraphicState = xForm.getGraphicsState().getExtGState() != null &&
-                    xForm.getExtGState() != null;
-            boolean normalBM = false;
-            if (isExtendGraphicState && xForm.getExtGState().getBlendingMode() != null) {
-                normalBM = xForm.getExtGState().getBlendingMode().equals(new Name("Normal")) &&
-                        xForm.getGraphicsState().getExtGState().getBlendingMode().equals(new Name("Normal")) &&
-                        (xForm.getExtGState() != null &&
-                                (!xForm.getExtGState().isAlphaAShape() || xForm.getExtGState().getOverprintMode() == 0));
+            // the same form is often painted on every page, so check the document cache first.
+            FormCache formCache = xForm.getLibrary().getFormCache();
+            FormCache.Key key = FormCache.createKey(xForm, renderingHints);
+            formBuffer = formCache.getBuffer(key);
+            if (formBuffer == null) {
+                formBuffer = createFormBuffer(parentPage, renderingHints);
+                if (key != null) {
+                    formCache.putBuffer(key, formBuffer);
+                } else {
+                    xFormBuffer = formBuffer;
+                }
             }
+        }
+        if (formBuffer != null) {
+            g.drawImage(formBuffer.getImage(), null, formBuffer.getX(), formBuffer.getY());
+        }
+        return currentShape;
+    }
+
+    private FormCache.FormBuffer createFormBuffer(Page parentPage, RenderingHints renderingHints) {
+        Rectangle2D bBox = xForm.getBBox();
+        x = (int) bBox.getX();
+        y = (int) bBox.getY();
+        boolean hasMask = ((xForm.getGraphicsState().getExtGState() != null &&
+                xForm.getGraphicsState().getExtGState().getSMask() != null) ||
+                (xForm.getExtGState() != null && xForm.getExtGState().getSMask() != null));
+        boolean isExtendGraphicState = xForm.getGraphicsState().getExtGState() != null &&
+                xForm.getExtGState() != null;
+        boolean normalBM = false;
+        if (isExtendGraphicState && xForm.getExtGState().getBlendingMode() != null) {
+            normalBM = xForm.getExtGState().getBlendingMode().equals(BlendComposite.NORMAL_VALUE) &&
+                    xForm.getGraphicsState().getExtGState().getBlendingMode().equals(BlendComposite.NORMAL_VALUE) &&
+                    (xForm.getExtGState() != null &&
+                            (!xForm.getExtGState().isAlphaAShape() || xForm.getExtGState().getOverprintMode() == 0));
+        }
 
-            SoftMask formSoftMask = null;
-            SoftMask softMask = null;
+        SoftMask formSoftMask = null;
+        SoftMask softMask = null;
 
-            if (xForm.getGraphicsState().getExtGState().getSMask() != null) {
-                softMask = xForm.getGraphicsState().getExtGState().getSMask();
-                boolean isShading = softMask.getG().getResources().isShading();
-                if (isShading) {
-                    isShading = checkForShaddingFill(softMask.getG());
-                    softMask.getG().setShading(isShading);
-                }
-                if (!isShading) {
-                    x = (int) softMask.getG().getBBox().getX();
-                    y = (int) softMask.getG().getBBox().getY();
-                }
+        if (xForm.getGraphicsState().getExtGState().getSMask() != null) {
+            softMask = xForm.getGraphicsState().getExtGState().getSMask();
+            boolean isShading = softMask.getG().getResources().isShading();
+            if (isShading) {
+                isShading = checkForShaddingFill(softMask.getG());
+                softMask.getG().setShading(isShading);
             }
-            if (xForm.getExtGState().getSMask() != null) {
-                formSoftMask = xForm.getExtGState().getSMask();
-                boolean isShading = formSoftMask.getG().getResources().isShading();
-                if (isShading) {
-                    isShading = checkForShaddingFill(formSoftMask.getG());
-                    formSoftMask.getG().setShading(isShading);
-                }
-                if (!isShading) {
-                    x = (int) formSoftMask.getG().getBBox().getX();
-                    y = (int) formSoftMask.getG().getBBox().getY();
-                }
+            if (!isShading) {
+                x = (int) softMask.getG().getBBox().getX();
+                y = (int) softMask.getG().getBBox().getY();
             }
-            // check if we have the same xobject.
-            if (softMask != null && formSoftMask != null) {
-                if (softMask.getPObjectReference() != null && formSoftMask.getPObjectReference() != null &&
-                        softMask.getPObjectReference().equals(formSoftMask.getPObjectReference())) {
-                    softMask = null;
-                } else if (softMask.getG().getPObjectReference() != null &&
-                        formSoftMask.getG().getPObjectReference() != null &&
-                        softMask.getG().getPObjectReference().equals(formSoftMask.getG().getPObjectReference())) {
-                    softMask = null;
-                }
+        }
+        if (xForm.getExtGState().getSMask() != null) {
+            formSoftMask = xForm.getExtGState().getSMask();
+            boolean isShading = formSoftMask.getG().getResources().isShading();
+            if (isShading) {
+                isShading = checkForShaddingFill(formSoftMask.getG());
+                formSoftMask.getG().setShading(isShading);
+            }
+            if (!isShading) {
+                x = (int) formSoftMask.getG().getBBox().getX();
+                y = (int) formSoftMask.getG().getBBox().getY();
             }
-            // need to check if we really have a shading pattern, as the resources check can be false positive.
-            if (xForm.getResources().isShading()) {
-                boolean isFormShading = checkForShaddingFill(xForm);
-                xForm.setShading(isFormShading);
+        }
+        // check if we have the same xobject.
+        if (softMask != null && formSoftMask != null) {
+            if (softMask.getPObjectReference() != null && formSoftMask.getPObjectReference() != null &&
+                    softMask.getPObjectReference().equals(formSoftMask.getPObjectReference())) {
+                softMask = null;
+            } else if (softMask.getG().getPObjectReference() != null &&
+                    formSoftMask.getG().getPObjectReference() != null &&
+                    softMask.getG().getPObjectReference().equals(formSoftMask.getG().getPObjectReference())) {
+                softMask = null;
             }
+        }
+        // need to check if we really have a shading pattern, as the resources check can be false positive.
+        if (xForm.getResources().isShading()) {
+            boolean isFormShading = checkForShaddingFill(xForm);
+            xForm.setShading(isFormShading);
+        }
 
-            // create the form and we'll paint it at the very least
-            xFormBuffer = createBufferXObject(parentPage, xForm, null, renderingHints, normalBM);
-            if (!disableXObjectSMask && hasMask) {
+        // create the form and we'll paint it at the very least
+        BufferedImage xFormBuffer = createBufferXObject(parentPage, xForm, null, null, renderingHints, normalBM);
+        if (!disableXObjectSMask && hasMask) {
 
-                // apply the mask and paint.
-                if (!xForm.isShading()) {
-                    if (softMask != null && softMask.getS().equals(SoftMask.SOFT_MASK_TYPE_ALPHA)) {
-                        logger.warning("Smask alpha example, currently not supported.");
-                    } else if (softMask != null && softMask.getS().equals(SoftMask.SOFT_MASK_TYPE_LUMINOSITY)) {
-                        xFormBuffer = applyMask(parentPage, xFormBuffer, softMask, formSoftMask, g.getRenderingHints());
-                    }
-                } else if (softMask != null) {
-                    // still not property aligning the form or mask space to correctly apply a shading pattern.
-                    // experimental as it fixes some, breaks others, but regardless we don't support it well.
-                    logger.warning("Smask pattern paint example, currently not supported.");
-                    xFormBuffer.flush();
-                    xFormBuffer = createBufferXObject(parentPage, softMask.getG(), null, renderingHints, true);
-                    return currentShape;
+            // apply the mask and paint.
+            if (!xForm.isShading()) {
+                if (softMask != null && softMask.getS().equals(SoftMask.SOFT_MASK_TYPE_ALPHA)) {
+                    logger.warning("Smask alpha example, currently not supported.");
+                } else if (softMask != null && softMask.getS().equals(SoftMask.SOFT_MASK_TYPE_LUMINOSITY)) {
+                    xFormBuffer = applyMask(parentPage, xFormBuffer, softMask, formSoftMask, renderingHints);
                 }
-                // apply the form mask to current form content that has been rasterized to xFormBuffer
-                if (formSoftMask != null) {
-                    BufferedImage formSMaskBuffer = applyMask(parentPage, xFormBuffer, formSoftMask, softMask,
-                            g.getRenderingHints());
-                    // compost all the images.
-                    if (softMask != null) {
-                        BufferedImage formBuffer = ImageUtility.createTranslucentCompatibleImage(
-                                xFormBuffer.getWidth(), xFormBuffer.getHeight());
-                        Graphics2D g2d = (Graphics2D) formBuffer.getGraphics();
+            } else if (softMask != null) {
+                // still not property aligning the form or mask space to correctly apply a shading pattern.
+                // experimental as it fixes some, breaks others, but regardless we don't support it well.
+                logger.warning("Smask pattern paint example, currently not supported.");
+                BufferedImage maskBuffer = createBufferXObject(parentPage, softMask.getG(), null, xFormBuffer,
+                        renderingHints, true);
+                xFormBuffer.flush();
+                return new FormCache.FormBuffer(maskBuffer, x, y);
+            }
+            // apply the form mask to current form content that has been rasterized to xFormBuffer
+            if (formSoftMask != null) {
+                BufferedImage formSMaskBuffer = applyMask(parentPage, xFormBuffer, formSoftMask, softMask,
+                        renderingHints);
+                // compost all the images.
+                if (softMask != null) {
+                    BufferedImage formBuffer = ImageUtility.createTranslucentCompatibleImage(
+                            xFormBuffer.getWidth(), xFormBuffer.getHeight());
+                    Graphics2D g2d = (Graphics2D) formBuffer.getGraphics();
 //                        java.util.List<Number> compRaw = formSoftMask.getBC();
 //                        if (compRaw != null) {
 //                            g2d.setColor(Color.BLACK);
 //                            g2d.fillRect(0, 0, xFormBuffer.getWidth(), xFormBuffer.getHeight());
 //                        }
-                        g2d.drawImage(formSMaskBuffer, 0, 0, null);
+                    g2d.drawImage(formSMaskBuffer, 0, 0, null);
 //                        g2d.drawImage(xFormBuffer, 0, 0, null);
-                        xFormBuffer.flush();
-                        xFormBuffer = formBuffer;
-                    } else {
-                        xFormBuffer = formSMaskBuffer;
-                    }
+                    xFormBuffer.flush();
+                    xFormBuffer = formBuffer;
+                } else {
+                    xFormBuffer = formSMaskBuffer;
                 }
-            } else if (isExtendGraphicState) {
-                BufferedImage shape = createBufferXObject(parentPage, xForm, null, renderingHints, true);
-                xFormBuffer = ImageUtility.applyExplicitOutline(xFormBuffer, shape);
             }
+        } else if (isExtendGraphicState) {
+            BufferedImage shape = createBufferXObject(parentPage, xForm, null, xFormBuffer, renderingHints, true);
+            xFormBuffer = ImageUtility.applyExplicitOutline(xFormBuffer, shape);
+        }
 //            ImageUtility.displayImage(xFormBuffer, "final" + xForm.getGroup() + " " + xForm.getPObjectReference() +
 //                    xFormBuffer.getHeight() + "x" + xFormBuffer.getHeight());
-        }
-        g.drawImage(xFormBuffer, null, x, y);
-        return currentShape;
+        return new FormCache.FormBuffer(xFormBuffer, x, y);
     }
 
     private BufferedImage applyMask(Page parentPage, BufferedImage xFormBuffer, SoftMask softMask, SoftMask gsSoftMask,
@@ -186,7 +209,8 @@ public class FormDrawCmd extends AbstractDrawCmd {
         if (softMask != null && softMask.getS().equals(SoftMask.SOFT_MASK_TYPE_ALPHA)) {
             logger.warning("Smask alpha example, currently not supported.");
         } else if (softMask != null && softMask.getS().equals(SoftMask.SOFT_MASK_TYPE_LUMINOSITY)) {
-            BufferedImage sMaskBuffer = createBufferXObject(parentPage, softMask.getG(), softMask, renderingHints, true);
+            BufferedImage sMaskBuffer = createBufferXObject(parentPage, softMask.getG(), softMask, xFormBuffer,
+                    renderingHints, true);
 //            ImageUtility.displayImage(xFormBuffer, "base " + xForm.getPObjectReference() + " " + xFormBuffer.getHeight() + " x " + xFormBuffer.getHeight());
 //            ImageUtility.displayImage(sMaskBuffer, "smask " + softMask.getG().getPObjectReference() + " " + useLuminosity);
             if (gsSoftMask == null) {
@@ -213,10 +237,11 @@ public class FormDrawCmd extends AbstractDrawCmd {
      *
      * @param parentPage     parent page object
      * @param xForm          form being drawn to buffer.
+     * @param baseBuffer     form buffer a mask is being created for, sets the size of over sized masks.
      * @param renderingHints graphic state rendering hinds of parent.
      * @return buffered image of xObject content.
      */
-    private BufferedImage createBufferXObject(Page parentPage, Form xForm, SoftMask softMask,
+    private BufferedImage createBufferXObject(Page parentPage, Form xForm, SoftMask softMask, BufferedImage baseBuffer,
                                               RenderingHints renderingHints, boolean isMask) {
         Rectangle2D bBox = xForm.getBBox();
         int width = (int) bBox.getWidth();
@@ -225,22 +250,22 @@ public class FormDrawCmd extends AbstractDrawCmd {
         if (width == 0) {
             width = 1;
         } else if (width >= MAX_IMAGE_SIZE) {
-            width = xFormBuffer.getWidth();
+            width = baseBuffer != null ? baseBuffer.getWidth() : MAX_IMAGE_SIZE;
         }
         if (height == 0) {
             height = 1;
         } else if (height >= MAX_IMAGE_SIZE) {
-            height = xFormBuffer.getHeight();
+            height = baseBuffer != null ? baseBuffer.getHeight() : MAX_IMAGE_SIZE;
         }
         // create the new image to write too.
         BufferedImage bi = ImageUtility.createTranslucentCompatibleImage(width, height);
         Graphics2D canvas = bi.createGraphics();
         if (!isMask && xForm.getExtGState() != null && xForm.getExtGState().getBlendingMode() != null
-                && !new Name("Normal").equals(xForm.getExtGState().getBlendingMode())
+                && !BlendComposite.NORMAL_VALUE.equals(xForm.getExtGState().getBlendingMode())
                 ) {
             if (xForm.getGroup() != null) {
                 HashMap tmp = xForm.getGroup();
-                Object cs = xForm.getLibrary().getObject(tmp, new Name("CS"));
+                Object cs = xForm.getLibrary().getObject(tmp, CS_KEY);
                 // looking for additive colour spaces, if so we paint an background.
                 if (cs == null || cs instanceof ICCBased || cs instanceof Name &&
                         (((Name) cs).equals(DeviceRGB.DEVICERGB_KEY)
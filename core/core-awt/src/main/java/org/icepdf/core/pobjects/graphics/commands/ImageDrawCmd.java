@@ -23,6 +23,7 @@ import org.icepdf.core.util.Defs;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 
 /**
  * The ImageDrawCmd class when executed will draw the image associated
@@ -93,7 +94,11 @@ public class ImageDrawCmd extends AbstractDrawCmd {
             if (isScaledPaint && (xIsScale || yIsScale)) {
                 calculateThinScale(base.getScaleX());
             }
-            image.drawImage(g, 0, 0, xScale, yScale);
+            if (xScale == 1 && yScale == 1 && image.isRegionDecodable()) {
+                image.drawImage(g, 0, 0, 1, 1, getVisibleRegion(g), getSubsampling(g));
+            } else {
+                image.drawImage(g, 0, 0, xScale, yScale);
+            }
             if (parentPage != null && paintTimer.shouldTriggerRepaint()) {
                 parentPage.notifyPaintPageListeners();
             }
@@ -101,6 +106,47 @@ public class ImageDrawCmd extends AbstractDrawCmd {
         return currentShape;
     }
 
+    /**
+     * Gets the part of the image inside the clip.  The image is painted into the unit square so the clip in user
+     * space is a fraction of the image's width and height.
+     *
+     * @param g graphics the image is painted to.
+     * @return visible region in image space, padded by a pixel for filtering.
+     */
+    private Rectangle getVisibleRegion(Graphics2D g) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Shape clip = g.getClip();
+        if (clip == null) {
+            return new Rectangle(0, 0, width, height);
+        }
+        Rectangle2D bounds = clip.getBounds2D();
+        int x1 = (int) Math.max(0, Math.floor(bounds.getMinX() * width) - 1);
+        int y1 = (int) Math.max(0, Math.floor(bounds.getMinY() * height) - 1);
+        int x2 = (int) Math.min(width, Math.ceil(bounds.getMaxX() * width) + 1);
+        int y2 = (int) Math.min(height, Math.ceil(bounds.getMaxY() * height) + 1);
+        return new Rectangle(x1, y1, Math.max(0, x2 - x1), Math.max(0, y2 - y1));
+    }
+
+    /**
+     * Gets how many image pixels cover a device pixel along the image's less reduced axis, printers get the
+     * full resolution as they rasterize well above the graphics' resolution.
+     *
+     * @param g graphics the image is painted to.
+     * @return image pixels per device pixel rounded down, at least 1.
+     */
+    private int getSubsampling(Graphics2D g) {
+        GraphicsConfiguration configuration = g.getDeviceConfiguration();
+        if (configuration != null && configuration.getDevice().getType() == GraphicsDevice.TYPE_PRINTER) {
+            return 1;
+        }
+        AffineTransform transform = g.getTransform();
+        double devicePixels = Math.max(
+                Math.hypot(transform.getScaleX(), transform.getShearY()) / image.getWidth(),
+                Math.hypot(transform.getShearX(), transform.getScaleY()) / image.getHeight());
+        return devicePixels > 0 && devicePixels < 1 ? (int) (1 / devicePixels) : 1;
+    }
+
     /**
      * Alter the width or height value of 1px or less then MIN_DIMENSION.
      *
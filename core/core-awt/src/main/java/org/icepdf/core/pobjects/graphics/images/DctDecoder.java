@@ -21,6 +21,7 @@ import javax.imageio.ImageIO;
 import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
 import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.WritableRaster;
 import java.io.BufferedInputStream;
@@ -61,6 +62,20 @@ public class DctDecoder extends AbstractImageDecoder {
      */
     @Override
     public BufferedImage decode() {
+        return decode(null, 1);
+    }
+
+    /**
+     * Decodes part of the JPEG, the image reader only keeps the rows and columns of the region so far less memory
+     * is needed than for a full decode.
+     *
+     * @param region      region to decode, null for the whole image.
+     * @param subsampling keep every nth row and column of the region.
+     * @return buffered images representation of the decoded JPEG data.  Null
+     * if the image could not be properly decoded.
+     */
+    @Override
+    public BufferedImage decode(Rectangle region, int subsampling) {
         // BIS's buffer size should be equal to mark() size, and greater than data size (below)
         InputStream input = imageStream.getDecodedByteArrayInputStream();
         // Used to just read 1000, but found a PDF that included thumbnails first
@@ -111,6 +126,10 @@ public class DctDecoder extends AbstractImageDecoder {
             // read the raster data only, as we have our own logic to covert
             // the raster data to RGB colours.
             ImageReadParam param = reader.getDefaultReadParam();
+            if (region != null) {
+                param.setSourceRegion(region);
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            }
             WritableRaster wr = (WritableRaster) reader.readRaster(0, param);
 
             // quick sanity check to try and scale really large images before we get into heap trouble.
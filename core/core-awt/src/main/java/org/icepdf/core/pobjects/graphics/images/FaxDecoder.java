@@ -68,12 +68,7 @@ public class FaxDecoder extends AbstractImageDecoder {
         }
 
         int k = imageParams.getInt(decodeParms, K_KEY);
-
-        boolean encodedByteAlign = false;
-        Object encodedByteAlignObject = imageParams.getObject(decodeParms, ENCODED_BYTE_ALIGN_KEY);
-        if (encodedByteAlignObject instanceof Boolean) {
-            encodedByteAlign = (Boolean) encodedByteAlignObject;
-        }
+        boolean encodedByteAlign = isEncodedByteAlign(imageParams, decodeParms);
         int columns = imageParams.getInt(decodeParms, COLUMNS_KEY);
         int rows = imageParams.getInt(decodeParms, ROWS_KEY);
         if (columns <= 0) columns = imageParams.getWidth();
@@ -84,14 +79,13 @@ public class FaxDecoder extends AbstractImageDecoder {
         byte[] data = imageStream.getDecodedStreamBytes(imageParams.getDataLength());
         byte[] decodedStreamData = null;
         try {
-            // try and load the image via twelve monkeys
-            decodedStreamData = ccittFaxDecodeTwelveMonkeys(data, k, encodedByteAlign, columns, rows, size);
+            decodedStreamData = ccittFaxDecode(data, k, encodedByteAlign, columns, rows);
         } catch (Throwable e) {
             try {
-                // on a failure then fall back on our implementation.
+                // on a failure then fall back on twelve monkeys.
+                logger.log(Level.FINE, "Error decoding CCITTFax image.", e);
                 logger.warning("Error during decode falling back on alternative fax decode.");
-                data = imageStream.getDecodedStreamBytes(imageParams.getDataLength());
-                decodedStreamData = ccittFaxDecodeCCITTFaxDecoder(data, k, encodedByteAlign, columns, rows, size);
+                decodedStreamData = ccittFaxDecodeTwelveMonkeys(data, k, encodedByteAlign, columns, rows, size);
             } catch (Throwable f) {
                 // on a failure then fall back to JAI
                 logger.warning("Error during decode falling back on JAI decode.");
@@ -116,6 +110,64 @@ public class FaxDecoder extends AbstractImageDecoder {
         return decodedImage;
     }
 
+    /**
+     * Decodes part of the image, rows above the region are decoded without being written and decoding stops at
+     * the bottom of the region.
+     *
+     * @param region      region to decode.
+     * @param subsampling keep every nth row and column of the region.
+     * @return decoded region, null if the region could not be decoded.
+     */
+    @Override
+    public BufferedImage decode(Rectangle region, int subsampling) {
+        ImageParams imageParams = imageStream.getImageParams();
+        HashMap decodeParms = imageParams.getDecodeParams();
+        int k = imageParams.getInt(decodeParms, K_KEY);
+        boolean encodedByteAlign = isEncodedByteAlign(imageParams, decodeParms);
+        int columns = imageParams.getInt(decodeParms, COLUMNS_KEY);
+        if (columns <= 0) columns = imageParams.getWidth();
+        if (columns != imageParams.getWidth()) {
+            return null;
+        }
+        byte[] data = imageStream.getDecodedStreamBytes(imageParams.getDataLength());
+        if (data == null) {
+            return null;
+        }
+        int width = (region.width + subsampling - 1) / subsampling;
+        int height = (region.height + subsampling - 1) / subsampling;
+        int regionRowBytes = (width + 7) >> 3;
+        byte[] regionData = new byte[regionRowBytes * height];
+        try {
+            CCITTFaxDecoder decoder = new CCITTFaxDecoder(data, k, columns, encodedByteAlign);
+            byte[] row = new byte[decoder.getRowBytes()];
+            decoder.skipRows(region.y);
+            for (int y = 0; y < height; y++) {
+                if ((y > 0 && decoder.skipRows(subsampling - 1) < subsampling - 1) ||
+                        decoder.decodeRows(row, 0, 1) < 1) {
+                    // rows missing from the encoded data are left white.
+                    break;
+                }
+                ImageUtility.copyRegionRow(row, 0, regionData, y * regionRowBytes, region.x, width, 1, subsampling);
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.FINE, "Error decoding CCITTFax image region.", e);
+            return null;
+        }
+        regionData = applyBlackIsOne(regionData, imageParams, decodeParms);
+        try {
+            return ImageUtility.makeImageWithRasterFromBytes(regionData, graphicsState,
+                    imageParams.getRegionParams(width, height));
+        } catch (Exception e) {
+            logger.log(Level.FINE, "Error building image region raster.", e);
+        }
+        return null;
+    }
+
+    private static boolean isEncodedByteAlign(ImageParams imageParams, HashMap decodeParms) {
+        Object encodedByteAlignObject = imageParams.getObject(decodeParms, ENCODED_BYTE_ALIGN_KEY);
+        return encodedByteAlignObject instanceof Boolean && (Boolean) encodedByteAlignObject;
+    }
+
     private byte[] ccittFaxDecodeTwelveMonkeys(byte[] streamData, int k, Boolean encodedByteAlign,
                                                int columns, int rows, int size)
             throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException,
@@ -162,28 +214,18 @@ public class FaxDecoder extends AbstractImageDecoder {
         return decodedStreamData;
     }
 
-    private byte[] ccittFaxDecodeCCITTFaxDecoder(byte[] streamData, int k, Boolean encodedByteAlign,
-                                                 int columns, int rows, int size) {
-
-        CCITTFaxDecoder decoder = new CCITTFaxDecoder(1, columns, rows);
-        decoder.setAlign(encodedByteAlign);
-        byte[] decodedStreamData = new byte[size];
-        // pick three three possible fax encoding.
+    private byte[] ccittFaxDecode(byte[] streamData, int k, boolean encodedByteAlign, int columns, int rows) {
         try {
-            if (k == 0) {
-                decoder.decodeT41D(decodedStreamData, streamData, 0, rows);
-            } else if (k > 0) {
-                decoder.decodeT42D(decodedStreamData, streamData, 0, rows);
-            } else {
-                decoder.decodeT6(decodedStreamData, streamData, 0, rows);
+            return CCITTFaxDecoder.decode(streamData, k, columns, rows, encodedByteAlign);
+        } catch (RuntimeException e) {
+            if (k < 0) {
+                throw e;
             }
-        } catch (Exception e2) {
             logger.warning("Error decoding CCITTFax image k: " + k);
             // IText 5.03 doesn't correctly assign a k value for the deocde,
             // as  result we can try one more time using the T6.
-            decoder.decodeT6(decodedStreamData, streamData, 0, rows);
+            return CCITTFaxDecoder.decode(streamData, -1, columns, rows, encodedByteAlign);
         }
-        return decodedStreamData;
     }
 
     public static byte[] applyBlackIsOne(byte[] decodedStreamData, ImageParams imageParams, HashMap decodeParms) {
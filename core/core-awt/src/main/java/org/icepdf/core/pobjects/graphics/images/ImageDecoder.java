@@ -15,6 +15,7 @@
  */
 package org.icepdf.core.pobjects.graphics.images;
 
+import java.awt.*;
 import java.awt.image.BufferedImage;
 
 /**
@@ -31,4 +32,31 @@ public interface ImageDecoder {
      * @return imaged stream decoded to a BufferedImage. Null if the image could not be decoded.
      */
     BufferedImage decode();
+
+    /**
+     * Decodes part of the image, used when only a small part of a large image is painted.  The returned image
+     * is ceil(region.width / subsampling) by ceil(region.height / subsampling) pixels.
+     *
+     * @param region      region to decode in image space, within the bounds of the image.
+     * @param subsampling keep every nth row and column of the region, 1 for full resolution.
+     * @return decoded region.  Null if the decoder can't decode a region on its own, the whole image should be
+     * decoded instead.
+     */
+    default BufferedImage decode(Rectangle region, int subsampling) {
+        return null;
+    }
+
+    /**
+     * Decodes the image straight to a smaller size, the decoded rows are resampled as they are decoded so the
+     * full resolution image is never built.
+     *
+     * @param width  width to scale to.
+     * @param height height to scale to.
+     * @param filter resampling filter.
+     * @return scaled image.  Null if the decoder can't stream its rows, the whole image should be decoded and
+     * scaled instead.
+     */
+    default BufferedImage decode(int width, int height, ImageResampler.Filter filter) {
+        return null;
+    }
 }
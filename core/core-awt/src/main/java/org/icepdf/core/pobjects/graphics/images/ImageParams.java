@@ -253,6 +253,28 @@ public class ImageParams extends Dictionary {
         return false;
     }
 
+    /**
+     * Gets params describing a decoded region of the image, the same as these params but with the width and
+     * height of the region.
+     *
+     * @param width  width of the decoded region.
+     * @param height height of the decoded region.
+     * @return params for the region.
+     */
+    ImageParams getRegionParams(final int width, final int height) {
+        return new ImageParams(library, entries, resources) {
+            @Override
+            public int getWidth() {
+                return width;
+            }
+
+            @Override
+            public int getHeight() {
+                return height;
+            }
+        };
+    }
+
     public int getDataLength() {
         return getWidth() * getHeight()
                 * getColorSpaceCompCount()
@@ -0,0 +1,460 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.graphics.images;
+
+import org.icepdf.core.util.Defs;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Resamples images to a new size with a separable area averaging or Lanczos
+ * filter.  Rows are read one at a time, filtered horizontally and kept only
+ * as long as the vertical filter needs them, so scaling a very large image
+ * down needs memory for the result and a few scaled rows rather than a second
+ * copy of the source.  Images are read straight from their int or byte pixel
+ * arrays when the raster layout allows it.
+ * <br>
+ * Large images are split into bands of result rows that are scaled on a
+ * fork join pool of org.icepdf.core.imageResampler.threads threads, the
+ * number of available processors by default.  Rows can also be streamed from
+ * a decoder with a {@link RowSource}, they are then read once in order.
+ *
+ * @since 7.0
+ */
+public final class ImageResampler {
+
+    /**
+     * Resampling filter.
+     */
+    public enum Filter {
+        /**
+         * Averages the source pixels each result pixel covers, the sharpest filter that doesn't alias when
+         * shrinking.
+         */
+        AREA,
+        /**
+         * Three lobed Lanczos, sharper than area averaging with some ringing at hard edges.
+         */
+        LANCZOS
+    }
+
+    /**
+     * Supplies the rows of an image being resampled.
+     */
+    public interface RowSource {
+        /**
+         * Reads a row of non premultiplied ARGB pixels.
+         *
+         * @param y    row to read.
+         * @param argb array the size of the image width to copy the row to.
+         */
+        void readRow(int y, int[] argb);
+    }
+
+    private static final int LANCZOS_LOBES = 3;
+    // images smaller than this many source pixels are scaled on the calling thread.
+    private static final long PARALLEL_MIN_PIXELS = 1 << 20;
+    private static final int BAND_MIN_ROWS = 16;
+
+    private static final int threads;
+    private static ForkJoinPool pool;
+
+    static {
+        threads = Math.max(1, Defs.intProperty("org.icepdf.core.imageResampler.threads",
+                Runtime.getRuntime().availableProcessors()));
+    }
+
+    private ImageResampler() {
+    }
+
+    /**
+     * Resamples an image, large images are scaled in parallel.
+     *
+     * @param image  image to resample.
+     * @param width  result width.
+     * @param height result height.
+     * @param filter resampling filter.
+     * @return resampled image, TYPE_INT_ARGB if the image has alpha otherwise TYPE_INT_RGB.
+     */
+    public static BufferedImage resample(BufferedImage image, int width, int height, Filter filter) {
+        int sourceWidth = image.getWidth();
+        int sourceHeight = image.getHeight();
+        boolean alpha = image.getColorModel().hasAlpha();
+        width = Math.max(1, width);
+        height = Math.max(1, height);
+        Weights columns = new Weights(sourceWidth, width, filter);
+        Weights rows = new Weights(sourceHeight, height, filter);
+        BufferedImage scaled = createImage(width, height, alpha);
+        int[] pixels = ((DataBufferInt) scaled.getRaster().getDataBuffer()).getData();
+        int bandRows = Math.max(BAND_MIN_ROWS, height / (threads * 4));
+        if (threads > 1 && height > bandRows && (long) sourceWidth * sourceHeight >= PARALLEL_MIN_PIXELS) {
+            getPool().invoke(new BandTask(image, columns, rows, alpha, pixels, 0, height, bandRows));
+        } else {
+            scaleRows(new ImageRows(image), columns, rows, alpha, pixels, 0, height);
+        }
+        return scaled;
+    }
+
+    /**
+     * Resamples an image whose rows are read from the source on the calling thread.  Each row is read once and
+     * in order, rows past the last one the filter needs aren't read.
+     *
+     * @param source       source of the image rows.
+     * @param sourceWidth  width of the source image.
+     * @param sourceHeight height of the source image.
+     * @param alpha        true if the source rows have alpha.
+     * @param width        result width.
+     * @param height       result height.
+     * @param filter       resampling filter.
+     * @return resampled image, TYPE_INT_ARGB if alpha is true otherwise TYPE_INT_RGB.
+     */
+    public static BufferedImage resample(RowSource source, int sourceWidth, int sourceHeight, boolean alpha,
+                                         int width, int height, Filter filter) {
+        width = Math.max(1, width);
+        height = Math.max(1, height);
+        BufferedImage scaled = createImage(width, height, alpha);
+        int[] pixels = ((DataBufferInt) scaled.getRaster().getDataBuffer()).getData();
+        scaleRows(source, new Weights(sourceWidth, width, filter), new Weights(sourceHeight, height, filter),
+                alpha, pixels, 0, height);
+        return scaled;
+    }
+
+    private static BufferedImage createImage(int width, int height, boolean alpha) {
+        return new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(threads);
+        }
+        return pool;
+    }
+
+    /**
+     * Scales the result rows from firstRow up to lastRow.  Horizontally filtered source rows are kept in a ring
+     * just large enough for the vertical filter, the rows a result row needs never go back past the rows the
+     * previous one needed.
+     */
+    private static void scaleRows(RowSource source, Weights columns, Weights rows, boolean alpha,
+                                  int[] pixels, int firstRow, int lastRow) {
+        // opaque images skip the alpha channel.
+        int channels = alpha ? 4 : 3;
+        int sourceWidth = columns.sourceSize;
+        int width = columns.size;
+        int ringSize = rows.maxCount;
+        float[][] ring = new float[ringSize][width * channels];
+        int[] argb = new int[sourceWidth];
+        float[] premultiplied = new float[sourceWidth * channels];
+        float[] sum = new float[width * channels];
+        int nextRow = rows.start[firstRow];
+        for (int y = firstRow; y < lastRow; y++) {
+            int start = rows.start[y];
+            int end = start + rows.count[y];
+            for (; nextRow < end; nextRow++) {
+                source.readRow(nextRow, argb);
+                if (alpha) {
+                    premultiply(argb, premultiplied);
+                    filterRow4(premultiplied, columns, ring[nextRow % ringSize]);
+                } else {
+                    split(argb, premultiplied);
+                    filterRow3(premultiplied, columns, ring[nextRow % ringSize]);
+                }
+            }
+            Arrays.fill(sum, 0);
+            for (int row = start, weight = y * rows.maxCount; row < end; row++, weight++) {
+                float rowWeight = rows.weights[weight];
+                float[] filtered = ring[row % ringSize];
+                for (int i = 0; i < sum.length; i++) {
+                    sum[i] += filtered[i] * rowWeight;
+                }
+            }
+            int offset = y * width;
+            if (alpha) {
+                for (int x = 0, i = 0; x < width; x++, i += 4) {
+                    pixels[offset + x] = unpremultiply(sum[i], sum[i + 1], sum[i + 2], sum[i + 3]);
+                }
+            } else {
+                for (int x = 0, i = 0; x < width; x++, i += 3) {
+                    pixels[offset + x] = 0xff000000 | clamp(sum[i]) << 16 | clamp(sum[i + 1]) << 8 | clamp(sum[i + 2]);
+                }
+            }
+        }
+    }
+
+    private static void split(int[] argb, float[] rgb) {
+        for (int x = 0, i = 0; x < argb.length; x++, i += 3) {
+            int pixel = argb[x];
+            rgb[i] = (pixel >> 16) & 0xff;
+            rgb[i + 1] = (pixel >> 8) & 0xff;
+            rgb[i + 2] = pixel & 0xff;
+        }
+    }
+
+    private static void premultiply(int[] argb, float[] premultiplied) {
+        for (int x = 0, i = 0; x < argb.length; x++, i += 4) {
+            int pixel = argb[x];
+            float a = (pixel >>> 24) / 255f;
+            premultiplied[i] = a;
+            premultiplied[i + 1] = ((pixel >> 16) & 0xff) * a;
+            premultiplied[i + 2] = ((pixel >> 8) & 0xff) * a;
+            premultiplied[i + 3] = (pixel & 0xff) * a;
+        }
+    }
+
+    private static void filterRow3(float[] rgb, Weights columns, float[] filtered) {
+        int maxCount = columns.maxCount;
+        for (int x = 0, i = 0; x < columns.size; x++, i += 3) {
+            float r = 0, g = 0, b = 0;
+            int weight = x * maxCount;
+            for (int j = columns.start[x] * 3, end = j + columns.count[x] * 3; j < end; j += 3, weight++) {
+                float columnWeight = columns.weights[weight];
+                r += rgb[j] * columnWeight;
+                g += rgb[j + 1] * columnWeight;
+                b += rgb[j + 2] * columnWeight;
+            }
+            filtered[i] = r;
+            filtered[i + 1] = g;
+            filtered[i + 2] = b;
+        }
+    }
+
+    private static void filterRow4(float[] premultiplied, Weights columns, float[] filtered) {
+        int maxCount = columns.maxCount;
+        for (int x = 0, i = 0; x < columns.size; x++, i += 4) {
+            float a = 0, r = 0, g = 0, b = 0;
+            int weight = x * maxCount;
+            for (int j = columns.start[x] * 4, end = j + columns.count[x] * 4; j < end; j += 4, weight++) {
+                float columnWeight = columns.weights[weight];
+                a += premultiplied[j] * columnWeight;
+                r += premultiplied[j + 1] * columnWeight;
+                g += premultiplied[j + 2] * columnWeight;
+                b += premultiplied[j + 3] * columnWeight;
+            }
+            filtered[i] = a;
+            filtered[i + 1] = r;
+            filtered[i + 2] = g;
+            filtered[i + 3] = b;
+        }
+    }
+
+    private static int unpremultiply(float a, float r, float g, float b) {
+        // Lanczos can over or undershoot, colour is kept within the alpha.
+        if (a <= 0) {
+            return 0;
+        }
+        if (a > 1) {
+            a = 1;
+        }
+        return clamp(a * 255) << 24 | clamp(r / a) << 16 | clamp(g / a) << 8 | clamp(b / a);
+    }
+
+    private static int clamp(float value) {
+        int rounded = (int) (value + 0.5f);
+        return rounded < 0 ? 0 : rounded > 255 ? 255 : rounded;
+    }
+
+    /**
+     * Filter weights along one axis, result pixel i is the sum of the count[i] source pixels from start[i]
+     * times the weights from i * maxCount.
+     */
+    private static final class Weights {
+
+        final int sourceSize;
+        final int size;
+        final int[] start;
+        final int[] count;
+        final int maxCount;
+        final float[] weights;
+
+        Weights(int sourceSize, int size, Filter filter) {
+            this.sourceSize = sourceSize;
+            this.size = size;
+            start = new int[size];
+            count = new int[size];
+            double scale = (double) size / sourceSize;
+            // the filter is stretched over the source when shrinking.
+            double stretch = Math.max(1, 1 / scale);
+            double support = filter == Filter.LANCZOS ? LANCZOS_LOBES * stretch : stretch / 2;
+            maxCount = Math.min(sourceSize, (int) Math.ceil(support * 2) + 2);
+            weights = new float[size * maxCount];
+            double[] values = new double[maxCount];
+            for (int i = 0; i < size; i++) {
+                double center = (i + 0.5) / scale;
+                int first = Math.max(0, (int) Math.floor(center - support));
+                int last = Math.min(sourceSize, (int) Math.ceil(center + support));
+                last = Math.min(last, first + maxCount);
+                double total = 0;
+                for (int j = first; j < last; j++) {
+                    double value;
+                    if (filter == Filter.LANCZOS) {
+                        value = lanczos((j + 0.5 - center) / stretch);
+                    } else {
+                        // share of the source pixel inside the result pixel's box.
+                        value = Math.max(0, Math.min(j + 1, center + support) - Math.max(j, center - support));
+                    }
+                    values[j - first] = value;
+                    total += value;
+                }
+                if (total == 0) {
+                    // nearest pixel, only for boxes narrower than a pixel falling between centres.
+                    first = Math.min(sourceSize - 1, (int) center);
+                    last = first + 1;
+                    values[0] = total = 1;
+                }
+                start[i] = first;
+                count[i] = last - first;
+                for (int j = 0; j < count[i]; j++) {
+                    weights[i * maxCount + j] = (float) (values[j] / total);
+                }
+            }
+        }
+
+        private static double lanczos(double x) {
+            if (x == 0) {
+                return 1;
+            }
+            if (x <= -LANCZOS_LOBES || x >= LANCZOS_LOBES) {
+                return 0;
+            }
+            double px = Math.PI * x;
+            return LANCZOS_LOBES * Math.sin(px) * Math.sin(px / LANCZOS_LOBES) / (px * px);
+        }
+    }
+
+    /**
+     * Scales a band of result rows, splitting it in two until it is no more than bandRows rows.
+     */
+    @SuppressWarnings("serial")
+    private static final class BandTask extends RecursiveAction {
+
+        private final BufferedImage image;
+        private final Weights columns;
+        private final Weights rows;
+        private final boolean alpha;
+        private final int[] pixels;
+        private final int firstRow;
+        private final int lastRow;
+        private final int bandRows;
+
+        BandTask(BufferedImage image, Weights columns, Weights rows, boolean alpha, int[] pixels,
+                 int firstRow, int lastRow, int bandRows) {
+            this.image = image;
+            this.columns = columns;
+            this.rows = rows;
+            this.alpha = alpha;
+            this.pixels = pixels;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.bandRows = bandRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (lastRow - firstRow <= bandRows) {
+                scaleRows(new ImageRows(image), columns, rows, alpha, pixels, firstRow, lastRow);
+            } else {
+                int middle = (firstRow + lastRow) >>> 1;
+                invokeAll(new BandTask(image, columns, rows, alpha, pixels, firstRow, middle, bandRows),
+                        new BandTask(image, columns, rows, alpha, pixels, middle, lastRow, bandRows));
+            }
+        }
+    }
+
+    /**
+     * Reads the rows of an image, copying straight from the pixel array for the common int and byte layouts
+     * and through getRGB for anything else.  A reader holds its own row buffer so each thread needs its own.
+     */
+    static final class ImageRows implements RowSource {
+
+        private final BufferedImage image;
+        private final int type;
+        private int[] intPixels;
+        private byte[] bytePixels;
+        private int offset;
+        private int scanlineStride;
+
+        ImageRows(BufferedImage image) {
+            this.image = image;
+            int type = image.getType();
+            DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+            if (image.getRaster().getParent() == null && image.getRaster().getSampleModelTranslateX() == 0 &&
+                    image.getRaster().getSampleModelTranslateY() == 0 && dataBuffer.getNumBanks() == 1) {
+                if (dataBuffer instanceof DataBufferInt &&
+                        image.getSampleModel() instanceof SinglePixelPackedSampleModel &&
+                        (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)) {
+                    intPixels = ((DataBufferInt) dataBuffer).getData();
+                    scanlineStride = ((SinglePixelPackedSampleModel) image.getSampleModel()).getScanlineStride();
+                } else if (dataBuffer instanceof DataBufferByte &&
+                        image.getSampleModel() instanceof ComponentSampleModel &&
+                        (type == BufferedImage.TYPE_BYTE_GRAY || type == BufferedImage.TYPE_3BYTE_BGR ||
+                                type == BufferedImage.TYPE_4BYTE_ABGR)) {
+                    bytePixels = ((DataBufferByte) dataBuffer).getData();
+                    scanlineStride = ((ComponentSampleModel) image.getSampleModel()).getScanlineStride();
+                } else {
+                    type = BufferedImage.TYPE_CUSTOM;
+                }
+                offset = dataBuffer.getOffset();
+            } else {
+                type = BufferedImage.TYPE_CUSTOM;
+            }
+            this.type = type;
+        }
+
+        @Override
+        public void readRow(int y, int[] argb) {
+            int width = argb.length;
+            int index = offset + y * scanlineStride;
+            switch (type) {
+                case BufferedImage.TYPE_INT_ARGB:
+                    System.arraycopy(intPixels, index, argb, 0, width);
+                    break;
+                case BufferedImage.TYPE_INT_RGB:
+                    for (int x = 0; x < width; x++) {
+                        argb[x] = 0xff000000 | intPixels[index + x];
+                    }
+                    break;
+                case BufferedImage.TYPE_BYTE_GRAY:
+                    for (int x = 0; x < width; x++) {
+                        int gray = bytePixels[index + x] & 0xff;
+                        argb[x] = 0xff000000 | gray << 16 | gray << 8 | gray;
+                    }
+                    break;
+                case BufferedImage.TYPE_3BYTE_BGR:
+                    for (int x = 0; x < width; x++, index += 3) {
+                        argb[x] = 0xff000000 | (bytePixels[index + 2] & 0xff) << 16 |
+                                (bytePixels[index + 1] & 0xff) << 8 | (bytePixels[index] & 0xff);
+                    }
+                    break;
+                case BufferedImage.TYPE_4BYTE_ABGR:
+                    for (int x = 0; x < width; x++, index += 4) {
+                        argb[x] = (bytePixels[index] & 0xff) << 24 | (bytePixels[index + 3] & 0xff) << 16 |
+                                (bytePixels[index + 2] & 0xff) << 8 | (bytePixels[index + 1] & 0xff);
+                    }
+                    break;
+                default:
+                    image.getRGB(0, y, width, 1, argb, 0, width);
+            }
+        }
+    }
+}
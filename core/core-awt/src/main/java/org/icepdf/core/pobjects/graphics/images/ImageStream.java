@@ -23,7 +23,10 @@ import org.icepdf.core.pobjects.Stream;
 import org.icepdf.core.pobjects.graphics.GraphicsState;
 import org.icepdf.core.pobjects.graphics.PColorSpace;
 import org.icepdf.core.util.Library;
+import org.icepdf.core.util.metrics.Metric;
+import org.icepdf.core.util.metrics.Metrics;
 
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.HashMap;
 import java.util.logging.Logger;
@@ -91,7 +94,9 @@ public class ImageStream extends Stream {
         }
         // decode the given image.
         ImageDecoder imageDecoder = ImageDecoderFactory.createDecoder(this, graphicsState);
+        long start = Metrics.start();
         BufferedImage decodedImage = imageDecoder.decode();
+        if (Metrics.ENABLED) Metrics.time(Metric.IMAGE_DECODE, imageDecoder.getClass().getSimpleName(), start);
 
         // Fallback image cod the will use pixel primitives to build out the image.
         if (decodedImage == null) {
@@ -122,6 +127,72 @@ public class ImageStream extends Stream {
         return decodedImage;
     }
 
+    /**
+     * Decodes part of the image, used to paint large images of which only a small part is visible.  The region
+     * isn't pooled, the caller is expected to keep it as long as it is needed.
+     *
+     * @param graphicsState graphic state for image or parent form
+     * @param resources     resources containing image reference
+     * @param region        region of the image to decode in image space.
+     * @param subsampling   keep every nth row and column of the region, 1 for full resolution.
+     * @return decoded region, null if the region can't be decoded on its own and the whole image should be
+     * decoded with {@link #getImage(GraphicsState, Resources)}.
+     * @throws InterruptedException thread interrupted.
+     */
+    public BufferedImage getImage(GraphicsState graphicsState, Resources resources, Rectangle region, int subsampling)
+            throws InterruptedException {
+        imageParams = new ImageParams(library, entries, resources);
+        region = region.intersection(new Rectangle(0, 0, getWidth(), getHeight()));
+        if (!isRegionDecodable() || region.isEmpty()) {
+            return null;
+        }
+        ImageDecoder imageDecoder = ImageDecoderFactory.createDecoder(this, graphicsState);
+        long start = Metrics.start();
+        BufferedImage decodedImage = imageDecoder.decode(region, Math.max(1, subsampling));
+        if (Metrics.ENABLED) Metrics.time(Metric.IMAGE_DECODE, imageDecoder.getClass().getSimpleName(), start);
+        if (decodedImage != null && imageParams.isImageMask()) {
+            decodedImage = ImageUtility.applyExplicitMask(decodedImage, graphicsState.getFillColor());
+        }
+        return decodedImage;
+    }
+
+    /**
+     * Decodes the image straight to a smaller size, used to scale large images without building the full
+     * resolution image first.  The scaled image isn't pooled.
+     *
+     * @param graphicsState graphic state for image or parent form
+     * @param resources     resources containing image reference
+     * @param width         width to scale to.
+     * @param height        height to scale to.
+     * @param filter        resampling filter.
+     * @return scaled image, null if the image can't be scaled as it is decoded and should be decoded with
+     * {@link #getImage(GraphicsState, Resources)} and then scaled.
+     * @throws InterruptedException thread interrupted.
+     */
+    public BufferedImage getScaledImage(GraphicsState graphicsState, Resources resources, int width, int height,
+                                        ImageResampler.Filter filter) throws InterruptedException {
+        imageParams = new ImageParams(library, entries, resources);
+        // image masks take the fill colour at full resolution, masked images need the whole mask.
+        if (!isRegionDecodable() || imageParams.isImageMask()) {
+            return null;
+        }
+        ImageDecoder imageDecoder = ImageDecoderFactory.createDecoder(this, graphicsState);
+        long start = Metrics.start();
+        BufferedImage decodedImage = imageDecoder.decode(width, height, filter);
+        if (Metrics.ENABLED) Metrics.time(Metric.IMAGE_DECODE, imageDecoder.getClass().getSimpleName(), start);
+        return decodedImage;
+    }
+
+    /**
+     * Images with a mask or soft mask image are always decoded whole, the mask has its own dimensions and is
+     * applied to the whole image.
+     *
+     * @return true if a region of the image can be decoded on its own.
+     */
+    public boolean isRegionDecodable() {
+        return !imageParams.hasSMask() && (!imageParams.hasMask() || imageParams.getColorKeyMask() != null);
+    }
+
     public int getWidth() {
         return imageParams.getWidth();
     }
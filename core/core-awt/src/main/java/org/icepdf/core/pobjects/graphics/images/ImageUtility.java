@@ -31,6 +31,7 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -959,6 +960,58 @@ public class ImageUtility {
         }
     }
 
+    /**
+     * Copies part of a row of packed samples, keeping every nth pixel starting at x.  The copied pixels are
+     * packed from the start of the destination the same way as the source.
+     *
+     * @param src          source row.
+     * @param srcOffset    offset of the row in src.
+     * @param dest         destination row.
+     * @param destOffset   offset of the row in dest.
+     * @param x            first pixel to copy.
+     * @param width        number of pixels to copy.
+     * @param bitsPerPixel bits per pixel, components times bits per component.
+     * @param subsampling  distance between copied pixels.
+     */
+    static void copyRegionRow(byte[] src, int srcOffset, byte[] dest, int destOffset,
+                              int x, int width, int bitsPerPixel, int subsampling) {
+        if ((bitsPerPixel & 7) == 0) {
+            int bytesPerPixel = bitsPerPixel >> 3;
+            if (subsampling == 1) {
+                System.arraycopy(src, srcOffset + x * bytesPerPixel, dest, destOffset, width * bytesPerPixel);
+            } else {
+                for (int i = 0, from = srcOffset + x * bytesPerPixel, step = subsampling * bytesPerPixel;
+                     i < width; i++, from += step, destOffset += bytesPerPixel) {
+                    System.arraycopy(src, from, dest, destOffset, bytesPerPixel);
+                }
+            }
+        } else if (subsampling == 1) {
+            // shift whole bytes into place rather than going bit by bit.
+            int bit = x * bitsPerPixel;
+            int from = srcOffset + (bit >> 3);
+            int shift = bit & 7;
+            int bytes = (width * bitsPerPixel + 7) >> 3;
+            int srcEnd = srcOffset + ((x + width) * bitsPerPixel + 7 >> 3);
+            for (int i = 0; i < bytes; i++, from++) {
+                int value = (src[from] & 0xff) << shift;
+                if (shift > 0 && from + 1 < srcEnd) {
+                    value |= (src[from + 1] & 0xff) >> (8 - shift);
+                }
+                dest[destOffset + i] = (byte) value;
+            }
+        } else {
+            Arrays.fill(dest, destOffset, destOffset + ((width * bitsPerPixel + 7) >> 3), (byte) 0);
+            for (int i = 0, destBit = destOffset << 3; i < width; i++) {
+                int srcBit = (srcOffset << 3) + (x + i * subsampling) * bitsPerPixel;
+                for (int b = 0; b < bitsPerPixel; b++, srcBit++, destBit++) {
+                    if ((src[srcBit >> 3] & (0x80 >> (srcBit & 7))) != 0) {
+                        dest[destBit >> 3] |= 0x80 >> (destBit & 7);
+                    }
+                }
+            }
+        }
+    }
+
     static BufferedImage makeImageWithRasterFromBytes(byte[] data, GraphicsState graphicsState, ImageParams imageParams) {
         BufferedImage img = null;
 
@@ -21,7 +21,9 @@ import org.icepdf.core.pobjects.graphics.DeviceGray;
 import org.icepdf.core.pobjects.graphics.GraphicsState;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
 import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -51,6 +53,19 @@ public class JBig2Decoder extends AbstractImageDecoder {
 
     @Override
     public BufferedImage decode() {
+        return decode(null, 1);
+    }
+
+    /**
+     * Decodes part of the JBIG2 image, the reader still decodes the page's segments but only the region is
+     * copied out.
+     *
+     * @param region      region to decode, null for the whole image.
+     * @param subsampling keep every nth row and column of the region.
+     * @return decoded image, null if the image could not be decoded.
+     */
+    @Override
+    public BufferedImage decode(Rectangle region, int subsampling) {
 
         BufferedImage tmpImage = null;
 
@@ -72,7 +87,13 @@ public class JBig2Decoder extends AbstractImageDecoder {
 
             // ICEpdf-pro has a commercial license of the levigo library but the OS library can use it to if the project
             // can comply with levigo's open source licence.
-            tmpImage = decodeJbig2(decodeParams, globalsStream, imageInputStream, JBIG2_PDF_BOX);
+            ImageReadParam param = null;
+            if (region != null) {
+                param = new ImageReadParam();
+                param.setSourceRegion(region);
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            }
+            tmpImage = decodeJbig2(decodeParams, globalsStream, imageInputStream, JBIG2_PDF_BOX, param);
         } catch (IOException | InstantiationException | InvocationTargetException | NoSuchMethodException |
                 IllegalAccessException | ClassNotFoundException e) {
             logger.log(Level.WARNING, "Could not find Apache JBIG2 library on class path.");
@@ -100,6 +121,12 @@ public class JBig2Decoder extends AbstractImageDecoder {
     protected BufferedImage decodeJbig2(HashMap decodeParams, Stream globalsStream, ImageInputStream imageInputStream,
                                         String[] jbigClasses)
             throws ClassNotFoundException, IllegalAccessException, InstantiationException, NoSuchMethodException, InvocationTargetException, IOException {
+        return decodeJbig2(decodeParams, globalsStream, imageInputStream, jbigClasses, null);
+    }
+
+    protected BufferedImage decodeJbig2(HashMap decodeParams, Stream globalsStream, ImageInputStream imageInputStream,
+                                        String[] jbigClasses, ImageReadParam param)
+            throws ClassNotFoundException, IllegalAccessException, InstantiationException, NoSuchMethodException, InvocationTargetException, IOException {
         // ICEpdf-pro has a commercial license of the levigo library but the OS library can use it to if the project
         // can comply with levigo's open source licence.
         Class<?> jbig2ImageReaderClass = Class.forName(jbigClasses[0]);
@@ -142,10 +169,19 @@ public class JBig2Decoder extends AbstractImageDecoder {
                 }
             }
         }
-        partypes = new Class[1];
-        partypes[0] = int.class;
-        arglist = new Object[1];
-        arglist[0] = 0;
+        if (param != null) {
+            partypes = new Class[2];
+            partypes[0] = int.class;
+            partypes[1] = ImageReadParam.class;
+            arglist = new Object[2];
+            arglist[0] = 0;
+            arglist[1] = param;
+        } else {
+            partypes = new Class[1];
+            partypes[0] = int.class;
+            arglist = new Object[1];
+            arglist[0] = 0;
+        }
         Method read = jbig2ImageReaderClass.getMethod("read", partypes);
         BufferedImage tmpImage = (BufferedImage) read.invoke(levigoJbig2Reader, arglist);
         // call dispose on the reader
@@ -21,6 +21,7 @@ import javax.imageio.ImageIO;
 import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
 import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
 import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorConvertOp;
@@ -42,6 +43,19 @@ public class JpxDecoder extends AbstractImageDecoder {
 
     @Override
     public BufferedImage decode() {
+        return decode(null, 1);
+    }
+
+    /**
+     * Decodes part of the JPEG 2000 image, readers that support it only decode the tiles and resolution levels
+     * needed for the region.
+     *
+     * @param region      region to decode, null for the whole image.
+     * @param subsampling keep every nth row and column of the region.
+     * @return decoded image, null if the image could not be decoded.
+     */
+    @Override
+    public BufferedImage decode(Rectangle region, int subsampling) {
 
         BufferedImage tmpImage = null;
         try {
@@ -82,6 +96,10 @@ public class JpxDecoder extends AbstractImageDecoder {
                 return null;
             }
             ImageReadParam param = reader.getDefaultReadParam();
+            if (region != null) {
+                param.setSourceRegion(region);
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            }
             reader.setInput(imageInputStream, true, true);
             try {
                 tmpImage = reader.read(0, param);
@@ -17,7 +17,11 @@ package org.icepdf.core.pobjects.graphics.images;
 
 import org.icepdf.core.pobjects.graphics.GraphicsState;
 
+import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -44,4 +48,191 @@ public class RasterDecoder extends AbstractImageDecoder {
         }
         return decodedImage;
     }
+
+    /**
+     * Decodes part of the image by streaming the decoded rows, only the rows and columns of the region are kept.
+     * Rows above the region still have to be decoded but rows below it are never read.
+     *
+     * @param region      region to decode.
+     * @param subsampling keep every nth row and column of the region.
+     * @return decoded region, null if the region could not be decoded.
+     */
+    @Override
+    public BufferedImage decode(Rectangle region, int subsampling) {
+        ImageParams imageParams = imageStream.getImageParams();
+        int bitsPerPixel = imageParams.getColorSpaceCompCount() * imageParams.getBitsPerComponent();
+        InputStream input;
+        if (bitsPerPixel <= 0 || (input = imageStream.getDecodedInputStream()) == null) {
+            return null;
+        }
+        int rowBytes = (imageParams.getWidth() * bitsPerPixel + 7) >> 3;
+        int width = (region.width + subsampling - 1) / subsampling;
+        int height = (region.height + subsampling - 1) / subsampling;
+        int regionRowBytes = (width * bitsPerPixel + 7) >> 3;
+        byte[] row = new byte[rowBytes];
+        byte[] regionData = new byte[regionRowBytes * height];
+        try {
+            // rows missing from the end of the stream are left blank.
+            if (skipRows(input, row, region.y)) {
+                for (int y = 0; y < height; y++) {
+                    if ((y > 0 && !skipRows(input, row, subsampling - 1)) || !readRow(input, row)) {
+                        break;
+                    }
+                    ImageUtility.copyRegionRow(row, 0, regionData, y * regionRowBytes,
+                            region.x, width, bitsPerPixel, subsampling);
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error decoding image region.", e);
+            return null;
+        } finally {
+            try {
+                input.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Error closing image stream.", e);
+            }
+        }
+        try {
+            return ImageUtility.makeImageWithRasterFromBytes(regionData, graphicsState,
+                    imageParams.getRegionParams(width, height));
+        } catch (Exception e) {
+            logger.log(Level.FINE, "Error building image region raster.", e);
+        }
+        return null;
+    }
+
+    /**
+     * Decodes the image to the given size a band of rows at a time, each band is converted to RGB and handed
+     * to the resampler before the next one is read.
+     *
+     * @param width  width to scale to.
+     * @param height height to scale to.
+     * @param filter resampling filter.
+     * @return scaled image, null if the image could not be decoded.
+     */
+    @Override
+    public BufferedImage decode(int width, int height, ImageResampler.Filter filter) {
+        ImageParams imageParams = imageStream.getImageParams();
+        int bitsPerPixel = imageParams.getColorSpaceCompCount() * imageParams.getBitsPerComponent();
+        InputStream input;
+        if (bitsPerPixel <= 0 || (input = imageStream.getDecodedInputStream()) == null) {
+            return null;
+        }
+        try {
+            BandRows bandRows = new BandRows(input, imageParams, bitsPerPixel);
+            return ImageResampler.resample(bandRows, imageParams.getWidth(), imageParams.getHeight(),
+                    bandRows.hasAlpha(), width, height, filter);
+        } catch (Exception e) {
+            logger.log(Level.FINE, "Error decoding scaled image.", e);
+        } finally {
+            try {
+                input.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Error closing image stream.", e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the image's rows in bands of about a megabyte of decoded data, converting each band to an image
+     * the same way a whole image is.  Rows missing from the end of the stream are left blank.
+     */
+    private class BandRows implements ImageResampler.RowSource {
+
+        private static final int BAND_BYTES = 1024 * 1024;
+
+        private final InputStream input;
+        private final ImageParams imageParams;
+        private final int imageWidth;
+        private final int imageHeight;
+        private final int rowBytes;
+        private final int bandHeight;
+        private final byte[] bandData;
+        private final byte[] row;
+        private ImageResampler.ImageRows band;
+        private boolean alpha;
+        private int bandStart;
+        private int bandEnd;
+        private boolean endOfStream;
+
+        BandRows(InputStream input, ImageParams imageParams, int bitsPerPixel) {
+            this.input = input;
+            this.imageParams = imageParams;
+            imageWidth = imageParams.getWidth();
+            imageHeight = imageParams.getHeight();
+            rowBytes = (imageWidth * bitsPerPixel + 7) >> 3;
+            bandHeight = Math.max(1, Math.min(imageHeight, BAND_BYTES / Math.max(1, rowBytes)));
+            bandData = new byte[rowBytes * bandHeight];
+            row = new byte[rowBytes];
+            // the first band tells if the image has alpha, a colour key mask for instance.
+            readBand(0);
+        }
+
+        boolean hasAlpha() {
+            return alpha;
+        }
+
+        @Override
+        public void readRow(int y, int[] argb) {
+            if (y >= bandEnd) {
+                readBand(bandEnd);
+            }
+            band.readRow(y - bandStart, argb);
+        }
+
+        private void readBand(int start) {
+            int rows = Math.min(bandHeight, imageHeight - start);
+            for (int i = 0; i < rows; i++) {
+                try {
+                    endOfStream = endOfStream || !RasterDecoder.readRow(input, row);
+                } catch (IOException e) {
+                    logger.log(Level.FINE, "Error reading image row.", e);
+                    endOfStream = true;
+                }
+                if (endOfStream) {
+                    Arrays.fill(bandData, i * rowBytes, rows * rowBytes, (byte) 0);
+                    break;
+                }
+                System.arraycopy(row, 0, bandData, i * rowBytes, rowBytes);
+            }
+            BufferedImage bandImage = ImageUtility.makeImageWithRasterFromBytes(
+                    rows == bandHeight ? bandData : Arrays.copyOf(bandData, rows * rowBytes),
+                    graphicsState, imageParams.getRegionParams(imageWidth, rows));
+            if (bandImage == null) {
+                throw new IllegalStateException("Image band could not be built.");
+            }
+            if (start == 0) {
+                alpha = bandImage.getColorModel().hasAlpha();
+            } else if (alpha != bandImage.getColorModel().hasAlpha()) {
+                throw new IllegalStateException("Image band alpha differs.");
+            }
+            band = new ImageResampler.ImageRows(bandImage);
+            bandStart = start;
+            bandEnd = start + rows;
+        }
+    }
+
+    private static boolean skipRows(InputStream input, byte[] row, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (!readRow(input, row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean readRow(InputStream input, byte[] row) throws IOException {
+        int offset = 0;
+        while (offset < row.length) {
+            int read = input.read(row, offset, row.length - offset);
+            if (read < 0) {
+                // keep a partial last row, pad it out.
+                Arrays.fill(row, offset, row.length, (byte) 0);
+                return offset > 0;
+            }
+            offset += read;
+        }
+        return true;
+    }
 }
@@ -49,7 +49,7 @@ public abstract class CachedImageReference extends ImageReference {
         }
         if (image != null && reference != null) {
             imagePool.put(reference, image);
-            return image;
+            return releaseOffHeapImage(image);
         }
         BufferedImage cached = imagePool.get(reference);
         if (cached != null) {
@@ -58,6 +58,7 @@ public abstract class CachedImageReference extends ImageReference {
             BufferedImage im = createImage();
             if (im != null && reference != null) {
                 imagePool.put(reference, im);
+                im = releaseOffHeapImage(im);
             } else if (reference != null) {
                 isNull = true;
             }
@@ -65,4 +66,47 @@ public abstract class CachedImageReference extends ImageReference {
         }
     }
 
+    @Override
+    protected BufferedImage createImage() throws InterruptedException {
+        // a shared decode lets go of its task once the image is pooled off heap, a pool miss in getImage may
+        // have raced with it so look again rather than decoding the image a second time.
+        if (futureTask == null && reference != null) {
+            BufferedImage pooled = imagePool.get(reference);
+            if (pooled != null) {
+                return pooled;
+            }
+        }
+        return super.createImage();
+    }
+
+    /**
+     * Pools an image decoded for this reference by a decode it shares with other references.
+     *
+     * @param decoded decoded image, may be null.
+     * @return true if the pool holds the pixels off heap, the decoded image should then be let go.
+     */
+    boolean poolSharedImage(BufferedImage decoded) {
+        if (decoded == null || reference == null) {
+            return false;
+        }
+        imagePool.put(reference, decoded);
+        return imagePool.isOffHeap(reference);
+    }
+
+    /**
+     * Once the pool holds the image's pixels off heap the decoded copy is let go, along with the finished
+     * decode task that also holds it, and a view of the pooled pixels is used instead.
+     */
+    private BufferedImage releaseOffHeapImage(BufferedImage decoded) {
+        if (imagePool.isOffHeap(reference)) {
+            BufferedImage view = imagePool.get(reference);
+            if (view != null) {
+                image = null;
+                futureTask = null;
+                return view;
+            }
+        }
+        return decoded;
+    }
+
 }
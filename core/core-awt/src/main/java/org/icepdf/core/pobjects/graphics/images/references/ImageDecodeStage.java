@@ -0,0 +1,123 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.graphics.images.references;
+
+import org.icepdf.core.pobjects.Reference;
+import org.icepdf.core.pobjects.graphics.GraphicsState;
+import org.icepdf.core.pobjects.graphics.images.ImageStream;
+import org.icepdf.core.util.Library;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Collects the image decodes of a page while its content is parsed and starts them on the image pool once the
+ * parse is done.  A page that draws the same image XObject several times decodes it once, the references share
+ * the decode and each of them sends its image events when it's done.  Decodes are started in paint order and only
+ * until their estimated size reaches a quarter of the maximum heap, the rest are decoded when painted.
+ *
+ * @since 7.0
+ */
+public class ImageDecodeStage {
+
+    private final LinkedHashMap<Object, List<ImageReference>> pending = new LinkedHashMap<>();
+
+    /**
+     * Queues the reference's decode, images can be queued until {@link #start()} is called.
+     *
+     * @param imageReference reference to decode.
+     */
+    synchronized void add(ImageReference imageReference) {
+        pending.computeIfAbsent(getKey(imageReference), key -> new ArrayList<>(1)).add(imageReference);
+    }
+
+    /**
+     * Starts the queued decodes, references that aren't started decode when they are painted.
+     */
+    public synchronized void start() {
+        long budget = Runtime.getRuntime().maxMemory() / 4;
+        for (List<ImageReference> imageReferences : pending.values()) {
+            ImageReference first = imageReferences.get(0);
+            long size = (long) first.getWidth() * first.getHeight() * 4;
+            if (size > budget) {
+                continue;
+            }
+            budget -= size;
+            FutureTask<BufferedImage> futureTask = new FutureTask<>(imageReferences.size() == 1 ?
+                    first : new SharedDecode(imageReferences));
+            for (ImageReference imageReference : imageReferences) {
+                imageReference.futureTask = futureTask;
+            }
+            Library.executeImage(futureTask);
+        }
+        pending.clear();
+    }
+
+    /**
+     * References decode to the same image if they are the same type and size of reference to the same XObject,
+     * image masks also take the fill colour.  Inline images are never shared.
+     */
+    private static Object getKey(ImageReference imageReference) {
+        ImageStream imageStream = imageReference.getImageStream();
+        Reference reference = imageStream.getPObjectReference();
+        if (reference == null) {
+            return imageReference;
+        }
+        GraphicsState graphicsState = imageReference.graphicsState;
+        Color fill = graphicsState != null && imageStream.getImageParams().isImageMask() ?
+                graphicsState.getFillColor() : null;
+        return Arrays.asList(imageReference.getClass(), reference,
+                imageReference.getWidth(), imageReference.getHeight(), fill);
+    }
+
+    /**
+     * Decodes the image once for a group of references.  When the pool keeps the pixels off heap the references
+     * let go of the task, so the decoded heap copy isn't kept alive by references that get their view from the
+     * pool.
+     */
+    private static final class SharedDecode implements Callable<BufferedImage> {
+
+        private final List<ImageReference> imageReferences;
+
+        SharedDecode(List<ImageReference> imageReferences) {
+            this.imageReferences = imageReferences;
+        }
+
+        @Override
+        public BufferedImage call() throws Exception {
+            ImageReference first = imageReferences.get(0);
+            long start = System.nanoTime();
+            // sends the first reference's events.
+            BufferedImage image = first.call();
+            long duration = System.nanoTime() - start;
+            if (first instanceof CachedImageReference && ((CachedImageReference) first).poolSharedImage(image)) {
+                for (ImageReference imageReference : imageReferences) {
+                    imageReference.futureTask = null;
+                }
+            }
+            for (int i = 1, max = imageReferences.size(); i < max; i++) {
+                imageReferences.get(i).notifyImagePageEvents(duration, image == null);
+            }
+            return image;
+        }
+    }
+}
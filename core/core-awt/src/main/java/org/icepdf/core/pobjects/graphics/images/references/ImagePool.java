@@ -17,11 +17,14 @@ package org.icepdf.core.pobjects.graphics.images.references;
 
 import org.icepdf.core.pobjects.Reference;
 import org.icepdf.core.util.Defs;
+import org.icepdf.core.util.metrics.Metric;
+import org.icepdf.core.util.metrics.Metrics;
 
+import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.util.Collections;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.lang.ref.SoftReference;
+import java.util.*;
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
@@ -42,6 +45,15 @@ import java.util.logging.Logger;
  * The pool can also be disabled using the boolean system property
  * org.icepdf.core.views.imagePoolEnabled=false.  The default state is for the
  * ImagePool to be enabled.
+ * <br>
+ * Decoded regions of large images are kept separately, the most recently used
+ * org.icepdf.core.views.imagePool.regionCount regions are softly referenced,
+ * 16 by default.
+ * <br>
+ * Setting org.icepdf.core.views.imagePool.offHeap.size to a size in MB keeps
+ * the pixels of large images outside of the Java heap, see OffHeapImageStore.
+ * The size is shared by all open documents.  Images smaller than org.icepdf.core.views.imagePool.offHeap.minImageSize KB,
+ * 1024 by default, stay on the heap.
  *
  * @since 5.0
  */
@@ -52,12 +64,26 @@ public class ImagePool {
 
     // Image pool
     private final Map<Reference, BufferedImage> fCache;
+    // decoded regions of large images, most recently used first.
+    private final LinkedList<SoftReference<ImageRegion>> regionCache = new LinkedList<>();
+
+
+    // pixels of large images of all documents, null if images are kept on the heap.
+    private static final OffHeapImageStore offHeapStore;
+    // tells the pool's document apart in caches shared by all documents, references alone aren't unique.
+    final Object documentKey = new Object();
 
 
     private static boolean enabled;
+    private static int regionCount;
     static {
         // enable/disable the image pool all together.
         enabled = Defs.booleanProperty("org.icepdf.core.views.imagePoolEnabled", true);
+        regionCount = Defs.intProperty("org.icepdf.core.views.imagePool.regionCount", 16);
+        long offHeapSize = Defs.intProperty("org.icepdf.core.views.imagePool.offHeap.size", 0) * 1024L * 1024L;
+        long offHeapMinImageSize =
+                Defs.intProperty("org.icepdf.core.views.imagePool.offHeap.minImageSize", 1024) * 1024L;
+        offHeapStore = enabled && offHeapSize > 0 ? new OffHeapImageStore(offHeapSize, offHeapMinImageSize) : null;
     }
 
 
@@ -69,6 +95,10 @@ public class ImagePool {
         // create a new reference so we don't have a hard link to the page
         // which will likely keep a page from being GC'd.
         if (enabled) {
+            if (offHeapStore != null && (offHeapStore.containsKey(getOffHeapKey(ref)) ||
+                    offHeapStore.put(getOffHeapKey(ref), image))) {
+                return;
+            }
 //            synchronized (fCache) {
                 fCache.put(new Reference(ref.getObjectNumber(), ref.getGenerationNumber()), image);
 //            }
@@ -77,13 +107,136 @@ public class ImagePool {
 
     public BufferedImage get(Reference ref) {
         if (enabled) {
-                return fCache.get(ref);
+            BufferedImage image = fCache.get(ref);
+            if (image == null && offHeapStore != null) {
+                image = offHeapStore.get(getOffHeapKey(ref));
+            }
+            if (Metrics.ENABLED) Metrics.count(image != null ? Metric.IMAGE_CACHE_HIT : Metric.IMAGE_CACHE_MISS, null);
+            return image;
         } else {
             return null;
         }
     }
 
     public boolean containsKey(Reference ref) {
-        return enabled && fCache.containsKey(ref);
+        return enabled && (fCache.containsKey(ref) || isOffHeap(ref));
+    }
+
+    /**
+     * Checks if the image's pixels are kept outside of the heap.  Images returned by {@link #get(Reference)} are
+     * then views of the pooled pixels and holders of the decoded image should let it go and get a view when
+     * painting.
+     *
+     * @param ref image reference.
+     * @return true if the image is held off heap.
+     */
+    public boolean isOffHeap(Reference ref) {
+        return offHeapStore != null && offHeapStore.containsKey(getOffHeapKey(ref));
+    }
+
+    /**
+     * Releases the pooled images that are shared with other documents, called when the document is disposed.
+     */
+    public void dispose() {
+        if (offHeapStore != null) {
+            offHeapStore.remove(documentKey);
+        }
+        MipMappedImageReference.disposeLevels(documentKey);
+    }
+
+    private List<Object> getOffHeapKey(Reference ref) {
+        // a new reference so we don't have a hard link to the page.
+        return Arrays.asList(documentKey, new Reference(ref.getObjectNumber(), ref.getGenerationNumber()));
+    }
+
+    /**
+     * Gets a decoded region that covers the given region at the same or a finer resolution.
+     *
+     * @param ref         image reference.
+     * @param region      region needed in image space.
+     * @param subsampling subsampling needed.
+     * @return region covering the needed one, null if there isn't one.
+     */
+    public ImageRegion getRegion(Reference ref, Rectangle region, int subsampling) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (regionCache) {
+            for (Iterator<SoftReference<ImageRegion>> iterator = regionCache.iterator(); iterator.hasNext(); ) {
+                SoftReference<ImageRegion> softReference = iterator.next();
+                ImageRegion imageRegion = softReference.get();
+                if (imageRegion == null) {
+                    iterator.remove();
+                } else if (imageRegion.covers(ref, region, subsampling)) {
+                    iterator.remove();
+                    regionCache.addFirst(softReference);
+                    if (Metrics.ENABLED) Metrics.count(Metric.IMAGE_CACHE_HIT, null);
+                    return imageRegion;
+                }
+            }
+        }
+        if (Metrics.ENABLED) Metrics.count(Metric.IMAGE_CACHE_MISS, null);
+        return null;
+    }
+
+    /**
+     * Adds a decoded region of an image, the least recently used region is dropped once the pool holds
+     * org.icepdf.core.views.imagePool.regionCount regions.
+     *
+     * @param ref         image reference.
+     * @param region      decoded region in image space.
+     * @param subsampling subsampling the region was decoded with.
+     * @param image       decoded region.
+     * @return the pooled region.
+     */
+    public ImageRegion putRegion(Reference ref, Rectangle region, int subsampling, BufferedImage image) {
+        ImageRegion imageRegion = new ImageRegion(
+                new Reference(ref.getObjectNumber(), ref.getGenerationNumber()), region, subsampling, image);
+        if (enabled && regionCount > 0) {
+            synchronized (regionCache) {
+                regionCache.addFirst(new SoftReference<>(imageRegion));
+                while (regionCache.size() > regionCount) {
+                    regionCache.removeLast();
+                }
+            }
+        }
+        return imageRegion;
+    }
+
+    /**
+     * A decoded region of a large image.
+     */
+    public static class ImageRegion {
+
+        private final Reference reference;
+        private final Rectangle region;
+        private final int subsampling;
+        private final BufferedImage image;
+
+        ImageRegion(Reference reference, Rectangle region, int subsampling, BufferedImage image) {
+            this.reference = reference;
+            this.region = region;
+            this.subsampling = subsampling;
+            this.image = image;
+        }
+
+        boolean covers(Reference ref, Rectangle region, int subsampling) {
+            return this.subsampling <= subsampling && reference.equals(ref) && this.region.contains(region);
+        }
+
+        /**
+         * @return decoded region in image space.
+         */
+        public Rectangle getRegion() {
+            return region;
+        }
+
+        public int getSubsampling() {
+            return subsampling;
+        }
+
+        public BufferedImage getImage() {
+            return image;
+        }
     }
 }
@@ -22,9 +22,10 @@ import org.icepdf.core.pobjects.Page;
 import org.icepdf.core.pobjects.Reference;
 import org.icepdf.core.pobjects.Resources;
 import org.icepdf.core.pobjects.graphics.GraphicsState;
+import org.icepdf.core.pobjects.graphics.images.ImageResampler;
 import org.icepdf.core.pobjects.graphics.images.ImageStream;
-import org.icepdf.core.pobjects.graphics.images.ImageUtility;
 import org.icepdf.core.util.Defs;
+import org.icepdf.core.util.Library;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -53,7 +54,7 @@ public abstract class ImageReference implements Callable<BufferedImage> {
         useProxy = Defs.booleanProperty("org.icepdf.core.imageProxy", true);
     }
 
-    protected FutureTask<BufferedImage> futureTask;
+    protected volatile FutureTask<BufferedImage> futureTask;
 
     protected ImageStream imageStream;
     protected GraphicsState graphicsState;
@@ -73,6 +74,20 @@ public abstract class ImageReference implements Callable<BufferedImage> {
         this.parentPage = parentPage;
     }
 
+    /**
+     * Starts decoding the image on the image pool.  While the parent page's content is being parsed the decode is
+     * queued with the page's other images and started once the parse is done, see {@link ImageDecodeStage}.
+     */
+    protected void startDecode() {
+        ImageDecodeStage imageDecodeStage = parentPage != null ? parentPage.getImageDecodeStage() : null;
+        if (imageDecodeStage != null) {
+            imageDecodeStage.add(this);
+        } else {
+            futureTask = new FutureTask<>(this);
+            Library.executeImage(futureTask);
+        }
+    }
+
     public abstract int getWidth();
 
     public abstract int getHeight();
@@ -88,8 +103,7 @@ public abstract class ImageReference implements Callable<BufferedImage> {
                 logger.warning("There was a problem painting image, falling back to scaled instance " +
                         imageStream.getPObjectReference() +
                         "(" + imageStream.getImageParams().getWidth() + "x" + imageStream.getImageParams().getHeight() + ")");
-                int width = image.getWidth(null);
-                Image scaledImage;
+                int width = image.getWidth();
                 // do image scaling on larger images.  This improves the softness
                 // of some images that contains black and white text.
                 if (width > 1000 && width < 2000) {
@@ -97,16 +111,43 @@ public abstract class ImageReference implements Callable<BufferedImage> {
                 } else if (width > 2000) {
                     width = 2000;
                 }
-                scaledImage = image.getScaledInstance(width, -1, Image.SCALE_SMOOTH);
+                int height = (int) Math.max(1, Math.round((double) image.getHeight() * width / image.getWidth()));
+                BufferedImage scaledImage = ImageResampler.resample(image, width, height, ImageResampler.Filter.AREA);
                 image.flush();
                 // try drawing the scaled image one more time.
                 aG.drawImage(scaledImage, aX, aY, aW, aH, null);
                 // store the scaled image for future repaints.
-                this.image = ImageUtility.createBufferedImage(scaledImage);
+                this.image = scaledImage;
             }
         }
     }
 
+    /**
+     * Draws the part of the image inside the given region.  References that can decode a region of the image
+     * on its own override this to skip decoding the rest, by default the whole image is drawn.
+     *
+     * @param aG          graphics to paint to.
+     * @param aX          x coordinate of the image.
+     * @param aY          y coordinate of the image.
+     * @param aW          width of the image.
+     * @param aH          height of the image.
+     * @param region      visible region of the image in image space.
+     * @param subsampling image pixels per device pixel, rounded down.
+     * @throws InterruptedException interrupted has occurred.
+     */
+    public void drawImage(Graphics2D aG, int aX, int aY, int aW, int aH, Rectangle region, int subsampling)
+            throws InterruptedException {
+        drawImage(aG, aX, aY, aW, aH);
+    }
+
+    /**
+     * @return true if the image is drawn a region at a time, see
+     * {@link #drawImage(Graphics2D, int, int, int, int, Rectangle, int)}.
+     */
+    public boolean isRegionDecodable() {
+        return false;
+    }
+
     /**
      * Creates a scaled image to match that of the instance vars width/height.
      *
@@ -156,8 +197,19 @@ public abstract class ImageReference implements Callable<BufferedImage> {
     }
 
     protected void notifyImagePageEvents(long duration) {
+        notifyImagePageEvents(duration, image == null);
+    }
+
+    /**
+     * Sends the image events for a decode that may have been done by another reference, see
+     * {@link ImageDecodeStage}.
+     *
+     * @param duration    decode time in nanoseconds.
+     * @param interrupted true if no image was decoded.
+     */
+    protected void notifyImagePageEvents(long duration, boolean interrupted) {
         // sound out image loading event.
-        notifyPageImageLoadedEvent(duration, image == null);
+        notifyPageImageLoadedEvent(duration, interrupted);
         // check to see if we're done loading and all we were waiting on was
         // the completion of this image load.
         if (parentPage != null && imageIndex == parentPage.getImageCount() &&
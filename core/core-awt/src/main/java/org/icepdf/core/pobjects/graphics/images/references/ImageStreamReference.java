@@ -19,10 +19,11 @@ import org.icepdf.core.pobjects.Page;
 import org.icepdf.core.pobjects.Resources;
 import org.icepdf.core.pobjects.graphics.GraphicsState;
 import org.icepdf.core.pobjects.graphics.images.ImageStream;
-import org.icepdf.core.util.Library;
+import org.icepdf.core.util.Defs;
 
+import java.awt.*;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.util.concurrent.FutureTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -34,6 +35,12 @@ import java.util.logging.Logger;
  * method will block until the worker thread returns.  So generally put not
  * a true image proxy but we do get significantly faster load times with the
  * current implementation.
+ * <br>
+ * Images of at least org.icepdf.core.imageReference.region.minPixels pixels,
+ * 16 million by default, aren't decoded up front.  When only part of such an
+ * image is visible or it is painted well below its resolution just the
+ * visible region is decoded, subsampled to the paint resolution.  Region
+ * decoding can be turned off with org.icepdf.core.imageReference.region.enabled=false.
  *
  * @since 5.0
  */
@@ -42,21 +49,92 @@ public class ImageStreamReference extends CachedImageReference {
     private static final Logger logger =
             Logger.getLogger(ImageStreamReference.class.toString());
 
+    private static boolean regionDecoding;
+    private static long regionMinPixels;
+
+    static {
+        regionDecoding = Defs.booleanProperty("org.icepdf.core.imageReference.region.enabled", true);
+        regionMinPixels = Defs.intProperty("org.icepdf.core.imageReference.region.minPixels", 16000000);
+    }
+
+    private volatile boolean decodeRegions;
+
     protected ImageStreamReference(ImageStream imageStream, GraphicsState graphicsState,
                                    Resources resources, int imageIndex,
                                    Page page) {
         super(imageStream, graphicsState, resources, imageIndex, page);
 
-        // kick off a new thread to load the image, if not already in pool.
+        decodeRegions = regionDecoding && reference != null &&
+                (long) imageStream.getWidth() * imageStream.getHeight() >= regionMinPixels &&
+                imageStream.isRegionDecodable();
+        // kick off a new thread to load the image, if not already in pool, large images wait to be painted.
         ImagePool imagePool = imageStream.getLibrary().getImagePool();
+        if (decodeRegions) {
+            return;
+        }
         if (useProxy && imagePool.get(reference) == null) {
-            futureTask = new FutureTask<>(this);
-            Library.executeImage(futureTask);
+            startDecode();
         } else if (!useProxy && imagePool.get(reference) == null) {
             image = call();
         }
     }
 
+    @Override
+    public boolean isRegionDecodable() {
+        return decodeRegions && image == null;
+    }
+
+    @Override
+    public void drawImage(Graphics2D aG, int aX, int aY, int aW, int aH, Rectangle region, int subsampling)
+            throws InterruptedException {
+        if (region.isEmpty()) {
+            return;
+        }
+        int width = getWidth();
+        int height = getHeight();
+        ImagePool imagePool = imageStream.getLibrary().getImagePool();
+        // 1 bit images keep their resolution, dropping rows and columns loses thin strokes.
+        if (imageStream.getImageParams().getBitsPerComponent() == 1) {
+            subsampling = 1;
+        }
+        // regions over half the image at full resolution might as well decode and pool the whole image.
+        if (!isRegionDecodable() || imagePool.get(reference) != null ||
+                (subsampling == 1 && (long) region.width * region.height * 2 > (long) width * height)) {
+            drawImage(aG, aX, aY, aW, aH);
+            return;
+        }
+        // powers of two and some margin let small zoom and scroll changes reuse the region.
+        subsampling = Integer.highestOneBit(subsampling);
+        ImagePool.ImageRegion imageRegion = imagePool.getRegion(reference, region, subsampling);
+        if (imageRegion == null) {
+            Rectangle decodeRegion = new Rectangle(region);
+            decodeRegion.grow(region.width / 4, region.height / 4);
+            decodeRegion = decodeRegion.intersection(new Rectangle(0, 0, width, height));
+            BufferedImage regionImage = null;
+            try {
+                regionImage = imageStream.getImage(graphicsState, resources, decodeRegion, subsampling);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Throwable e) {
+                logger.log(Level.FINE, "Error decoding image region: " + imageStream.getPObjectReference(), e);
+            }
+            if (regionImage == null) {
+                // decode the whole image from now on.
+                decodeRegions = false;
+                drawImage(aG, aX, aY, aW, aH);
+                return;
+            }
+            imageRegion = imagePool.putRegion(reference, decodeRegion, subsampling, regionImage);
+        }
+        BufferedImage regionImage = imageRegion.getImage();
+        Rectangle decoded = imageRegion.getRegion();
+        AffineTransform regionTransform = new AffineTransform(
+                (double) decoded.width * aW / ((double) width * regionImage.getWidth()), 0, 0,
+                (double) decoded.height * aH / ((double) height * regionImage.getHeight()),
+                aX + (double) decoded.x * aW / width, aY + (double) decoded.y * aH / height);
+        aG.drawImage(regionImage, regionTransform, null);
+    }
+
     @Override
     public int getWidth() {
         return imageStream.getWidth();
@@ -16,113 +16,265 @@
 package org.icepdf.core.pobjects.graphics.images.references;
 
 import org.icepdf.core.pobjects.Page;
+import org.icepdf.core.pobjects.Reference;
 import org.icepdf.core.pobjects.Resources;
 import org.icepdf.core.pobjects.graphics.GraphicsState;
+import org.icepdf.core.pobjects.graphics.images.ImageResampler;
 import org.icepdf.core.pobjects.graphics.images.ImageStream;
+import org.icepdf.core.util.Defs;
 
 import java.awt.*;
-import java.awt.geom.Point2D;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * The MipMappedImageReference will create several scaled instance of the
- * specified image.  The images are all smaller then the original image and
- * are painted as the page zoom level is lowered. The main idea here is that small
- * images are painted at smaller zoom levels which in theory speeds up the image
- * paint time.
+ * The MipMappedImageReference paints an image from a pyramid of smaller
+ * instances, each level half the size of the one above it down to about 20px.
+ * The level painted is the smallest one that still covers the device pixels
+ * the image is painted to.  Levels are built when first painted from the
+ * nearest larger level already built by area averaging, and are kept in a
+ * cache shared by all pyramids of
+ * org.icepdf.core.imageReference.mipmap.cacheSize MB, 64 by default.
+ * <br>
+ * With org.icepdf.core.imageReference.mipmap.placeholders=true a level that
+ * is already built is painted in place of the one needed while the full
+ * image is still decoding, the page's paint listeners are notified once the
+ * decode is done so the page can be painted again.
  *
  * @since 5.0
  */
-class MipMappedImageReference extends ImageReference {
+class MipMappedImageReference extends CachedImageReference {
 
     private static final Logger logger =
             Logger.getLogger(MipMappedImageReference.class.toString());
 
-    private ArrayList<ImageReference> images;
+    // smallest level is the last one with both sides over this size.
+    private static final int MIN_LEVEL_SIZE = 20;
+
+    private static boolean placeholders;
+    private static final LevelCache levelCache;
+
+    static {
+        placeholders = Defs.booleanProperty("org.icepdf.core.imageReference.mipmap.placeholders", false);
+        levelCache = new LevelCache(
+                Defs.intProperty("org.icepdf.core.imageReference.mipmap.cacheSize", 64) * 1024L * 1024L);
+    }
+
+    private final Object pyramidKey;
+    private final int levelCount;
+    private volatile boolean placeholderPainted;
 
     protected MipMappedImageReference(ImageStream imageStream, GraphicsState graphicsState,
                                       Resources resources, int imageIndex,
                                       Page page) {
-
         super(imageStream, graphicsState, resources, imageIndex, page);
 
-        images = new ArrayList<>();
-
-        ImageReference imageReference =
-                new ImageStreamReference(imageStream, graphicsState, resources, imageIndex, page);
-        images.add(imageReference);
+        // image masks are painted in the fill colour so each colour gets its own levels.
+        if (reference != null) {
+            Color fill = graphicsState != null && imageStream.getImageParams().isImageMask() ?
+                    graphicsState.getFillColor() : null;
+            pyramidKey = Arrays.asList(imageStream.getLibrary().getImagePool().documentKey,
+                    new Reference(reference.getObjectNumber(), reference.getGenerationNumber()), fill);
+        } else {
+            pyramidKey = new Object();
+        }
+        int width = getWidth();
+        int height = getHeight();
+        int levels = 0;
+        while (width > MIN_LEVEL_SIZE && height > MIN_LEVEL_SIZE) {
+            width /= 2;
+            height /= 2;
+            levels++;
+        }
+        levelCount = levels;
 
-        int width = imageReference.getWidth();
-        int height = imageReference.getHeight();
-        // disable proxy as we need to scale each image from the previous
-        // and thus need to do the downscale in one shot.
-        useProxy = false;
-        try {
-            while (width > 20 && height > 20) {
-                width /= 2;
-                height /= 2;
-                imageReference = new ScaledImageReference(imageReference, graphicsState, resources,
-                        width, height, imageIndex, page);
-                images.add(imageReference);
-            }
-        } catch (InterruptedException e) {
-            logger.log(Level.FINER, "Error loading image: " + imageStream.getPObjectReference() +
-                    " " + imageStream.toString(), e);
+        // kick off a new thread to load the image, if not already in pool.
+        ImagePool imagePool = imageStream.getLibrary().getImagePool();
+        if (useProxy && imagePool.get(reference) == null) {
+            startDecode();
+        } else if (!useProxy && imagePool.get(reference) == null) {
+            image = call();
         }
     }
 
     public int getWidth() {
-        return images.get(0).getWidth();
+        return imageStream.getWidth();
     }
 
     public int getHeight() {
-        return images.get(0).getHeight();
+        return imageStream.getHeight();
     }
 
-    public BufferedImage getImage() throws InterruptedException {
-        return images.get(0).getImage();
+    public void drawImage(Graphics2D aG, int aX, int aY, int aW, int aH) throws InterruptedException {
+        int level = chooseLevel(aG, aW, aH);
+        BufferedImage levelImage = level > 0 ? levelCache.get(pyramidKey, level) : null;
+        if (levelImage == null && placeholders && isDecoding()) {
+            levelImage = levelCache.getNearest(pyramidKey, level, levelCount);
+            if (levelImage != null) {
+                placeholderPainted = true;
+            }
+        }
+        if (levelImage == null && level > 0) {
+            levelImage = createLevel(level);
+        }
+        if (levelImage != null) {
+            aG.drawImage(levelImage, aX, aY, aW, aH, null);
+        } else {
+            super.drawImage(aG, aX, aY, aW, aH);
+        }
     }
 
-    public void drawImage(Graphics2D aG, int aX, int aY, int aW, int aH) throws InterruptedException {
-        ImageReference imageReference = chooseImage(aG, aX, aY, aW, aH);
-        imageReference.drawImage(aG, aX, aY, aW, aH);
+    /**
+     * Picks the smallest level that is at least as large as the image is on the device, printers always get
+     * the full image.
+     */
+    private int chooseLevel(Graphics2D aG, int aW, int aH) {
+        GraphicsConfiguration configuration = aG.getDeviceConfiguration();
+        if (configuration != null && configuration.getDevice().getType() == GraphicsDevice.TYPE_PRINTER) {
+            return 0;
+        }
+        AffineTransform transform = aG.getTransform();
+        double deviceWidth = Math.hypot(transform.getScaleX(), transform.getShearY()) * aW;
+        double deviceHeight = Math.hypot(transform.getShearX(), transform.getScaleY()) * aH;
+        int width = getWidth();
+        int height = getHeight();
+        int level = 0;
+        while (level < levelCount &&
+                Math.max(1, width >> (level + 1)) >= deviceWidth &&
+                Math.max(1, height >> (level + 1)) >= deviceHeight) {
+            level++;
+        }
+        return level;
     }
 
-    private ImageReference chooseImage(Graphics2D aG, int aX, int aY, int aW, int aH) {
-        Point2D.Double in = new Point2D.Double(aX, aY);
-        Point2D.Double p1 = new Point2D.Double();
-        Point2D.Double p2 = new Point2D.Double();
-        aG.getTransform().transform(in, p1);
-        in.x = aW;
-        aG.getTransform().transform(in, p2);
-        int distSq1 = (int) Math.round(p1.distanceSq(p2));
-        in.x = aX;
-        in.y = aH;
-        aG.getTransform().transform(in, p2);
-        int distSq2 = (int) Math.round(p1.distanceSq(p2));
-        int maxDistSq = Math.max(distSq1, distSq2);
+    private boolean isDecoding() {
+        return image == null && futureTask != null && !futureTask.isDone() &&
+                imageStream.getLibrary().getImagePool().get(reference) == null;
+    }
 
-        int level = 0;
-        ImageReference image = images.get(level);
-        int width = image.getWidth();
-        int height = image.getHeight();
+    /**
+     * Builds a level from the nearest larger level that is cached, or the full image if there isn't one.
+     */
+    private BufferedImage createLevel(int level) throws InterruptedException {
+        BufferedImage source = null;
+        for (int i = level - 1; i > 0 && source == null; i--) {
+            source = levelCache.get(pyramidKey, i);
+        }
+        if (source == null) {
+            source = getImage();
+            if (source == null) {
+                return null;
+            }
+        }
+        BufferedImage levelImage;
+        try {
+            levelImage = ImageResampler.resample(source,
+                    Math.max(1, getWidth() >> level), Math.max(1, getHeight() >> level), ImageResampler.Filter.AREA);
+        } catch (Throwable e) {
+            logger.log(Level.FINE, "Error scaling image: " + imageStream.getPObjectReference(), e);
+            return null;
+        }
+        levelCache.put(pyramidKey, level, levelImage);
+        return levelImage;
+    }
 
-        while (level < (images.size() - 1) &&
-                (width * width / 4) > maxDistSq &&
-                (height * height / 4) > maxDistSq) {
-            image = images.get(level++);
-            width = image.getWidth();
-            height = image.getHeight();
+    public BufferedImage call() {
+        BufferedImage image = null;
+        long start = System.nanoTime();
+        try {
+            image = imageStream.getImage(graphicsState, resources);
+        } catch (Throwable e) {
+            logger.log(Level.WARNING, "Error loading image: " + imageStream.getPObjectReference() +
+                    " " + imageStream.toString(), e);
+        }
+        long end = System.nanoTime();
+        notifyImagePageEvents((end - start));
+        if (placeholderPainted && parentPage != null) {
+            placeholderPainted = false;
+            parentPage.notifyPaintPageListeners();
         }
         return image;
     }
 
-    // no need to implement as this class class calls ScaledImage and MipMapped
-    // as needed.
-    public BufferedImage call() {
-        return null;
+    /**
+     * Drops the cached levels of a document's images.
+     *
+     * @param documentKey key of the document's image pool.
+     */
+    static void disposeLevels(Object documentKey) {
+        levelCache.remove(documentKey);
+    }
+
+    /**
+     * Levels of all pyramids, least recently used levels are dropped once their pixels go over the budget.
+     */
+    private static class LevelCache {
+
+        private final long maxSize;
+        private long size;
+        private final LinkedHashMap<List<Object>, BufferedImage> levels =
+                new LinkedHashMap<>(16, 0.75f, true);
+
+        LevelCache(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        synchronized BufferedImage get(Object pyramidKey, int level) {
+            return levels.get(Arrays.asList(pyramidKey, level));
+        }
+
+        /**
+         * Gets the cached level closest in size to the given level, larger levels first.
+         */
+        synchronized BufferedImage getNearest(Object pyramidKey, int level, int levelCount) {
+            for (int distance = 0; distance <= levelCount; distance++) {
+                BufferedImage levelImage = level - distance > 0 ? get(pyramidKey, level - distance) : null;
+                if (levelImage == null && level + distance <= levelCount) {
+                    levelImage = get(pyramidKey, level + distance);
+                }
+                if (levelImage != null) {
+                    return levelImage;
+                }
+            }
+            return null;
+        }
+
+        synchronized void put(Object pyramidKey, int level, BufferedImage levelImage) {
+            long levelSize = (long) levelImage.getWidth() * levelImage.getHeight() * 4;
+            if (levelSize > maxSize) {
+                return;
+            }
+            BufferedImage previous = levels.put(Arrays.asList(pyramidKey, level), levelImage);
+            if (previous != null) {
+                size -= (long) previous.getWidth() * previous.getHeight() * 4;
+            }
+            size += levelSize;
+            Iterator<Map.Entry<List<Object>, BufferedImage>> iterator = levels.entrySet().iterator();
+            while (size > maxSize && iterator.hasNext()) {
+                BufferedImage eldest = iterator.next().getValue();
+                size -= (long) eldest.getWidth() * eldest.getHeight() * 4;
+                iterator.remove();
+            }
+        }
+
+        synchronized void remove(Object documentKey) {
+            Iterator<Map.Entry<List<Object>, BufferedImage>> iterator = levels.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<List<Object>, BufferedImage> entry = iterator.next();
+                Object pyramidKey = entry.getKey().get(0);
+                if (pyramidKey instanceof List && ((List<?>) pyramidKey).get(0) == documentKey) {
+                    BufferedImage levelImage = entry.getValue();
+                    size -= (long) levelImage.getWidth() * levelImage.getHeight() * 4;
+                    iterator.remove();
+                }
+            }
+        }
     }
 }
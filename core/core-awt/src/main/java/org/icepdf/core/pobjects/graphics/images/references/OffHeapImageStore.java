@@ -0,0 +1,224 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.graphics.images.references;
+
+import java.awt.image.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the pixels of decoded images in direct buffers outside of the Java heap, so large scanned images don't
+ * end up in the old generation.  Images are handed out as views, a BufferedImage backed by the direct buffer,
+ * that only need to be held on to while painting.  The store has a byte budget and drops the least recently used
+ * images once it is exceeded, the memory of a dropped image is released when its buffer is garbage collected.
+ * One store is shared by all documents so the budget holds for the whole process, images are keyed by their
+ * document's key followed by the image reference.
+ * <br>
+ * Only single bank byte, ushort and int rasters are stored.  Painting a view goes through Java2D's generic
+ * raster loops and is slower than painting a heap image, the store is meant for servers where GC pauses
+ * matter more than paint time.
+ *
+ * @since 7.0
+ */
+final class OffHeapImageStore {
+
+    private final long maxSize;
+    private final long minImageSize;
+    private final LinkedHashMap<List<?>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    /**
+     * @param maxSize      byte budget for all stored images.
+     * @param minImageSize smallest image in bytes worth storing, smaller images stay on the heap.
+     */
+    OffHeapImageStore(long maxSize, long minImageSize) {
+        this.maxSize = maxSize;
+        this.minImageSize = minImageSize;
+    }
+
+    /**
+     * Copies the image's pixels into the store.
+     *
+     * @param key   document key and image reference.
+     * @param image decoded image.
+     * @return true if the image was stored, false if it isn't supported or doesn't fit the budget.
+     */
+    boolean put(List<?> key, BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        DataBuffer dataBuffer = raster.getDataBuffer();
+        if (!(dataBuffer instanceof DataBufferByte || dataBuffer instanceof DataBufferUShort ||
+                dataBuffer instanceof DataBufferInt) || dataBuffer.getNumBanks() != 1 ||
+                raster.getParent() != null || raster.getMinX() != 0 || raster.getMinY() != 0) {
+            return false;
+        }
+        int length = dataBuffer.getSize();
+        long bytes = (long) length * DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8;
+        if (bytes < minImageSize || bytes > maxSize || bytes > Integer.MAX_VALUE) {
+            return false;
+        }
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+        } catch (OutOfMemoryError e) {
+            // direct memory limit reached, keep the image on the heap.
+            return false;
+        }
+        if (dataBuffer instanceof DataBufferByte) {
+            buffer.put(((DataBufferByte) dataBuffer).getData(), dataBuffer.getOffset(), length);
+        } else if (dataBuffer instanceof DataBufferUShort) {
+            buffer.asShortBuffer().put(((DataBufferUShort) dataBuffer).getData(), dataBuffer.getOffset(), length);
+        } else {
+            buffer.asIntBuffer().put(((DataBufferInt) dataBuffer).getData(), dataBuffer.getOffset(), length);
+        }
+        buffer.clear();
+        Entry entry = new Entry(buffer, dataBuffer.getDataType(), length, image.getColorModel(),
+                raster.getSampleModel(), image.isAlphaPremultiplied());
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                size -= previous.buffer.capacity();
+            }
+            size += bytes;
+            // drop the least recently used images until we're back under budget.
+            for (Iterator<Map.Entry<List<?>, Entry>> iterator = entries.entrySet().iterator();
+                 size > maxSize && iterator.hasNext(); ) {
+                Map.Entry<List<?>, Entry> eldest = iterator.next();
+                if (eldest.getValue() != entry) {
+                    size -= eldest.getValue().buffer.capacity();
+                    iterator.remove();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets a view of a stored image.
+     *
+     * @param key document key and image reference.
+     * @return image backed by the stored pixels, null if the image isn't in the store.
+     */
+    BufferedImage get(List<?> key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        return entry != null ? entry.createView() : null;
+    }
+
+    boolean containsKey(List<?> key) {
+        synchronized (entries) {
+            return entries.containsKey(key);
+        }
+    }
+
+    /**
+     * Drops all the images of a document.
+     *
+     * @param documentKey key the document's images were stored with.
+     */
+    void remove(Object documentKey) {
+        synchronized (entries) {
+            for (Iterator<Map.Entry<List<?>, Entry>> iterator = entries.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<List<?>, Entry> entry = iterator.next();
+                if (entry.getKey().get(0) == documentKey) {
+                    size -= entry.getValue().buffer.capacity();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return bytes held by the store.
+     */
+    long getSize() {
+        synchronized (entries) {
+            return size;
+        }
+    }
+
+    private static final class Entry {
+
+        private final ByteBuffer buffer;
+        private final int dataType;
+        private final int length;
+        private final ColorModel colorModel;
+        private final SampleModel sampleModel;
+        private final boolean alphaPremultiplied;
+
+        Entry(ByteBuffer buffer, int dataType, int length, ColorModel colorModel, SampleModel sampleModel,
+              boolean alphaPremultiplied) {
+            this.buffer = buffer;
+            this.dataType = dataType;
+            this.length = length;
+            this.colorModel = colorModel;
+            this.sampleModel = sampleModel;
+            this.alphaPremultiplied = alphaPremultiplied;
+        }
+
+        BufferedImage createView() {
+            WritableRaster raster = Raster.createWritableRaster(sampleModel,
+                    new DirectDataBuffer(buffer, dataType, length), null);
+            return new BufferedImage(colorModel, raster, alphaPremultiplied, null);
+        }
+    }
+
+    /**
+     * DataBuffer reading and writing a direct buffer, the buffer is shared by every view of the image.
+     */
+    private static final class DirectDataBuffer extends DataBuffer {
+
+        private final ByteBuffer bytes;
+        private final ShortBuffer shorts;
+        private final IntBuffer ints;
+
+        DirectDataBuffer(ByteBuffer buffer, int dataType, int size) {
+            super(dataType, size);
+            bytes = dataType == TYPE_BYTE ? buffer.duplicate() : null;
+            shorts = dataType == TYPE_USHORT ? buffer.duplicate().order(buffer.order()).asShortBuffer() : null;
+            ints = dataType == TYPE_INT ? buffer.duplicate().order(buffer.order()).asIntBuffer() : null;
+        }
+
+        @Override
+        public int getElem(int bank, int i) {
+            if (ints != null) {
+                return ints.get(i);
+            } else if (shorts != null) {
+                return shorts.get(i) & 0xffff;
+            } else {
+                return bytes.get(i) & 0xff;
+            }
+        }
+
+        @Override
+        public void setElem(int bank, int i, int val) {
+            if (ints != null) {
+                ints.put(i, val);
+            } else if (shorts != null) {
+                shorts.put(i, (short) val);
+            } else {
+                bytes.put(i, (byte) val);
+            }
+        }
+    }
+}
@@ -18,13 +18,10 @@ package org.icepdf.core.pobjects.graphics.images.references;
 import org.icepdf.core.pobjects.Page;
 import org.icepdf.core.pobjects.Resources;
 import org.icepdf.core.pobjects.graphics.GraphicsState;
+import org.icepdf.core.pobjects.graphics.images.ImageResampler;
 import org.icepdf.core.pobjects.graphics.images.ImageStream;
-import org.icepdf.core.pobjects.graphics.images.ImageUtility;
-import org.icepdf.core.util.Library;
 
-import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.util.concurrent.FutureTask;
 import java.util.logging.Logger;
 
 /**
@@ -54,8 +51,7 @@ public class ScaledImageReference extends CachedImageReference {
         // kick off a new thread to load the image, if not already in pool.
         ImagePool imagePool = imageStream.getLibrary().getImagePool();
         if (useProxy && imagePool.get(reference) == null) {
-            futureTask = new FutureTask<>(this);
-            Library.executeImage(futureTask);
+            startDecode();
         } else if (!useProxy && imagePool.get(reference) == null) {
             image = call();
         }
@@ -76,8 +72,7 @@ public class ScaledImageReference extends CachedImageReference {
         // kick off a new thread to load the image, if not already in pool.
         ImagePool imagePool = imageStream.getLibrary().getImagePool();
         if (useProxy && imagePool.get(reference) == null) {
-            futureTask = new FutureTask<>(this);
-            Library.executeImage(futureTask);
+            startDecode();
         } else if (!useProxy && imagePool.get(reference) == null) {
             image = call();
         }
@@ -95,37 +90,29 @@ public class ScaledImageReference extends CachedImageReference {
         BufferedImage image = null;
         long start = System.nanoTime();
         try {
-            // get the stream image if need, otherwise scale what you have.
-            image = imageStream.getImage(graphicsState, resources);
-
-            if (image != null) {
-                // get eh original image width.
-                int width = imageStream.getWidth();
-                int height = imageStream.getHeight();
-
-                // apply scaling factor
-                double scaleFactor = 1.0;
-                if (width > 1000 && width < 1500) {
-                    scaleFactor = 0.75;
-                } else if (width > 1500) {
-                    scaleFactor = 0.5;
-                }
-                // update image size for any scaling.
-                if (scaleFactor < 1.0) {
-                    width = (int) Math.ceil(width * scaleFactor);
-                    height = (int) Math.ceil(height * scaleFactor);
-
-                    BufferedImage scaled;
-                    if (ImageUtility.hasAlpha(image)) {
-                        scaled = ImageUtility.createTranslucentCompatibleImage(width, height);
-                    } else {
-                        scaled = ImageUtility.createCompatibleImage(width, height);
-                    }
-                    Graphics2D g = scaled.createGraphics();
-                    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-                    g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-                    g.drawImage(image, 0, 0, width, height, null);
-                    g.dispose();
+            // get eh original image width.
+            int width = imageStream.getWidth();
+            int height = imageStream.getHeight();
+
+            // apply scaling factor
+            double scaleFactor = 1.0;
+            if (width > 1000 && width < 1500) {
+                scaleFactor = 0.75;
+            } else if (width > 1500) {
+                scaleFactor = 0.5;
+            }
+            if (scaleFactor < 1.0) {
+                width = (int) Math.ceil(width * scaleFactor);
+                height = (int) Math.ceil(height * scaleFactor);
+                // scale the rows as they are decoded if the decoder can, the full size image is never built.
+                image = imageStream.getScaledImage(graphicsState, resources, width, height,
+                        ImageResampler.Filter.AREA);
+            }
+            if (image == null) {
+                // get the stream image if need, otherwise scale what you have.
+                image = imageStream.getImage(graphicsState, resources);
+                if (image != null && scaleFactor < 1.0) {
+                    BufferedImage scaled = ImageResampler.resample(image, width, height, ImageResampler.Filter.AREA);
                     image.flush();
                     image = scaled;
                 }
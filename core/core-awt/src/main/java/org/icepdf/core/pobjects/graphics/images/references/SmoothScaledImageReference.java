@@ -19,23 +19,18 @@ import org.icepdf.core.pobjects.Page;
 import org.icepdf.core.pobjects.Resources;
 import org.icepdf.core.pobjects.graphics.DeviceGray;
 import org.icepdf.core.pobjects.graphics.GraphicsState;
+import org.icepdf.core.pobjects.graphics.images.ImageResampler;
 import org.icepdf.core.pobjects.graphics.images.ImageStream;
-import org.icepdf.core.pobjects.graphics.images.ImageUtility;
 import org.icepdf.core.util.Defs;
-import org.icepdf.core.util.Library;
 
-import java.awt.*;
-import java.awt.geom.AffineTransform;
-import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
-import java.util.concurrent.FutureTask;
 import java.util.logging.Logger;
 
 /**
- * The SmoothScaledImageReference scales large images using the
- * bufferedImage.getScaledInstance() method for colour imges and the
- * a custom trilinear scale for black and white images.  The scaled instance
- * uses a minimum of memory and can improve clarity of some CCITTFax images.
+ * The SmoothScaledImageReference scales large images using a Lanczos
+ * filter for colour images and area averaging for black and white images,
+ * see ImageResampler.  The scaled instance uses a minimum of memory and can
+ * improve clarity of some CCITTFax images.
  *
  * @since 5.0
  */
@@ -77,8 +72,7 @@ public class SmoothScaledImageReference extends CachedImageReference {
         // kick off a new thread to load the image, if not already in pool.
         ImagePool imagePool = imageStream.getLibrary().getImagePool();
         if (useProxy && imagePool.get(reference) == null) {
-            futureTask = new FutureTask<>(this);
-            Library.executeImage(futureTask);
+            startDecode();
         } else if (!useProxy && imagePool.get(reference) == null) {
             image = call();
         }
@@ -112,7 +106,7 @@ public class SmoothScaledImageReference extends CachedImageReference {
                 // of some images that contains black and white text.
                 double imageScale = 1.0;
 
-                // for device gray colour spaces use the trilinear scaling method
+                // for device gray colour spaces use area averaging
                 // to basically blur the image so it more easily read and less jagged.
                 if (imageStream.getColourSpace() != null &&
                         imageStream.getColourSpace() instanceof DeviceGray) {
@@ -125,12 +119,12 @@ public class SmoothScaledImageReference extends CachedImageReference {
                         imageScale = 0.99;
                     }
                     if (imageScale != 1.0) {
-                        image = (BufferedImage) getTrilinearScaledInstance(image,
+                        image = ImageResampler.resample(image,
                                 (int) Math.ceil(width * imageScale),
-                                (int) Math.ceil(height * imageScale));
+                                (int) Math.ceil(height * imageScale), ImageResampler.Filter.AREA);
                     }
                 }
-                // normal rgb scale as before, as the trilinear scale causes excessive blurring.
+                // normal rgb scale with the sharper lanczos filter, area averaging causes excessive blurring.
                 else {
                     if ((width >= 250 || height >= 250) && (width < 500 || height < 500)) {
                         imageScale = 0.90;
@@ -148,10 +142,9 @@ public class SmoothScaledImageReference extends CachedImageReference {
                         imageScale = 0.30;
                     }
                     if (imageScale != 1.0) {
-                        AffineTransform tx = new AffineTransform();
-                        tx.scale(imageScale, imageScale);
-                        AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BICUBIC);
-                        BufferedImage sbim = op.filter(image, null);
+                        BufferedImage sbim = ImageResampler.resample(image,
+                                (int) Math.ceil(width * imageScale),
+                                (int) Math.ceil(height * imageScale), ImageResampler.Filter.LANCZOS);
                         image.flush();
                         image = sbim;
                     }
@@ -165,105 +158,4 @@ public class SmoothScaledImageReference extends CachedImageReference {
         notifyImagePageEvents((end - start));
         return image;
     }
-
-    /**
-     * Applies an iterative scaling method to provide a smooth end result, once complete
-     * apply a trilinear blend based on the desired width and height.   Technique
-     * derived from Jim Graham example code.
-     *
-     * @param img          image to scale
-     * @param targetWidth  target width
-     * @param targetHeight target height
-     * @return scaled instance.
-     */
-    private static Image getTrilinearScaledInstance(BufferedImage img,
-                                                    int targetWidth,
-                                                    int targetHeight) {
-        // Use multi-step technique: start with original size, then
-        // scale down in multiple passes with drawImage()
-        // until the target size is reached
-        int iw = img.getWidth();
-        int ih = img.getHeight();
-
-        Object hint = RenderingHints.VALUE_INTERPOLATION_BILINEAR;
-        int type = (img.getTransparency() == Transparency.OPAQUE) ?
-                BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
-
-        // First get down to no more than 2x in W & H
-        while (iw > targetWidth * 2 || ih > targetHeight * 2) {
-            iw = (iw > targetWidth * 2) ? iw / 2 : iw;
-            ih = (ih > targetHeight * 2) ? ih / 2 : ih;
-            img = scaleImage(img, type, hint, iw, ih);
-        }
-
-        // If still too wide - do a horizontal trilinear blend
-        // of img and a half-width img
-        if (iw > targetWidth) {
-            int iw2 = iw / 2;
-            BufferedImage img2 = scaleImage(img, type, hint, iw2, ih);
-            if (iw2 < targetWidth) {
-                img = scaleImage(img, type, hint, targetWidth, ih);
-                img2 = scaleImage(img2, type, hint, targetWidth, ih);
-                interpolate(img2, img, iw - targetWidth, targetWidth - iw2);
-            }
-            img = img2;
-            iw = targetWidth;
-        }
-        // iw should now be targetWidth or smaller
-
-        // If still too tall - do a vertical trilinear blend
-        // of img and a half-height img
-        if (ih > targetHeight) {
-            int ih2 = ih / 2;
-            BufferedImage img2 = scaleImage(img, type, hint, iw, ih2);
-            if (ih2 < targetHeight) {
-                img = scaleImage(img, type, hint, iw, targetHeight);
-                img2 = scaleImage(img2, type, hint, iw, targetHeight);
-                interpolate(img2, img, ih - targetHeight, targetHeight - ih2);
-            }
-            img = img2;
-            ih = targetHeight;
-        }
-        // ih should now be targetHeight or smaller
-
-        // If we are too small, then it was probably because one of
-        // the dimensions was too small from the start.
-        if (iw < targetWidth && ih < targetHeight) {
-            img = scaleImage(img, type, hint, targetWidth, targetHeight);
-        }
-
-        return img;
-    }
-
-    /**
-     * Utility to interpolate the two imges.
-     */
-    private static void interpolate(BufferedImage img1,
-                                    BufferedImage img2,
-                                    int weight1,
-                                    int weight2) {
-        float alpha = weight1;
-        alpha /= (weight1 + weight2);
-        Graphics2D g2 = img1.createGraphics();
-        g2.setComposite(
-                AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
-        g2.drawImage(img2, 0, 0, null);
-        g2.dispose();
-    }
-
-    /**
-     * Utility to apply image scaling using the g2.drawImage() method.
-     */
-    private static BufferedImage scaleImage(BufferedImage orig,
-                                            int type,
-                                            Object hint,
-                                            int w, int h) {
-        BufferedImage tmp = ImageUtility.createTranslucentCompatibleImage(w, h);
-        Graphics2D g2 = tmp.createGraphics();
-        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, hint);
-        g2.drawImage(orig, 0, 0, w, h, null);
-        g2.dispose();
-        return tmp;
-    }
-
 }
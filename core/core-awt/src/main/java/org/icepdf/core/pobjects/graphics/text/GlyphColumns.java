@@ -0,0 +1,516 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.graphics.text;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact columnar store for a page's glyphs.  Glyph positions, bounds and text are kept in parallel primitive
+ * arrays and words and lines are recorded as offsets into them, so a dense page costs a few dozen bytes per
+ * glyph instead of a GlyphText with its strings and rectangles plus the word and line lists.
+ * <br>
+ * Glyphs are split into words and lines as they are added using the same white space, punctuation and spacing
+ * heuristics the LineText and WordText hierarchy has always used.  {@link #createWord(int)} and
+ * {@link #createLines(WordText[])} build that hierarchy on demand, a word at a time for sorted text and whole
+ * lines for the selection and search apis.
+ *
+ * @since 7.0
+ */
+final class GlyphColumns {
+
+    private static final int INITIAL_CAPACITY = 256;
+    // cap on the number of space glyphs inserted for a single gap.
+    private static final int MAX_SPACES = 50;
+
+    private static final String SPACE = String.valueOf((char) 32);
+
+    private int glyphCount;
+    // paint origin of each glyph
+    private float[] x, y;
+    // glyph bounds normalized to page space
+    private float[] boundsX, boundsY, boundsWidth, boundsHeight;
+    // bounds used for line and word break detection, see AbstractText.getTextExtractionBounds()
+    private float[] extractX, extractY, extractWidth, extractHeight;
+    // each glyph's cid followed by its unicode value, packed into chars.
+    private int[] cidOffset, unicodeOffset;
+    private char[] chars;
+    private int charCount;
+
+    // first glyph of each word and the word's white space flag.
+    private int wordCount;
+    private int[] wordStart;
+    private boolean[] wordWhiteSpace;
+
+    // first word of each line.
+    private int lineCount;
+    private int[] lineStart;
+
+    // true if glyphs are being appended to the last word.
+    private boolean hasCurrentWord;
+    // set after copying lines so the next glyph starts a line of its own.
+    private boolean lineBreakPending;
+
+    GlyphColumns() {
+        x = new float[INITIAL_CAPACITY];
+        y = new float[INITIAL_CAPACITY];
+        boundsX = new float[INITIAL_CAPACITY];
+        boundsY = new float[INITIAL_CAPACITY];
+        boundsWidth = new float[INITIAL_CAPACITY];
+        boundsHeight = new float[INITIAL_CAPACITY];
+        extractX = new float[INITIAL_CAPACITY];
+        extractY = new float[INITIAL_CAPACITY];
+        extractWidth = new float[INITIAL_CAPACITY];
+        extractHeight = new float[INITIAL_CAPACITY];
+        cidOffset = new int[INITIAL_CAPACITY];
+        unicodeOffset = new int[INITIAL_CAPACITY];
+        chars = new char[INITIAL_CAPACITY * 2];
+        wordStart = new int[INITIAL_CAPACITY / 4];
+        wordWhiteSpace = new boolean[INITIAL_CAPACITY / 4];
+        lineStart = new int[16];
+    }
+
+    int getGlyphCount() {
+        return glyphCount;
+    }
+
+    int getWordCount() {
+        return wordCount;
+    }
+
+    int getLineCount() {
+        return lineCount;
+    }
+
+    int getWordStart(int word) {
+        return wordStart[word];
+    }
+
+    int getWordEnd(int word) {
+        return word + 1 < wordCount ? wordStart[word + 1] : glyphCount;
+    }
+
+    boolean isWhiteSpace(int word) {
+        return wordWhiteSpace[word];
+    }
+
+    int getLineStart(int line) {
+        return lineStart[line];
+    }
+
+    int getLineEnd(int line) {
+        return line + 1 < lineCount ? lineStart[line + 1] : wordCount;
+    }
+
+    float getBoundsX(int glyph) {
+        return boundsX[glyph];
+    }
+
+    float getBoundsY(int glyph) {
+        return boundsY[glyph];
+    }
+
+    float getBoundsWidth(int glyph) {
+        return boundsWidth[glyph];
+    }
+
+    float getBoundsHeight(int glyph) {
+        return boundsHeight[glyph];
+    }
+
+    float getExtractX(int glyph) {
+        return extractX[glyph];
+    }
+
+    float getExtractY(int glyph) {
+        return extractY[glyph];
+    }
+
+    float getExtractWidth(int glyph) {
+        return extractWidth[glyph];
+    }
+
+    float getExtractHeight(int glyph) {
+        return extractHeight[glyph];
+    }
+
+    /**
+     * Appends the glyph's unicode value to the given builder.
+     */
+    void appendUnicode(int glyph, StringBuilder text) {
+        int end = glyph + 1 < glyphCount ? cidOffset[glyph + 1] : charCount;
+        text.append(chars, unicodeOffset[glyph], end - unicodeOffset[glyph]);
+    }
+
+    /**
+     * Appends the text of the given word to the builder.
+     */
+    void appendWord(int word, StringBuilder text) {
+        int start = wordStart[word];
+        int end = getWordEnd(word);
+        for (int glyph = start; glyph < end; glyph++) {
+            appendUnicode(glyph, text);
+        }
+    }
+
+    /**
+     * Checks if the given word holds nothing but white space, such as the space words inserted between glyphs.
+     */
+    boolean isBlank(int word) {
+        int start = wordStart[word];
+        int end = getWordEnd(word);
+        for (int glyph = start; glyph < end; glyph++) {
+            int unicodeEnd = glyph + 1 < glyphCount ? cidOffset[glyph + 1] : charCount;
+            for (int i = unicodeOffset[glyph]; i < unicodeEnd; i++) {
+                if (!WordText.isWhiteSpace(chars[i])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Starts a new line, unless the current line has no words yet.
+     */
+    void newLine() {
+        if (lineCount > 0 && lineStart[lineCount - 1] == wordCount) {
+            return;
+        }
+        addLine();
+    }
+
+    private void addLine() {
+        if (lineCount == lineStart.length) {
+            lineStart = Arrays.copyOf(lineStart, lineCount * 2);
+        }
+        lineStart[lineCount++] = wordCount;
+        hasCurrentWord = false;
+        lineBreakPending = false;
+    }
+
+    /**
+     * Makes sure the next glyph starts a new word.
+     */
+    void clearCurrentWord() {
+        hasCurrentWord = false;
+    }
+
+    boolean hasLine() {
+        return lineCount > 0;
+    }
+
+    /**
+     * Adds a glyph to the current line, inserting white space words and word breaks as needed.
+     *
+     * @param glyph glyph that has been normalized to page space.
+     */
+    void addGlyph(GlyphText glyph) {
+        addGlyph(glyph.getX(), glyph.getY(), glyph.getBounds(), glyph.getTextExtractionBounds(),
+                glyph.getCid(), glyph.getUnicode());
+    }
+
+    private void addGlyph(float glyphX, float glyphY, Rectangle2D.Float bounds, Rectangle2D.Float extractBounds,
+                          String cid, String unicode) {
+        if (lineCount == 0 || lineBreakPending) {
+            addLine();
+        }
+        int c = unicode != null && unicode.length() > 0 ? unicode.charAt(0) : -1;
+        // white space and punctuation are added as their own word, keeping decimals as one word
+        if (c != -1 && (WordText.isWhiteSpace(c) || (WordText.isPunctuation(c) && !isPreviousDigit()))) {
+            addWord(true);
+            append(glyphX, glyphY, bounds, extractBounds, cid, unicode);
+            hasCurrentWord = false;
+        }
+        // shift in y, sorting later will add the line break
+        else if (hasCurrentWord && detectNewLine(extractBounds)) {
+            addSpaceWord(extractBounds, false);
+            addWord(true);
+            append(glyphX, glyphY, bounds, extractBounds, cid, unicode);
+            hasCurrentWord = true;
+        }
+        // gap between the new glyph and the last glyph
+        else if (hasCurrentWord && detectSpace(extractBounds)) {
+            addSpaceWord(extractBounds, WordText.autoSpaceInsertion);
+            hasCurrentWord = false;
+            // add the glyph again to register it
+            addGlyph(glyphX, glyphY, bounds, extractBounds, cid, unicode);
+        }
+        // business as usual
+        else {
+            if (!hasCurrentWord) {
+                addWord(false);
+                hasCurrentWord = true;
+            }
+            append(glyphX, glyphY, bounds, extractBounds, cid, unicode);
+        }
+    }
+
+    /**
+     * Appends the given lines, with their glyph bounds as they are, as new lines.  Used to add the text of
+     * form xObjects to their parent, glyphs added afterwards start a new line.
+     *
+     * @param lines lines to copy.
+     */
+    void addLines(List<LineText> lines) {
+        for (LineText line : lines) {
+            addLine();
+            for (WordText word : line.getWords()) {
+                addWord(word.isWhiteSpace());
+                for (GlyphText glyph : word.getGlyphs()) {
+                    append(glyph.getX(), glyph.getY(), glyph.getBounds(), glyph.getTextExtractionBounds(),
+                            glyph.getCid(), glyph.getUnicode());
+                }
+            }
+        }
+        hasCurrentWord = false;
+        lineBreakPending = !lines.isEmpty();
+    }
+
+    /**
+     * Maps all the glyph bounds with the given transform, the transformed bounds are also used as the
+     * extraction bounds.
+     *
+     * @param transform transform to apply.
+     */
+    void transform(AffineTransform transform) {
+        double[] corners = new double[8];
+        for (int i = 0; i < glyphCount; i++) {
+            double x1 = boundsX[i], y1 = boundsY[i];
+            double x2 = x1 + boundsWidth[i], y2 = y1 + boundsHeight[i];
+            corners[0] = x1;
+            corners[1] = y1;
+            corners[2] = x2;
+            corners[3] = y1;
+            corners[4] = x2;
+            corners[5] = y2;
+            corners[6] = x1;
+            corners[7] = y2;
+            transform.transform(corners, 0, corners, 0, 4);
+            float minX = (float) corners[0], maxX = minX, minY = (float) corners[1], maxY = minY;
+            for (int j = 2; j < 8; j += 2) {
+                float cx = (float) corners[j], cy = (float) corners[j + 1];
+                minX = Math.min(minX, cx);
+                maxX = Math.max(maxX, cx);
+                minY = Math.min(minY, cy);
+                maxY = Math.max(maxY, cy);
+            }
+            extractX[i] = boundsX[i] = minX;
+            extractY[i] = boundsY[i] = minY;
+            extractWidth[i] = boundsWidth[i] = maxX - minX;
+            extractHeight[i] = boundsHeight[i] = maxY - minY;
+        }
+    }
+
+    /**
+     * Creates the WordText view of a word and its glyphs.
+     *
+     * @param word word index.
+     * @return new word view.
+     */
+    WordText createWord(int word) {
+        WordText wordText = new WordText();
+        wordText.setWhiteSpace(wordWhiteSpace[word]);
+        for (int glyph = wordStart[word], end = getWordEnd(word); glyph < end; glyph++) {
+            wordText.addText(createGlyph(glyph));
+        }
+        return wordText;
+    }
+
+    /**
+     * Creates the lines of the store, reusing any word views that have already been created.
+     *
+     * @param words word views in storage order, the missing ones are created and stored.
+     * @return line views in storage order.
+     */
+    ArrayList<LineText> createLines(WordText[] words) {
+        for (int word = 0; word < wordCount; word++) {
+            if (words[word] == null) {
+                words[word] = createWord(word);
+            }
+        }
+        ArrayList<LineText> lines = new ArrayList<>(Math.max(lineCount, 16));
+        List<WordText> wordList = Arrays.asList(words);
+        for (int line = 0; line < lineCount; line++) {
+            LineText lineText = new LineText();
+            lineText.addAll(wordList.subList(lineStart[line], getLineEnd(line)));
+            lines.add(lineText);
+        }
+        return lines;
+    }
+
+    private GlyphText createGlyph(int glyph) {
+        int unicodeEnd = glyph + 1 < glyphCount ? cidOffset[glyph + 1] : charCount;
+        String cid = new String(chars, cidOffset[glyph], unicodeOffset[glyph] - cidOffset[glyph]);
+        String unicode = new String(chars, unicodeOffset[glyph], unicodeEnd - unicodeOffset[glyph]);
+        Rectangle2D.Float bounds = new Rectangle2D.Float(
+                boundsX[glyph], boundsY[glyph], boundsWidth[glyph], boundsHeight[glyph]);
+        Rectangle2D.Float extractBounds;
+        if (extractX[glyph] == boundsX[glyph] && extractY[glyph] == boundsY[glyph] &&
+                extractWidth[glyph] == boundsWidth[glyph] && extractHeight[glyph] == boundsHeight[glyph]) {
+            // 99% of the time the extraction bounds are just the bounds.
+            extractBounds = bounds;
+        } else {
+            extractBounds = new Rectangle2D.Float(
+                    extractX[glyph], extractY[glyph], extractWidth[glyph], extractHeight[glyph]);
+        }
+        return new GlyphText(x[glyph], y[glyph], bounds, extractBounds, cid, unicode);
+    }
+
+    private boolean isPreviousDigit() {
+        if (!hasCurrentWord) {
+            return false;
+        }
+        int glyph = glyphCount - 1;
+        int end = glyph + 1 < glyphCount ? cidOffset[glyph + 1] : charCount;
+        return unicodeOffset[glyph] < end && WordText.isDigit(chars[unicodeOffset[glyph]]);
+    }
+
+    private boolean detectNewLine(Rectangle2D.Float bounds) {
+        if (!WordText.autoSpaceInsertion) {
+            return false;
+        }
+        int last = glyphCount - 1;
+        // checking the y coordinate as well as any shift normally means a new word.
+        float tolerance = extractHeight[last] / WordText.spaceFraction;
+        return Math.abs(bounds.y - extractY[last]) > tolerance;
+    }
+
+    private boolean detectSpace(Rectangle2D.Float bounds) {
+        if (!WordText.autoSpaceInsertion) {
+            return false;
+        }
+        int last = glyphCount - 1;
+        // spaces can be negative if we have a RTL layout.
+        float space = Math.abs(bounds.x - (extractX[last] + extractWidth[last]));
+        float tolerance = extractWidth[last] / WordText.spaceFraction;
+        float ydiff = Math.abs(bounds.y - extractY[last]);
+        return space > tolerance || ydiff > tolerance;
+    }
+
+    /**
+     * Adds a white space word filling the gap between the last glyph and the next glyph.
+     */
+    private void addSpaceWord(Rectangle2D.Float next, boolean autoSpaceInsertion) {
+        int last = glyphCount - 1;
+        float lastX = extractX[last], lastY = extractY[last];
+        float lastWidth = extractWidth[last], lastHeight = extractHeight[last];
+        float space = next.x - (lastX + lastWidth);
+        // max width of previous and next glyph, average can be broken by l or i etc.
+        float maxWidth = Math.max(lastWidth, next.width) / 2f;
+        int spaces = (int) (space / maxWidth);
+        if (spaces == 0) {
+            spaces = 1;
+        }
+        float spaceWidth = space / spaces;
+        double offset;
+        boolean ltr = true;
+        Rectangle2D.Float spaceBounds;
+        if (spaces > 0) {
+            offset = lastX + lastWidth;
+            spaceBounds = new Rectangle2D.Float(lastX + lastWidth, lastY, spaceWidth, lastHeight);
+        }
+        // RTL layout
+        else {
+            ltr = false;
+            offset = lastX - lastWidth;
+            spaces = 1;
+            spaceBounds = new Rectangle2D.Float(getCurrentWordX() - spaceWidth, lastY, spaceWidth, lastHeight);
+        }
+        float glyphY = y[last];
+        addWord(true);
+        // Max out the spaces in the case the spaces value scale factor was not correct.
+        int count = autoSpaceInsertion ? Math.min(spaces, MAX_SPACES) : 1;
+        for (int i = 0; i < count; i++) {
+            append((float) offset, glyphY, spaceBounds, spaceBounds, SPACE, SPACE);
+            if (ltr) {
+                spaceBounds.x += spaceBounds.width;
+                offset += spaceWidth;
+            } else {
+                spaceBounds.x -= spaceBounds.width;
+                offset -= spaceWidth;
+            }
+        }
+    }
+
+    // left edge of the current word's page space bounds.
+    private float getCurrentWordX() {
+        float minX = Float.MAX_VALUE;
+        for (int glyph = wordStart[wordCount - 1]; glyph < glyphCount; glyph++) {
+            minX = Math.min(minX, boundsX[glyph]);
+        }
+        return minX;
+    }
+
+    private void addWord(boolean whiteSpace) {
+        if (wordCount == wordStart.length) {
+            wordStart = Arrays.copyOf(wordStart, wordCount * 2);
+            wordWhiteSpace = Arrays.copyOf(wordWhiteSpace, wordCount * 2);
+        }
+        wordStart[wordCount] = glyphCount;
+        wordWhiteSpace[wordCount] = whiteSpace;
+        wordCount++;
+    }
+
+    private void append(float glyphX, float glyphY, Rectangle2D.Float bounds, Rectangle2D.Float extractBounds,
+                        String cid, String unicode) {
+        if (glyphCount == x.length) {
+            int capacity = glyphCount * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            boundsX = Arrays.copyOf(boundsX, capacity);
+            boundsY = Arrays.copyOf(boundsY, capacity);
+            boundsWidth = Arrays.copyOf(boundsWidth, capacity);
+            boundsHeight = Arrays.copyOf(boundsHeight, capacity);
+            extractX = Arrays.copyOf(extractX, capacity);
+            extractY = Arrays.copyOf(extractY, capacity);
+            extractWidth = Arrays.copyOf(extractWidth, capacity);
+            extractHeight = Arrays.copyOf(extractHeight, capacity);
+            cidOffset = Arrays.copyOf(cidOffset, capacity);
+            unicodeOffset = Arrays.copyOf(unicodeOffset, capacity);
+        }
+        int i = glyphCount++;
+        x[i] = glyphX;
+        y[i] = glyphY;
+        boundsX[i] = bounds.x;
+        boundsY[i] = bounds.y;
+        boundsWidth[i] = bounds.width;
+        boundsHeight[i] = bounds.height;
+        extractX[i] = extractBounds.x;
+        extractY[i] = extractBounds.y;
+        extractWidth[i] = extractBounds.width;
+        extractHeight[i] = extractBounds.height;
+        cidOffset[i] = charCount;
+        appendChars(cid);
+        unicodeOffset[i] = charCount;
+        appendChars(unicode);
+    }
+
+    private void appendChars(String value) {
+        if (value == null) {
+            return;
+        }
+        int length = value.length();
+        if (charCount + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + length));
+        }
+        value.getChars(0, length, chars, charCount);
+        charCount += length;
+    }
+}
@@ -52,6 +52,16 @@ public class GlyphText extends AbstractText {
         this.unicode = unicode;
     }
 
+    GlyphText(float x, float y, Rectangle2D.Float bounds, Rectangle2D.Float textExtractionBounds,
+              String cid, String unicode) {
+        this.x = x;
+        this.y = y;
+        this.bounds = bounds;
+        this.textExtractionBounds = textExtractionBounds;
+        this.cid = cid;
+        this.unicode = unicode;
+    }
+
     /**
      * Maps the glyph bounds to user space
      *
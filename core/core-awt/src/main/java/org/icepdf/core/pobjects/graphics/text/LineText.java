@@ -27,8 +27,6 @@ import java.util.List;
  */
 public class LineText extends AbstractText implements TextSelect {
 
-    private WordText currentWord;
-
     private List<WordText> words;
 
     public LineText() {
@@ -55,84 +53,6 @@ public class LineText extends AbstractText implements TextSelect {
         return bounds;
     }
 
-    /**
-     * Add the sprite to the current word in this line/sentence.  This method
-     * also candles white space detection and word division.
-     *
-     * @param sprite sprite to add to line.
-     */
-    protected void addText(GlyphText sprite) {
-
-        // look for white space characters and insert whitespace word
-        if (WordText.detectWhiteSpace(sprite) ||
-                WordText.detectPunctuation(sprite, currentWord)) {
-            // add as a new word, nothing special otherwise
-            WordText newWord = new WordText();
-            newWord.setWhiteSpace(true);
-            newWord.addText(sprite);
-            addWord(newWord);
-            // ready new word
-            currentWord = null;
-        }
-        // we just a a new work sorting later will add the line breaks
-        else if (getCurrentWord().detectNewLine(sprite)) {
-            // add the break
-            WordText spaceWord = currentWord.buildSpaceWord(sprite, false);
-            spaceWord.setWhiteSpace(true);
-            // add space word,
-            addWord(spaceWord);
-            // ready a new word
-            currentWord = null;
-            // add as a new word, nothing special otherwise
-            WordText newWord = new WordText();
-            newWord.setWhiteSpace(true);
-            newWord.addText(sprite);
-            addWord(newWord);
-        }
-        // detect if there should be any spaces between the new sprite
-        // and the last sprite.
-        else if (getCurrentWord().detectSpace(sprite)) {
-            // build space word.
-            WordText spaceWord = currentWord.buildSpaceWord(sprite, WordText.autoSpaceInsertion);
-            spaceWord.setWhiteSpace(true);
-            // add space word,
-            addWord(spaceWord);
-            // ready a new word
-            currentWord = null;
-            // add the text again to register the glyph
-            addText(sprite);
-        }
-        // business as usual
-        else {
-            getCurrentWord().addText(sprite);
-        }
-    }
-
-    public void clearCurrentWord(){
-        // make sure we don't insert a new line if the previous has no words.
-        if (currentWord != null &&
-                currentWord.size() == 0) {
-            return;
-        }
-        currentWord = null;
-    }
-
-    /**
-     * Adds the specified word to the end of the line collection and makes
-     * the new word the currentWord reference.
-     *
-     * @param wordText word to add
-     */
-    private void addWord(WordText wordText) {
-
-        // add the word, text or white space.
-        this.words.add(wordText);
-
-        // word test 
-        currentWord = wordText;
-
-    }
-
     public void addAll(List<WordText> words) {
         this.words.addAll(words);
     }
@@ -141,19 +61,6 @@ public class LineText extends AbstractText implements TextSelect {
         this.words = words;
     }
 
-    /**
-     * Gets the current word, if there is none, one is created.
-     *
-     * @return current word instance.
-     */
-    private WordText getCurrentWord() {
-        if (currentWord == null) {
-            currentWord = new WordText();
-            words.add(currentWord);
-        }
-        return currentWord;
-    }
-
     /**
      * Gets the words that make up this line.
      *
@@ -18,7 +18,6 @@ package org.icepdf.core.pobjects.graphics.text;
 import org.icepdf.core.pobjects.OptionalContents;
 import org.icepdf.core.util.Defs;
 
-import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Rectangle2D;
@@ -58,9 +57,11 @@ public class PageText implements TextSelect {
                 "org.icepdf.core.views.page.text.preserveColumns", true);
     }
 
-    // pointer to current line during document parse, no other use.
-    private LineText currentLine;
+    // glyphs, words and lines in content stream order.
+    private GlyphColumns glyphs;
 
+    // LineText/WordText/GlyphText views of the glyphs, only created when first needed.
+    private WordText[] words;
     private ArrayList<LineText> pageLines;
     private ArrayList<LineText> sortedPageLines;
 
@@ -70,7 +71,7 @@ public class PageText implements TextSelect {
     private LinkedHashMap<OptionalContents, PageText> optionalPageLines;
 
     public PageText() {
-        pageLines = new ArrayList<>(64);
+        glyphs = new GlyphColumns();
     }
 
     public void newLine(LinkedList<OptionalContents> oCGs) {
@@ -92,20 +93,41 @@ public class PageText implements TextSelect {
     }
 
     public void newLine() {
-        // make sure we don't insert a new line if the previous has no words. 
-        if (currentLine != null &&
-                currentLine.getWords().size() == 0) {
-            return;
-        }
-        currentLine = new LineText();
-        pageLines.add(currentLine);
+        glyphs.newLine();
+        clearViews();
     }
 
     protected void addGlyph(GlyphText sprite) {
-        if (currentLine == null) {
-            newLine();
+        glyphs.addGlyph(sprite);
+        clearViews();
+    }
+
+    /**
+     * Gets the page's lines in content stream order, creating the LineText hierarchy from the glyph columns
+     * if it hasn't been created yet.
+     */
+    private ArrayList<LineText> getRawPageLines() {
+        if (pageLines == null) {
+            pageLines = glyphs.createLines(getWords());
+        }
+        return pageLines;
+    }
+
+    /**
+     * Gets the word views in storage order, views are created as they are needed so the array may be sparse.
+     */
+    private WordText[] getWords() {
+        if (words == null) {
+            words = new WordText[glyphs.getWordCount()];
         }
-        currentLine.addText(sprite);
+        return words;
+    }
+
+    // drops the LineText views after the glyph data has changed.
+    private void clearViews() {
+        words = null;
+        pageLines = null;
+        sortedPageLines = null;
     }
 
     /**
@@ -138,7 +160,7 @@ public class PageText implements TextSelect {
      * @return list of all visible lineText.
      */
     private ArrayList<LineText> getVisiblePageLines(boolean skip) {
-        ArrayList<LineText> visiblePageLines = skip ? new ArrayList<>() : new ArrayList<>(pageLines);
+        ArrayList<LineText> visiblePageLines = skip ? new ArrayList<>() : new ArrayList<>(getRawPageLines());
         // add optional content text that is visible.
         // check optional content.
         if (optionalPageLines != null) {
@@ -161,7 +183,7 @@ public class PageText implements TextSelect {
     }
 
     private ArrayList<LineText> getAllPageLines() {
-        ArrayList<LineText> visiblePageLines = new ArrayList<>(pageLines);
+        ArrayList<LineText> visiblePageLines = new ArrayList<>(getRawPageLines());
         // add optional content text that is visible.
         // check optional content.
         if (optionalPageLines != null) {
@@ -191,20 +213,21 @@ public class PageText implements TextSelect {
      */
     public void addPageLines(ArrayList<LineText> pageLines) {
         if (pageLines != null) {
-            this.pageLines.addAll(pageLines);
+            glyphs.addLines(pageLines);
+            clearViews();
         }
     }
 
     public void setTextTransform(AffineTransform affineTransform) {
         // look to see if we have shear and thus text that has been rotated, if so we insert a page break
-        if (previousTextTransform != null && currentLine != null) {
+        if (previousTextTransform != null && glyphs.hasLine()) {
             // hard round as we're just looking for a 90 degree shift in writing direction.
             // if found we clear the current work so we can start a new word.
             if ((previousTextTransform.getShearX() < 0 && (int) affineTransform.getShearX() > 0) ||
                     (previousTextTransform.getShearX() > 0 && (int) affineTransform.getShearX() < 0) ||
                     (previousTextTransform.getShearY() < 0 && (int) affineTransform.getShearY() > 0) ||
                     (previousTextTransform.getShearY() > 0 && (int) affineTransform.getShearY() < 0)) {
-                currentLine.clearCurrentWord();
+                glyphs.clearCurrentWord();
             }
         }
         previousTextTransform = affineTransform;
@@ -260,15 +283,8 @@ public class PageText implements TextSelect {
      * Utility to apply specified transform to all glyphs in the pageLine array
      */
     private void applyTextTransform(AffineTransform transform) {
-        for (LineText lineText : pageLines) {
-            lineText.clearBounds();
-            for (WordText wordText : lineText.getWords()) {
-                wordText.clearBounds();
-                for (GlyphText glyph : wordText.getGlyphs()) {
-                    glyph.normalizeToUserSpace(transform, null);
-                }
-            }
-        }
+        glyphs.transform(transform);
+        clearViews();
     }
 
     public void clearSelected() {
@@ -301,11 +317,15 @@ public class PageText implements TextSelect {
     }
 
     public void clearHighlighted() {
-        for (LineText lineText : pageLines) {
-            lineText.clearHighlighted();
+        if (pageLines != null) {
+            for (LineText lineText : pageLines) {
+                lineText.clearHighlighted();
+            }
         }
-        for (LineText lineText : sortedPageLines) {
-            lineText.clearHighlighted();
+        if (sortedPageLines != null) {
+            for (LineText lineText : sortedPageLines) {
+                lineText.clearHighlighted();
+            }
         }
         // check optional content.
         if (optionalPageLines != null) {
@@ -376,17 +396,21 @@ public class PageText implements TextSelect {
     }
 
     public void deselectAll() {
-        for (LineText lineText : pageLines) {
-            lineText.clearSelected();
+        if (pageLines != null) {
+            for (LineText lineText : pageLines) {
+                lineText.clearSelected();
+            }
         }
     }
 
+    /**
+     * Gets the text of the page's lines in content stream order, read straight from the glyph columns.
+     */
     public String toString() {
-        StringBuilder extractedText = new StringBuilder();
-        for (LineText lineText : pageLines) {
-
-            for (WordText wordText : lineText.getWords()) {
-                extractedText.append(wordText.getText());
+        StringBuilder extractedText = new StringBuilder(glyphs.getGlyphCount() + glyphs.getLineCount());
+        for (int line = 0, lineCount = glyphs.getLineCount(); line < lineCount; line++) {
+            for (int word = glyphs.getLineStart(line), end = glyphs.getLineEnd(line); word < end; word++) {
+                glyphs.appendWord(word, extractedText);
             }
             extractedText.append('\n');
         }
@@ -401,7 +425,7 @@ public class PageText implements TextSelect {
      * @return current object of the same wordText value.
      */
     public WordText find(WordText word) {
-        for (LineText lineText : pageLines) {
+        for (LineText lineText : getRawPageLines()) {
             for (WordText wordText : lineText.getWords()) {
                 if (word.equals(wordText)) return wordText;
             }
@@ -425,99 +449,20 @@ public class PageText implements TextSelect {
     }
 
     /**
-     * Sorts the given pageLines vertically (y coordinate) in page space. .
-     *
-     * @param pageLines page lines to sort, not directly sorted, new array is created for sorted data.
-     * @return new array of sorted pages lines
-     */
-    private ArrayList<LineText> sortLinesVertically(ArrayList<LineText> pageLines) {
-        ArrayList<LineText> sortedPageLines = new ArrayList<>(64);
-        // move over all
-        for (LineText pageLine : pageLines) {
-            // all page words will be on one line
-            java.util.List<WordText> words = pageLine.getWords();
-            if (words != null && words.size() > 0) {
-                // break the words into lines on every change of y
-                double lastY = Math.round(words.get(0).getTextExtractionBounds().y);
-                int start = 0, end = 0;
-                double currentY, diff;
-                for (WordText word : words) {
-                    currentY = Math.round(word.getTextExtractionBounds().getY());
-                    // little bit of tolerance for detecting a line,  basically anything that is
-                    // >  then half the current word height / 2 will be marked as a break.
-                    // this works well enough sub and super script and inconsistencies
-                    // on table base text.
-                    diff = Math.abs(currentY - lastY);
-                    if (diff != 0 && diff > word.getTextExtractionBounds().getHeight() / 2) {
-                        LineText lineText = new LineText();
-                        lineText.addAll(words.subList(start, end));
-                        sortedPageLines.add(lineText);
-                        start = end;
-                    }
-                    end++;
-                    lastY = currentY;
-                }
-                if (start < end) {
-                    LineText lineText = new LineText();
-                    lineText.addAll(words.subList(start, end));
-                    sortedPageLines.add(lineText);
-                }
-            }
-        }
-        return sortedPageLines;
-    }
-
-    /**
-     * Insert optional content into the main LineText array, basically we are trying to consolidate all the
-     * visible text in the document.
-     *
-     * @param sortedPageLines List of LineText to add visible optional content to.
-     */
-    private void insertOptionalLines(ArrayList<LineText> sortedPageLines) {
-        ArrayList<LineText> optionalPageLines = getVisiblePageLines(true);
-        if (optionalPageLines != null) {
-            for (LineText optionalPageLine : optionalPageLines) {
-                float yOptional = optionalPageLine.getBounds().y;
-                boolean found = false;
-                for (LineText sortedPageLine : sortedPageLines) {
-                    Rectangle sortedBounds = sortedPageLine.getBounds().getBounds();
-                    float height = sortedBounds.height;
-                    float y = sortedBounds.y;
-                    float diff = Math.abs(yOptional - y);
-                    // corner case inclusion of a word and a space which is out of order from the
-                    // rest of the text in the document.
-                    if (diff < height) {
-                        sortedPageLine.addAll(optionalPageLine.getWords());
-                        found = true;
-                        break;
-                    }
-                }
-                if (!found) {
-                    sortedPageLines.add(optionalPageLine);
-                }
-            }
-        }
-    }
-
-    /**
-     * Takes the raw page lines represented as one continuous line and sorts the
-     * text by the y access of the word bounds.  The words are then sliced into
-     * separate lines base on y changes.  And finally each newly sorted line is
-     * sorted once more by each words x coordinate.
+     * Works out the reading order of the page's words, including any visible optional content, from their
+     * positions on the page.  The words are grouped into lines and columns by the {@link TextLayoutAnalyzer}
+     * and each line is ordered by the words x coordinate.  Columns are read one after the other unless
+     * org.icepdf.core.views.page.text.preserveColumns is set to false, in which case each line runs across
+     * the full width of the page.
      */
     public void sortAndFormatText() {
-        ArrayList<LineText> visiblePageLines = new ArrayList<>(pageLines);
-        // create new array for storing the sorted lines
-        ArrayList<LineText> sortedPageLines = sortLinesVertically(visiblePageLines);
-        // try and insert the option words on existing lines
-        if (sortedPageLines.size() == 0) {
-            sortedPageLines = getVisiblePageLines(true);
-        } else {
-            insertOptionalLines(sortedPageLines);
+        // words are created from the glyph columns as the sorted lines need them, the raw lines aren't built.
+        TextLayoutAnalyzer layoutAnalyzer = new TextLayoutAnalyzer(preserveColumns);
+        layoutAnalyzer.addWords(glyphs, getWords());
+        for (LineText lineText : getVisiblePageLines(true)) {
+            layoutAnalyzer.addWords(lineText.getWords());
         }
-
-        // sort again
-        sortedPageLines = sortLinesVertically(sortedPageLines);
+        ArrayList<LineText> sortedPageLines = layoutAnalyzer.layout();
 
         // do a rough check for duplicate strings that are sometimes generated
         // by Chrystal Reports.  Enable with
@@ -540,13 +485,6 @@ public class PageText implements TextSelect {
             }
         }
 
-        // sort each line by x coordinate.
-        if (sortedPageLines.size() > 0) {
-            for (LineText lineText : sortedPageLines) {
-                lineText.getWords().sort(new WordPositionComparator());
-            }
-        }
-
         // recalculate the line bounds.
         if (sortedPageLines.size() > 0) {
             for (LineText lineText : sortedPageLines) {
@@ -554,11 +492,6 @@ public class PageText implements TextSelect {
             }
         }
 
-        // sort the lines
-        if (sortedPageLines.size() > 0 && !preserveColumns) {
-            sortedPageLines.sort(new LinePositionComparator());
-        }
-
         // Round out the word bounds
         for (LineText lineText : sortedPageLines) {
             List<WordText> words = lineText.getWords();
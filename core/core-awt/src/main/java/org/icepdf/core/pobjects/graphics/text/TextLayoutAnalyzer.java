@@ -0,0 +1,415 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.graphics.text;
+
+import org.icepdf.core.util.Defs;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rebuilds the lines, columns and reading order of a page's words from their positions.
+ * <br>
+ * The page is split with a recursive xy-cut.  A region is cut at a vertical gutter that runs its full height
+ * when the text on both sides is wide enough to be a column, otherwise at its widest horizontal gap.  Each cut
+ * is found by sorting the word extents along one axis and sweeping for gaps, and a region that can't be cut
+ * any further is swept top to bottom to group its words into lines.  Narrow regions such as table cells are
+ * never treated as columns, so a table row is read as one line.
+ * <br>
+ * Tolerances are multiples of the page's median word height and can be changed with these system properties:
+ * <ul>
+ * <li>org.icepdf.core.views.page.text.lineOverlap - part of the smaller word height two words must overlap
+ * vertically to be on the same line, default 0.5.</li>
+ * <li>org.icepdf.core.views.page.text.columnGap - smallest gutter between two columns, default 1.5.</li>
+ * <li>org.icepdf.core.views.page.text.columnWidth - smallest width of a column, default 8.</li>
+ * <li>org.icepdf.core.views.page.text.blockGap - smallest gap between two blocks of text, default 1.</li>
+ * </ul>
+ *
+ * @since 7.0
+ */
+final class TextLayoutAnalyzer {
+
+    private static final float LINE_OVERLAP;
+    private static final float COLUMN_GAP;
+    private static final float COLUMN_WIDTH;
+    private static final float BLOCK_GAP;
+
+    static {
+        LINE_OVERLAP = Defs.floatProperty("org.icepdf.core.views.page.text.lineOverlap", 0.5f);
+        COLUMN_GAP = Defs.floatProperty("org.icepdf.core.views.page.text.columnGap", 1.5f);
+        COLUMN_WIDTH = Defs.floatProperty("org.icepdf.core.views.page.text.columnWidth", 8f);
+        BLOCK_GAP = Defs.floatProperty("org.icepdf.core.views.page.text.blockGap", 1f);
+    }
+
+    // regions aren't cut any deeper, what is left is simply grouped into lines.
+    private static final int MAX_DEPTH = 64;
+    // words taller than this many median heights, drop caps and the like, don't set a line's position.
+    private static final float TALL_WORD = 2f;
+
+    private final float lineOverlap;
+    private final float columnGap;
+    private final float columnWidth;
+    private final float blockGap;
+    private final boolean detectColumns;
+
+    // word extents in page space, the y axis points up.
+    private int count;
+    private float[] left, bottom, right, top;
+    // words that only hold white space don't take part in finding cuts.
+    private boolean[] blank;
+    // white space words that bridge a column gutter, they are left out of the lines.
+    private boolean[] dropped;
+    private float[] center;
+    private WordText[] words;
+    // glyph column word of each word added from the columns, -1 for the others.
+    private int[] glyphWords;
+    private GlyphColumns glyphs;
+    private WordText[] glyphWordTexts;
+
+    // median word height, the unit of all the tolerances.
+    private float unit;
+
+    /**
+     * Creates an analyzer using the tolerances set by the system properties.
+     *
+     * @param detectColumns true to read columns one after the other, false to read each line across the
+     *                      full width of the page.
+     */
+    TextLayoutAnalyzer(boolean detectColumns) {
+        this(LINE_OVERLAP, COLUMN_GAP, COLUMN_WIDTH, BLOCK_GAP, detectColumns);
+    }
+
+    TextLayoutAnalyzer(float lineOverlap, float columnGap, float columnWidth, float blockGap,
+                       boolean detectColumns) {
+        this.lineOverlap = lineOverlap;
+        this.columnGap = columnGap;
+        this.columnWidth = columnWidth;
+        this.blockGap = blockGap;
+        this.detectColumns = detectColumns;
+        left = new float[64];
+        bottom = new float[64];
+        right = new float[64];
+        top = new float[64];
+        blank = new boolean[64];
+        words = new WordText[64];
+        glyphWords = new int[64];
+    }
+
+    /**
+     * Adds the words of the glyph columns, extents are read from the columns and word views are only created
+     * for the words that end up in a line.
+     *
+     * @param glyphs    glyph store.
+     * @param wordTexts word views in storage order, missing views are created with
+     *                  {@link GlyphColumns#createWord(int)} and stored.
+     */
+    void addWords(GlyphColumns glyphs, WordText[] wordTexts) {
+        this.glyphs = glyphs;
+        glyphWordTexts = wordTexts;
+        for (int word = 0, wordCount = glyphs.getWordCount(); word < wordCount; word++) {
+            int start = glyphs.getWordStart(word);
+            int end = glyphs.getWordEnd(word);
+            if (start == end) {
+                continue;
+            }
+            float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+            float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+            for (int glyph = start; glyph < end; glyph++) {
+                float x = glyphs.getExtractX(glyph), y = glyphs.getExtractY(glyph);
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x + glyphs.getExtractWidth(glyph));
+                maxY = Math.max(maxY, y + glyphs.getExtractHeight(glyph));
+            }
+            add(null, word, minX, minY, maxX, maxY, glyphs.isBlank(word));
+        }
+    }
+
+    /**
+     * Adds words that aren't part of the glyph columns, such as optional content.
+     *
+     * @param wordTexts words to add.
+     */
+    void addWords(List<WordText> wordTexts) {
+        for (WordText wordText : wordTexts) {
+            wordText.getBounds();
+            Rectangle2D.Float bounds = wordText.getTextExtractionBounds();
+            if (bounds == null) {
+                continue;
+            }
+            String text = wordText.getText();
+            boolean isBlank = true;
+            for (int i = 0, max = text.length(); i < max && isBlank; i++) {
+                isBlank = WordText.isWhiteSpace(text.charAt(i));
+            }
+            add(wordText, -1, bounds.x, bounds.y, bounds.x + bounds.width, bounds.y + bounds.height, isBlank);
+        }
+    }
+
+    /**
+     * Groups the words into lines in reading order.  Each line's words are sorted by their x coordinate.
+     *
+     * @return new lines holding the added words.
+     */
+    ArrayList<LineText> layout() {
+        ArrayList<LineText> lines = new ArrayList<>(64);
+        if (count == 0) {
+            return lines;
+        }
+        unit = medianHeight();
+        dropped = new boolean[count];
+        center = new float[count];
+        int[] items = new int[count];
+        for (int i = 0; i < count; i++) {
+            items[i] = i;
+            center[i] = (top[i] + bottom[i]) / 2;
+        }
+        cut(items, 0, count, 0, lines);
+        return lines;
+    }
+
+    private void add(WordText wordText, int glyphWord, float minX, float minY, float maxX, float maxY,
+                     boolean isBlank) {
+        if (count == left.length) {
+            int capacity = count * 2;
+            left = Arrays.copyOf(left, capacity);
+            bottom = Arrays.copyOf(bottom, capacity);
+            right = Arrays.copyOf(right, capacity);
+            top = Arrays.copyOf(top, capacity);
+            blank = Arrays.copyOf(blank, capacity);
+            words = Arrays.copyOf(words, capacity);
+            glyphWords = Arrays.copyOf(glyphWords, capacity);
+        }
+        left[count] = minX;
+        bottom[count] = minY;
+        right[count] = maxX;
+        top[count] = maxY;
+        blank[count] = isBlank;
+        words[count] = wordText;
+        glyphWords[count] = glyphWord;
+        count++;
+    }
+
+    private WordText getWord(int item) {
+        int word = glyphWords[item];
+        if (word < 0) {
+            return words[item];
+        }
+        if (glyphWordTexts[word] == null) {
+            glyphWordTexts[word] = glyphs.createWord(word);
+        }
+        return glyphWordTexts[word];
+    }
+
+    private float medianHeight() {
+        float[] heights = new float[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            float height = top[i] - bottom[i];
+            if (!blank[i] && height > 0) {
+                heights[size++] = height;
+            }
+        }
+        if (size == 0) {
+            return 1;
+        }
+        Arrays.sort(heights, 0, size);
+        return heights[size / 2];
+    }
+
+    /**
+     * Splits items[from, to) at the best vertical or horizontal gap and recurses on both sides, or groups the
+     * range into lines when there is no gap to cut at.
+     */
+    private void cut(int[] items, int from, int to, int depth, ArrayList<LineText> lines) {
+        if (to - from > 1 && depth < MAX_DEPTH) {
+            int split = detectColumns ? findColumnCut(items, from, to) : -1;
+            if (split < 0) {
+                split = findBlockCut(items, from, to);
+            }
+            if (split > from && split < to) {
+                cut(items, from, split, depth + 1, lines);
+                cut(items, split, to, depth + 1, lines);
+                return;
+            }
+        }
+        addLines(items, from, to, lines);
+    }
+
+    /**
+     * Looks for the widest gutter running the full height of the range with a column's width of text on each
+     * side.  Leaves the range sorted left to right.
+     *
+     * @return index of the first item right of the gutter or -1 if there is none.
+     */
+    private int findColumnCut(int[] items, int from, int to) {
+        sort(items, from, to, left, false);
+        float regionLeft = Float.MAX_VALUE, regionRight = -Float.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            int item = items[i];
+            if (!blank[item]) {
+                regionLeft = Math.min(regionLeft, left[item]);
+                regionRight = Math.max(regionRight, right[item]);
+            }
+        }
+        float minGap = columnGap * unit;
+        float minWidth = columnWidth * unit;
+        float maxRight = -Float.MAX_VALUE;
+        float bestGap = 0, cutX = 0;
+        for (int i = from; i < to; i++) {
+            int item = items[i];
+            if (blank[item]) {
+                continue;
+            }
+            if (maxRight != -Float.MAX_VALUE) {
+                float gap = left[item] - maxRight;
+                if (gap >= minGap && gap > bestGap &&
+                        maxRight - regionLeft >= minWidth && regionRight - left[item] >= minWidth) {
+                    bestGap = gap;
+                    cutX = maxRight + gap / 2;
+                }
+            }
+            maxRight = Math.max(maxRight, right[item]);
+        }
+        if (bestGap == 0) {
+            return -1;
+        }
+        int split = from;
+        while (split < to && left[items[split]] < cutX) {
+            int item = items[split];
+            // space words that fill the gutter belong to neither column.
+            if (blank[item] && right[item] > cutX) {
+                dropped[item] = true;
+            }
+            split++;
+        }
+        return split;
+    }
+
+    /**
+     * Looks for the widest horizontal gap between blocks of text.  Leaves the range sorted top to bottom.
+     *
+     * @return index of the first item below the gap or -1 if there is none.
+     */
+    private int findBlockCut(int[] items, int from, int to) {
+        sort(items, from, to, top, true);
+        float minGap = blockGap * unit;
+        float minBottom = Float.MAX_VALUE;
+        float bestGap = 0, cutY = 0;
+        for (int i = from; i < to; i++) {
+            int item = items[i];
+            if (blank[item]) {
+                continue;
+            }
+            if (minBottom != Float.MAX_VALUE) {
+                float gap = minBottom - top[item];
+                if (gap >= minGap && gap > bestGap) {
+                    bestGap = gap;
+                    cutY = minBottom - gap / 2;
+                }
+            }
+            minBottom = Math.min(minBottom, bottom[item]);
+        }
+        if (bestGap == 0) {
+            return -1;
+        }
+        int split = from;
+        while (split < to && top[items[split]] > cutY) {
+            split++;
+        }
+        return split;
+    }
+
+    /**
+     * Sweeps items[from, to) from top to bottom, a word joins the current line when it overlaps the line
+     * vertically by enough of its height, otherwise it starts a new line.
+     */
+    private void addLines(int[] items, int from, int to, ArrayList<LineText> lines) {
+        sort(items, from, to, center, true);
+        float tall = TALL_WORD * unit;
+        int lineStart = from;
+        float lineBottom = 0, lineTop = 0;
+        boolean hasLine = false;
+        for (int i = from; i < to; i++) {
+            int item = items[i];
+            float height = top[item] - bottom[item];
+            if (hasLine && isSameLine(item, lineBottom, lineTop)) {
+                // a drop cap or similar started the line, the first regular word sets its position instead.
+                if (lineTop - lineBottom > tall && height <= tall) {
+                    lineBottom = bottom[item];
+                    lineTop = top[item];
+                }
+                continue;
+            }
+            if (hasLine) {
+                addLine(items, lineStart, i, lines);
+            }
+            lineStart = i;
+            lineBottom = bottom[item];
+            lineTop = top[item];
+            hasLine = true;
+        }
+        if (hasLine) {
+            addLine(items, lineStart, to, lines);
+        }
+    }
+
+    private boolean isSameLine(int item, float lineBottom, float lineTop) {
+        float height = Math.min(top[item] - bottom[item], lineTop - lineBottom);
+        if (height <= 0) {
+            return center[item] >= lineBottom && center[item] <= lineTop;
+        }
+        float overlap = Math.min(top[item], lineTop) - Math.max(bottom[item], lineBottom);
+        return overlap > 0 && overlap >= lineOverlap * height;
+    }
+
+    private void addLine(int[] items, int from, int to, ArrayList<LineText> lines) {
+        sort(items, from, to, left, false);
+        List<WordText> lineWords = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            int item = items[i];
+            if (!dropped[item]) {
+                lineWords.add(getWord(item));
+            }
+        }
+        if (!lineWords.isEmpty()) {
+            LineText lineText = new LineText();
+            lineText.addAll(lineWords);
+            lines.add(lineText);
+        }
+    }
+
+    /**
+     * Sorts items[from, to) by the given key.  Each key's sortable bits and the item index are packed in to a
+     * long so the sort runs on primitives, equal keys keep their index order.
+     */
+    private static void sort(int[] items, int from, int to, float[] key, boolean descending) {
+        long[] packed = new long[to - from];
+        for (int i = from; i < to; i++) {
+            int item = items[i];
+            // adding zero folds -0 in to 0.
+            int bits = Float.floatToIntBits((descending ? -key[item] : key[item]) + 0f);
+            bits ^= (bits >> 31) & 0x7fffffff;
+            packed[i - from] = ((long) bits << 32) | item;
+        }
+        Arrays.sort(packed);
+        for (int i = from; i < to; i++) {
+            items[i] = (int) packed[i - from];
+        }
+    }
+}
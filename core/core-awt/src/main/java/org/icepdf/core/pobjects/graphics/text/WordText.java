@@ -17,7 +17,6 @@ package org.icepdf.core.pobjects.graphics.text;
 
 import org.icepdf.core.util.Defs;
 
-import java.awt.*;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.logging.Level;
@@ -69,7 +68,6 @@ public class WordText extends AbstractText implements TextSelect {
         }
     }
 
-    private GlyphText currentGlyph;
     private ArrayList<GlyphText> glyphs;
 
     // cached text values.
@@ -96,64 +94,6 @@ public class WordText extends AbstractText implements TextSelect {
         isWhiteSpace = whiteSpace;
     }
 
-    protected boolean detectNewLine(GlyphText sprite) {
-        if (currentGlyph != null && autoSpaceInsertion) {
-            // last added glyph
-            Rectangle2D.Float bounds1 = currentGlyph.getTextExtractionBounds();
-            float currentYCoord = sprite.getTextExtractionBounds().y;
-            float previousYCoord = currentGlyph.getTextExtractionBounds().y;
-            // half previous glyph width will be used to determine a space
-            float tolerance = bounds1.height / spaceFraction;
-            // checking the y coordinate as well as any shift normall means a new work, this might need to get fuzzy later.
-            float ydiff = Math.abs(currentYCoord - previousYCoord);
-            return ydiff > tolerance;
-        } else {
-            return false;
-        }
-    }
-
-    protected boolean detectSpace(GlyphText sprite) {
-        if (currentGlyph != null && autoSpaceInsertion) {
-            // last added glyph
-            Rectangle2D.Float bounds1 = currentGlyph.getTextExtractionBounds();
-            float currentXCoord = sprite.getTextExtractionBounds().x;
-            float currentYCoord = sprite.getTextExtractionBounds().y;
-            float previousXCoord = currentGlyph.getTextExtractionBounds().x;
-            float previousYCoord = currentGlyph.getTextExtractionBounds().y;
-            // spaces can be negative if we have a LTR layout.
-            float space = Math.abs(currentXCoord - (previousXCoord + bounds1.width));
-            // half previous glyph width will be used to determine a space
-            float tolerance = bounds1.width / spaceFraction;
-            // checking the y coordinate as well as any shift normall means a new work, this might need to get fuzzy later.
-            float ydiff = Math.abs(currentYCoord - previousYCoord);
-            return space > tolerance || ydiff > tolerance;
-        } else {
-            return false;
-        }
-    }
-
-    protected static boolean detectPunctuation(GlyphText sprite, WordText currentWord) {
-        String glyphText = sprite.getUnicode();
-        // make sure we don't have a decimal, we want to keep double numbers
-        // as one word.
-        if (glyphText != null && glyphText.length() > 0) {
-            int c = glyphText.charAt(0);
-            return isPunctuation(c) && !isDigit(currentWord);
-        } else {
-            return false;
-        }
-    }
-
-    protected static boolean detectWhiteSpace(GlyphText sprite) {
-        String glyphText = sprite.getUnicode();
-        if (glyphText != null && glyphText.length() > 0) {
-            int c = glyphText.charAt(0);
-            return isWhiteSpace(c);
-        } else {
-            return false;
-        }
-    }
-
     public static boolean isPunctuation(int c) {
         return ((c == '.') || (c == ',') || (c == '?') || (c == '!') ||
                 (c == ':') || (c == ';') || (c == '"') || (c == '\'')
@@ -178,86 +118,10 @@ public class WordText extends AbstractText implements TextSelect {
         return c >= 48 && c <= 57;
     }
 
-    protected WordText buildSpaceWord(GlyphText sprite, boolean autoSpaceInsertion) {
-
-        // because we are in a normalized user space we can work with ints
-        Rectangle2D.Float bounds1 = currentGlyph.getTextExtractionBounds();
-        Rectangle.Float bounds2 = sprite.getTextExtractionBounds();
-        float space = bounds2.x - (bounds1.x + bounds1.width);
-
-        // max width of previous and next glyph, average can be broken by l or i etc.
-        float maxWidth = Math.max(bounds1.width, bounds2.width) / 2f;
-        int spaces = (int) (space / maxWidth);
-        if (spaces == 0) {
-            spaces = 1;
-        }
-        // add extra spaces
-        WordText whiteSpace = new WordText();
-        double offset;
-        GlyphText spaceText = null;
-        Rectangle2D.Float spaceBounds;
-        // RTL layout
-        float spaceWidth = space / spaces;
-        boolean ltr = true;
-        if (spaces > 0) {
-            offset = bounds1.x + bounds1.width;
-            spaceBounds = new Rectangle2D.Float(
-                    bounds1.x + bounds1.width,
-                    bounds1.y,
-                    spaceWidth, bounds1.height);
-        }
-        // LTR layout
-        else {
-            ltr = false;
-            offset = bounds1.x - bounds1.width;
-            spaces = 1;//Math.abs(spaces);
-            spaceBounds = new Rectangle2D.Float(
-                    bounds.x - spaceWidth,
-                    bounds1.y,
-                    spaceWidth, bounds1.height);
-        }
-        // todo: consider just using one space with a wider bound
-        // Max out the spaces in the case the spaces value scale factor was
-        // not correct.  We can end up with a very large number of spaces being
-        // inserted in some cases.
-        if (autoSpaceInsertion) {
-            for (int i = 0; i < spaces && i < 50; i++) {
-                whiteSpace = autoSpaceCalculation(offset, spaceBounds, whiteSpace);
-                if (ltr) {
-                    spaceBounds.x += spaceBounds.width;
-                    offset += spaceWidth;
-                } else {
-                    spaceBounds.x -= spaceBounds.width;
-                    offset -= spaceWidth;
-                }
-            }
-        } else {
-            whiteSpace = autoSpaceCalculation(offset, spaceBounds, whiteSpace);
-        }
-        return whiteSpace;
-    }
-
-    private WordText autoSpaceCalculation(double offset,
-                                          Rectangle2D.Float spaceBounds,
-                                          WordText whiteSpace) {
-        GlyphText spaceText = new GlyphText((float) offset,
-                currentGlyph.getY(),
-                new Rectangle2D.Float(spaceBounds.x,
-                        spaceBounds.y,
-                        spaceBounds.width,
-                        spaceBounds.height),
-                String.valueOf((char) 32), String.valueOf((char) 32));
-        whiteSpace.addText(spaceText);
-        whiteSpace.setWhiteSpace(true);
-        return whiteSpace;
-    }
-
-
     protected void addText(GlyphText sprite) {
         // the sprite
         glyphs.add(sprite);
 
-        currentGlyph = sprite;
         Rectangle2D.Float rect = sprite.getBounds();
         // append the bounds calculation
         if (bounds == null) {
@@ -17,6 +17,8 @@ package org.icepdf.core.util;
 
 import org.icepdf.core.io.SeekableInput;
 import org.icepdf.core.pobjects.*;
+import org.icepdf.core.util.metrics.Metric;
+import org.icepdf.core.util.metrics.Metrics;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -71,6 +73,11 @@ public class LazyObjectLoader {
                         seekableInput.seekAbsolute(position);
                         Parser parser = new Parser(seekableInput);
                         Object ob = parser.getObject(library);
+                        if (Metrics.ENABLED) {
+                            Metrics.count(Metric.OBJECT_PARSE_COUNT, "file");
+                            Metrics.count(Metric.OBJECT_PARSE_BYTES, "file",
+                                    seekableInput.getAbsolutePosition() - position);
+                        }
                         seekableInput.seekAbsolute(savedPosition);
                         return ob;
                     }
@@ -108,6 +115,7 @@ public class LazyObjectLoader {
 
                 if (objectStream != null) {
                     synchronized (streamLock) {
+                        if (Metrics.ENABLED) Metrics.count(Metric.OBJECT_PARSE_COUNT, "objectStream");
                         return objectStream.loadObject(library, objectIndex);
                     }
                 }
@@ -23,6 +23,8 @@ import org.icepdf.core.pobjects.acroform.SignatureHandler;
 import org.icepdf.core.pobjects.fonts.Font;
 import org.icepdf.core.pobjects.fonts.FontDescriptor;
 import org.icepdf.core.pobjects.graphics.ICCBased;
+import org.icepdf.core.pobjects.graphics.FormCache;
+import org.icepdf.core.pobjects.graphics.ShadingCache;
 import org.icepdf.core.pobjects.graphics.images.references.ImagePool;
 import org.icepdf.core.pobjects.security.SecurityManager;
 
@@ -68,8 +70,11 @@ public class Library {
 
         try {
             // todo make ImageReference call interruptible and then we can get rid of this pool.
+            // a page's images are decoded together, one per core as long as there is about 64MB of heap each.
+            int defaultImagePoolThreads = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+                    Runtime.getRuntime().maxMemory() / (64L * 1024 * 1024)));
             imagePoolThreads =
-                    Defs.intProperty("org.icepdf.core.library.imageThreadPoolSize", 2);
+                    Defs.intProperty("org.icepdf.core.library.imageThreadPoolSize", defaultImagePoolThreads);
             if (imagePoolThreads < 1) {
                 imagePoolThreads = 2;
             }
@@ -111,6 +116,8 @@ public class Library {
     private boolean isEncrypted;
     private boolean isLinearTraversal;
     private ImagePool imagePool;
+    private FormCache formCache;
+    private ShadingCache shadingCache;
 
     /**
      * Sets a document loader for the library.
@@ -593,6 +600,8 @@ public class Library {
     public Library() {
         // set Catalog memory Manager and cache manager.
         imagePool = new ImagePool();
+        formCache = new FormCache();
+        shadingCache = new ShadingCache();
         signatureHandler = new SignatureHandler();
     }
 
@@ -766,6 +775,14 @@ public class Library {
         return imagePool;
     }
 
+    public FormCache getFormCache() {
+        return formCache;
+    }
+
+    public ShadingCache getShadingCache() {
+        return shadingCache;
+    }
+
     public static void initializeThreadPool() {
 
         log.fine("Starting ICEpdf Thread Pool: " + commonPoolThreads + " threads.");
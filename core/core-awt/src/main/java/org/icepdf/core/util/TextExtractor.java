@@ -0,0 +1,245 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util;
+
+import org.icepdf.core.pobjects.Document;
+import org.icepdf.core.pobjects.Page;
+import org.icepdf.core.pobjects.graphics.text.LineText;
+import org.icepdf.core.pobjects.graphics.text.PageText;
+import org.icepdf.core.pobjects.graphics.text.WordText;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Extracts the text of a range of pages in parallel.  Pages are parsed and sorted on worker threads and handed
+ * back on the calling thread in page order, at most maxPagesInFlight pages are parsed or waiting to be handed
+ * back at any one time so memory use stays flat no matter how large the document is.  Nothing is kept once a
+ * page has been handed back.
+ * <pre>
+ * try (Writer writer = Files.newBufferedWriter(path)) {
+ *     new TextExtractor(document).extract(0, document.getNumberOfPages(), writer);
+ * }
+ * </pre>
+ * The defaults can be changed with the system properties org.icepdf.core.textExtractor.threads, the number of
+ * available processors by default, and org.icepdf.core.textExtractor.maxPagesInFlight, twice the thread count
+ * by default.
+ *
+ * @since 7.0
+ */
+public class TextExtractor {
+
+    private static final Logger logger =
+            Logger.getLogger(TextExtractor.class.toString());
+
+    private static final int DEFAULT_THREADS;
+    private static final int DEFAULT_MAX_PAGES_IN_FLIGHT;
+
+    static {
+        DEFAULT_THREADS = Math.max(1, Defs.intProperty("org.icepdf.core.textExtractor.threads",
+                Runtime.getRuntime().availableProcessors()));
+        DEFAULT_MAX_PAGES_IN_FLIGHT = Math.max(1, Defs.intProperty("org.icepdf.core.textExtractor.maxPagesInFlight",
+                DEFAULT_THREADS * 2));
+    }
+
+    /**
+     * Receives the text of each page, in page order, on the thread that called
+     * {@link #extract(int, int, PageTextHandler)}.
+     */
+    public interface PageTextHandler {
+        /**
+         * Called once for every page in the range.  The page text has already been sorted so
+         * {@link PageText#getPageLines()} returns straight away.
+         *
+         * @param pageIndex zero based page index.
+         * @param pageText  text of the page, null if the page has no text or could not be parsed.
+         * @throws IOException an exception thrown by the handler stops the extraction.
+         */
+        void handlePageText(int pageIndex, PageText pageText) throws IOException;
+    }
+
+    private final Document document;
+    private final ExecutorService executor;
+    private final int maxPagesInFlight;
+
+    /**
+     * Creates an extractor with the default thread count and in flight page limit.
+     *
+     * @param document document to extract text from.
+     */
+    public TextExtractor(Document document) {
+        this(document, null, DEFAULT_MAX_PAGES_IN_FLIGHT);
+    }
+
+    /**
+     * Creates an extractor that parses pages on the given executor, for callers that extract many documents
+     * and would rather share one pool.
+     *
+     * @param document         document to extract text from.
+     * @param executor         executor to parse pages on, null to create a pool for each extraction.
+     * @param maxPagesInFlight most pages that are parsed or waiting to be handed back at once.
+     */
+    public TextExtractor(Document document, ExecutorService executor, int maxPagesInFlight) {
+        this.document = document;
+        this.executor = executor;
+        this.maxPagesInFlight = Math.max(1, maxPagesInFlight);
+    }
+
+    /**
+     * Extracts the text of the pages in the range and passes each page to the handler in page order.
+     *
+     * @param startPage first page, zero based.
+     * @param endPage   page after the last page in the range.
+     * @param handler   handler receiving the text.
+     * @throws IOException          thrown by the handler.
+     * @throws InterruptedException the calling thread was interrupted, outstanding pages are cancelled.
+     */
+    public void extract(int startPage, int endPage, PageTextHandler handler)
+            throws IOException, InterruptedException {
+        extract(startPage, endPage, pageIndex -> {
+            PageText pageText = getPageText(pageIndex);
+            if (pageText != null) {
+                // sort on the worker thread rather than the handler's.
+                pageText.getPageLines();
+            }
+            return pageText;
+        }, handler::handlePageText);
+    }
+
+    /**
+     * Extracts the text of the pages in the range to the writer.  Each page's lines are written in reading
+     * order and pages are separated by a form feed.  The writer is not flushed or closed.
+     *
+     * @param startPage first page, zero based.
+     * @param endPage   page after the last page in the range.
+     * @param writer    writer for the text.
+     * @throws IOException          error writing the text.
+     * @throws InterruptedException the calling thread was interrupted, outstanding pages are cancelled.
+     */
+    public void extract(int startPage, int endPage, Writer writer) throws IOException, InterruptedException {
+        extract(startPage, endPage, pageIndex -> getText(getPageText(pageIndex)), (pageIndex, text) -> {
+            if (pageIndex > startPage) {
+                writer.write('\f');
+            }
+            // pages that failed to parse are left empty.
+            writer.write(text != null ? text : "");
+        });
+    }
+
+    /**
+     * Gets the text of a page as lines in reading order, each line is terminated by a line feed.
+     *
+     * @param pageText page text, may be null.
+     * @return page text, empty if the page has no text.
+     */
+    public static String getText(PageText pageText) {
+        if (pageText == null || pageText.getPageLines() == null) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        for (LineText lineText : pageText.getPageLines()) {
+            for (WordText wordText : lineText.getWords()) {
+                text.append(wordText.getText());
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    private PageText getPageText(int pageIndex) throws InterruptedException {
+        Page page = document.getPageTree().getPage(pageIndex);
+        if (page == null) {
+            return null;
+        }
+        // pages open in a viewer already have their text, anything else gets the faster text only parse.
+        if (page.isInitiated()) {
+            return page.getViewText();
+        }
+        PageText pageText = page.getText();
+        // the text doesn't refer back to the page, so drop the contents loaded for the parse unless a viewer
+        // initialized the page in the meantime.
+        synchronized (page) {
+            if (!page.isInitiated()) {
+                page.releasePageState();
+            }
+        }
+        return pageText;
+    }
+
+    private interface PageWork<T> {
+        T run(int pageIndex) throws Exception;
+    }
+
+    private interface PageSink<T> {
+        void accept(int pageIndex, T result) throws IOException;
+    }
+
+    private <T> void extract(int startPage, int endPage, PageWork<T> work, PageSink<T> sink)
+            throws IOException, InterruptedException {
+        startPage = Math.max(0, startPage);
+        endPage = Math.min(endPage, document.getNumberOfPages());
+        if (startPage >= endPage) {
+            return;
+        }
+        ExecutorService pool = executor != null ? executor : createPool(Math.min(DEFAULT_THREADS, endPage - startPage));
+        ArrayDeque<Future<T>> inFlight = new ArrayDeque<>(maxPagesInFlight);
+        try {
+            int next = startPage;
+            for (int pageIndex = startPage; pageIndex < endPage; pageIndex++) {
+                while (next < endPage && inFlight.size() < maxPagesInFlight) {
+                    final int page = next++;
+                    inFlight.add(pool.submit(() -> work.run(page)));
+                }
+                sink.accept(pageIndex, getResult(inFlight.poll(), pageIndex));
+            }
+        } finally {
+            for (Future<T> future : inFlight) {
+                future.cancel(true);
+            }
+            if (executor == null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static <T> T getResult(Future<T> future, int pageIndex) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            logger.log(Level.WARNING, "Error extracting text from page " + (pageIndex + 1), cause);
+            return null;
+        }
+    }
+
+    private static ExecutorService createPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, command -> {
+            Thread newThread = new Thread(command);
+            newThread.setName("ICEpdf-text-extractor-" + count.incrementAndGet());
+            newThread.setDaemon(true);
+            return newThread;
+        });
+    }
+}
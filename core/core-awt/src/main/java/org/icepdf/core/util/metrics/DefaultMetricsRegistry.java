@@ -0,0 +1,195 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory registry that aggregates counters with {@link LongAdder}s and timers into power of two histograms.
+ * Recording never allocates once a metric/tag pair has been seen, so the registry is cheap enough to leave on
+ * in production when metrics are enabled.
+ *
+ * @since 7.0
+ */
+public class DefaultMetricsRegistry implements MetricsRegistry {
+
+    private static final String NO_TAG = "";
+
+    private final Map<Metric, ConcurrentHashMap<String, LongAdder>> counters = new EnumMap<>(Metric.class);
+    private final Map<Metric, ConcurrentHashMap<String, Histogram>> timers = new EnumMap<>(Metric.class);
+
+    public DefaultMetricsRegistry() {
+        // maps are fully populated up front so the EnumMaps are only ever read concurrently.
+        for (Metric metric : Metric.values()) {
+            counters.put(metric, new ConcurrentHashMap<>());
+            timers.put(metric, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public void increment(Metric metric, String tag, long delta) {
+        ConcurrentHashMap<String, LongAdder> tags = counters.get(metric);
+        String key = tag != null ? tag : NO_TAG;
+        LongAdder counter = tags.get(key);
+        if (counter == null) {
+            counter = tags.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.add(delta);
+    }
+
+    @Override
+    public void record(Metric metric, String tag, long nanos) {
+        ConcurrentHashMap<String, Histogram> tags = timers.get(metric);
+        String key = tag != null ? tag : NO_TAG;
+        Histogram histogram = tags.get(key);
+        if (histogram == null) {
+            histogram = tags.computeIfAbsent(key, k -> new Histogram());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Gets the current value of a counter.
+     *
+     * @param metric counter metric.
+     * @param tag    qualifier, null for untagged metrics.
+     * @return counter value, zero if never incremented.
+     */
+    public long getCount(Metric metric, String tag) {
+        LongAdder counter = counters.get(metric).get(tag != null ? tag : NO_TAG);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * Gets the histogram associated with a timer.
+     *
+     * @param metric timer metric.
+     * @param tag    qualifier, null for untagged metrics.
+     * @return histogram or null if no samples have been recorded.
+     */
+    public Histogram getHistogram(Metric metric, String tag) {
+        return timers.get(metric).get(tag != null ? tag : NO_TAG);
+    }
+
+    /**
+     * Clears all counters and histograms.
+     */
+    public void reset() {
+        for (Metric metric : Metric.values()) {
+            counters.get(metric).clear();
+            timers.get(metric).clear();
+        }
+    }
+
+    /**
+     * Builds a plain text dump of all non empty metrics,  one per line.
+     *
+     * @return metrics report.
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder(1024);
+        for (Metric metric : Metric.values()) {
+            for (Map.Entry<String, LongAdder> entry : counters.get(metric).entrySet()) {
+                sb.append(metric.getKey());
+                if (!entry.getKey().isEmpty()) sb.append('[').append(entry.getKey()).append(']');
+                sb.append(" count=").append(entry.getValue().sum()).append('\n');
+            }
+            for (Map.Entry<String, Histogram> entry : timers.get(metric).entrySet()) {
+                sb.append(metric.getKey());
+                if (!entry.getKey().isEmpty()) sb.append('[').append(entry.getKey()).append(']');
+                sb.append(' ').append(entry.getValue()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Lock free histogram of nanosecond samples using power of two buckets, bucket n holds samples in the range
+     * [2^(n-1), 2^n).
+     */
+    public static class Histogram {
+
+        private static final int BUCKETS = 64;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            count.increment();
+            total.add(nanos);
+            buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(nanos));
+            long currentMax;
+            while (nanos > (currentMax = max.get())) {
+                if (max.compareAndSet(currentMax, nanos)) break;
+            }
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return total.sum();
+        }
+
+        public long getMaxNanos() {
+            return max.get();
+        }
+
+        public long getMeanNanos() {
+            long samples = count.sum();
+            return samples > 0 ? total.sum() / samples : 0;
+        }
+
+        /**
+         * Approximates the given percentile,  the result is the upper bound of the bucket containing the sample.
+         *
+         * @param percentile value between 0 and 100.
+         * @return approximate percentile value in nanoseconds.
+         */
+        public long getPercentileNanos(double percentile) {
+            long samples = count.sum();
+            if (samples == 0) return 0;
+            long target = (long) Math.ceil(samples * (percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= target) {
+                    return i == 0 ? 0 : Math.min(max.get(), (1L << i) - 1);
+                }
+            }
+            return max.get();
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + getCount() +
+                    " totalMs=" + getTotalNanos() / 1000000 +
+                    " meanUs=" + getMeanNanos() / 1000 +
+                    " p50Us=" + getPercentileNanos(50) / 1000 +
+                    " p99Us=" + getPercentileNanos(99) / 1000 +
+                    " maxUs=" + getMaxNanos() / 1000;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * Registry that forwards metrics as Java Flight Recorder events so they can be correlated with GC and allocation
+ * data in a recording.  Enabled with org.icepdf.core.metrics.jfr=true and requires a JVM with JFR support, the
+ * class is only ever loaded reflectively by {@link Metrics}.
+ *
+ * @since 7.0
+ */
+public class JfrMetricsRegistry implements MetricsRegistry {
+
+    @Override
+    public void increment(Metric metric, String tag, long delta) {
+        CounterEvent event = new CounterEvent();
+        if (event.isEnabled()) {
+            event.metric = metric.getKey();
+            event.tag = tag;
+            event.delta = delta;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void record(Metric metric, String tag, long nanos) {
+        TimerEvent event = new TimerEvent();
+        if (event.isEnabled()) {
+            event.metric = metric.getKey();
+            event.tag = tag;
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    @Name("org.icepdf.Counter")
+    @Label("ICEpdf Counter")
+    @Category("ICEpdf")
+    @StackTrace(false)
+    static class CounterEvent extends Event {
+        @Label("Metric")
+        String metric;
+        @Label("Tag")
+        String tag;
+        @Label("Delta")
+        long delta;
+    }
+
+    @Name("org.icepdf.Timer")
+    @Label("ICEpdf Timer")
+    @Category("ICEpdf")
+    @StackTrace(false)
+    static class TimerEvent extends Event {
+        @Label("Metric")
+        String metric;
+        @Label("Tag")
+        String tag;
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util.metrics;
+
+/**
+ * Hot path measurements that the core library can report to a {@link MetricsRegistry}.  Each metric is either a
+ * simple counter or a timer, timer values are always reported in nanoseconds.
+ *
+ * @since 7.0
+ */
+public enum Metric {
+
+    /**
+     * Time taken to locate and parse the document's primary cross reference and trailer.
+     */
+    XREF_LOAD("xref.load", Kind.TIMER),
+    /**
+     * Number of objects parsed by the lazy object loader, tagged by "file" or "objectStream".
+     */
+    OBJECT_PARSE_COUNT("object.parse.count", Kind.COUNTER),
+    /**
+     * Number of file bytes consumed parsing objects by the lazy object loader.
+     */
+    OBJECT_PARSE_BYTES("object.parse.bytes", Kind.COUNTER),
+    /**
+     * Stream filter decode time, tagged by the normalised filter name.
+     */
+    FILTER_DECODE("filter.decode", Kind.TIMER),
+    /**
+     * Image decode time, tagged by the image decoder type.
+     */
+    IMAGE_DECODE("image.decode", Kind.TIMER),
+    /**
+     * Embedded or substituted font program load time, tagged by the font file type.
+     */
+    FONT_LOAD("font.load", Kind.TIMER),
+    /**
+     * Glyph cache hits, tagged by font file type.
+     */
+    GLYPH_CACHE_HIT("glyph.cache.hit", Kind.COUNTER),
+    /**
+     * Glyph cache misses, tagged by font file type.
+     */
+    GLYPH_CACHE_MISS("glyph.cache.miss", Kind.COUNTER),
+    /**
+     * Image pool hits.
+     */
+    IMAGE_CACHE_HIT("image.cache.hit", Kind.COUNTER),
+    /**
+     * Image pool misses.
+     */
+    IMAGE_CACHE_MISS("image.cache.miss", Kind.COUNTER),
+    /**
+     * Rasterized Form XObject cache hits.
+     */
+    FORM_CACHE_HIT("form.cache.hit", Kind.COUNTER),
+    /**
+     * Rasterized Form XObject cache misses.
+     */
+    FORM_CACHE_MISS("form.cache.miss", Kind.COUNTER),
+    /**
+     * Mesh shading rasterization time, tagged by shading type.
+     */
+    SHADING_RASTERIZE("shading.rasterize", Kind.TIMER),
+    /**
+     * Rasterized mesh shading tile cache hits.
+     */
+    SHADING_CACHE_HIT("shading.cache.hit", Kind.COUNTER),
+    /**
+     * Rasterized mesh shading tile cache misses.
+     */
+    SHADING_CACHE_MISS("shading.cache.miss", Kind.COUNTER),
+    /**
+     * Paint time of a single draw command, tagged by the DrawCmd type.
+     */
+    PAINT_COMMAND("paint.command", Kind.TIMER);
+
+    public enum Kind {
+        COUNTER, TIMER
+    }
+
+    private final String key;
+    private final Kind kind;
+
+    Metric(String key, Kind kind) {
+        this.key = key;
+        this.kind = kind;
+    }
+
+    /**
+     * Gets the dotted key used when exporting the metric.
+     *
+     * @return export key name.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util.metrics;
+
+import org.icepdf.core.util.Defs;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Static entry point used by the core library to report hot path metrics.  Metrics collection is disabled by
+ * default and is enabled with the system property org.icepdf.core.metrics.enabled=true.  As the flag is a static
+ * final constant, call sites guarded by {@link #ENABLED} are removed by the JIT when collection is disabled.
+ * <br>
+ * When enabled a {@link DefaultMetricsRegistry} is always available via {@link #getDefaultRegistry()}, JFR events
+ * can be emitted by setting org.icepdf.core.metrics.jfr=true and further registries can be plugged in with
+ * org.icepdf.core.metrics.registry or {@link #addRegistry(MetricsRegistry)}.
+ * <p>
+ * Typical usage:
+ * <pre>
+ *     long start = Metrics.start();
+ *     ...
+ *     if (Metrics.ENABLED) Metrics.time(Metric.FILTER_DECODE, "FlateDecode", start);
+ * </pre>
+ *
+ * @since 7.0
+ */
+public final class Metrics {
+
+    private static final Logger logger =
+            Logger.getLogger(Metrics.class.toString());
+
+    public static final boolean ENABLED =
+            Defs.booleanProperty("org.icepdf.core.metrics.enabled", false);
+
+    private static final String JFR_REGISTRY = "org.icepdf.core.util.metrics.JfrMetricsRegistry";
+
+    private static final List<MetricsRegistry> registries = new CopyOnWriteArrayList<>();
+    private static DefaultMetricsRegistry defaultRegistry;
+
+    static {
+        if (ENABLED) {
+            defaultRegistry = new DefaultMetricsRegistry();
+            registries.add(defaultRegistry);
+            if (Defs.booleanProperty("org.icepdf.core.metrics.jfr", false)) {
+                loadRegistry(JFR_REGISTRY);
+            }
+            String registryNames = Defs.property("org.icepdf.core.metrics.registry");
+            if (registryNames != null) {
+                for (String registryName : registryNames.split(",")) {
+                    if (!registryName.trim().isEmpty()) {
+                        loadRegistry(registryName.trim());
+                    }
+                }
+            }
+        }
+    }
+
+    private Metrics() {
+    }
+
+    private static void loadRegistry(String className) {
+        try {
+            // loaded reflectively so optional registries such as JFR are never linked unless asked for.
+            Class<?> registryClass = Class.forName(className);
+            registries.add((MetricsRegistry) registryClass.getDeclaredConstructor().newInstance());
+        } catch (Throwable e) {
+            logger.log(Level.WARNING, "Could not load metrics registry " + className, e);
+        }
+    }
+
+    /**
+     * Adds a registry that will receive all metrics reported from this point on.  Has no effect if metrics are
+     * disabled.
+     *
+     * @param registry registry to add.
+     */
+    public static void addRegistry(MetricsRegistry registry) {
+        if (ENABLED && registry != null) {
+            registries.add(registry);
+        }
+    }
+
+    public static void removeRegistry(MetricsRegistry registry) {
+        registries.remove(registry);
+    }
+
+    /**
+     * Gets the built in in-memory registry.
+     *
+     * @return default registry, null if metrics are disabled.
+     */
+    public static DefaultMetricsRegistry getDefaultRegistry() {
+        return defaultRegistry;
+    }
+
+    /**
+     * Gets a start timestamp for a later call to {@link #time(Metric, String, long)}.
+     *
+     * @return current nano time or zero if metrics are disabled.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the time elapsed since the given start timestamp.
+     *
+     * @param metric metric being timed.
+     * @param tag    optional qualifier, can be null.
+     * @param start  timestamp from {@link #start()}.
+     */
+    public static void time(Metric metric, String tag, long start) {
+        if (ENABLED) {
+            long nanos = System.nanoTime() - start;
+            for (MetricsRegistry registry : registries) {
+                registry.record(metric, tag, nanos);
+            }
+        }
+    }
+
+    /**
+     * Increments a counter by one.
+     *
+     * @param metric metric being counted.
+     * @param tag    optional qualifier, can be null.
+     */
+    public static void count(Metric metric, String tag) {
+        count(metric, tag, 1);
+    }
+
+    /**
+     * Increments a counter by the given delta.
+     *
+     * @param metric metric being counted.
+     * @param tag    optional qualifier, can be null.
+     * @param delta  increment.
+     */
+    public static void count(Metric metric, String tag, long delta) {
+        if (ENABLED) {
+            for (MetricsRegistry registry : registries) {
+                registry.increment(metric, tag, delta);
+            }
+        }
+    }
+}
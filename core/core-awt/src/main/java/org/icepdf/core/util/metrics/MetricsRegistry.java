@@ -0,0 +1,48 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util.metrics;
+
+/**
+ * Service provider interface for collecting core metrics.  Implementations are called directly from the parsing,
+ * decoding and painting hot paths and should therefore be non-blocking and cheap; aggregation into counters or
+ * histograms is expected rather than retaining individual samples.
+ * <br>
+ * Registries are registered with {@link Metrics#addRegistry(MetricsRegistry)} or with the system property
+ * org.icepdf.core.metrics.registry which takes a comma separated list of class names with a no argument
+ * constructor.
+ *
+ * @since 7.0
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Increments the counter for the given metric and tag.
+     *
+     * @param metric metric being counted.
+     * @param tag    optional qualifier such as a filter or font type,  can be null.
+     * @param delta  amount to increment the counter by.
+     */
+    void increment(Metric metric, String tag, long delta);
+
+    /**
+     * Records a single timed sample for the given metric and tag.
+     *
+     * @param metric metric being timed.
+     * @param tag    optional qualifier such as a filter or draw command type,  can be null.
+     * @param nanos  duration of the sample in nanoseconds.
+     */
+    void record(Metric metric, String tag, long nanos);
+}
@@ -2,6 +2,7 @@ package org.icepdf.core.util.parser.content;
 
 import org.icepdf.core.pobjects.Page;
 import org.icepdf.core.pobjects.Resources;
+import org.icepdf.core.pobjects.Stream;
 import org.icepdf.core.pobjects.graphics.GlyphOutlineClip;
 import org.icepdf.core.pobjects.graphics.GraphicsState;
 import org.icepdf.core.pobjects.graphics.Shapes;
@@ -39,6 +40,48 @@ public class ContentParser extends AbstractContentParser {
 
     public ContentParser parse(byte[][] streamBytes, Page page)
             throws InterruptedException, IOException {
+        if (logger.isLoggable(Level.FINER)) {
+            logger.finer("Page content streams: " + streamBytes.length);
+            for (byte[] streamByte : streamBytes) {
+                if (streamByte != null) {
+                    String tmp = new String(streamByte, StandardCharsets.ISO_8859_1);
+                    logger.finer("Content = " + tmp);
+                }
+            }
+        }
+        Lexer lexer = new Lexer();
+        lexer.setContentStream(streamBytes);
+        return parse(lexer, page);
+    }
+
+    /**
+     * Parse a page or form's content streams, decoding each stream only as the parser reaches it.
+     *
+     * @param streams content streams in page order.
+     * @param page    parent page, can be null.
+     * @return this parser, with the parsed shapes.
+     * @throws InterruptedException if current parse thread is interrupted.
+     * @throws IOException          unexpected end of content stream.
+     */
+    public ContentParser parse(Stream[] streams, Page page)
+            throws InterruptedException, IOException {
+        if (logger.isLoggable(Level.FINER)) {
+            logger.finer("Page content streams: " + streams.length);
+            for (Stream stream : streams) {
+                byte[] streamByte = stream != null ? stream.getDecodedStreamBytes() : null;
+                if (streamByte != null) {
+                    String tmp = new String(streamByte, StandardCharsets.ISO_8859_1);
+                    logger.finer("Content = " + tmp);
+                }
+            }
+        }
+        Lexer lexer = new Lexer();
+        lexer.setContentStream(streams);
+        return parse(lexer, page);
+    }
+
+    private ContentParser parse(Lexer lexer, Page page)
+            throws InterruptedException, IOException {
         if (shapes == null) {
             shapes = new Shapes();
             if (graphicState == null) {
@@ -64,19 +107,7 @@ public class ContentParser extends AbstractContentParser {
             oCGs = new LinkedList<>();
         }
 
-        if (logger.isLoggable(Level.FINER)) {
-            logger.finer("Page content streams: " + streamBytes.length);
-            for (byte[] streamByte : streamBytes) {
-                if (streamByte != null) {
-                    String tmp = new String(streamByte, StandardCharsets.ISO_8859_1);
-                    logger.finer("Content = " + tmp);
-                }
-            }
-        }
         int count = 0;
-        Lexer lexer;
-        lexer = new Lexer();
-        lexer.setContentStream(streamBytes);
 
         // text block y offset.
         float yBTstart = 0;
@@ -585,6 +616,23 @@ public class ContentParser extends AbstractContentParser {
         // great a parser to get tokens for stream
         Lexer parser = new Lexer();
         parser.setContentStream(source);
+        return parseTextBlocks(parser);
+    }
+
+    /**
+     * Specialized method for extracting text from documents, decoding each content stream only as the
+     * parser reaches it.
+     *
+     * @param source content streams in page order.
+     * @return vector where each entry is the text extracted from a text block.
+     */
+    public Shapes parseTextBlocks(Stream[] source) throws InterruptedException {
+        Lexer parser = new Lexer();
+        parser.setContentStream(source);
+        return parseTextBlocks(parser);
+    }
+
+    private Shapes parseTextBlocks(Lexer parser) throws InterruptedException {
         Shapes shapes = new Shapes();
 
         if (graphicState == null) {
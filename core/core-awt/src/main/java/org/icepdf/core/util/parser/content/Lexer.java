@@ -3,6 +3,7 @@ package org.icepdf.core.util.parser.content;
 import org.icepdf.core.pobjects.HexStringObject;
 import org.icepdf.core.pobjects.LiteralStringObject;
 import org.icepdf.core.pobjects.Name;
+import org.icepdf.core.pobjects.Stream;
 import org.icepdf.core.pobjects.StringObject;
 
 import java.io.IOException;
@@ -31,6 +32,8 @@ public class Lexer {
 
     private int streamCount;
     private byte[][] streamsBytes;
+    // decoded as the lexer reaches them, null when lexing byte arrays.
+    private Stream[] contentStreams;
 
     private byte[] streamBytes;
 
@@ -39,6 +42,7 @@ public class Lexer {
     private int tokenType = 0;
 
     public void setContentStream(byte[][] in) {
+        contentStreams = null;
         streamsBytes = in;
         streamCount = 0;
         streamBytes = streamsBytes[streamCount];
@@ -47,6 +51,56 @@ public class Lexer {
         }
     }
 
+    /**
+     * Sets the content streams to tokenize.  Each stream is only decoded when the lexer reaches it and is
+     * released once the lexer moves on, so only one decoded content stream is held at a time.  A stream is
+     * still decoded to a whole byte array, a page with a single large content stream holds all of it.
+     *
+     * @param in page or form content streams.
+     */
+    public void setContentStream(Stream[] in) {
+        contentStreams = in;
+        streamsBytes = new byte[in.length][];
+        streamCount = 0;
+        streamBytes = getStreamBytes(streamCount);
+        numRead = streamBytes.length;
+    }
+
+    private byte[] getStreamBytes(int index) {
+        if (contentStreams != null && streamsBytes[index] == null) {
+            byte[] bytes = contentStreams[index] != null ? contentStreams[index].getDecodedStreamBytes() : null;
+            streamsBytes[index] = bytes != null ? bytes : new byte[0];
+        }
+        return streamsBytes[index];
+    }
+
+    /**
+     * Moves on to the next content stream, skipping over the corner case of a zero length stream.
+     *
+     * @return true if there was another stream, false if the last stream has been reached.
+     */
+    private boolean nextStream() {
+        if (streamCount >= streamsBytes.length - 1) {
+            return false;
+        }
+        if (contentStreams != null) {
+            streamsBytes[streamCount] = null;
+        }
+        streamCount++;
+        if (getStreamBytes(streamCount).length == 0 &&
+                streamCount + 1 < streamsBytes.length) {
+            if (contentStreams != null) {
+                streamsBytes[streamCount] = null;
+            }
+            streamCount++;
+        }
+        // assign next byte array and reset the pointers.
+        streamBytes = getStreamBytes(streamCount);
+        pos = 0;
+        numRead = streamBytes.length;
+        return true;
+    }
+
     public Object next() throws IOException {
 
         if (streamBytes == null) {
@@ -417,19 +471,7 @@ public class Lexer {
 
     private void checkLength() {
         if (pos == numRead) {
-            if (streamCount < streamsBytes.length - 1) {
-                streamCount++;
-                // assign next byte array, but skip over the corner
-                // case of an zero length content stream.
-                if (streamsBytes[streamCount].length == 0 &&
-                        streamCount + 1 < streamsBytes.length) {
-                    streamCount++;
-                }
-                streamBytes = streamsBytes[streamCount];
-                // reset the  pointers.
-                pos = 0;
-                numRead = streamBytes.length;
-            }
+            nextStream();
         }
     }
 
@@ -523,18 +565,7 @@ public class Lexer {
         // skip the white space
         while (pos <= numRead) {
             if (pos == numRead) {
-                if (streamCount < streamsBytes.length - 1) {
-                    streamCount++;
-                    // skip zero length stream
-                    if (streamsBytes[streamCount].length == 0 &&
-                            streamCount + 1 < streamsBytes.length) {
-                        streamCount++;
-                    }
-                    // assign next byte array
-                    streamBytes = streamsBytes[streamCount];
-                    // reset the  pointers.
-                    pos = 0;
-                    numRead = streamBytes.length;
+                if (nextStream()) {
                     continue;
                 } else {
                     tokenType = NO_MORE;
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Command line options for {@link BatchRender}.
+ *
+ * @since 7.0
+ */
+public class BatchOptions {
+
+    public static final String USAGE =
+            "Usage: BatchRender --input <dir|manifest.txt> --output <dir> [options]\n" +
+                    "  --format png|tiff|jpeg      page image format, default png\n" +
+                    "  --dpi <n>                   render resolution, default 150\n" +
+                    "  --no-images                 skip page rendering\n" +
+                    "  --text                      extract page text to .txt files\n" +
+                    "  --threads <n>               worker threads, default available processors\n" +
+                    "  --max-documents <n>         documents open at once, default threads\n" +
+                    "  --max-pages <n>             pages in flight per document, default 4\n" +
+                    "  --resume                    skip pages recorded in the output progress log\n" +
+                    "  --report <file>             json throughput report, default <output>/batch-report.json\n" +
+                    "  --font-path <dir>           extra font directory, may be repeated\n";
+
+    public enum Format {
+        PNG("png", "png"), TIFF("tiff", "tif"), JPEG("jpeg", "jpg");
+
+        final String imageIoName;
+        final String extension;
+
+        Format(String imageIoName, String extension) {
+            this.imageIoName = imageIoName;
+            this.extension = extension;
+        }
+    }
+
+    private File input;
+    private File output;
+    private Format format = Format.PNG;
+    private float dpi = 150;
+    private boolean renderImages = true;
+    private boolean extractText;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int maxDocuments = -1;
+    private int maxPagesPerDocument = 4;
+    private boolean resume;
+    private File report;
+    private List<String> fontPaths = new ArrayList<>();
+
+    public static BatchOptions parse(String[] args) {
+        BatchOptions options = new BatchOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--input":
+                    options.input = new File(value(args, ++i, arg));
+                    break;
+                case "--output":
+                    options.output = new File(value(args, ++i, arg));
+                    break;
+                case "--format":
+                    String format = value(args, ++i, arg).toLowerCase(Locale.ENGLISH);
+                    if ("jpg".equals(format)) format = "jpeg";
+                    if ("tif".equals(format)) format = "tiff";
+                    options.format = Format.valueOf(format.toUpperCase(Locale.ENGLISH));
+                    break;
+                case "--dpi":
+                    options.dpi = Float.parseFloat(value(args, ++i, arg));
+                    break;
+                case "--no-images":
+                    options.renderImages = false;
+                    break;
+                case "--text":
+                    options.extractText = true;
+                    break;
+                case "--threads":
+                    options.threads = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--max-documents":
+                    options.maxDocuments = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--max-pages":
+                    options.maxPagesPerDocument = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--resume":
+                    options.resume = true;
+                    break;
+                case "--report":
+                    options.report = new File(value(args, ++i, arg));
+                    break;
+                case "--font-path":
+                    options.fontPaths.add(value(args, ++i, arg));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (options.input == null || options.output == null) {
+            throw new IllegalArgumentException("--input and --output are required");
+        }
+        if (!options.renderImages && !options.extractText) {
+            throw new IllegalArgumentException("Nothing to do, --no-images requires --text");
+        }
+        if (options.dpi <= 0 || options.threads < 1 || options.maxPagesPerDocument < 1) {
+            throw new IllegalArgumentException("--dpi, --threads and --max-pages must be positive");
+        }
+        if (options.maxDocuments < 1) {
+            options.maxDocuments = options.threads;
+        }
+        if (options.report == null) {
+            options.report = new File(options.output, "batch-report.json");
+        }
+        return options;
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+
+    /**
+     * Resolves the input option to a list of PDF files.  A directory is walked recursively for files ending in
+     * .pdf, any other file is read as a manifest containing one path per line,  blank lines and lines starting
+     * with # are ignored.
+     *
+     * @return sorted list of documents to process.
+     * @throws IOException error reading the manifest or directory.
+     */
+    public List<File> resolveDocuments() throws IOException {
+        List<File> documents = new ArrayList<>();
+        if (input.isDirectory()) {
+            collect(input, documents);
+        } else {
+            for (String line : Files.readAllLines(input.toPath(), StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    documents.add(new File(line));
+                }
+            }
+        }
+        return documents;
+    }
+
+    private static void collect(File directory, List<File> documents) {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        Arrays.sort(files);
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collect(file, documents);
+            } else if (file.getName().toLowerCase(Locale.ENGLISH).endsWith(".pdf")) {
+                documents.add(file);
+            }
+        }
+    }
+
+    /**
+     * Gets the directory page output for the given document is written to.  Documents found by walking an input
+     * directory keep their relative path, manifest entries are keyed by name and a hash of their location so
+     * identically named files don't collide.
+     *
+     * @param document document being processed.
+     * @return output directory for the document's pages.
+     */
+    public File getOutputDirectory(File document) {
+        String name = document.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) name = name.substring(0, dot);
+        if (input.isDirectory()) {
+            File parent = document.getParentFile();
+            String relative = parent == null ? "" :
+                    input.getAbsoluteFile().toPath().relativize(parent.getAbsoluteFile().toPath()).toString();
+            return new File(new File(output, relative), name);
+        }
+        return new File(output, name + "-" + Integer.toHexString(document.getAbsolutePath().hashCode()));
+    }
+
+    public File getOutput() {
+        return output;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public float getDpi() {
+        return dpi;
+    }
+
+    public boolean isRenderImages() {
+        return renderImages;
+    }
+
+    public boolean isExtractText() {
+        return extractText;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getMaxDocuments() {
+        return maxDocuments;
+    }
+
+    public int getMaxPagesPerDocument() {
+        return maxPagesPerDocument;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    public File getReport() {
+        return report;
+    }
+
+    public List<String> getFontPaths() {
+        return fontPaths;
+    }
+}
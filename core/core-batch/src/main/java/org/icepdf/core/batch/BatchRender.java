@@ -0,0 +1,328 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.batch;
+
+import org.icepdf.core.pobjects.Document;
+import org.icepdf.core.pobjects.PDimension;
+import org.icepdf.core.pobjects.Page;
+import org.icepdf.core.pobjects.fonts.FontManager;
+import org.icepdf.core.pobjects.graphics.text.PageText;
+import org.icepdf.core.util.GraphicsRenderingHints;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless batch renderer and text extractor.  Documents are processed on a work stealing {@link ForkJoinPool},
+ * each document forks its pages in bounded waves so idle workers can steal pages from large documents while the
+ * number of open documents, and therefore the heap footprint, stays capped.
+ * <p>
+ * Completed pages are recorded in a progress log in the output directory, a run started with --resume skips them.
+ * A json report with throughput and latency percentiles is written when the run completes.
+ * <pre>
+ * java -Djava.awt.headless=true -cp ... org.icepdf.core.batch.BatchRender --input pdfs --output out --dpi 150 --text
+ * </pre>
+ *
+ * @since 7.0
+ */
+public class BatchRender {
+
+    private static final Logger logger =
+            Logger.getLogger(BatchRender.class.toString());
+
+    private final BatchOptions options;
+    private final BatchReport report = new BatchReport();
+    private final Semaphore openDocuments;
+    private ProgressLog progress;
+
+    public BatchRender(BatchOptions options) {
+        this.options = options;
+        openDocuments = new Semaphore(options.getMaxDocuments());
+    }
+
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        BatchOptions options;
+        try {
+            options = BatchOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(BatchOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        try {
+            BatchReport report = new BatchRender(options).run();
+            System.out.println("Processed " + report.getPages() + " pages, " + report.getFailures() +
+                    " failures, report written to " + options.getReport());
+            System.exit(report.getFailures() > 0 ? 1 : 0);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Batch run failed.", e);
+            System.exit(3);
+        }
+    }
+
+    /**
+     * Processes all documents resolved from the input option and writes the report.
+     *
+     * @return report of the completed run.
+     * @throws IOException error reading the input or writing the progress log or report.
+     */
+    public BatchReport run() throws IOException {
+        List<File> documents = options.resolveDocuments();
+        File output = options.getOutput();
+        if (!output.isDirectory() && !output.mkdirs()) {
+            throw new IOException("Could not create output directory " + output);
+        }
+        List<String> fontPaths = options.getFontPaths();
+        FontManager.getInstance().readSystemFonts(fontPaths.isEmpty() ? null : fontPaths.toArray(new String[0]));
+
+        ForkJoinPool pool = new ForkJoinPool(options.getThreads());
+        try (ProgressLog progressLog = new ProgressLog(output, options.isResume())) {
+            progress = progressLog;
+            pool.invoke(new BatchTask(documents));
+        } finally {
+            pool.shutdown();
+        }
+        report.write(options.getReport(), options);
+        return report;
+    }
+
+    /**
+     * Forks one task per document, waiting on the open document permits before each fork.
+     */
+    private class BatchTask extends RecursiveAction {
+        private final List<File> documents;
+
+        BatchTask(List<File> documents) {
+            this.documents = documents;
+        }
+
+        @Override
+        protected void compute() {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(documents.size());
+            for (File file : documents) {
+                String key = file.getAbsolutePath();
+                if (progress.isDocumentComplete(key)) {
+                    report.documentSkipped();
+                    continue;
+                }
+                try {
+                    ForkJoinPool.managedBlock(new PermitBlocker());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                tasks.add(new DocumentTask(file).fork());
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+    }
+
+    private class PermitBlocker implements ForkJoinPool.ManagedBlocker {
+        private boolean acquired;
+
+        @Override
+        public boolean block() throws InterruptedException {
+            if (!acquired) {
+                openDocuments.acquire();
+                acquired = true;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return acquired || (acquired = openDocuments.tryAcquire());
+        }
+    }
+
+    /**
+     * Opens a document and processes its pages in waves of at most max-pages forked page tasks, the document
+     * permit is released once the document has been disposed.
+     */
+    private class DocumentTask extends RecursiveAction {
+        private final File file;
+
+        DocumentTask(File file) {
+            this.file = file;
+        }
+
+        @Override
+        protected void compute() {
+            String key = file.getAbsolutePath();
+            Document document = new Document();
+            try {
+                long start = System.nanoTime();
+                document.setFile(key);
+                report.documentOpened(System.nanoTime() - start);
+
+                File directory = options.getOutputDirectory(file);
+                if (!directory.isDirectory() && !directory.mkdirs()) {
+                    throw new IOException("Could not create output directory " + directory);
+                }
+                int pageCount = document.getNumberOfPages();
+                int wave = options.getMaxPagesPerDocument();
+                List<PageTask> pages = new ArrayList<>(wave);
+                boolean complete = true;
+                for (int i = 0; i < pageCount; i++) {
+                    if (progress.isPageComplete(key, i)) {
+                        report.pageSkipped();
+                        continue;
+                    }
+                    pages.add(new PageTask(document, key, directory, i));
+                    if (pages.size() == wave) {
+                        complete &= invokePages(pages);
+                    }
+                }
+                complete &= invokePages(pages);
+                // failed pages are tried again by the next resumed run.
+                if (complete) {
+                    progress.documentComplete(key, pageCount);
+                }
+            } catch (Throwable e) {
+                logger.log(Level.WARNING, "Error processing document " + key, e);
+                report.documentFailed(key, e);
+            } finally {
+                document.dispose();
+                openDocuments.release();
+            }
+        }
+
+        /**
+         * Runs and clears a wave of page tasks.
+         *
+         * @return true if every page in the wave was processed.
+         */
+        private boolean invokePages(List<PageTask> pages) {
+            boolean complete = true;
+            if (!pages.isEmpty()) {
+                invokeAll(pages);
+                for (PageTask page : pages) {
+                    complete &= page.isComplete();
+                }
+                pages.clear();
+            }
+            return complete;
+        }
+    }
+
+    private class PageTask extends RecursiveAction {
+        private final Document document;
+        private final String key;
+        private final File directory;
+        private final int pageIndex;
+        private boolean complete;
+
+        PageTask(Document document, String key, File directory, int pageIndex) {
+            this.document = document;
+            this.key = key;
+            this.directory = directory;
+            this.pageIndex = pageIndex;
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+
+        @Override
+        protected void compute() {
+            Page page = null;
+            try {
+                String baseName = String.format(Locale.ENGLISH, "page-%05d", pageIndex + 1);
+                long bytes = 0;
+                long start = System.nanoTime();
+                page = document.getPageTree().getPage(pageIndex);
+                page.init();
+                long initNanos = System.nanoTime() - start;
+
+                long renderNanos = -1;
+                if (options.isRenderImages()) {
+                    start = System.nanoTime();
+                    File imageFile = new File(directory, baseName + "." + options.getFormat().extension);
+                    render(page, imageFile);
+                    renderNanos = System.nanoTime() - start;
+                    bytes += imageFile.length();
+                }
+                long textNanos = -1;
+                if (options.isExtractText()) {
+                    start = System.nanoTime();
+                    File textFile = new File(directory, baseName + ".txt");
+                    PageText pageText = page.getText();
+                    try (Writer writer = new OutputStreamWriter(new FileOutputStream(textFile),
+                            StandardCharsets.UTF_8)) {
+                        writer.write(pageText != null ? pageText.toString() : "");
+                    }
+                    textNanos = System.nanoTime() - start;
+                    bytes += textFile.length();
+                }
+                progress.pageComplete(key, pageIndex);
+                report.pageComplete(initNanos, renderNanos, textNanos, bytes);
+                complete = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                report.pageFailed(key, pageIndex, e);
+            } catch (Throwable e) {
+                logger.log(Level.WARNING, "Error processing page " + (pageIndex + 1) + " of " + key, e);
+                report.pageFailed(key, pageIndex, e);
+            } finally {
+                // each page is visited once, don't keep its shapes around until the document is disposed.
+                if (page != null) {
+                    page.releasePageState();
+                }
+            }
+        }
+
+        private void render(Page page, File imageFile) throws InterruptedException, IOException {
+            float scale = options.getDpi() / 72f;
+            PDimension size = page.getSize(Page.BOUNDARY_CROPBOX, 0, scale);
+            int width = Math.max(1, (int) Math.ceil(size.getWidth()));
+            int height = Math.max(1, (int) Math.ceil(size.getHeight()));
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            try {
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, width, height);
+                page.paint(g, GraphicsRenderingHints.PRINT, Page.BOUNDARY_CROPBOX, 0, scale, true, false);
+            } finally {
+                g.dispose();
+            }
+            try {
+                if (!ImageIO.write(image, options.getFormat().imageIoName, imageFile)) {
+                    throw new IOException("No image writer found for " + options.getFormat().imageIoName);
+                }
+            } finally {
+                image.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.batch;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects throughput and latency figures for a batch run and writes them out as a small json document.  Latencies
+ * are kept as raw millisecond samples, a nightly run of a few million pages is still only tens of megabytes.
+ *
+ * @since 7.0
+ */
+public class BatchReport {
+
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLong documents = new AtomicLong();
+    private final AtomicLong documentsSkipped = new AtomicLong();
+    private final AtomicLong documentsFailed = new AtomicLong();
+    private final AtomicLong pages = new AtomicLong();
+    private final AtomicLong pagesSkipped = new AtomicLong();
+    private final AtomicLong pagesFailed = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    private final Samples openLatency = new Samples();
+    private final Samples initLatency = new Samples();
+    private final Samples renderLatency = new Samples();
+    private final Samples textLatency = new Samples();
+    private final List<String> failures = new ArrayList<>();
+
+    public void documentOpened(long nanos) {
+        documents.incrementAndGet();
+        openLatency.add(nanos);
+    }
+
+    public void documentSkipped() {
+        documentsSkipped.incrementAndGet();
+    }
+
+    public void documentFailed(String document, Throwable e) {
+        documentsFailed.incrementAndGet();
+        synchronized (failures) {
+            failures.add(document + ": " + e);
+        }
+    }
+
+    public void pageComplete(long initNanos, long renderNanos, long textNanos, long bytes) {
+        pages.incrementAndGet();
+        initLatency.add(initNanos);
+        if (renderNanos >= 0) renderLatency.add(renderNanos);
+        if (textNanos >= 0) textLatency.add(textNanos);
+        bytesWritten.addAndGet(bytes);
+    }
+
+    public void pageSkipped() {
+        pagesSkipped.incrementAndGet();
+    }
+
+    public void pageFailed(String document, int pageIndex, Throwable e) {
+        pagesFailed.incrementAndGet();
+        synchronized (failures) {
+            failures.add(document + " page " + pageIndex + ": " + e);
+        }
+    }
+
+    public long getPages() {
+        return pages.get();
+    }
+
+    public long getFailures() {
+        return documentsFailed.get() + pagesFailed.get();
+    }
+
+    public void write(File file, BatchOptions options) throws IOException {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        StringBuilder json = new StringBuilder(4096);
+        json.append("{\n");
+        field(json, "threads", options.getThreads()).append(",\n");
+        field(json, "dpi", options.getDpi()).append(",\n");
+        json.append("  \"format\": \"").append(options.getFormat().imageIoName).append("\",\n");
+        field(json, "elapsedSeconds", seconds).append(",\n");
+        field(json, "documents", documents.get()).append(",\n");
+        field(json, "documentsSkipped", documentsSkipped.get()).append(",\n");
+        field(json, "documentsFailed", documentsFailed.get()).append(",\n");
+        field(json, "pages", pages.get()).append(",\n");
+        field(json, "pagesSkipped", pagesSkipped.get()).append(",\n");
+        field(json, "pagesFailed", pagesFailed.get()).append(",\n");
+        field(json, "pagesPerSecond", seconds > 0 ? pages.get() / seconds : 0).append(",\n");
+        field(json, "bytesWritten", bytesWritten.get()).append(",\n");
+        json.append("  \"latencyMs\": {\n");
+        openLatency.write(json, "open").append(",\n");
+        initLatency.write(json, "pageInit").append(",\n");
+        renderLatency.write(json, "render").append(",\n");
+        textLatency.write(json, "text").append("\n");
+        json.append("  },\n");
+        json.append("  \"failures\": [");
+        synchronized (failures) {
+            for (int i = 0; i < failures.size(); i++) {
+                json.append(i == 0 ? "\n    " : ",\n    ").append(quote(failures.get(i)));
+            }
+        }
+        json.append("\n  ]\n}\n");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+    }
+
+    private static StringBuilder field(StringBuilder json, String name, Number value) {
+        json.append("  \"").append(name).append("\": ");
+        if (value instanceof Double || value instanceof Float) {
+            json.append(String.format(Locale.ENGLISH, "%.3f", value.doubleValue()));
+        } else {
+            json.append(value);
+        }
+        return json;
+    }
+
+    static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static class Samples {
+        private long[] values = new long[1024];
+        private int size;
+
+        synchronized void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        synchronized StringBuilder write(StringBuilder json, String name) {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long value : sorted) total += value;
+            json.append("    \"").append(name).append("\": {")
+                    .append("\"count\": ").append(size)
+                    .append(", \"mean\": ").append(ms(size > 0 ? total / size : 0))
+                    .append(", \"p50\": ").append(ms(percentile(sorted, 50)))
+                    .append(", \"p90\": ").append(ms(percentile(sorted, 90)))
+                    .append(", \"p99\": ").append(ms(percentile(sorted, 99)))
+                    .append(", \"max\": ").append(ms(size > 0 ? sorted[size - 1] : 0))
+                    .append('}');
+            return json;
+        }
+
+        private static long percentile(long[] sorted, int percentile) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(sorted.length * percentile / 100.0) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+
+        private static String ms(long nanos) {
+            return String.format(Locale.ENGLISH, "%.3f", nanos / 1e6);
+        }
+    }
+}
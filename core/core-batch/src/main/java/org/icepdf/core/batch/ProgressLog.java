@@ -0,0 +1,99 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.batch;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append only progress log used to resume an interrupted batch.  Every completed page is written as a single
+ * flushed line so a killed process loses at most the pages that were in flight, a document line is added once all
+ * of its pages are done so whole documents can be skipped without opening them.
+ * <pre>
+ * P &lt;tab&gt; /path/to/document.pdf &lt;tab&gt; pageIndex
+ * D &lt;tab&gt; /path/to/document.pdf &lt;tab&gt; pageCount
+ * </pre>
+ *
+ * @since 7.0
+ */
+public class ProgressLog implements Closeable {
+
+    public static final String FILE_NAME = "batch-progress.log";
+
+    private final ConcurrentHashMap<String, Set<Integer>> completedPages = new ConcurrentHashMap<>();
+    private final Set<String> completedDocuments = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Writer writer;
+
+    public ProgressLog(File outputDirectory, boolean resume) throws IOException {
+        File log = new File(outputDirectory, FILE_NAME);
+        if (resume && log.exists()) {
+            load(log);
+        }
+        writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(log, resume), StandardCharsets.UTF_8));
+    }
+
+    private void load(File log) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(log), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                // a partially written last line is simply ignored.
+                if (fields.length != 3) continue;
+                try {
+                    if ("P".equals(fields[0])) {
+                        completedPages.computeIfAbsent(fields[1], k -> new HashSet<>())
+                                .add(Integer.parseInt(fields[2]));
+                    } else if ("D".equals(fields[0])) {
+                        completedDocuments.add(fields[1]);
+                    }
+                } catch (NumberFormatException e) {
+                    // skip the truncated line
+                }
+            }
+        }
+    }
+
+    public boolean isDocumentComplete(String document) {
+        return completedDocuments.contains(document);
+    }
+
+    public boolean isPageComplete(String document, int pageIndex) {
+        Set<Integer> pages = completedPages.get(document);
+        return pages != null && pages.contains(pageIndex);
+    }
+
+    public synchronized void pageComplete(String document, int pageIndex) throws IOException {
+        writer.write("P\t" + document + "\t" + pageIndex + "\n");
+        writer.flush();
+    }
+
+    public synchronized void documentComplete(String document, int pageCount) throws IOException {
+        completedDocuments.add(document);
+        writer.write("D\t" + document + "\t" + pageCount + "\n");
+        writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
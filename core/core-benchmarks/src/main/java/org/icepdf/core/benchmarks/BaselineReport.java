@@ -0,0 +1,140 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two JMH csv result files (-rf csv) and prints the relative change of every score that is present in
+ * both, including the allocation rates reported by the gc profiler.  Scores that got worse by more than the given
+ * threshold percentage are flagged and cause a non zero exit status so the report can gate a CI build.
+ * <p>
+ * Usage: BaselineReport baseline.csv results.csv [thresholdPercent]
+ *
+ * @since 7.0
+ */
+public final class BaselineReport {
+
+    private BaselineReport() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineReport baseline.csv results.csv [thresholdPercent]");
+            System.exit(2);
+        }
+        if (!Files.exists(Paths.get(args[0]))) {
+            System.err.println("No baseline found at " + args[0] + ", copy a results.csv there to create one.");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        Map<String, Score> baseline = read(args[0]);
+        Map<String, Score> current = read(args[1]);
+
+        int regressions = 0;
+        System.out.println(String.format("%-90s %14s %14s %9s", "Benchmark", "Baseline", "Current", "Change"));
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null || before.value == 0) {
+                System.out.println(String.format("%-90s %14s %14.3f %9s", entry.getKey(), "-", after.value, "new"));
+                continue;
+            }
+            double change = (after.value - before.value) / before.value * 100;
+            // throughput is better when higher, everything else (time, bytes) is better when lower.
+            double worse = after.higherIsBetter() ? -change : change;
+            boolean regression = worse > threshold;
+            if (regression) regressions++;
+            System.out.println(String.format("%-90s %14.3f %14.3f %+8.1f%% %s %s", entry.getKey(),
+                    before.value, after.value, change, after.unit, regression ? "REGRESSION" : ""));
+        }
+        System.out.println(regressions + " regression(s) above " + threshold + "%");
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Score> read(String file) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+        Map<String, Score> scores = new LinkedHashMap<>();
+        if (lines.isEmpty()) return scores;
+        List<String> header = split(lines.get(0));
+        int benchmark = header.indexOf("Benchmark");
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int unit = header.indexOf("Unit");
+        for (int i = 1; i < lines.size(); i++) {
+            List<String> columns = split(lines.get(i));
+            if (columns.size() < header.size()) continue;
+            StringBuilder key = new StringBuilder(columns.get(benchmark));
+            // parameter columns follow the fixed columns, e.g. "Param: sample"
+            for (int c = 0; c < header.size(); c++) {
+                if (header.get(c).startsWith("Param: ") && !columns.get(c).isEmpty()) {
+                    key.append(' ').append(header.get(c).substring(7)).append('=').append(columns.get(c));
+                }
+            }
+            try {
+                scores.put(key.toString(), new Score(columns.get(mode), columns.get(unit),
+                        Double.parseDouble(columns.get(score))));
+            } catch (NumberFormatException e) {
+                // NaN scores from failed runs are skipped.
+            }
+        }
+        return scores;
+    }
+
+    private static List<String> split(String line) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                columns.add(column.toString());
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        columns.add(column.toString());
+        return columns;
+    }
+
+    private static final class Score {
+        final String mode;
+        final String unit;
+        final double value;
+
+        Score(String mode, String unit, double value) {
+            this.mode = mode;
+            this.unit = unit;
+            this.value = value;
+        }
+
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode) && unit.startsWith("ops/");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.benchmarks;
+
+import org.icepdf.core.pobjects.Document;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Resolves a benchmark sample name to PDF bytes.  The names text, vector, image, transparency and forms map to the
+ * documents built by {@link SamplePdfGenerator},  any other value is treated as a path to a PDF on disk so bundled
+ * or customer samples can be benchmarked with JMH's parameter override, for example
+ * <code>-p sample=/data/statement.pdf</code>.
+ *
+ * @since 7.0
+ */
+public final class BenchmarkDocuments {
+
+    public static final int GENERATED_PAGES = 4;
+
+    private BenchmarkDocuments() {
+    }
+
+    public static byte[] load(String sample) throws IOException {
+        switch (sample) {
+            case "text":
+                return SamplePdfGenerator.text(GENERATED_PAGES);
+            case "vector":
+                return SamplePdfGenerator.vector(GENERATED_PAGES);
+            case "image":
+                return SamplePdfGenerator.image(GENERATED_PAGES);
+            case "transparency":
+                return SamplePdfGenerator.transparency(GENERATED_PAGES);
+            case "forms":
+                return SamplePdfGenerator.forms(GENERATED_PAGES);
+            default:
+                return Files.readAllBytes(Paths.get(sample));
+        }
+    }
+
+    public static Document open(byte[] data, String sample) throws Exception {
+        Document document = new Document();
+        document.setByteArray(data, 0, data.length, sample);
+        return document;
+    }
+}
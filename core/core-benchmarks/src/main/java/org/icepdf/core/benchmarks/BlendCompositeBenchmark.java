@@ -0,0 +1,72 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.benchmarks;
+
+import org.icepdf.core.pobjects.graphics.BlendComposite;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compositing throughput of {@link BlendComposite} for a 1024x1024 ARGB source drawn over an ARGB target.
+ *
+ * @since 7.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class BlendCompositeBenchmark {
+
+    private static final int SIZE = 1024;
+
+    // blending mode equivalents of the sixteen PDF blend modes.
+    @Param({"NORMAL", "MULTIPLY", "SCREEN", "OVERLAY", "DARKEN", "LIGHTEN", "SOFT_DODGE", "SOFT_BURN",
+            "HARD_LIGHT", "SOFT_LIGHT", "DIFFERENCE", "EXCLUSION", "HUE", "SATURATION", "COLOR", "LUMINOSITY"})
+    public String blendMode;
+
+    private BufferedImage source;
+    private BufferedImage target;
+    private Composite composite;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        source = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+        target = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = source.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(255, 0, 0, 200), SIZE, SIZE, new Color(0, 0, 255, 120)));
+        g.fillRect(0, 0, SIZE, SIZE);
+        g.dispose();
+        g = target.createGraphics();
+        g.setPaint(new GradientPaint(0, SIZE, new Color(20, 200, 20), SIZE, 0, new Color(240, 240, 200)));
+        g.fillRect(0, 0, SIZE, SIZE);
+        g.dispose();
+        composite = BlendComposite.getInstance(BlendComposite.BlendingMode.valueOf(blendMode), 0.8f);
+    }
+
+    @Benchmark
+    public BufferedImage compose() {
+        Graphics2D g = target.createGraphics();
+        g.setComposite(composite);
+        g.drawImage(source, 0, 0, null);
+        g.dispose();
+        return target;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.benchmarks;
+
+import org.icepdf.core.pobjects.Name;
+import org.icepdf.core.pobjects.Resources;
+import org.icepdf.core.pobjects.graphics.DeviceCMYK;
+import org.icepdf.core.pobjects.graphics.DeviceGray;
+import org.icepdf.core.pobjects.graphics.DeviceRGB;
+import org.icepdf.core.pobjects.graphics.PColorSpace;
+import org.icepdf.core.util.Library;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Colour space resolution with several documents open at once, each thread plays one document and resolves
+ * the spaces a content stream asks for on every colour operator.
+ *
+ * @since 7.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class ColorSpaceBenchmark {
+
+    private static final Name[] DEVICE_NAMES = {
+            DeviceRGB.DEVICERGB_KEY, DeviceCMYK.DEVICECMYK_KEY, DeviceGray.DEVICEGRAY_KEY};
+    private static final Name[] RESOURCE_NAMES = {new Name("CS0"), new Name("CS1"), new Name("CS2")};
+
+    private Library library;
+    private Resources resources;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        library = new Library();
+
+        HashMap tintTransform = new HashMap();
+        tintTransform.put(new Name("FunctionType"), 2);
+        tintTransform.put(new Name("Domain"), numbers(0, 1));
+        tintTransform.put(new Name("C0"), numbers(0, 0, 0, 0));
+        tintTransform.put(new Name("C1"), numbers(0, 0.6f, 1, 0));
+        tintTransform.put(new Name("N"), 1);
+        List separation = new ArrayList(Arrays.asList(
+                new Name("Separation"), new Name("PANTONE 021 C"), DeviceCMYK.DEVICECMYK_KEY, tintTransform));
+
+        HashMap whitePoint = new HashMap();
+        whitePoint.put(new Name("WhitePoint"), numbers(0.9505f, 1, 1.089f));
+        List calRgb = new ArrayList(Arrays.asList(new Name("CalRGB"), whitePoint));
+
+        HashMap colorSpaces = new HashMap();
+        colorSpaces.put(RESOURCE_NAMES[0], separation);
+        colorSpaces.put(RESOURCE_NAMES[1], calRgb);
+        colorSpaces.put(RESOURCE_NAMES[2], DeviceRGB.DEVICERGB_KEY);
+        HashMap entries = new HashMap();
+        entries.put(Resources.COLORSPACE_KEY, colorSpaces);
+        resources = new Resources(library, entries);
+    }
+
+    @Benchmark
+    public int deviceColorSpaces() {
+        int hash = 0;
+        for (Name name : DEVICE_NAMES) {
+            hash += PColorSpace.getColorSpace(library, name).getNumComponents();
+        }
+        return hash;
+    }
+
+    @Benchmark
+    public int resourceColorSpaces() {
+        int hash = 0;
+        for (Name name : RESOURCE_NAMES) {
+            hash += resources.getColorSpace(name).getNumComponents();
+        }
+        return hash;
+    }
+
+    private static List<Number> numbers(float... values) {
+        List<Number> list = new ArrayList<>(values.length);
+        for (float value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.benchmarks;
+
+import com.twelvemonkeys.imageio.plugins.tiff.CCITTFaxEncoderStream;
+import org.icepdf.core.pobjects.Name;
+import org.icepdf.core.pobjects.filters.CCITTFaxDecoder;
+import org.icepdf.core.pobjects.filters.FlateDecode;
+import org.icepdf.core.util.Library;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the stream filters that dominate image heavy documents: FlateDecode and CCITT G4.
+ *
+ * @since 7.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class DecodeBenchmark {
+
+    // letter page scanned at 200 dpi.
+    private static final int FAX_WIDTH = 1700;
+    private static final int FAX_HEIGHT = 2200;
+    // TIFF compression tag value for T.6
+    private static final int COMPRESSION_CCITT_T6 = 4;
+    private static final int SMALL_STREAM_COUNT = 1000;
+    private static final int SMALL_STREAM_LENGTH = 2048;
+
+    private Library library;
+    private HashMap flateDictionary;
+    private byte[] flateData;
+    private byte[][] smallFlateData;
+    private byte[] faxData;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        library = new Library();
+        flateDictionary = new HashMap();
+        flateDictionary.put(new Name("Filter"), new Name("FlateDecode"));
+
+        // mix of repetitive and random data, similar to a content stream.
+        Random random = new Random(3);
+        byte[] raw = new byte[4 * 1024 * 1024];
+        for (int i = 0; i < raw.length; i++) {
+            raw[i] = (byte) (i % 64 < 48 ? 'a' + (i % 26) : random.nextInt(256));
+        }
+        flateData = SamplePdfGenerator.deflate(raw);
+        // font and form streams, a couple of KB each.
+        smallFlateData = new byte[SMALL_STREAM_COUNT][];
+        for (int i = 0; i < SMALL_STREAM_COUNT; i++) {
+            int offset = random.nextInt(raw.length - SMALL_STREAM_LENGTH);
+            smallFlateData[i] = SamplePdfGenerator.deflate(Arrays.copyOfRange(raw, offset, offset + SMALL_STREAM_LENGTH));
+        }
+
+        faxData = encodeG4(createScannedPage());
+    }
+
+    @Benchmark
+    public int flateDecode() throws Exception {
+        InputStream input = new FlateDecode(library, flateDictionary, new ByteArrayInputStream(flateData));
+        byte[] buffer = new byte[8192];
+        int total = 0, read;
+        while ((read = input.read(buffer)) > 0) {
+            total += read;
+        }
+        input.close();
+        return total;
+    }
+
+    @Benchmark
+    public int flateDecodeSmallStreams() throws Exception {
+        byte[] buffer = new byte[8192];
+        int total = 0, read;
+        for (byte[] data : smallFlateData) {
+            InputStream input = new FlateDecode(library, flateDictionary, data, 0, data.length);
+            while ((read = input.read(buffer)) > 0) {
+                total += read;
+            }
+            input.close();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public byte[] ccittFaxDecoderT6() {
+        return CCITTFaxDecoder.decode(faxData, -1, FAX_WIDTH, FAX_HEIGHT, false);
+    }
+
+    @Benchmark
+    public byte[] ccittFaxDecoderT6Band() {
+        // middle tenth of the page, as rendered for a zoomed in viewport.
+        int rows = FAX_HEIGHT / 10;
+        CCITTFaxDecoder decoder = new CCITTFaxDecoder(faxData, -1, FAX_WIDTH, false);
+        decoder.skipRows((FAX_HEIGHT - rows) / 2);
+        byte[] band = new byte[rows * decoder.getRowBytes()];
+        decoder.decodeRows(band, 0, rows);
+        return band;
+    }
+
+    private static BufferedImage createScannedPage() {
+        BufferedImage page = new BufferedImage(FAX_WIDTH, FAX_HEIGHT, BufferedImage.TYPE_BYTE_BINARY);
+        Graphics2D g = page.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, FAX_WIDTH, FAX_HEIGHT);
+        g.setColor(Color.BLACK);
+        g.setFont(new Font(Font.SERIF, Font.PLAIN, 28));
+        for (int y = 120; y < FAX_HEIGHT - 100; y += 40) {
+            g.drawString("The quick brown fox jumps over the lazy dog 0123456789 " + y, 100, y);
+        }
+        g.drawRect(60, 60, FAX_WIDTH - 120, FAX_HEIGHT - 120);
+        g.dispose();
+        return page;
+    }
+
+    private static byte[] encodeG4(BufferedImage page) throws Exception {
+        byte[] pixels = ((DataBufferByte) page.getRaster().getDataBuffer()).getData();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(pixels.length / 8);
+        OutputStream encoder = new CCITTFaxEncoderStream(out, FAX_WIDTH, FAX_HEIGHT, COMPRESSION_CCITT_T6, 1, 0L);
+        encoder.write(pixels);
+        encoder.close();
+        return out.toByteArray();
+    }
+}
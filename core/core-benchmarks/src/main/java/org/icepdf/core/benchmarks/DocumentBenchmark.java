@@ -0,0 +1,132 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.benchmarks;
+
+import org.icepdf.core.pobjects.Document;
+import org.icepdf.core.pobjects.Page;
+import org.icepdf.core.pobjects.graphics.text.LineText;
+import org.icepdf.core.pobjects.graphics.text.PageText;
+import org.icepdf.core.pobjects.graphics.text.WordText;
+import org.icepdf.core.util.GraphicsRenderingHints;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end document benchmarks covering the operations a typical batch or viewer workload performs: opening a
+ * document, initializing (parsing) a page, painting to a BufferedImage, text extraction, search and save.
+ *
+ * @since 7.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class DocumentBenchmark {
+
+    @Param({"text", "vector", "image", "transparency", "forms"})
+    public String sample;
+
+    private byte[] data;
+    private Document document;
+    private BufferedImage canvas;
+
+    @Setup(Level.Trial)
+    public void loadSample() throws Exception {
+        data = BenchmarkDocuments.load(sample);
+    }
+
+    @Setup(Level.Invocation)
+    public void openDocument() throws Exception {
+        document = BenchmarkDocuments.open(data, sample);
+        // 72 dpi letter page.
+        canvas = new BufferedImage(612, 792, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    @TearDown(Level.Invocation)
+    public void disposeDocument() {
+        document.dispose();
+    }
+
+    @Benchmark
+    public int open() throws Exception {
+        Document opened = BenchmarkDocuments.open(data, sample);
+        int pages = opened.getNumberOfPages();
+        opened.dispose();
+        return pages;
+    }
+
+    @Benchmark
+    public void pageInit(Blackhole blackhole) throws Exception {
+        for (int i = 0, max = document.getNumberOfPages(); i < max; i++) {
+            Page page = document.getPageTree().getPage(i);
+            page.init();
+            blackhole.consume(page.getShapes());
+        }
+    }
+
+    @Benchmark
+    public BufferedImage paint() throws Exception {
+        for (int i = 0, max = document.getNumberOfPages(); i < max; i++) {
+            Graphics2D g = canvas.createGraphics();
+            document.paintPage(i, g, GraphicsRenderingHints.SCREEN, Page.BOUNDARY_CROPBOX, 0f, 1f);
+            g.dispose();
+        }
+        return canvas;
+    }
+
+    @Benchmark
+    public int textExtraction() throws Exception {
+        int length = 0;
+        for (int i = 0, max = document.getNumberOfPages(); i < max; i++) {
+            PageText pageText = document.getPageText(i);
+            if (pageText != null) {
+                length += pageText.toString().length();
+            }
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int search() throws Exception {
+        int hits = 0;
+        for (int i = 0, max = document.getNumberOfPages(); i < max; i++) {
+            PageText pageText = document.getPageText(i);
+            if (pageText == null) continue;
+            for (LineText line : pageText.getPageLines()) {
+                for (WordText word : line.getWords()) {
+                    if ("dolor".equalsIgnoreCase(word.getText())) {
+                        hits++;
+                    }
+                }
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int save() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length + 4096);
+        document.saveToOutputStream(out);
+        return out.size();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.benchmarks;
+
+import org.icepdf.core.pobjects.Resources;
+import org.icepdf.core.util.Library;
+import org.icepdf.core.util.Parser;
+import org.icepdf.core.util.parser.content.ContentParser;
+import org.icepdf.core.util.parser.content.Lexer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the object {@link Parser} and the content stream {@link Lexer}/{@link ContentParser} pair,  run
+ * over synthetic object and content streams so the numbers aren't dominated by stream decoding.
+ *
+ * @since 7.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class ParserBenchmark {
+
+    private byte[] objects;
+    private byte[] textContent;
+    private byte[] pathContent;
+    private Library library;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        library = new Library();
+        Random random = new Random(11);
+        StringBuilder sb = new StringBuilder(256 * 1024);
+        for (int i = 1; i <= 2000; i++) {
+            sb.append(i).append(" 0 obj\n<< /Type /Annot /Subtype /Link /Rect [")
+                    .append(random.nextInt(600)).append(' ').append(random.nextInt(800)).append(' ')
+                    .append(random.nextInt(600)).append(' ').append(random.nextInt(800))
+                    .append("] /Border [0 0 0] /A << /S /URI /URI (https://example.com/").append(i)
+                    .append(") >> /P ").append(i + 1).append(" 0 R /NM <FEFF00410042>")
+                    .append(" /F 4 /M (D:20200101000000Z) >>\nendobj\n");
+        }
+        objects = sb.toString().getBytes(StandardCharsets.US_ASCII);
+
+        sb.setLength(0);
+        sb.append("BT /F1 9 Tf 11 TL 36 756 Td\n");
+        for (int i = 0; i < 3000; i++) {
+            sb.append("[(Lorem ipsum ) -250 (dolor sit) 120 (amet)] TJ T*\n");
+        }
+        sb.append("ET\n");
+        textContent = sb.toString().getBytes(StandardCharsets.US_ASCII);
+
+        sb.setLength(0);
+        for (int i = 0; i < 5000; i++) {
+            int x = random.nextInt(560), y = random.nextInt(740);
+            sb.append("0.5 0.25 0.75 rg ").append(x).append(' ').append(y).append(" m ")
+                    .append(x + 20).append(' ').append(y + 35.5f).append(' ')
+                    .append(x + 40).append(' ').append(y - 12.25f).append(' ')
+                    .append(x + 60).append(' ').append(y).append(" c h f\n");
+        }
+        pathContent = sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public void objectParser(Blackhole blackhole) throws Exception {
+        Parser parser = new Parser(new ByteArrayInputStream(objects));
+        Object object;
+        while ((object = parser.getObject(library)) != null) {
+            blackhole.consume(object);
+        }
+    }
+
+    @Benchmark
+    public void lexerText(Blackhole blackhole) throws Exception {
+        lex(textContent, blackhole);
+    }
+
+    @Benchmark
+    public void lexerPaths(Blackhole blackhole) throws Exception {
+        lex(pathContent, blackhole);
+    }
+
+    @Benchmark
+    public Object contentParserPaths() throws Exception {
+        ContentParser contentParser = new ContentParser(library, new Resources(library, new HashMap()));
+        return contentParser.parse(new byte[][]{pathContent}, null).getShapes();
+    }
+
+    private static void lex(byte[] content, Blackhole blackhole) throws Exception {
+        Lexer lexer = new Lexer();
+        lexer.setContentStream(new byte[][]{content});
+        Object token;
+        while ((token = lexer.next()) != null) {
+            blackhole.consume(token);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.benchmarks;
+
+import org.icepdf.core.pobjects.Name;
+import org.icepdf.core.pobjects.filters.FlateDecode;
+import org.icepdf.core.pobjects.filters.LZWDecode;
+import org.icepdf.core.pobjects.filters.PredictorDecode;
+import org.icepdf.core.util.Library;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for LZWDecode and the PNG/TIFF predictors, using the shapes that show up most in practice:
+ * large cross reference streams and 16 bit images.
+ *
+ * @since 7.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class PredictorBenchmark {
+
+    // type, three byte offset and generation, as written for a cross reference stream.
+    private static final int XREF_COLUMNS = 5;
+    private static final int XREF_ENTRIES = 500000;
+    private static final int IMAGE_WIDTH = 1024;
+    private static final int IMAGE_HEIGHT = 1024;
+    private static final int RGB = 3;
+
+    private Library library;
+    private HashMap xrefDictionary;
+    private byte[] xrefData;
+    private HashMap pngImageDictionary;
+    private byte[] pngImageData;
+    private HashMap tiffImageDictionary;
+    private byte[] tiffImageData;
+    private HashMap lzwDictionary;
+    private byte[] lzwData;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        library = new Library();
+        Random random = new Random(7);
+
+        byte[] xref = new byte[XREF_ENTRIES * XREF_COLUMNS];
+        int offset = 15;
+        for (int i = 0, j = 0; i < XREF_ENTRIES; i++, j += XREF_COLUMNS) {
+            xref[j] = 1;
+            xref[j + 1] = (byte) (offset >> 16);
+            xref[j + 2] = (byte) (offset >> 8);
+            xref[j + 3] = (byte) offset;
+            offset += 40 + random.nextInt(400);
+        }
+        xrefDictionary = dictionary(12, XREF_COLUMNS, 1, 8);
+        xrefData = SamplePdfGenerator.deflate(pngEncode(xref, XREF_COLUMNS, 1, random, false));
+
+        byte[] image = createImage16(random);
+        int rowBytes = IMAGE_WIDTH * RGB * 2;
+        pngImageDictionary = dictionary(15, IMAGE_WIDTH, RGB, 16);
+        pngImageData = SamplePdfGenerator.deflate(pngEncode(image, rowBytes, RGB * 2, random, true));
+        tiffImageDictionary = dictionary(2, IMAGE_WIDTH, RGB, 16);
+        tiffImageData = lzwEncode(tiffEncode16(image, rowBytes, RGB));
+
+        byte[] content = new byte[4 * 1024 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 64 < 48 ? 'a' + (i % 26) : random.nextInt(256));
+        }
+        lzwDictionary = new HashMap();
+        lzwData = lzwEncode(content);
+    }
+
+    @Benchmark
+    public int flateXrefStream() throws IOException {
+        return drain(new FlateDecode(library, xrefDictionary, new ByteArrayInputStream(xrefData)));
+    }
+
+    @Benchmark
+    public int flatePng16BitImage() throws IOException {
+        return drain(new FlateDecode(library, pngImageDictionary, new ByteArrayInputStream(pngImageData)));
+    }
+
+    @Benchmark
+    public int lzwTiff16BitImage() throws IOException {
+        InputStream input = new LZWDecode(new ByteArrayInputStream(tiffImageData), library, tiffImageDictionary);
+        return drain(new PredictorDecode(input, library, tiffImageDictionary));
+    }
+
+    @Benchmark
+    public int lzwDecode() throws IOException {
+        return drain(new LZWDecode(new ByteArrayInputStream(lzwData), library, lzwDictionary));
+    }
+
+    private static int drain(InputStream input) throws IOException {
+        byte[] buffer = new byte[8192];
+        int total = 0, read;
+        while ((read = input.read(buffer)) > 0) {
+            total += read;
+        }
+        input.close();
+        return total;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HashMap dictionary(int predictor, int columns, int colors, int bitsPerComponent) {
+        HashMap decodeParms = new HashMap();
+        decodeParms.put(new Name("Predictor"), predictor);
+        decodeParms.put(new Name("Columns"), columns);
+        decodeParms.put(new Name("Colors"), colors);
+        decodeParms.put(new Name("BitsPerComponent"), bitsPerComponent);
+        HashMap dictionary = new HashMap();
+        dictionary.put(new Name("DecodeParms"), decodeParms);
+        return dictionary;
+    }
+
+    // smooth gradients with a little noise, the sort of data 16 bit scans are made of.
+    private static byte[] createImage16(Random random) {
+        byte[] image = new byte[IMAGE_WIDTH * IMAGE_HEIGHT * RGB * 2];
+        int i = 0;
+        for (int y = 0; y < IMAGE_HEIGHT; y++) {
+            for (int x = 0; x < IMAGE_WIDTH; x++) {
+                for (int c = 0; c < RGB; c++) {
+                    int sample = (x * 40 + y * 20 * (c + 1) + random.nextInt(64)) & 0xffff;
+                    image[i++] = (byte) (sample >> 8);
+                    image[i++] = (byte) sample;
+                }
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Applies the PNG filters, either always Up as xref writers do or a mix of all five types per row as
+     * an optimising image encoder would.
+     */
+    private static byte[] pngEncode(byte[] data, int rowBytes, int bytesPerPixel, Random random, boolean mixed) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length + data.length / rowBytes);
+        byte[] above = new byte[rowBytes];
+        for (int start = 0; start < data.length; start += rowBytes) {
+            int type = mixed ? random.nextInt(5) : 2;
+            out.write(type);
+            for (int i = 0; i < rowBytes; i++) {
+                int left = i >= bytesPerPixel ? data[start + i - bytesPerPixel] & 0xff : 0;
+                int up = above[i] & 0xff;
+                int upLeft = i >= bytesPerPixel ? above[i - bytesPerPixel] & 0xff : 0;
+                int prediction;
+                switch (type) {
+                    case 1:
+                        prediction = left;
+                        break;
+                    case 2:
+                        prediction = up;
+                        break;
+                    case 3:
+                        prediction = (left + up) >> 1;
+                        break;
+                    case 4:
+                        int p = left + up - upLeft;
+                        int pa = Math.abs(p - left), pb = Math.abs(p - up), pc = Math.abs(p - upLeft);
+                        prediction = pa <= pb && pa <= pc ? left : pb <= pc ? up : upLeft;
+                        break;
+                    default:
+                        prediction = 0;
+                }
+                out.write(data[start + i] - prediction);
+            }
+            System.arraycopy(data, start, above, 0, rowBytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] tiffEncode16(byte[] data, int rowBytes, int colors) {
+        byte[] encoded = data.clone();
+        for (int start = 0; start < data.length; start += rowBytes) {
+            for (int i = rowBytes - 2; i >= colors * 2; i -= 2) {
+                int sample = ((data[start + i] & 0xff) << 8) | (data[start + i + 1] & 0xff);
+                int left = ((data[start + i - colors * 2] & 0xff) << 8) | (data[start + i - colors * 2 + 1] & 0xff);
+                int difference = sample - left;
+                encoded[start + i] = (byte) (difference >> 8);
+                encoded[start + i + 1] = (byte) difference;
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * Plain LZW encoder with the default EarlyChange of 1, tracking the decoder's table size so both sides
+     * widen codes at the same point.
+     */
+    private static byte[] lzwEncode(byte[] data) {
+        LzwWriter writer = new LzwWriter(data.length / 2);
+        HashMap<Integer, Integer> table = new HashMap<>();
+        int nextCode = 258;
+        int prefix = -1;
+        for (byte value : data) {
+            int suffix = value & 0xff;
+            if (prefix < 0) {
+                prefix = suffix;
+                continue;
+            }
+            Integer code = table.get(prefix << 8 | suffix);
+            if (code != null) {
+                prefix = code;
+                continue;
+            }
+            writer.write(prefix);
+            table.put(prefix << 8 | suffix, nextCode++);
+            prefix = suffix;
+            if (nextCode == 4095) {
+                writer.write(prefix);
+                writer.write(LzwWriter.CLEAR_TABLE);
+                table.clear();
+                nextCode = 258;
+                prefix = -1;
+            }
+        }
+        if (prefix >= 0) {
+            writer.write(prefix);
+        }
+        writer.write(LzwWriter.END_OF_DATA);
+        return writer.toByteArray();
+    }
+
+    private static final class LzwWriter {
+
+        static final int CLEAR_TABLE = 256;
+        static final int END_OF_DATA = 257;
+
+        private final ByteArrayOutputStream out;
+        private long bits;
+        private int bitCount;
+        // decoder side view of the table, it adds an entry for every code but the first after a clear.
+        private int decoderNextCode = 258;
+        private int codeLength = 9;
+        private boolean first = true;
+
+        LzwWriter(int size) {
+            out = new ByteArrayOutputStream(size);
+            write(CLEAR_TABLE);
+        }
+
+        void write(int code) {
+            bits = bits << codeLength | code;
+            bitCount += codeLength;
+            while (bitCount >= 8) {
+                out.write((int) (bits >> (bitCount - 8)));
+                bitCount -= 8;
+            }
+            if (code == CLEAR_TABLE) {
+                decoderNextCode = 258;
+                codeLength = 9;
+                first = true;
+            } else if (first) {
+                first = false;
+            } else if (decoderNextCode < 4096) {
+                decoderNextCode++;
+                if (decoderNextCode + 1 >= 1 << codeLength && codeLength < 12) {
+                    codeLength++;
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            if (bitCount > 0) {
+                out.write((int) (bits << (8 - bitCount)));
+            }
+            return out.toByteArray();
+        }
+    }
+}
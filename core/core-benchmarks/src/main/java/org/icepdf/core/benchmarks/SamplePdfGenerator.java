@@ -0,0 +1,269 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+/**
+ * Generates small but representative PDF documents in memory so the benchmarks can run without any external
+ * sample files.  Each generator targets a different hot path: dense text, vector paths, Flate images, transparency
+ * blending and reused form XObjects.  Output is deterministic for a given page count.
+ *
+ * @since 7.0
+ */
+public final class SamplePdfGenerator {
+
+    private static final String LOREM = "Lorem ipsum dolor sit amet consectetur adipiscing elit sed do eiusmod " +
+            "tempor incididunt ut labore et dolore magna aliqua";
+
+    private static final String[] BLEND_MODES = {"Multiply", "Screen", "Overlay", "Darken", "Lighten",
+            "ColorDodge", "ColorBurn", "HardLight", "SoftLight", "Difference", "Exclusion"};
+
+    private SamplePdfGenerator() {
+    }
+
+    /**
+     * Pages of dense left to right text, roughly 5000 glyphs per page.
+     *
+     * @param pages number of pages.
+     * @return pdf bytes.
+     */
+    public static byte[] text(int pages) {
+        PdfBuilder pdf = new PdfBuilder();
+        int font = pdf.add("<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>");
+        String resources = "<< /Font << /F1 " + font + " 0 R >> >>";
+        for (int p = 0; p < pages; p++) {
+            StringBuilder content = new StringBuilder(16 * 1024);
+            content.append("BT /F1 9 Tf 11 TL 36 756 Td\n");
+            for (int line = 0; line < 64; line++) {
+                content.append('(').append(p).append('.').append(line).append(' ').append(LOREM).append(") '\n");
+            }
+            content.append("ET\n");
+            pdf.addPage(resources, pdf.addStream("", content.toString().getBytes(StandardCharsets.US_ASCII), false));
+        }
+        return pdf.toByteArray();
+    }
+
+    /**
+     * Pages of filled and stroked paths with a mix of colours and line widths.
+     *
+     * @param pages number of pages.
+     * @return pdf bytes.
+     */
+    public static byte[] vector(int pages) {
+        PdfBuilder pdf = new PdfBuilder();
+        Random random = new Random(42);
+        for (int p = 0; p < pages; p++) {
+            StringBuilder content = new StringBuilder(64 * 1024);
+            for (int i = 0; i < 2000; i++) {
+                content.append(colour(random)).append(' ').append(colour(random)).append(' ')
+                        .append(colour(random)).append(" rg ");
+                content.append(random.nextInt(4)).append(" w ");
+                int x = random.nextInt(560), y = random.nextInt(740);
+                content.append(x).append(' ').append(y).append(" m ")
+                        .append(x + random.nextInt(60)).append(' ').append(y + random.nextInt(60)).append(' ')
+                        .append(x + random.nextInt(60)).append(' ').append(y - random.nextInt(60)).append(' ')
+                        .append(x + random.nextInt(40)).append(' ').append(y).append(" c h ")
+                        .append(i % 3 == 0 ? "B" : i % 3 == 1 ? "f" : "S").append('\n');
+            }
+            pdf.addPage("<< >>", pdf.addStream("", content.toString().getBytes(StandardCharsets.US_ASCII), true));
+        }
+        return pdf.toByteArray();
+    }
+
+    /**
+     * Pages containing a single Flate encoded 1200x1200 RGB image.
+     *
+     * @param pages number of pages.
+     * @return pdf bytes.
+     */
+    public static byte[] image(int pages) {
+        PdfBuilder pdf = new PdfBuilder();
+        int size = 1200;
+        for (int p = 0; p < pages; p++) {
+            byte[] pixels = new byte[size * size * 3];
+            for (int y = 0, i = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    pixels[i++] = (byte) (x ^ y ^ p);
+                    pixels[i++] = (byte) (x * y >> 6);
+                    pixels[i++] = (byte) (y + p * 16);
+                }
+            }
+            int image = pdf.addStream("/Type /XObject /Subtype /Image /Width " + size + " /Height " + size +
+                    " /ColorSpace /DeviceRGB /BitsPerComponent 8", pixels, true);
+            String resources = "<< /XObject << /Im1 " + image + " 0 R >> >>";
+            pdf.addPage(resources, pdf.addStream("",
+                    "q 540 0 0 540 36 126 cm /Im1 Do Q".getBytes(StandardCharsets.US_ASCII), false));
+        }
+        return pdf.toByteArray();
+    }
+
+    /**
+     * Pages of overlapping semi transparent rectangles cycling through the separable blend modes.
+     *
+     * @param pages number of pages.
+     * @return pdf bytes.
+     */
+    public static byte[] transparency(int pages) {
+        PdfBuilder pdf = new PdfBuilder();
+        StringBuilder gStates = new StringBuilder("<< /ExtGState << ");
+        for (int i = 0; i < BLEND_MODES.length; i++) {
+            int gs = pdf.add("<< /Type /ExtGState /BM /" + BLEND_MODES[i] + " /ca 0.6 /CA 0.6 >>");
+            gStates.append("/GS").append(i).append(' ').append(gs).append(" 0 R ");
+        }
+        String resources = gStates.append(">> >>").toString();
+        Random random = new Random(7);
+        for (int p = 0; p < pages; p++) {
+            StringBuilder content = new StringBuilder(16 * 1024);
+            for (int i = 0; i < 200; i++) {
+                content.append("q /GS").append(i % BLEND_MODES.length).append(" gs ")
+                        .append(colour(random)).append(' ').append(colour(random)).append(' ')
+                        .append(colour(random)).append(" rg ")
+                        .append(random.nextInt(400)).append(' ').append(random.nextInt(600)).append(' ')
+                        .append(50 + random.nextInt(150)).append(' ').append(50 + random.nextInt(150))
+                        .append(" re f Q\n");
+            }
+            pdf.addPage(resources, pdf.addStream("", content.toString().getBytes(StandardCharsets.US_ASCII), true));
+        }
+        return pdf.toByteArray();
+    }
+
+    /**
+     * Pages that all paint the same letterhead form XObject plus a short text body.
+     *
+     * @param pages number of pages.
+     * @return pdf bytes.
+     */
+    public static byte[] forms(int pages) {
+        PdfBuilder pdf = new PdfBuilder();
+        int font = pdf.add("<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica >>");
+        StringBuilder letterhead = new StringBuilder("0.2 0.3 0.6 rg 0 0 612 72 re f ");
+        for (int i = 0; i < 100; i++) {
+            letterhead.append("0.9 g ").append(i * 6).append(" 10 3 52 re f ");
+        }
+        letterhead.append("BT /F1 24 Tf 1 g 36 30 Td (ICEpdf Statement) Tj ET");
+        int form = pdf.addStream("/Type /XObject /Subtype /Form /BBox [0 0 612 72] /Resources << /Font << /F1 " +
+                font + " 0 R >> >>", letterhead.toString().getBytes(StandardCharsets.US_ASCII), true);
+        String resources = "<< /Font << /F1 " + font + " 0 R >> /XObject << /Fm1 " + form + " 0 R >> >>";
+        for (int p = 0; p < pages; p++) {
+            String content = "q 1 0 0 1 0 720 cm /Fm1 Do Q BT /F1 10 Tf 36 680 Td (Page " + p + " " + LOREM +
+                    ") Tj ET q 0.5 0 0 0.5 153 300 cm /Fm1 Do Q";
+            pdf.addPage(resources, pdf.addStream("", content.getBytes(StandardCharsets.US_ASCII), false));
+        }
+        return pdf.toByteArray();
+    }
+
+    // java prints very small floats in scientific notation which isn't valid pdf syntax.
+    private static float colour(Random random) {
+        return random.nextInt(1000) / 1000f;
+    }
+
+    static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            int count = deflater.deflate(buffer);
+            out.write(buffer, 0, count);
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    /**
+     * Minimal writer for a single revision PDF with a classic cross reference table.
+     */
+    private static final class PdfBuilder {
+
+        private final List<byte[]> objects = new ArrayList<>();
+        private final List<Integer> pages = new ArrayList<>();
+
+        PdfBuilder() {
+            // reserve catalog and page tree object numbers.
+            objects.add(null);
+            objects.add(null);
+        }
+
+        int add(String object) {
+            objects.add(object.getBytes(StandardCharsets.US_ASCII));
+            return objects.size();
+        }
+
+        int addStream(String dictionary, byte[] data, boolean compress) {
+            if (compress) {
+                data = deflate(data);
+                dictionary += " /Filter /FlateDecode";
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length + 128);
+            byte[] head = ("<< " + dictionary + " /Length " + data.length + " >>\nstream\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            out.write(head, 0, head.length);
+            out.write(data, 0, data.length);
+            byte[] tail = "\nendstream".getBytes(StandardCharsets.US_ASCII);
+            out.write(tail, 0, tail.length);
+            objects.add(out.toByteArray());
+            return objects.size();
+        }
+
+        void addPage(String resources, int contents) {
+            pages.add(add("<< /Type /Page /Parent 2 0 R /MediaBox [0 0 612 792] /Resources " + resources +
+                    " /Contents " + contents + " 0 R >>"));
+        }
+
+        byte[] toByteArray() {
+            objects.set(0, "<< /Type /Catalog /Pages 2 0 R >>".getBytes(StandardCharsets.US_ASCII));
+            StringBuilder kids = new StringBuilder();
+            for (Integer page : pages) {
+                kids.append(page).append(" 0 R ");
+            }
+            objects.set(1, ("<< /Type /Pages /Count " + pages.size() + " /Kids [" + kids + "] >>")
+                    .getBytes(StandardCharsets.US_ASCII));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(1024 * 1024);
+            write(out, "%PDF-1.7\n%\u00e2\u00e3\u00cf\u00d3\n");
+            long[] offsets = new long[objects.size()];
+            for (int i = 0; i < objects.size(); i++) {
+                offsets[i] = out.size();
+                write(out, (i + 1) + " 0 obj\n");
+                byte[] object = objects.get(i);
+                out.write(object, 0, object.length);
+                write(out, "\nendobj\n");
+            }
+            long xref = out.size();
+            StringBuilder table = new StringBuilder();
+            table.append("xref\n0 ").append(objects.size() + 1).append("\n0000000000 65535 f \n");
+            for (long offset : offsets) {
+                table.append(String.format("%010d 00000 n \n", offset));
+            }
+            table.append("trailer\n<< /Size ").append(objects.size() + 1).append(" /Root 1 0 R >>\nstartxref\n")
+                    .append(xref).append("\n%%EOF\n");
+            write(out, table.toString());
+            return out.toByteArray();
+        }
+
+        private static void write(ByteArrayOutputStream out, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+}
@@ -17,14 +17,13 @@ import org.icepdf.core.exceptions.PDFException;
 import org.icepdf.core.exceptions.PDFSecurityException;
 import org.icepdf.core.pobjects.Document;
 import org.icepdf.core.pobjects.graphics.text.LineText;
-import org.icepdf.core.pobjects.graphics.text.PageText;
+import org.icepdf.core.util.TextExtractor;
 import org.icepdf.ri.util.FontPropertiesManager;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
 
 /**
  * The <code>PageTextExtraction</code> class is an example of how to extract
@@ -61,20 +60,18 @@ public class PageTextExtraction {
             File file = new File("extracted_text.txt");
             FileWriter fileWriter = new FileWriter(file);
 
-            // Get text from the first page of the document, assuming that there
-            // is text to extract.
-            for (int pageNumber = 0, max = document.getNumberOfPages();
-                 pageNumber < max; pageNumber++) {
-                PageText pageText = document.getPageText(pageNumber);
-                System.out.println("Extracting page text: " + pageNumber);
-                if (pageText != null && pageText.getPageLines() != null) {
-                    ArrayList<LineText> pageLines = pageText.getPageLines();
-                    for (LineText lineText : pageLines) {
-                        fileWriter.write(lineText.toString());
-                        fileWriter.write('\n');
-                    }
-                }
-            }
+            // Get the text of all pages, the pages are parsed in parallel and
+            // written in page order.
+            new TextExtractor(document).extract(0, document.getNumberOfPages(),
+                    (pageNumber, pageText) -> {
+                        System.out.println("Extracting page text: " + pageNumber);
+                        if (pageText != null && pageText.getPageLines() != null) {
+                            for (LineText lineText : pageText.getPageLines()) {
+                                fileWriter.write(lineText.toString());
+                                fileWriter.write('\n');
+                            }
+                        }
+                    });
 
             // close the writer
             fileWriter.close();
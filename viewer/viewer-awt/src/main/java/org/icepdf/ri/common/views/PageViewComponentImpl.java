@@ -307,6 +307,8 @@ public class PageViewComponentImpl extends AbstractPageViewComponent implements
         Page currentPage = getPage();
         if (currentPage != null && annotationComponents != null) {
             Graphics2D gg2 = (Graphics2D) g;
+            // annotation components outside of the repaint clip can be skipped.
+            Rectangle clipBounds = gg2.getClipBounds();
             // save draw state.
             AffineTransform prePaintTransform = gg2.getTransform();
             Color oldColor = gg2.getColor();
@@ -327,6 +329,7 @@ public class PageViewComponentImpl extends AbstractPageViewComponent implements
             for (int i = 0; i < annotationComponents.size(); i++) {
                 annotation = annotationComponents.get(i);
                 if (annotation != null && ((Component) annotation).isVisible() &&
+                        (clipBounds == null || isComponentInClip((Component) annotation, clipBounds)) &&
                         !(annotation.getAnnotation() instanceof FreeTextAnnotation
                                 && ((AbstractAnnotationComponent) annotation).isActive()) &&
                         !(annotation.getAnnotation() instanceof TextWidgetAnnotation
@@ -347,6 +350,12 @@ public class PageViewComponentImpl extends AbstractPageViewComponent implements
         }
     }
 
+    private static boolean isComponentInClip(Component component, Rectangle clipBounds) {
+        Rectangle bounds = component.getBounds();
+        bounds.grow(AbstractAnnotationComponent.resizeBoxSize * 2, AbstractAnnotationComponent.resizeBoxSize * 2);
+        return bounds.intersects(clipBounds);
+    }
+
     private void paintDestinations(Graphics g) {
         Page currentPage = getPage();
         if (currentPage != null &&
@@ -132,6 +132,8 @@ public abstract class AbstractAnnotationComponent<T extends Annotation> extends
     // total distance moved on mouse down/up.
     protected Point startOfMousePress;
     protected Point endOfMousePress;
+    // bounds last repainted during a move or resize, used to limit repaints to the dirty area.
+    protected Rectangle lastPaintedBounds;
 
     // context Menu
     protected JPopupMenu contextMenu;
@@ -302,7 +304,7 @@ public abstract class AbstractAnnotationComponent<T extends Annotation> extends
             refreshAnnotationRect();
             if (getParent() != null) {
 //                getParent().validate();
-                getParent().repaint();
+                repaintDirtyBounds();
             }
             resized = false;
             wasResized = true;
@@ -313,6 +315,20 @@ public abstract class AbstractAnnotationComponent<T extends Annotation> extends
     public void paintComponent(Graphics g) {
     }
 
+    /**
+     * Repaints only the parent area covered by the annotation's previous and current bounds, the page buffer
+     * and the other annotations are left alone which keeps moves and resizes interactive on busy pages.
+     */
+    protected void repaintDirtyBounds() {
+        Rectangle dirty = getBounds();
+        if (lastPaintedBounds != null) {
+            dirty = dirty.union(lastPaintedBounds);
+        }
+        lastPaintedBounds = getBounds();
+        dirty.grow(resizeBoxSize * 2, resizeBoxSize * 2);
+        getParent().repaint(dirty.x, dirty.y, dirty.width, dirty.height);
+    }
+
     abstract public void resetAppearanceShapes();
 
     public void mouseMoved(MouseEvent me) {
@@ -391,6 +407,7 @@ public abstract class AbstractAnnotationComponent<T extends Annotation> extends
         }
         startOfMousePress = point;
         endOfMousePress = new Point(point); // need clone not a copy...
+        lastPaintedBounds = getBounds();
 
         // check if there is a mouse down state
         Appearance down = annotation.getAppearances().get(Annotation.APPEARANCE_STREAM_DOWN_KEY);
@@ -588,7 +605,9 @@ public abstract class AbstractAnnotationComponent<T extends Annotation> extends
                 dy = endOfMousePress.getY() - startOfMousePress.getY();
             }
 
-            annotation.resetAppearanceStream(dx, -dy, getToPageSpaceTransform(), true);
+            // rebuild only this annotation's appearance, the page content is left untouched.
+            pageViewComponent.getPage().refreshAnnotationAppearance(
+                    annotation, dx, -dy, getToPageSpaceTransform(), true);
 
             // fire new bounds change event, let the listener handle
             // how to deal with the bound change.
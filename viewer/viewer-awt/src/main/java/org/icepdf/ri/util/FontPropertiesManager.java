@@ -18,6 +18,7 @@ package org.icepdf.ri.util;
 import org.icepdf.core.pobjects.fonts.FontManager;
 import org.icepdf.ri.util.font.FontCache;
 
+import java.io.File;
 import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -96,6 +97,24 @@ public class FontPropertiesManager {
         }
     }
 
+    /**
+     * Reads the default font paths like {@link #readDefaultFontProperties(String...)} but keeps a catalogue of the
+     * fonts found in catalogFile, only font files that are new or have changed since the last read are parsed.
+     * This method does not save any fonts to the backing store.
+     *
+     * @param catalogFile file the font catalogue is kept in.
+     * @param paths       any extra paths that should be read as defined by the end user.
+     */
+    public void readDefaultFontProperties(File catalogFile, String... paths) {
+        try {
+            fontManager.readSystemFonts(paths, catalogFile);
+        } catch (Exception e) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Error reading system fonts path: ", e);
+            }
+        }
+    }
+
     /**
      * Reads the only font paths defined by the param paths.  This method does not save any fonts to the backing store
      * or read system fonts as defined by {@link FontManager#readSystemFonts(String[])}.
@@ -16,9 +16,7 @@
 package org.icepdf.ri.util;
 
 import org.icepdf.core.pobjects.Document;
-import org.icepdf.core.pobjects.Page;
-import org.icepdf.core.pobjects.graphics.text.LineText;
-import org.icepdf.core.pobjects.graphics.text.WordText;
+import org.icepdf.core.util.TextExtractor;
 
 import javax.swing.*;
 import java.awt.*;
@@ -31,6 +29,7 @@ import java.text.Format;
 import java.text.MessageFormat;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -125,41 +124,28 @@ public class TextExtractionTask extends SwingWorker<Void, StringBuilder> {
             fileOutputStream.write(pageNumber);
             fileOutputStream.write(10); // line break
 
-            for (int i = 0; i < document.getNumberOfPages(); i++) {
-                // break if needed
-                if (isCancelled()) {
-                    break;
-                }
-                // Update task information
-                current = i;
-                Object[] messageArguments = {String.valueOf((current + 1)), lengthOfTask, lengthOfTask};
-                dialogMessage = messageDialogFormat.format(messageArguments);
-
-                messageArguments = new Object[]{String.valueOf((current + 1))};
-                pageNumber = messageTextFormat.format(messageArguments);
-
-                fileOutputStream.write(pageNumber);
-                fileOutputStream.write(10); // line break
-
-                Page page = document.getPageTree().getPage(i);
-                List<LineText> pageLines;
-                if (page.isInitiated()) {
-                    // get a pages already initialized text.
-                    pageLines = document.getPageViewText(i).getPageLines();
-                } else {
-                    // grap the text the fastest way possible.
-                    pageLines = document.getPageText(i).getPageLines();
-                }
-                StringBuilder extractedText = null;
-                for (LineText lineText : pageLines) {
-                    extractedText = new StringBuilder();
-                    for (WordText wordText : lineText.getWords()) {
-                        extractedText.append(wordText.getText());
+            try {
+                // pages are parsed in parallel and handed back here in page order.
+                new TextExtractor(document).extract(0, document.getNumberOfPages(), (pageIndex, pageText) -> {
+                    // break if needed
+                    if (isCancelled()) {
+                        throw new CancellationException();
                     }
-                    extractedText.append('\n');
-                    fileOutputStream.write(extractedText.toString());
-                }
-                publish(extractedText);
+                    // Update task information
+                    current = pageIndex;
+                    Object[] messageArguments = {String.valueOf((current + 1)), lengthOfTask, lengthOfTask};
+                    dialogMessage = messageDialogFormat.format(messageArguments);
+
+                    messageArguments = new Object[]{String.valueOf((current + 1))};
+                    fileOutputStream.write(messageTextFormat.format(messageArguments));
+                    fileOutputStream.write(10); // line break
+
+                    String extractedText = TextExtractor.getText(pageText);
+                    fileOutputStream.write(extractedText);
+                    publish(new StringBuilder(extractedText));
+                });
+            } catch (CancellationException e) {
+                // keep the pages written so far.
             }
             current = 0;
             fileOutputStream.flush();